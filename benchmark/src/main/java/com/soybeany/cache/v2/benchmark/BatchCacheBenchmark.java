@@ -0,0 +1,44 @@
+package com.soybeany.cache.v2.benchmark;
+
+import com.soybeany.cache.v2.core.DataManager;
+import com.soybeany.cache.v2.storage.LruMemCacheStorage;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * DataManager.batchCacheData的开销，按批次大小区分
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BatchCacheBenchmark {
+
+    @Param({"10", "100", "1000"})
+    public int batchSize;
+
+    private final Map<String, String> batch = new HashMap<>();
+    private DataManager<String, String> manager;
+
+    @Setup
+    public void setup() {
+        manager = DataManager.Builder
+                .get("benchmark", (String s) -> s)
+                .withCache(new LruMemCacheStorage.Builder<String, String>().capacity(batchSize * 2).build())
+                .withCache(new LruMemCacheStorage.Builder<String, String>().capacity(batchSize * 2).build())
+                .build();
+        for (int i = 0; i < batchSize; i++) {
+            batch.put("key" + i, "data" + i);
+        }
+    }
+
+    @Benchmark
+    public Object batchCacheData() {
+        return manager.batchCacheData(batch);
+    }
+}
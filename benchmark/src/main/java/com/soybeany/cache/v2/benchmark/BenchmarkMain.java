@@ -0,0 +1,33 @@
+package com.soybeany.cache.v2.benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * 性能测试入口
+ * <br>* 不带参数时，按-Dthreads指定的线程数(默认1,4,8)依次执行-Dinclude匹配的测试(默认全部)，并启用gc分析
+ * <br>* 带参数时，与JMH原生的命令行一致，如 -t 4 -prof gc LruStorageBenchmark
+ */
+public class BenchmarkMain {
+
+    public static void main(String[] args) throws Exception {
+        if (args.length > 0) {
+            org.openjdk.jmh.Main.main(args);
+            return;
+        }
+        String include = System.getProperty("include", BenchmarkMain.class.getPackage().getName() + ".*Benchmark");
+        for (String threads : System.getProperty("threads", "1,4,8").split(",")) {
+            Options options = new OptionsBuilder()
+                    .include(include)
+                    .threads(Integer.parseInt(threads.trim()))
+                    .addProfiler(GCProfiler.class)
+                    .resultFormat(ResultFormatType.JSON)
+                    .result("jmh-result-" + threads.trim() + "t.json")
+                    .build();
+            new Runner(options).run();
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.soybeany.cache.v2.benchmark;
+
+import com.soybeany.cache.v2.contract.user.IDatasource;
+import com.soybeany.cache.v2.core.DataManager;
+import com.soybeany.cache.v2.storage.LruMemCacheStorage;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * DataManager.getData的命中与未命中路径，按缓存层数(1~3)区分
+ * <br>* 命中：所有key均已在一级缓存中
+ * <br>* 未命中：使用needStore=false，每次都逐级查找后访问数据源(数据源无耗时，只体现框架开销)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DataManagerBenchmark {
+
+    private static final int KEY_COUNT = 1024;
+
+    @Param({"1", "2", "3"})
+    public int tiers;
+
+    private final IDatasource<String, String> datasource = s -> s;
+    private final String[] keys = new String[KEY_COUNT];
+    private DataManager<String, String> manager;
+
+    @Setup
+    public void setup() {
+        DataManager.Builder<String, String> builder = DataManager.Builder.get("benchmark", datasource);
+        for (int i = 0; i < tiers; i++) {
+            builder.withCache(new LruMemCacheStorage.Builder<String, String>().capacity(KEY_COUNT * 2).build());
+        }
+        manager = builder.build();
+        for (int i = 0; i < KEY_COUNT; i++) {
+            keys[i] = "key" + i;
+            manager.getData(keys[i]);
+        }
+    }
+
+    @Benchmark
+    public String hit() {
+        return manager.getData(keys[ThreadLocalRandom.current().nextInt(KEY_COUNT)]);
+    }
+
+    @Benchmark
+    public Object miss() {
+        return manager.getDataPack("miss" + ThreadLocalRandom.current().nextInt(KEY_COUNT), datasource, false);
+    }
+}
@@ -0,0 +1,70 @@
+package com.soybeany.cache.v2.benchmark;
+
+import com.google.gson.reflect.TypeToken;
+import com.soybeany.cache.v2.model.DataCore;
+import org.openjdk.jmh.annotations.*;
+
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 深拷贝(LruMemCacheStorage.deepCopy)所使用的DataCore.toJson/fromJson，按数据大小区分
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DeepCopyBenchmark {
+
+    private static final Type TYPE = new TypeToken<List<Item>>() {
+    }.getType();
+
+    @Param({"1", "100"})
+    public int size;
+
+    private DataCore<List<Item>> dataCore;
+    private String json;
+
+    @Setup
+    public void setup() {
+        List<Item> items = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            items.add(new Item(i, "name" + i, i * 1.5));
+        }
+        dataCore = DataCore.fromData(items);
+        json = DataCore.toJson(dataCore);
+    }
+
+    @Benchmark
+    public String toJson() {
+        return DataCore.toJson(dataCore);
+    }
+
+    @Benchmark
+    public DataCore<List<Item>> fromJson() throws ClassNotFoundException {
+        return DataCore.fromJson(json, TYPE);
+    }
+
+    @Benchmark
+    public DataCore<List<Item>> roundTrip() throws ClassNotFoundException {
+        return DataCore.fromJson(DataCore.toJson(dataCore), TYPE);
+    }
+
+    // ***********************内部类****************************
+
+    public static class Item {
+        public int id;
+        public String name;
+        public double value;
+
+        public Item(int id, String name, double value) {
+            this.id = id;
+            this.name = name;
+            this.value = value;
+        }
+    }
+}
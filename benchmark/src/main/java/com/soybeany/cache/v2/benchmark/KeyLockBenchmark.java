@@ -0,0 +1,43 @@
+package com.soybeany.cache.v2.benchmark;
+
+import com.soybeany.cache.v2.storage.StdKeyLock;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * StdKeyLock的加解锁开销
+ * <br>* hotKey=true：所有线程竞争同一个key
+ * <br>* hotKey=false：各线程使用不同的key，只体现锁表与等待线程登记的开销
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class KeyLockBenchmark {
+
+    private static final int KEY_COUNT = 1024;
+
+    @Param({"true", "false"})
+    public boolean hotKey;
+
+    private final StdKeyLock lock = new StdKeyLock("benchmark", k -> 30 * 1000L);
+    private final String[] keys = new String[KEY_COUNT];
+
+    @Setup
+    public void setup() {
+        for (int i = 0; i < KEY_COUNT; i++) {
+            keys[i] = "key" + i;
+        }
+    }
+
+    @Benchmark
+    public void lockAndUnlock() {
+        String key = hotKey ? keys[0] : keys[ThreadLocalRandom.current().nextInt(KEY_COUNT)];
+        lock.onTryLock(key);
+        lock.onUnlock(key);
+    }
+}
@@ -0,0 +1,80 @@
+package com.soybeany.cache.v2.benchmark;
+
+import com.soybeany.cache.v2.model.DataContext;
+import com.soybeany.cache.v2.model.DataCore;
+import com.soybeany.cache.v2.model.DataPack;
+import com.soybeany.cache.v2.model.DataParam;
+import com.soybeany.cache.v2.storage.LruMemCacheStorage;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * LruMemCacheStorage的锁竞争
+ * <br>* mixed：每组3读1写，观察读多写少时读取与写入的相互影响
+ * <br>* readOnly：每组4读，读取只持有读锁并记录访问，吞吐量应随线程数增长
+ */
+@State(Scope.Group)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LruStorageBenchmark {
+
+    private static final int KEY_COUNT = 4096;
+
+    @Param({"1024", "8192"})
+    public int capacity;
+
+    private final DataParam<String>[] params = newParams();
+    private final DataPack<String> dataPack = new DataPack<>(DataCore.fromData("data"), this, Long.MAX_VALUE);
+    private LruMemCacheStorage<String, String> storage;
+
+    @Setup
+    public void setup() {
+        storage = new LruMemCacheStorage.Builder<String, String>().capacity(capacity).build();
+        storage.onInit(new DataContext("benchmark", "benchmark", null));
+        for (DataParam<String> param : params) {
+            storage.onCacheData(param, dataPack);
+        }
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(3)
+    public DataPack<String> read() {
+        return storage.onFindCache(randomParam());
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(1)
+    public DataPack<String> write() {
+        return storage.onCacheData(randomParam(), dataPack);
+    }
+
+    @Benchmark
+    @Group("readOnly")
+    @GroupThreads(4)
+    public DataPack<String> readOnly() {
+        return storage.onFindCache(randomParam());
+    }
+
+    // ***********************内部方法****************************
+
+    private DataParam<String> randomParam() {
+        return params[ThreadLocalRandom.current().nextInt(KEY_COUNT)];
+    }
+
+    @SuppressWarnings("unchecked")
+    private static DataParam<String>[] newParams() {
+        DataParam<String>[] params = new DataParam[KEY_COUNT];
+        for (int i = 0; i < KEY_COUNT; i++) {
+            String key = "key" + i;
+            params[i] = new DataParam<>(key, key, key);
+        }
+        return params;
+    }
+}
@@ -0,0 +1,73 @@
+package com.soybeany.cache.v2.benchmark.simulator;
+
+/**
+ * ARC(Megiddo & Modha)，在“最近”(T1)与“频繁”(T2)之间自适应地分配容量
+ * <br>* B1、B2为两者淘汰出的幽灵key(只记录key)，命中幽灵key时调整目标大小p
+ */
+public class ArcPolicy implements IEvictionPolicy {
+
+    private static final int T1 = 0;
+    private static final int T2 = 1;
+    private static final int B1 = 2;
+    private static final int B2 = 3;
+
+    private final int capacity;
+    private final LinkedKeys keys;
+    private int p;
+
+    public ArcPolicy(int capacity) {
+        this.capacity = Math.max(capacity, 1);
+        this.keys = new LinkedKeys(2 * this.capacity + 1, 4);
+    }
+
+    @Override
+    public boolean access(long key) {
+        int node = keys.find(key);
+        if (LinkedKeys.NONE != node) {
+            switch (keys.listOf(node)) {
+                case T1:
+                case T2:
+                    keys.moveToFront(T2, node);
+                    return true;
+                case B1:
+                    p = Math.min(capacity, p + Math.max(keys.size(B2) / keys.size(B1), 1));
+                    replace(false);
+                    keys.moveToFront(T2, node);
+                    return false;
+                default:
+                    p = Math.max(0, p - Math.max(keys.size(B1) / keys.size(B2), 1));
+                    replace(true);
+                    keys.moveToFront(T2, node);
+                    return false;
+            }
+        }
+        int l1 = keys.size(T1) + keys.size(B1);
+        int total = l1 + keys.size(T2) + keys.size(B2);
+        if (l1 >= capacity) {
+            if (keys.size(T1) < capacity) {
+                keys.delete(keys.last(B1));
+                replace(false);
+            } else {
+                keys.delete(keys.last(T1));
+            }
+        } else if (total >= capacity) {
+            if (total >= 2 * capacity) {
+                keys.delete(keys.last(B2));
+            }
+            replace(false);
+        }
+        keys.add(T1, key);
+        return false;
+    }
+
+    // ***********************内部方法****************************
+
+    private void replace(boolean hitInB2) {
+        int t1 = keys.size(T1);
+        if (t1 > 0 && (t1 > p || (hitInB2 && t1 == p) || 0 == keys.size(T2))) {
+            keys.moveToFront(B1, keys.last(T1));
+        } else if (keys.size(T2) > 0) {
+            keys.moveToFront(B2, keys.last(T2));
+        }
+    }
+}
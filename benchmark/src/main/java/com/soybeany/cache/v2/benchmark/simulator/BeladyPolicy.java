@@ -0,0 +1,138 @@
+package com.soybeany.cache.v2.benchmark.simulator;
+
+import java.util.Arrays;
+
+/**
+ * Belady的最优策略(MIN)，作为命中率的理论上限
+ * <br>* 需预知整个轨迹，淘汰下次访问最远的key；新key的下次访问比所有已缓存的key都远时不放入
+ * <br>* 使用带延迟删除的最大堆，堆中过时的条目在出堆时跳过
+ */
+public class BeladyPolicy implements IEvictionPolicy {
+
+    private static final int NEVER = Integer.MAX_VALUE;
+
+    private final int capacity;
+    private final long[] trace;
+    private final int[] nextAccess;
+    /**
+     * 已缓存的key → 其下次访问的位置
+     */
+    private final LongIntMap cached;
+    private int[] heapNext;
+    private long[] heapKeys;
+    private int heapSize;
+    private int position;
+
+    public BeladyPolicy(int capacity, long[] trace) {
+        this.capacity = Math.max(capacity, 1);
+        this.trace = trace;
+        this.nextAccess = computeNextAccess(trace);
+        this.cached = new LongIntMap(this.capacity);
+        this.heapNext = new int[this.capacity * 2 + 2];
+        this.heapKeys = new long[heapNext.length];
+    }
+
+    /**
+     * 需按轨迹的顺序依次访问
+     */
+    @Override
+    public boolean access(long key) {
+        int pos = position++;
+        if (trace[pos] != key) {
+            throw new IllegalStateException("Belady策略需按轨迹的顺序访问");
+        }
+        int next = nextAccess[pos];
+        if (-1 != cached.get(key)) {
+            cached.put(key, next);
+            push(next, key);
+            return true;
+        }
+        if (cached.size() >= capacity) {
+            popStale();
+            // 新key的下次访问最远，直接跳过
+            if (next >= heapNext[0]) {
+                return false;
+            }
+            cached.remove(heapKeys[0]);
+            pop();
+        }
+        cached.put(key, next);
+        push(next, key);
+        return false;
+    }
+
+    // ***********************内部方法****************************
+
+    private static int[] computeNextAccess(long[] trace) {
+        int[] next = new int[trace.length];
+        LongIntMap lastSeen = new LongIntMap(1024);
+        for (int i = trace.length - 1; i >= 0; i--) {
+            int seen = lastSeen.get(trace[i]);
+            next[i] = -1 == seen ? NEVER : seen;
+            lastSeen.put(trace[i], i);
+        }
+        return next;
+    }
+
+    /**
+     * 弹出堆顶的过时条目(key已被淘汰，或已有更新的下次访问位置)
+     */
+    private void popStale() {
+        while (heapSize > 0 && cached.get(heapKeys[0]) != heapNext[0]) {
+            pop();
+        }
+    }
+
+    private void push(int next, long key) {
+        if (heapSize == heapNext.length) {
+            // 过时条目过多时重建，否则扩容
+            if (cached.size() * 2 < heapSize) {
+                rebuild();
+            } else {
+                heapNext = Arrays.copyOf(heapNext, heapSize * 2);
+                heapKeys = Arrays.copyOf(heapKeys, heapSize * 2);
+            }
+        }
+        int i = heapSize++;
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (heapNext[parent] >= next) {
+                break;
+            }
+            heapNext[i] = heapNext[parent];
+            heapKeys[i] = heapKeys[parent];
+            i = parent;
+        }
+        heapNext[i] = next;
+        heapKeys[i] = key;
+    }
+
+    private void pop() {
+        int last = --heapSize;
+        int next = heapNext[last];
+        long key = heapKeys[last];
+        int i = 0;
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= heapSize) {
+                break;
+            }
+            if (child + 1 < heapSize && heapNext[child + 1] > heapNext[child]) {
+                child++;
+            }
+            if (heapNext[child] <= next) {
+                break;
+            }
+            heapNext[i] = heapNext[child];
+            heapKeys[i] = heapKeys[child];
+            i = child;
+        }
+        heapNext[i] = next;
+        heapKeys[i] = key;
+    }
+
+    private void rebuild() {
+        heapSize = 0;
+        cached.forEach((key, next) -> push(next, key));
+    }
+}
@@ -0,0 +1,48 @@
+package com.soybeany.cache.v2.benchmark.simulator;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * 淘汰策略模拟器，单线程按顺序回放轨迹
+ */
+public class EvictionSimulator {
+
+    public static SimulationResult run(long[] trace, PolicyType type, int capacity) {
+        IEvictionPolicy policy = type.create(capacity, trace);
+        long hits = 0;
+        long start = System.nanoTime();
+        for (long key : trace) {
+            if (policy.access(key)) {
+                hits++;
+            }
+        }
+        return new SimulationResult(type, capacity, trace.length, hits, System.nanoTime() - start);
+    }
+
+    /**
+     * 对每个容量执行每个策略
+     *
+     * @param parallel 是否并行执行(每组模拟相互独立)
+     */
+    public static List<SimulationResult> sweep(long[] trace, List<PolicyType> policies, int[] capacities, boolean parallel) {
+        List<Runnable> tasks = new ArrayList<>();
+        List<SimulationResult> results = new ArrayList<>();
+        for (int capacity : capacities) {
+            for (PolicyType policy : policies) {
+                tasks.add(() -> {
+                    SimulationResult result = run(trace, policy, capacity);
+                    synchronized (results) {
+                        results.add(result);
+                    }
+                });
+            }
+        }
+        (parallel ? tasks.parallelStream() : tasks.stream()).forEach(Runnable::run);
+        return results.stream().collect(Collectors.toList());
+    }
+
+    private EvictionSimulator() {
+    }
+}
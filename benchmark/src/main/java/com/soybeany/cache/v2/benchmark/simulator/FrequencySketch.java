@@ -0,0 +1,62 @@
+package com.soybeany.cache.v2.benchmark.simulator;
+
+/**
+ * 用于TinyLFU的Count-Min频次估计(4行，计数上限15)
+ * <br>* 累计记录数达到容量的10倍时，所有计数减半，使频次随时间衰减
+ */
+final class FrequencySketch {
+
+    private static final long[] SEEDS = {0x9E3779B97F4A7C15L, 0xC2B2AE3D27D4EB4FL, 0x165667B19E3779F9L, 0xD6E8FEB86659FD93L};
+    private static final int MAX_COUNT = 15;
+
+    private final byte[][] rows = new byte[SEEDS.length][];
+    private final int mask;
+    private final int sampleSize;
+    private int additions;
+
+    FrequencySketch(int capacity) {
+        int width = Integer.highestOneBit(Math.max(capacity, 32) - 1) << 1;
+        for (int i = 0; i < rows.length; i++) {
+            rows[i] = new byte[width];
+        }
+        this.mask = width - 1;
+        this.sampleSize = 10 * Math.max(capacity, 32);
+    }
+
+    void increment(long key) {
+        boolean added = false;
+        for (int i = 0; i < rows.length; i++) {
+            int index = indexOf(key, i);
+            if (rows[i][index] < MAX_COUNT) {
+                rows[i][index]++;
+                added = true;
+            }
+        }
+        if (added && ++additions >= sampleSize) {
+            reset();
+        }
+    }
+
+    int frequency(long key) {
+        int frequency = MAX_COUNT;
+        for (int i = 0; i < rows.length; i++) {
+            frequency = Math.min(frequency, rows[i][indexOf(key, i)]);
+        }
+        return frequency;
+    }
+
+    // ***********************内部方法****************************
+
+    private int indexOf(long key, int row) {
+        return (int) ((key * SEEDS[row]) >>> 32) & mask;
+    }
+
+    private void reset() {
+        for (byte[] row : rows) {
+            for (int i = 0; i < row.length; i++) {
+                row[i] >>= 1;
+            }
+        }
+        additions >>= 1;
+    }
+}
@@ -0,0 +1,15 @@
+package com.soybeany.cache.v2.benchmark.simulator;
+
+/**
+ * 模拟器中的淘汰策略，只模拟key的进出，不存储数据
+ */
+public interface IEvictionPolicy {
+
+    /**
+     * 访问一个key，未命中时按策略决定是否放入并淘汰
+     *
+     * @return 是否命中
+     */
+    boolean access(long key);
+
+}
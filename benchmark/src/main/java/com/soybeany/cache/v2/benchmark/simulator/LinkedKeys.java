@@ -0,0 +1,137 @@
+package com.soybeany.cache.v2.benchmark.simulator;
+
+import java.util.Arrays;
+
+/**
+ * 基于数组的多条双向链表，所有链表共用一个节点池与key索引
+ * <br>* 链表头为最新(MRU)，链表尾为最旧(LRU/FIFO的出队端)
+ * <br>* 节点数在构建时固定，操作均为O(1)且不产生对象
+ */
+final class LinkedKeys {
+
+    static final int NONE = -1;
+
+    private final long[] keys;
+    private final int[] prev;
+    private final int[] next;
+    private final byte[] lists;
+    /**
+     * 节点的附加计数(如访问频次)，由各策略自行使用
+     */
+    final byte[] counters;
+
+    private final int[] heads;
+    private final int[] tails;
+    private final int[] sizes;
+
+    private final int[] freeNodes;
+    private int freeCount;
+    private final LongIntMap index;
+
+    LinkedKeys(int nodeCapacity, int listCount) {
+        nodeCapacity = Math.max(nodeCapacity, 1);
+        keys = new long[nodeCapacity];
+        prev = new int[nodeCapacity];
+        next = new int[nodeCapacity];
+        lists = new byte[nodeCapacity];
+        counters = new byte[nodeCapacity];
+        heads = new int[listCount];
+        tails = new int[listCount];
+        sizes = new int[listCount];
+        Arrays.fill(heads, NONE);
+        Arrays.fill(tails, NONE);
+        freeNodes = new int[nodeCapacity];
+        for (int i = 0; i < nodeCapacity; i++) {
+            freeNodes[i] = nodeCapacity - 1 - i;
+        }
+        freeCount = nodeCapacity;
+        index = new LongIntMap(nodeCapacity);
+    }
+
+    /**
+     * @return key所在的节点，不存在时返回{@link #NONE}
+     */
+    int find(long key) {
+        return index.get(key);
+    }
+
+    long keyOf(int node) {
+        return keys[node];
+    }
+
+    int listOf(int node) {
+        return lists[node];
+    }
+
+    int size(int list) {
+        return sizes[list];
+    }
+
+    /**
+     * @return 链表尾(最旧)的节点，链表为空时返回{@link #NONE}
+     */
+    int last(int list) {
+        return tails[list];
+    }
+
+    /**
+     * 新增key到指定链表的头部
+     */
+    int add(int list, long key) {
+        if (0 == freeCount) {
+            throw new IllegalStateException("节点池已满");
+        }
+        int node = freeNodes[--freeCount];
+        keys[node] = key;
+        counters[node] = 0;
+        index.put(key, node);
+        linkFirst(list, node);
+        return node;
+    }
+
+    /**
+     * 把节点移到指定链表(可与当前链表相同)的头部
+     */
+    void moveToFront(int list, int node) {
+        unlink(node);
+        linkFirst(list, node);
+    }
+
+    void delete(int node) {
+        unlink(node);
+        index.remove(keys[node]);
+        freeNodes[freeCount++] = node;
+    }
+
+    // ***********************内部方法****************************
+
+    private void linkFirst(int list, int node) {
+        int head = heads[list];
+        lists[node] = (byte) list;
+        prev[node] = NONE;
+        next[node] = head;
+        if (NONE == head) {
+            tails[list] = node;
+        } else {
+            prev[head] = node;
+        }
+        heads[list] = node;
+        sizes[list]++;
+    }
+
+    private void unlink(int node) {
+        int list = lists[node];
+        int p = prev[node], n = next[node];
+        if (NONE == p) {
+            heads[list] = n;
+        } else {
+            next[p] = n;
+        }
+        if (NONE == n) {
+            tails[list] = p;
+        } else {
+            prev[n] = p;
+        }
+        sizes[list]--;
+    }
+}
@@ -0,0 +1,125 @@
+package com.soybeany.cache.v2.benchmark.simulator;
+
+import java.util.Arrays;
+
+/**
+ * long→int的开放寻址散列表(线性探测，删除时回移)，值必须为非负数
+ * <br>* 不装箱，用于模拟器中key到节点的映射
+ */
+final class LongIntMap {
+
+    private static final int EMPTY = -1;
+
+    private long[] keys;
+    private int[] values;
+    private int mask;
+    private int size;
+
+    LongIntMap(int expectedSize) {
+        allocate(tableSizeFor(Math.max(expectedSize, 8) * 2));
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * @return 对应的值，不存在时返回-1
+     */
+    int get(long key) {
+        for (int i = indexOf(key); ; i = (i + 1) & mask) {
+            int value = values[i];
+            if (EMPTY == value || keys[i] == key) {
+                return value;
+            }
+        }
+    }
+
+    void put(long key, int value) {
+        int i = indexOf(key);
+        while (EMPTY != values[i]) {
+            if (keys[i] == key) {
+                values[i] = value;
+                return;
+            }
+            i = (i + 1) & mask;
+        }
+        keys[i] = key;
+        values[i] = value;
+        if (++size * 2 > values.length) {
+            rehash();
+        }
+    }
+
+    /**
+     * @return 被移除的值，不存在时返回-1
+     */
+    int remove(long key) {
+        int i = indexOf(key);
+        while (keys[i] != key) {
+            if (EMPTY == values[i]) {
+                return EMPTY;
+            }
+            i = (i + 1) & mask;
+        }
+        if (EMPTY == values[i]) {
+            return EMPTY;
+        }
+        int removed = values[i];
+        // 把后续同一探测链上的元素回移，保证查找不中断
+        for (int j = (i + 1) & mask; EMPTY != values[j]; j = (j + 1) & mask) {
+            int home = indexOf(keys[j]);
+            if (((j - home) & mask) >= ((j - i) & mask)) {
+                keys[i] = keys[j];
+                values[i] = values[j];
+                i = j;
+            }
+        }
+        values[i] = EMPTY;
+        size--;
+        return removed;
+    }
+
+    void forEach(Consumer consumer) {
+        for (int i = 0; i < values.length; i++) {
+            if (EMPTY != values[i]) {
+                consumer.accept(keys[i], values[i]);
+            }
+        }
+    }
+
+    // ***********************内部方法****************************
+
+    private int indexOf(long key) {
+        return (int) ((key * 0x9E3779B97F4A7C15L) >>> 32) & mask;
+    }
+
+    private void rehash() {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        allocate(values.length * 2);
+        size = 0;
+        for (int i = 0; i < oldValues.length; i++) {
+            if (EMPTY != oldValues[i]) {
+                put(oldKeys[i], oldValues[i]);
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new int[capacity];
+        Arrays.fill(values, EMPTY);
+        mask = capacity - 1;
+    }
+
+    private static int tableSizeFor(int n) {
+        return Integer.highestOneBit(n - 1) << 1;
+    }
+
+    // ***********************内部类****************************
+
+    interface Consumer {
+        void accept(long key, int value);
+    }
+}
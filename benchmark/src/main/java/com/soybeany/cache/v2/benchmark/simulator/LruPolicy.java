@@ -0,0 +1,29 @@
+package com.soybeany.cache.v2.benchmark.simulator;
+
+/**
+ * LRU，与LruMemCacheStorage的淘汰方式一致(按访问顺序，超出容量时淘汰最久未访问的)
+ */
+public class LruPolicy implements IEvictionPolicy {
+
+    private final int capacity;
+    private final LinkedKeys keys;
+
+    public LruPolicy(int capacity) {
+        this.capacity = Math.max(capacity, 1);
+        this.keys = new LinkedKeys(this.capacity + 1, 1);
+    }
+
+    @Override
+    public boolean access(long key) {
+        int node = keys.find(key);
+        if (LinkedKeys.NONE != node) {
+            keys.moveToFront(0, node);
+            return true;
+        }
+        keys.add(0, key);
+        if (keys.size(0) > capacity) {
+            keys.delete(keys.last(0));
+        }
+        return false;
+    }
+}
@@ -0,0 +1,33 @@
+package com.soybeany.cache.v2.benchmark.simulator;
+
+import com.soybeany.cache.v2.model.DataContext;
+import com.soybeany.cache.v2.model.DataCore;
+import com.soybeany.cache.v2.model.DataPack;
+import com.soybeany.cache.v2.model.DataParam;
+import com.soybeany.cache.v2.storage.LruMemCacheStorage;
+
+/**
+ * 直接使用LruMemCacheStorage回放，用于校验{@link LruPolicy}与实际存储器的一致性
+ * <br>* 每次访问都会创建key字符串与DataParam，速度远低于其它策略
+ */
+public class LruStoragePolicy implements IEvictionPolicy {
+
+    private final LruMemCacheStorage<String, Boolean> storage;
+    private final DataPack<Boolean> dataPack = new DataPack<>(DataCore.fromData(true), this, Long.MAX_VALUE);
+
+    public LruStoragePolicy(int capacity) {
+        storage = new LruMemCacheStorage.Builder<String, Boolean>().capacity(Math.max(capacity, 1)).build();
+        storage.onInit(new DataContext("simulator", "simulator", null));
+    }
+
+    @Override
+    public boolean access(long key) {
+        String paramKey = Long.toHexString(key);
+        DataParam<String> param = new DataParam<>(paramKey, paramKey, paramKey);
+        if (null != storage.onFindCache(param)) {
+            return true;
+        }
+        storage.onCacheData(param, dataPack);
+        return false;
+    }
+}
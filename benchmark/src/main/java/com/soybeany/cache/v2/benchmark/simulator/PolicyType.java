@@ -0,0 +1,48 @@
+package com.soybeany.cache.v2.benchmark.simulator;
+
+/**
+ * 模拟器支持的淘汰策略
+ */
+public enum PolicyType {
+    LRU {
+        @Override
+        public IEvictionPolicy create(int capacity, long[] trace) {
+            return new LruPolicy(capacity);
+        }
+    },
+    LRU_STORAGE {
+        @Override
+        public IEvictionPolicy create(int capacity, long[] trace) {
+            return new LruStoragePolicy(capacity);
+        }
+    },
+    TINY_LFU {
+        @Override
+        public IEvictionPolicy create(int capacity, long[] trace) {
+            return new TinyLfuPolicy(capacity);
+        }
+    },
+    ARC {
+        @Override
+        public IEvictionPolicy create(int capacity, long[] trace) {
+            return new ArcPolicy(capacity);
+        }
+    },
+    S3_FIFO {
+        @Override
+        public IEvictionPolicy create(int capacity, long[] trace) {
+            return new S3FifoPolicy(capacity);
+        }
+    },
+    BELADY {
+        @Override
+        public IEvictionPolicy create(int capacity, long[] trace) {
+            return new BeladyPolicy(capacity, trace);
+        }
+    };
+
+    /**
+     * @param trace 完整的轨迹，只有需要预知未来的策略使用
+     */
+    public abstract IEvictionPolicy create(int capacity, long[] trace);
+}
@@ -0,0 +1,93 @@
+package com.soybeany.cache.v2.benchmark.simulator;
+
+/**
+ * S3-FIFO(Yang等人，SOSP'23)，由三个FIFO队列组成
+ * <br>* 新key进入10%的小队列S，在S中被再次访问过2次以上的才进入90%的主队列M，否则进入幽灵队列G
+ * <br>* 命中G的key直接进入M；M中淘汰时，访问过的key(频次减1)重新入队
+ */
+public class S3FifoPolicy implements IEvictionPolicy {
+
+    private static final int SMALL = 0;
+    private static final int MAIN = 1;
+    private static final int GHOST = 2;
+    private static final int MAX_FREQ = 3;
+
+    private final int capacity;
+    private final int smallCapacity;
+    private final int ghostCapacity;
+    private final LinkedKeys keys;
+
+    public S3FifoPolicy(int capacity) {
+        this.capacity = Math.max(capacity, 1);
+        this.smallCapacity = Math.max(this.capacity / 10, 1);
+        this.ghostCapacity = Math.max(this.capacity - smallCapacity, 1);
+        this.keys = new LinkedKeys(this.capacity + ghostCapacity + 1, 3);
+    }
+
+    @Override
+    public boolean access(long key) {
+        int node = keys.find(key);
+        if (LinkedKeys.NONE != node && GHOST != keys.listOf(node)) {
+            if (keys.counters[node] < MAX_FREQ) {
+                keys.counters[node]++;
+            }
+            return true;
+        }
+        while (keys.size(SMALL) + keys.size(MAIN) >= capacity) {
+            evict();
+        }
+        if (LinkedKeys.NONE != node) {
+            // 幽灵key可能已在淘汰过程中被移除
+            node = keys.find(key);
+        }
+        if (LinkedKeys.NONE != node) {
+            keys.moveToFront(MAIN, node);
+            keys.counters[node] = 0;
+        } else {
+            keys.add(SMALL, key);
+        }
+        return false;
+    }
+
+    // ***********************内部方法****************************
+
+    private void evict() {
+        if (keys.size(SMALL) >= smallCapacity || 0 == keys.size(MAIN)) {
+            evictSmall();
+        } else {
+            evictMain();
+        }
+    }
+
+    private void evictSmall() {
+        while (keys.size(SMALL) > 0) {
+            int node = keys.last(SMALL);
+            if (keys.counters[node] > 1) {
+                keys.moveToFront(MAIN, node);
+                keys.counters[node] = 0;
+                if (keys.size(MAIN) > capacity - smallCapacity) {
+                    evictMain();
+                }
+                continue;
+            }
+            keys.moveToFront(GHOST, node);
+            if (keys.size(GHOST) > ghostCapacity) {
+                keys.delete(keys.last(GHOST));
+            }
+            return;
+        }
+    }
+
+    private void evictMain() {
+        while (keys.size(MAIN) > 0) {
+            int node = keys.last(MAIN);
+            if (keys.counters[node] > 0) {
+                keys.counters[node]--;
+                keys.moveToFront(MAIN, node);
+                continue;
+            }
+            keys.delete(node);
+            return;
+        }
+    }
+}
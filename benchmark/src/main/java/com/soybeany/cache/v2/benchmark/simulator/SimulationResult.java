@@ -0,0 +1,35 @@
+package com.soybeany.cache.v2.benchmark.simulator;
+
+/**
+ * 单个策略在单个容量下的模拟结果
+ */
+public class SimulationResult {
+
+    public final PolicyType policy;
+    public final int capacity;
+    public final long eventCount;
+    public final long hitCount;
+    public final long elapsedNanos;
+
+    public SimulationResult(PolicyType policy, int capacity, long eventCount, long hitCount, long elapsedNanos) {
+        this.policy = policy;
+        this.capacity = capacity;
+        this.eventCount = eventCount;
+        this.hitCount = hitCount;
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    public double hitRate() {
+        return 0 == eventCount ? 0 : (double) hitCount / eventCount;
+    }
+
+    public double eventsPerSecond() {
+        return 0 == elapsedNanos ? 0 : eventCount * 1e9 / elapsedNanos;
+    }
+
+    @Override
+    public String toString() {
+        return policy + "(容量" + capacity + "): 命中率" + String.format("%.2f%%", hitRate() * 100)
+                + "，" + String.format("%.2f", eventsPerSecond() / 1e6) + "百万次/秒";
+    }
+}
@@ -0,0 +1,79 @@
+package com.soybeany.cache.v2.benchmark.simulator;
+
+import com.soybeany.cache.v2.benchmark.workload.Distribution;
+import com.soybeany.cache.v2.benchmark.workload.ZipfianGenerator;
+
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * 淘汰策略模拟器的入口，用轨迹回放比较各策略在不同容量下的命中率，参数为key=value形式
+ * <br>* trace=文件：回放AccessTraceRecorder的轨迹；未指定时使用合成轨迹(distribution、records、events、zipfTheta、scanLength)
+ * <br>* capacities=100,1000：容量列表；未指定时按不同key数目的0.5%~50%取7档
+ * <br>* policies=lru,tiny_lfu：策略列表，默认lru,tiny_lfu,arc,s3_fifo,belady
+ * <br>* parallel=true：并行执行各组模拟(此时吞吐量仅供参考)
+ */
+public class SimulatorMain {
+
+    private static final double[] DEFAULT_CAPACITY_RATIOS = {0.005, 0.01, 0.02, 0.05, 0.1, 0.2, 0.5};
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> props = new HashMap<>();
+        for (String arg : args) {
+            int index = arg.indexOf('=');
+            if (index <= 0) {
+                throw new IllegalArgumentException("参数“" + arg + "”需为key=value形式");
+            }
+            props.put(arg.substring(0, index).trim(), arg.substring(index + 1).trim());
+        }
+        long[] trace = props.containsKey("trace")
+                ? TraceSources.fromFile(Paths.get(props.get("trace")))
+                : TraceSources.synthetic(
+                Distribution.valueOf(props.getOrDefault("distribution", "zipfian").toUpperCase()),
+                Long.parseLong(props.getOrDefault("records", "1000000")),
+                Integer.parseInt(props.getOrDefault("events", "10000000")),
+                Double.parseDouble(props.getOrDefault("zipfTheta", String.valueOf(ZipfianGenerator.DEFAULT_THETA))),
+                Integer.parseInt(props.getOrDefault("scanLength", "100")));
+        int distinct = TraceSources.distinctCount(trace);
+        List<PolicyType> policies = Arrays.stream(props.getOrDefault("policies", "lru,tiny_lfu,arc,s3_fifo,belady").split(","))
+                .map(name -> PolicyType.valueOf(name.trim().toUpperCase()))
+                .collect(Collectors.toList());
+        int[] capacities = props.containsKey("capacities")
+                ? Arrays.stream(props.get("capacities").split(",")).mapToInt(s -> Integer.parseInt(s.trim())).toArray()
+                : Arrays.stream(DEFAULT_CAPACITY_RATIOS).mapToInt(r -> Math.max((int) (distinct * r), 1)).distinct().toArray();
+        System.out.println("轨迹: " + trace.length + "次访问，" + distinct + "个不同的key");
+
+        List<SimulationResult> results = EvictionSimulator.sweep(trace, policies, capacities, Boolean.parseBoolean(props.get("parallel")));
+        print(results, policies, capacities);
+    }
+
+    // ***********************内部方法****************************
+
+    private static void print(List<SimulationResult> results, List<PolicyType> policies, int[] capacities) {
+        StringBuilder header = new StringBuilder(String.format("%10s", "容量"));
+        policies.forEach(policy -> header.append(String.format("%14s", policy)));
+        System.out.println("命中率(%):");
+        System.out.println(header);
+        for (int capacity : capacities) {
+            StringBuilder line = new StringBuilder(String.format("%10d", capacity));
+            for (PolicyType policy : policies) {
+                line.append(String.format("%14.2f", find(results, policy, capacity).hitRate() * 100));
+            }
+            System.out.println(line);
+        }
+        System.out.println("吞吐量(百万次/秒):");
+        System.out.println(header);
+        for (int capacity : capacities) {
+            StringBuilder line = new StringBuilder(String.format("%10d", capacity));
+            for (PolicyType policy : policies) {
+                line.append(String.format("%14.2f", find(results, policy, capacity).eventsPerSecond() / 1e6));
+            }
+            System.out.println(line);
+        }
+    }
+
+    private static SimulationResult find(List<SimulationResult> results, PolicyType policy, int capacity) {
+        return results.stream().filter(r -> r.policy == policy && r.capacity == capacity).findFirst().orElseThrow(IllegalStateException::new);
+    }
+}
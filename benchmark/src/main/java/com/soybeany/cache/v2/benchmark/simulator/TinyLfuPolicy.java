@@ -0,0 +1,75 @@
+package com.soybeany.cache.v2.benchmark.simulator;
+
+/**
+ * W-TinyLFU(Caffeine所用的策略)
+ * <br>* 1%的窗口LRU接收新key，99%的主区为分段LRU(20%试用区、80%保护区)
+ * <br>* 窗口淘汰出的候选者与试用区的淘汰者比较估计频次，频次高者留在主区
+ */
+public class TinyLfuPolicy implements IEvictionPolicy {
+
+    private static final int WINDOW = 0;
+    private static final int PROBATION = 1;
+    private static final int PROTECTED = 2;
+
+    private final int windowCapacity;
+    private final int mainCapacity;
+    private final int protectedCapacity;
+    private final LinkedKeys keys;
+    private final FrequencySketch sketch;
+
+    public TinyLfuPolicy(int capacity) {
+        capacity = Math.max(capacity, 1);
+        this.windowCapacity = Math.max(capacity / 100, 1);
+        this.mainCapacity = capacity - windowCapacity;
+        this.protectedCapacity = (int) (mainCapacity * 0.8);
+        this.keys = new LinkedKeys(capacity + 1, 3);
+        this.sketch = new FrequencySketch(capacity);
+    }
+
+    @Override
+    public boolean access(long key) {
+        sketch.increment(key);
+        int node = keys.find(key);
+        if (LinkedKeys.NONE == node) {
+            onMiss(key);
+            return false;
+        }
+        switch (keys.listOf(node)) {
+            case PROBATION:
+                keys.moveToFront(PROTECTED, node);
+                // 保护区超出时，最旧的降级回试用区
+                if (keys.size(PROTECTED) > protectedCapacity) {
+                    keys.moveToFront(PROBATION, keys.last(PROTECTED));
+                }
+                break;
+            default:
+                keys.moveToFront(keys.listOf(node), node);
+        }
+        return true;
+    }
+
+    // ***********************内部方法****************************
+
+    private void onMiss(long key) {
+        keys.add(WINDOW, key);
+        if (keys.size(WINDOW) <= windowCapacity) {
+            return;
+        }
+        int candidate = keys.last(WINDOW);
+        if (keys.size(PROBATION) + keys.size(PROTECTED) < mainCapacity) {
+            keys.moveToFront(PROBATION, candidate);
+            return;
+        }
+        int victim = keys.size(PROBATION) > 0 ? keys.last(PROBATION) : keys.last(PROTECTED);
+        if (LinkedKeys.NONE == victim) {
+            keys.delete(candidate);
+            return;
+        }
+        if (sketch.frequency(keys.keyOf(candidate)) > sketch.frequency(keys.keyOf(victim))) {
+            keys.delete(victim);
+            keys.moveToFront(PROBATION, candidate);
+        } else {
+            keys.delete(candidate);
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.soybeany.cache.v2.benchmark.simulator;
+
+import com.soybeany.cache.v2.benchmark.workload.Distribution;
+import com.soybeany.cache.v2.benchmark.workload.IKeyGenerator;
+import com.soybeany.cache.v2.benchmark.workload.WorkloadConfig;
+import com.soybeany.cache.v2.trace.AccessTraceReader;
+import com.soybeany.cache.v2.trace.TraceOp;
+import com.soybeany.cache.v2.trace.TraceRecord;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * 模拟器的轨迹来源，轨迹统一为key序列(long[])
+ */
+public class TraceSources {
+
+    /**
+     * 读取AccessTraceRecorder生成的轨迹文件(含滚动出的历史文件)
+     * <br>* 只回放读操作与写操作，失效/移除不影响淘汰策略的比较，予以忽略
+     */
+    public static long[] fromFile(Path file) throws IOException {
+        long[] keys = new long[1 << 16];
+        int size = 0;
+        try (AccessTraceReader reader = AccessTraceReader.open(file)) {
+            TraceRecord record = new TraceRecord();
+            while (reader.next(record)) {
+                if (TraceOp.READ != record.op && TraceOp.WRITE != record.op) {
+                    continue;
+                }
+                if (size == keys.length) {
+                    keys = Arrays.copyOf(keys, size * 2);
+                }
+                keys[size++] = record.keyHash;
+            }
+        }
+        return Arrays.copyOf(keys, size);
+    }
+
+    /**
+     * 按指定分布生成的合成轨迹，种子固定，结果可复现
+     */
+    public static long[] synthetic(Distribution distribution, long recordCount, int eventCount, double zipfTheta, int scanLength) {
+        WorkloadConfig config = new WorkloadConfig.Builder()
+                .recordCount(recordCount)
+                .zipfTheta(zipfTheta)
+                .scanLength(scanLength)
+                .build();
+        IKeyGenerator generator = distribution.newGenerator(config, () -> recordCount);
+        Random random = new Random(42);
+        long[] keys = new long[eventCount];
+        for (int i = 0; i < eventCount; i++) {
+            keys[i] = generator.nextKey(random);
+        }
+        return keys;
+    }
+
+    /**
+     * 轨迹中不同key的数目
+     */
+    public static int distinctCount(long[] trace) {
+        LongIntMap keys = new LongIntMap(1024);
+        for (long key : trace) {
+            keys.put(key, 0);
+        }
+        return keys.size();
+    }
+
+    private TraceSources() {
+    }
+}
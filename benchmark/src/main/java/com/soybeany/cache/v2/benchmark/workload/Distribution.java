@@ -0,0 +1,35 @@
+package com.soybeany.cache.v2.benchmark.workload;
+
+import java.util.function.LongSupplier;
+
+/**
+ * 负载中key的分布
+ */
+public enum Distribution {
+    UNIFORM {
+        @Override
+        public IKeyGenerator newGenerator(WorkloadConfig config, LongSupplier insertedCount) {
+            return new UniformGenerator(config.recordCount);
+        }
+    },
+    ZIPFIAN {
+        @Override
+        public IKeyGenerator newGenerator(WorkloadConfig config, LongSupplier insertedCount) {
+            return new ZipfianGenerator(config.recordCount, config.zipfTheta, true);
+        }
+    },
+    LATEST {
+        @Override
+        public IKeyGenerator newGenerator(WorkloadConfig config, LongSupplier insertedCount) {
+            return new LatestGenerator(config.recordCount, config.zipfTheta, insertedCount);
+        }
+    },
+    SCAN {
+        @Override
+        public IKeyGenerator newGenerator(WorkloadConfig config, LongSupplier insertedCount) {
+            return new ScanGenerator(config.recordCount, config.scanLength);
+        }
+    };
+
+    public abstract IKeyGenerator newGenerator(WorkloadConfig config, LongSupplier insertedCount);
+}
@@ -0,0 +1,17 @@
+package com.soybeany.cache.v2.benchmark.workload;
+
+import java.util.Random;
+
+/**
+ * 负载中key序号的生成器，需线程安全
+ */
+public interface IKeyGenerator {
+
+    /**
+     * 生成下一个key的序号
+     *
+     * @param random 调用线程的随机数生成器
+     */
+    long nextKey(Random random);
+
+}
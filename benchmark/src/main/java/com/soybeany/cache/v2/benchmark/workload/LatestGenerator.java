@@ -0,0 +1,28 @@
+package com.soybeany.cache.v2.benchmark.workload;
+
+import java.util.Random;
+import java.util.function.LongSupplier;
+
+/**
+ * 最新优先分布，最近插入的key最热(按Zipfian分布向前回溯)
+ * <br>* 负载中的写操作会不断插入新key，热点随之移动
+ */
+public class LatestGenerator implements IKeyGenerator {
+
+    private final ZipfianGenerator zipfian;
+    private final LongSupplier insertedCount;
+
+    /**
+     * @param insertedCount 当前已插入的key数目
+     */
+    public LatestGenerator(long items, double theta, LongSupplier insertedCount) {
+        this.zipfian = new ZipfianGenerator(items, theta, false);
+        this.insertedCount = insertedCount;
+    }
+
+    @Override
+    public long nextKey(Random random) {
+        long max = insertedCount.getAsLong() - 1;
+        return Math.max(max - zipfian.nextRank(random), 0);
+    }
+}
@@ -0,0 +1,33 @@
+package com.soybeany.cache.v2.benchmark.workload;
+
+import java.util.Random;
+
+/**
+ * 范围扫描，每个线程从随机起点开始连续访问scanLength个key，之后再换一个起点
+ * <br>* 用于模拟报表、批处理等顺序访问对缓存的冲刷
+ */
+public class ScanGenerator implements IKeyGenerator {
+
+    private final long items;
+    private final int scanLength;
+    private final ThreadLocal<long[]> cursor = ThreadLocal.withInitial(() -> new long[]{0, 0});
+
+    public ScanGenerator(long items, int scanLength) {
+        this.items = Math.max(items, 1);
+        this.scanLength = Math.max(scanLength, 1);
+    }
+
+    @Override
+    public long nextKey(Random random) {
+        // [0]:下一个key，[1]:本次扫描剩余的数目
+        long[] state = cursor.get();
+        if (state[1] <= 0) {
+            state[0] = (long) (random.nextDouble() * items);
+            state[1] = scanLength;
+        }
+        long key = state[0];
+        state[0] = (key + 1) % items;
+        state[1]--;
+        return key;
+    }
+}
@@ -0,0 +1,95 @@
+package com.soybeany.cache.v2.benchmark.workload;
+
+import com.soybeany.cache.v2.exception.NoCacheException;
+import com.soybeany.cache.v2.model.CacheEntity;
+import com.soybeany.cache.v2.model.DataParam;
+import com.soybeany.cache.v2.storage.StdStorage;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 模拟的二级缓存(如redis)，数据存于内存，每次读写均模拟一次网络往返的耗时
+ * <br>* 与测试中的DBSimulationStorage类似，但线程安全，可用于多线程负载
+ */
+public class SimulatedRemoteStorage<Param, Data> extends StdStorage<Param, Data> {
+
+    private final Map<String, CacheEntity<Data>> map = new ConcurrentHashMap<>();
+    private final long roundTripNanos;
+    private final LongAdder accessCount = new LongAdder();
+
+    /**
+     * @param roundTripMicros 每次访问的模拟耗时(微秒)
+     */
+    public SimulatedRemoteStorage(long pTtl, long roundTripMicros) {
+        super(pTtl, pTtl);
+        this.roundTripNanos = TimeUnit.MICROSECONDS.toNanos(roundTripMicros);
+    }
+
+    @Override
+    public String desc() {
+        return "模拟远程缓存";
+    }
+
+    @Override
+    public void onClearCache() {
+        map.clear();
+    }
+
+    @Override
+    public int cachedDataCount() {
+        return map.size();
+    }
+
+    /**
+     * 累计的访问次数
+     */
+    public long accessCount() {
+        return accessCount.sum();
+    }
+
+    @Override
+    protected CacheEntity<Data> onLoadCacheEntity(DataParam<Param> param, String storageKey) throws NoCacheException {
+        CacheEntity<Data> entity = onFindCacheEntity(param, storageKey);
+        if (null == entity) {
+            throw new NoCacheException();
+        }
+        return entity;
+    }
+
+    @Override
+    protected CacheEntity<Data> onFindCacheEntity(DataParam<Param> param, String storageKey) {
+        roundTrip();
+        return map.get(storageKey);
+    }
+
+    @Override
+    protected CacheEntity<Data> onSaveCacheEntity(DataParam<Param> param, String storageKey, CacheEntity<Data> entity) {
+        roundTrip();
+        map.put(storageKey, entity);
+        return entity;
+    }
+
+    @Override
+    protected void onRemoveCacheEntity(DataParam<Param> param, String storageKey) {
+        roundTrip();
+        map.remove(storageKey);
+    }
+
+    @Override
+    protected long onGetCurTimestamp() {
+        return System.currentTimeMillis();
+    }
+
+    // ***********************内部方法****************************
+
+    private void roundTrip() {
+        accessCount.increment();
+        if (roundTripNanos > 0) {
+            LockSupport.parkNanos(roundTripNanos);
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package com.soybeany.cache.v2.benchmark.workload;
+
+import java.util.Random;
+
+/**
+ * 均匀分布，所有key的访问概率相同
+ */
+public class UniformGenerator implements IKeyGenerator {
+
+    private final long items;
+
+    public UniformGenerator(long items) {
+        this.items = Math.max(items, 1);
+    }
+
+    @Override
+    public long nextKey(Random random) {
+        return (long) (random.nextDouble() * items);
+    }
+}
@@ -0,0 +1,255 @@
+package com.soybeany.cache.v2.benchmark.workload;
+
+import java.util.Properties;
+
+/**
+ * 负载的配置（不可变），使用{@link Builder}或{@link #fromProperties}创建
+ * <br>* 读、写、失效的比例之和会被归一化
+ */
+public class WorkloadConfig {
+
+    public final long recordCount;
+    public final long operationCount;
+    public final long warmupOperationCount;
+    public final long maxDurationMs;
+    public final int threads;
+    public final Distribution distribution;
+    public final double zipfTheta;
+    public final int scanLength;
+    public final double readProportion;
+    public final double writeProportion;
+    public final double invalidateProportion;
+    public final long datasourceLatencyMicros;
+    public final long datasourceJitterMicros;
+    public final int l1Capacity;
+    public final boolean useL2;
+    public final long l2LatencyMicros;
+    public final long pTtlMs;
+
+    /**
+     * 从配置中读取，key与{@link Builder}的方法名一致，未指定的使用默认值
+     */
+    public static WorkloadConfig fromProperties(Properties props) {
+        Builder builder = new Builder();
+        if (props.containsKey("recordCount")) {
+            builder.recordCount(Long.parseLong(props.getProperty("recordCount")));
+        }
+        if (props.containsKey("operationCount")) {
+            builder.operationCount(Long.parseLong(props.getProperty("operationCount")));
+        }
+        if (props.containsKey("warmupOperationCount")) {
+            builder.warmupOperationCount(Long.parseLong(props.getProperty("warmupOperationCount")));
+        }
+        if (props.containsKey("maxDurationMs")) {
+            builder.maxDurationMs(Long.parseLong(props.getProperty("maxDurationMs")));
+        }
+        if (props.containsKey("threads")) {
+            builder.threads(Integer.parseInt(props.getProperty("threads")));
+        }
+        if (props.containsKey("distribution")) {
+            builder.distribution(Distribution.valueOf(props.getProperty("distribution").toUpperCase()));
+        }
+        if (props.containsKey("zipfTheta")) {
+            builder.zipfTheta(Double.parseDouble(props.getProperty("zipfTheta")));
+        }
+        if (props.containsKey("scanLength")) {
+            builder.scanLength(Integer.parseInt(props.getProperty("scanLength")));
+        }
+        if (props.containsKey("mix")) {
+            String[] parts = props.getProperty("mix").split(":");
+            builder.mix(Double.parseDouble(parts[0]), Double.parseDouble(parts[1]), Double.parseDouble(parts[2]));
+        }
+        if (props.containsKey("datasourceLatencyMicros") || props.containsKey("datasourceJitterMicros")) {
+            builder.datasourceLatency(Long.parseLong(props.getProperty("datasourceLatencyMicros", String.valueOf(builder.datasourceLatencyMicros))),
+                    Long.parseLong(props.getProperty("datasourceJitterMicros", String.valueOf(builder.datasourceJitterMicros))));
+        }
+        if (props.containsKey("l1Capacity")) {
+            builder.l1Capacity(Integer.parseInt(props.getProperty("l1Capacity")));
+        }
+        if (props.containsKey("useL2")) {
+            builder.useL2(Boolean.parseBoolean(props.getProperty("useL2")));
+        }
+        if (props.containsKey("l2LatencyMicros")) {
+            builder.l2LatencyMicros(Long.parseLong(props.getProperty("l2LatencyMicros")));
+        }
+        if (props.containsKey("pTtlMs")) {
+            builder.pTtlMs(Long.parseLong(props.getProperty("pTtlMs")));
+        }
+        return builder.build();
+    }
+
+    private WorkloadConfig(Builder builder) {
+        this.recordCount = builder.recordCount;
+        this.operationCount = builder.operationCount;
+        this.warmupOperationCount = builder.warmupOperationCount;
+        this.maxDurationMs = builder.maxDurationMs;
+        this.threads = builder.threads;
+        this.distribution = builder.distribution;
+        this.zipfTheta = builder.zipfTheta;
+        this.scanLength = builder.scanLength;
+        double total = builder.readProportion + builder.writeProportion + builder.invalidateProportion;
+        this.readProportion = builder.readProportion / total;
+        this.writeProportion = builder.writeProportion / total;
+        this.invalidateProportion = builder.invalidateProportion / total;
+        this.datasourceLatencyMicros = builder.datasourceLatencyMicros;
+        this.datasourceJitterMicros = builder.datasourceJitterMicros;
+        this.l1Capacity = builder.l1Capacity;
+        this.useL2 = builder.useL2;
+        this.l2LatencyMicros = builder.l2LatencyMicros;
+        this.pTtlMs = builder.pTtlMs;
+    }
+
+    @Override
+    public String toString() {
+        return "记录数" + recordCount + "，操作数" + operationCount + "(预热" + warmupOperationCount + ")，线程" + threads
+                + "，分布" + distribution + "，读/写/失效=" + readProportion + "/" + writeProportion + "/" + invalidateProportion
+                + "，数据源耗时" + datasourceLatencyMicros + "±" + datasourceJitterMicros + "us，L1容量" + l1Capacity
+                + "，L2" + (useL2 ? "耗时" + l2LatencyMicros + "us" : "未启用") + "，pTtl" + pTtlMs + "ms";
+    }
+
+    // ***********************内部类****************************
+
+    public static class Builder {
+        private long recordCount = 100_000;
+        private long operationCount = 1_000_000;
+        private long warmupOperationCount = 100_000;
+        private long maxDurationMs;
+        private int threads = 8;
+        private Distribution distribution = Distribution.ZIPFIAN;
+        private double zipfTheta = ZipfianGenerator.DEFAULT_THETA;
+        private int scanLength = 100;
+        private double readProportion = 0.95;
+        private double writeProportion = 0.04;
+        private double invalidateProportion = 0.01;
+        private long datasourceLatencyMicros = 1000;
+        private long datasourceJitterMicros = 200;
+        private int l1Capacity = 10_000;
+        private boolean useL2 = true;
+        private long l2LatencyMicros = 200;
+        private long pTtlMs = 60_000;
+
+        /**
+         * key空间的大小，默认100000
+         */
+        public Builder recordCount(long recordCount) {
+            this.recordCount = Math.max(recordCount, 1);
+            return this;
+        }
+
+        /**
+         * 计入统计的操作总数(各线程平分)，默认1000000
+         */
+        public Builder operationCount(long operationCount) {
+            this.operationCount = Math.max(operationCount, 1);
+            return this;
+        }
+
+        /**
+         * 预热的操作数，不计入统计，默认100000
+         */
+        public Builder warmupOperationCount(long warmupOperationCount) {
+            this.warmupOperationCount = Math.max(warmupOperationCount, 0);
+            return this;
+        }
+
+        /**
+         * 统计阶段的最长时间(毫秒)，到时即使未完成全部操作也会停止，0表示不限制(默认)
+         */
+        public Builder maxDurationMs(long maxDurationMs) {
+            this.maxDurationMs = Math.max(maxDurationMs, 0);
+            return this;
+        }
+
+        /**
+         * 并发的线程数，默认8
+         */
+        public Builder threads(int threads) {
+            this.threads = Math.max(threads, 1);
+            return this;
+        }
+
+        /**
+         * key的分布，默认{@link Distribution#ZIPFIAN}
+         */
+        public Builder distribution(Distribution distribution) {
+            this.distribution = distribution;
+            return this;
+        }
+
+        /**
+         * Zipfian分布的倾斜系数，取值(0,1)，越大越集中，默认0.99
+         */
+        public Builder zipfTheta(double zipfTheta) {
+            this.zipfTheta = zipfTheta;
+            return this;
+        }
+
+        /**
+         * 扫描分布中单次扫描的key数目，默认100
+         */
+        public Builder scanLength(int scanLength) {
+            this.scanLength = scanLength;
+            return this;
+        }
+
+        /**
+         * 读/写/失效操作的比例，默认95:4:1
+         * <br>* 写：更新数据源中的数据，并写入所有存储器
+         * <br>* 失效：使所有存储器中的缓存失效
+         */
+        public Builder mix(double read, double write, double invalidate) {
+            if (read < 0 || write < 0 || invalidate < 0 || read + write + invalidate <= 0) {
+                throw new IllegalArgumentException("操作比例不能为负数，且总和需大于0");
+            }
+            this.readProportion = read;
+            this.writeProportion = write;
+            this.invalidateProportion = invalidate;
+            return this;
+        }
+
+        /**
+         * 数据源的模拟耗时(微秒)，实际耗时在[latency-jitter, latency+jitter]内均匀分布，默认1000±200
+         */
+        public Builder datasourceLatency(long latencyMicros, long jitterMicros) {
+            this.datasourceLatencyMicros = Math.max(latencyMicros, 0);
+            this.datasourceJitterMicros = Math.max(Math.min(jitterMicros, latencyMicros), 0);
+            return this;
+        }
+
+        /**
+         * 一级缓存(LruMemCacheStorage)的容量，默认10000
+         */
+        public Builder l1Capacity(int l1Capacity) {
+            this.l1Capacity = l1Capacity;
+            return this;
+        }
+
+        /**
+         * 是否启用模拟的二级缓存，默认启用
+         */
+        public Builder useL2(boolean useL2) {
+            this.useL2 = useL2;
+            return this;
+        }
+
+        /**
+         * 二级缓存每次访问的模拟耗时(微秒)，默认200
+         */
+        public Builder l2LatencyMicros(long l2LatencyMicros) {
+            this.l2LatencyMicros = Math.max(l2LatencyMicros, 0);
+            return this;
+        }
+
+        /**
+         * 缓存的生存时间(毫秒)，默认60000
+         */
+        public Builder pTtlMs(long pTtlMs) {
+            this.pTtlMs = pTtlMs;
+            return this;
+        }
+
+        public WorkloadConfig build() {
+            return new WorkloadConfig(this);
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.soybeany.cache.v2.benchmark.workload;
+
+import java.util.Properties;
+
+/**
+ * 负载测试入口，参数为key=value形式，key见{@link WorkloadConfig#fromProperties}，如
+ * <br>java -cp target/benchmarks.jar com.soybeany.cache.v2.benchmark.workload.WorkloadMain distribution=latest mix=50:45:5 threads=16
+ * <br>* 也可通过-Dworkload.xxx=yyy指定，命令行参数优先
+ */
+public class WorkloadMain {
+
+    private static final String PROPERTY_PREFIX = "workload.";
+
+    public static void main(String[] args) throws Exception {
+        Properties props = new Properties();
+        System.getProperties().stringPropertyNames().stream()
+                .filter(name -> name.startsWith(PROPERTY_PREFIX))
+                .forEach(name -> props.setProperty(name.substring(PROPERTY_PREFIX.length()), System.getProperty(name)));
+        for (String arg : args) {
+            int index = arg.indexOf('=');
+            if (index <= 0) {
+                throw new IllegalArgumentException("参数“" + arg + "”需为key=value形式");
+            }
+            props.setProperty(arg.substring(0, index).trim(), arg.substring(index + 1).trim());
+        }
+        WorkloadConfig config = WorkloadConfig.fromProperties(props);
+        System.out.println(new WorkloadRunner(config).run());
+    }
+}
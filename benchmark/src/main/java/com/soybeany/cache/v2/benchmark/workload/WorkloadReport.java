@@ -0,0 +1,103 @@
+package com.soybeany.cache.v2.benchmark.workload;
+
+import com.soybeany.cache.v2.stats.CacheStats;
+import com.soybeany.cache.v2.stats.LatencyHistogram;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 负载的运行结果（不可变），只包含统计阶段的数据，耗时单位为纳秒
+ */
+public class WorkloadReport {
+
+    public final WorkloadConfig config;
+    public final long operationCount;
+    public final long errorCount;
+    public final long elapsedNanos;
+    public final LatencyHistogram.Snapshot readLatency;
+    public final LatencyHistogram.Snapshot writeLatency;
+    public final LatencyHistogram.Snapshot invalidateLatency;
+    public final long hitCount;
+    public final long missCount;
+    public final long datasourceCallCount;
+    /**
+     * 模拟二级缓存的访问次数，未启用时为0
+     */
+    public final long l2AccessCount;
+    /**
+     * 各存储器在统计阶段的命中数据
+     */
+    public final List<CacheStats.TierStats> tiers;
+
+    public WorkloadReport(WorkloadConfig config, long operationCount, long errorCount, long elapsedNanos,
+                          LatencyHistogram.Snapshot readLatency, LatencyHistogram.Snapshot writeLatency, LatencyHistogram.Snapshot invalidateLatency,
+                          CacheStats before, CacheStats after, long datasourceCallCount, long l2AccessCount) {
+        this.config = config;
+        this.operationCount = operationCount;
+        this.errorCount = errorCount;
+        this.elapsedNanos = elapsedNanos;
+        this.readLatency = readLatency;
+        this.writeLatency = writeLatency;
+        this.invalidateLatency = invalidateLatency;
+        this.hitCount = after.hitCount - before.hitCount;
+        this.missCount = after.missCount - before.missCount;
+        this.datasourceCallCount = datasourceCallCount;
+        this.l2AccessCount = l2AccessCount;
+        List<CacheStats.TierStats> tiers = new ArrayList<>();
+        for (int i = 0; i < after.tiers.size(); i++) {
+            CacheStats.TierStats t1 = before.tiers.get(i), t2 = after.tiers.get(i);
+            tiers.add(new CacheStats.TierStats(i, t2.desc, t2.hitCount - t1.hitCount, t2.missCount - t1.missCount,
+                    t2.promotionCount - t1.promotionCount, t2.evictionCount - t1.evictionCount));
+        }
+        this.tiers = Collections.unmodifiableList(tiers);
+    }
+
+    /**
+     * 吞吐量(次/秒)
+     */
+    public double throughput() {
+        return 0 == elapsedNanos ? 0 : operationCount * 1e9 / elapsedNanos;
+    }
+
+    /**
+     * 读操作的命中率，没有读操作时为1
+     */
+    public double hitRate() {
+        long requestCount = hitCount + missCount;
+        return 0 == requestCount ? 1.0 : (double) hitCount / requestCount;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder();
+        builder.append("配置: ").append(config).append('\n');
+        builder.append(String.format("操作: %d次(异常%d次)，耗时%.1fms，吞吐量%.0f次/秒%n",
+                operationCount, errorCount, elapsedNanos / 1e6, throughput()));
+        appendLatency(builder, "读", readLatency);
+        appendLatency(builder, "写", writeLatency);
+        appendLatency(builder, "失效", invalidateLatency);
+        builder.append(String.format("命中率: %.2f%%(命中%d，未命中%d)%n", hitRate() * 100, hitCount, missCount));
+        for (CacheStats.TierStats tier : tiers) {
+            builder.append(String.format("  存储器%d[%s]: 命中率%.2f%%，提升%d次，淘汰%d次%n",
+                    tier.index, tier.desc, tier.hitRate() * 100, tier.promotionCount, tier.evictionCount));
+        }
+        builder.append("数据源调用: ").append(datasourceCallCount).append("次");
+        if (config.useL2) {
+            builder.append("，二级缓存访问: ").append(l2AccessCount).append("次");
+        }
+        return builder.toString();
+    }
+
+    // ***********************内部方法****************************
+
+    private static void appendLatency(StringBuilder builder, String name, LatencyHistogram.Snapshot snapshot) {
+        if (0 == snapshot.count()) {
+            return;
+        }
+        builder.append(String.format("%s延迟(us): 次数=%d，平均=%.1f，p50=%.1f，p95=%.1f，p99=%.1f，p999=%.1f，max=%.1f%n",
+                name, snapshot.count(), snapshot.mean() / 1e3, snapshot.percentile(0.5) / 1e3, snapshot.percentile(0.95) / 1e3,
+                snapshot.percentile(0.99) / 1e3, snapshot.percentile(0.999) / 1e3, snapshot.max() / 1e3));
+    }
+}
@@ -0,0 +1,165 @@
+package com.soybeany.cache.v2.benchmark.workload;
+
+import com.soybeany.cache.v2.core.DataManager;
+import com.soybeany.cache.v2.stats.CacheStats;
+import com.soybeany.cache.v2.stats.LatencyHistogram;
+import com.soybeany.cache.v2.storage.LruMemCacheStorage;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * YCSB风格的负载执行器
+ * <br>* 使用完整的DataManager：LruMemCacheStorage作为一级缓存，{@link SimulatedRemoteStorage}作为可选的二级缓存
+ * <br>* 数据源为带模拟耗时的内存“数据库”，写操作先更新数据库，再写入所有存储器
+ * <br>* 先执行预热阶段(不计入统计)，再执行统计阶段
+ */
+public class WorkloadRunner {
+
+    private static final int DEADLINE_CHECK_MASK = 0xFF;
+
+    private final WorkloadConfig config;
+    private final Map<String, String> database = new ConcurrentHashMap<>();
+    private final LongAdder datasourceCallCount = new LongAdder();
+    private final AtomicLong insertedCount;
+    private final IKeyGenerator keyGenerator;
+    private final SimulatedRemoteStorage<String, String> l2;
+    private final DataManager<String, String> manager;
+
+    public WorkloadRunner(WorkloadConfig config) {
+        this.config = config;
+        this.insertedCount = new AtomicLong(config.recordCount);
+        this.keyGenerator = config.distribution.newGenerator(config, insertedCount::get);
+        DataManager.Builder<String, String> builder = DataManager.Builder
+                .get("负载测试", this::onLoad)
+                .withCache(new LruMemCacheStorage.Builder<String, String>().capacity(config.l1Capacity).pTtl(config.pTtlMs).build());
+        if (config.useL2) {
+            l2 = new SimulatedRemoteStorage<>(config.pTtlMs, config.l2LatencyMicros);
+            builder.withCache(l2);
+        } else {
+            l2 = null;
+        }
+        this.manager = builder.build();
+    }
+
+    public DataManager<String, String> manager() {
+        return manager;
+    }
+
+    public WorkloadReport run() throws InterruptedException {
+        // 预热
+        execute(config.warmupOperationCount, 0, null, null, null, new LongAdder());
+        // 统计
+        CacheStats before = manager.stats();
+        long callsBefore = datasourceCallCount.sum();
+        long l2Before = null != l2 ? l2.accessCount() : 0;
+        LatencyHistogram read = new LatencyHistogram(), write = new LatencyHistogram(), invalidate = new LatencyHistogram();
+        LongAdder errors = new LongAdder();
+        long start = System.nanoTime();
+        long operations = execute(config.operationCount, config.maxDurationMs, read, write, invalidate, errors);
+        long elapsed = System.nanoTime() - start;
+        return new WorkloadReport(config, operations, errors.sum(), elapsed,
+                read.snapshot(), write.snapshot(), invalidate.snapshot(), before, manager.stats(),
+                datasourceCallCount.sum() - callsBefore, null != l2 ? l2.accessCount() - l2Before : 0);
+    }
+
+    // ***********************内部方法****************************
+
+    /**
+     * @return 实际执行的操作数
+     */
+    private long execute(long operationCount, long maxDurationMs, LatencyHistogram read, LatencyHistogram write,
+                         LatencyHistogram invalidate, LongAdder errors) throws InterruptedException {
+        if (operationCount <= 0) {
+            return 0;
+        }
+        long deadline = maxDurationMs > 0 ? System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(maxDurationMs) : Long.MAX_VALUE;
+        CountDownLatch startGate = new CountDownLatch(1);
+        LongAdder executed = new LongAdder();
+        Thread[] workers = new Thread[config.threads];
+        for (int i = 0; i < workers.length; i++) {
+            long count = operationCount / workers.length + (i < operationCount % workers.length ? 1 : 0);
+            workers[i] = new Thread(() -> {
+                try {
+                    startGate.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                executed.add(work(count, deadline, read, write, invalidate, errors));
+            }, "bd-cache-workload-" + i);
+            workers[i].start();
+        }
+        startGate.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        return executed.sum();
+    }
+
+    private long work(long count, long deadline, LatencyHistogram read, LatencyHistogram write,
+                      LatencyHistogram invalidate, LongAdder errors) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long done = 0;
+        while (done < count) {
+            if ((done & DEADLINE_CHECK_MASK) == 0 && System.nanoTime() > deadline) {
+                break;
+            }
+            double op = random.nextDouble();
+            long start = System.nanoTime();
+            try {
+                if (op < config.readProportion) {
+                    manager.getData(toKey(keyGenerator.nextKey(random)));
+                    record(read, start);
+                } else if (op < config.readProportion + config.writeProportion) {
+                    onWrite(random);
+                    record(write, start);
+                } else {
+                    manager.invalidCache(toKey(keyGenerator.nextKey(random)));
+                    record(invalidate, start);
+                }
+            } catch (RuntimeException e) {
+                errors.increment();
+            }
+            done++;
+        }
+        return done;
+    }
+
+    private void onWrite(ThreadLocalRandom random) {
+        // 最新优先分布下，写操作为插入新key，使热点持续移动
+        long id = Distribution.LATEST == config.distribution ? insertedCount.getAndIncrement() : keyGenerator.nextKey(random);
+        String key = toKey(id);
+        String value = "value" + id + "-" + random.nextInt();
+        database.put(key, value);
+        manager.cacheData(key, value);
+    }
+
+    private String onLoad(String key) {
+        datasourceCallCount.increment();
+        long latency = config.datasourceLatencyMicros;
+        if (config.datasourceJitterMicros > 0) {
+            latency += ThreadLocalRandom.current().nextLong(-config.datasourceJitterMicros, config.datasourceJitterMicros + 1);
+        }
+        if (latency > 0) {
+            LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(latency));
+        }
+        String value = database.get(key);
+        return null != value ? value : "value" + key.substring(4);
+    }
+
+    private static void record(LatencyHistogram histogram, long start) {
+        if (null != histogram) {
+            histogram.record(System.nanoTime() - start);
+        }
+    }
+
+    private static String toKey(long id) {
+        return "user" + id;
+    }
+}
@@ -0,0 +1,76 @@
+package com.soybeany.cache.v2.benchmark.workload;
+
+import java.util.Random;
+
+/**
+ * Zipfian分布(Gray等人的快速生成算法，与YCSB一致)，序号越小越热
+ * <br>* 构建时预先计算zeta值(O(n))，之后每次生成为O(1)
+ * <br>* scrambled=true时，对结果做FNV散列，使热点分散在整个key空间中
+ */
+public class ZipfianGenerator implements IKeyGenerator {
+
+    public static final double DEFAULT_THETA = 0.99;
+
+    private static final long FNV_OFFSET_BASIS = 0xCBF29CE484222325L;
+    private static final long FNV_PRIME = 1099511628211L;
+
+    private final long items;
+    private final double theta;
+    private final double zetaN;
+    private final double alpha;
+    private final double eta;
+    private final double halfPowTheta;
+    private final boolean scrambled;
+
+    public ZipfianGenerator(long items, double theta, boolean scrambled) {
+        this.items = Math.max(items, 1);
+        this.theta = theta;
+        this.scrambled = scrambled;
+        this.zetaN = zeta(this.items, theta);
+        double zeta2 = zeta(2, theta);
+        this.alpha = 1.0 / (1.0 - theta);
+        this.eta = (1 - Math.pow(2.0 / this.items, 1 - theta)) / (1 - zeta2 / zetaN);
+        this.halfPowTheta = 1 + Math.pow(0.5, theta);
+    }
+
+    @Override
+    public long nextKey(Random random) {
+        long rank = nextRank(random);
+        return scrambled ? Math.floorMod(fnvHash(rank), items) : rank;
+    }
+
+    /**
+     * 生成下一个排名(0为最热)，不做散列
+     */
+    long nextRank(Random random) {
+        double u = random.nextDouble();
+        double uz = u * zetaN;
+        if (uz < 1.0) {
+            return 0;
+        }
+        if (uz < halfPowTheta) {
+            return Math.min(1, items - 1);
+        }
+        return Math.min((long) (items * Math.pow(eta * u - eta + 1, alpha)), items - 1);
+    }
+
+    // ***********************内部方法****************************
+
+    private static double zeta(long n, double theta) {
+        double sum = 0;
+        for (long i = 1; i <= n; i++) {
+            sum += 1 / Math.pow(i, theta);
+        }
+        return sum;
+    }
+
+    private static long fnvHash(long value) {
+        long hash = FNV_OFFSET_BASIS;
+        for (int i = 0; i < 8; i++) {
+            hash ^= value & 0xFF;
+            hash *= FNV_PRIME;
+            value >>>= 8;
+        }
+        return hash;
+    }
+}
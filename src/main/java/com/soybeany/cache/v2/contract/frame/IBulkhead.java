@@ -0,0 +1,20 @@
+package com.soybeany.cache.v2.contract.frame;
+
+/**
+ * 数据源隔离舱，用于限制单个数据管理器访问数据源的并发数
+ */
+public interface IBulkhead {
+
+    /**
+     * 尝试进入，允许在有限的时间内排队等待
+     *
+     * @return 是否成功进入，若返回false则不访问数据源
+     */
+    boolean onTryEnter();
+
+    /**
+     * 退出（仅在{@link #onTryEnter()}返回true后调用）
+     */
+    void onExit();
+
+}
@@ -55,6 +55,36 @@ public interface ICacheStorage<Param, Data> {
      */
     DataPack<Data> onGetCacheIgnoreExpiry(DataParam<Param> param) throws NoCacheException;
 
+    /**
+     * 获取缓存，未命中时返回null而不是抛出异常
+     * <br>* 框架内部使用此方法查找缓存，默认由{@link #onGetCache}适配，存储器可重写以避免未命中时创建异常
+     *
+     * @param param 入参信息
+     * @return 数据，没有缓存时返回null
+     */
+    default DataPack<Data> onFindCache(DataParam<Param> param) {
+        try {
+            return onGetCache(param);
+        } catch (NoCacheException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 获取缓存（不检查是否过期），未命中时返回null而不是抛出异常
+     * <br>* 框架内部使用此方法查找缓存，默认由{@link #onGetCacheIgnoreExpiry}适配，存储器可重写以避免未命中时创建异常
+     *
+     * @param param 入参信息
+     * @return 数据，没有缓存时返回null
+     */
+    default DataPack<Data> onFindCacheIgnoreExpiry(DataParam<Param> param) {
+        try {
+            return onGetCacheIgnoreExpiry(param);
+        } catch (NoCacheException e) {
+            return null;
+        }
+    }
+
     /**
      * 缓存数据
      *
@@ -125,4 +155,13 @@ public interface ICacheStorage<Param, Data> {
      * @return 数目
      */
     int cachedDataCount();
+
+    /**
+     * 因容量不足或被回收而淘汰的数据条数（累计值），用于统计
+     *
+     * @return 数目，不支持统计时返回0
+     */
+    default long evictedCount() {
+        return 0;
+    }
 }
@@ -0,0 +1,30 @@
+package com.soybeany.cache.v2.contract.frame;
+
+/**
+ * 数据源熔断器，用于在数据源持续异常或响应缓慢时，暂停对其的访问
+ */
+public interface ICircuitBreaker {
+
+    /**
+     * 尝试获取一次访问数据源的许可
+     *
+     * @return 是否允许访问，若不允许则直接使用缓存(即使已过期)
+     */
+    boolean onTryAcquire();
+
+    /**
+     * 数据源访问成功的回调（仅在{@link #onTryAcquire()}返回true后调用）
+     *
+     * @param costMs 访问耗时(毫秒)
+     */
+    void onSuccess(long costMs);
+
+    /**
+     * 数据源访问失败的回调（仅在{@link #onTryAcquire()}返回true后调用）
+     *
+     * @param costMs 访问耗时(毫秒)
+     * @param e      数据源抛出的异常
+     */
+    void onFailure(long costMs, RuntimeException e);
+
+}
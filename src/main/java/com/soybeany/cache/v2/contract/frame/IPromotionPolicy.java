@@ -0,0 +1,23 @@
+package com.soybeany.cache.v2.contract.frame;
+
+import com.soybeany.cache.v2.model.DataPack;
+
+/**
+ * 数据提升策略，决定下级存储器命中的数据是否写入上级存储器
+ * <br>* 不设置时下级命中总是提升到全部上级存储器
+ * <br>* 拒绝提升时本次仍返回下级存储器中的数据，上级存储器保持不变
+ * <br>* 从数据源获取的数据不经过此策略，总是写入全部存储器
+ */
+public interface IPromotionPolicy<Data> {
+
+    /**
+     * 下级存储器命中时回调，在命中路径上调用，应避免耗时操作
+     *
+     * @param paramKey 参数的key
+     * @param hitIndex 命中的存储器下标(大于0)
+     * @param dataPack 命中的数据
+     * @return 是否提升到全部上级存储器
+     */
+    boolean onShouldPromote(String paramKey, int hitIndex, DataPack<Data> dataPack);
+
+}
@@ -0,0 +1,37 @@
+package com.soybeany.cache.v2.contract.user;
+
+import com.soybeany.cache.v2.exception.BdCacheException;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * 支持批量获取的数据源
+ * <br>* 启用批量加载后，短时间内并发的单key请求会被合并为一次批量请求
+ */
+public interface IBatchDatasource<Param, Data> extends IDatasource<Param, Data> {
+
+    /**
+     * 从数据源批量获取数据
+     *
+     * @param params 请求参数(不重复)
+     * @return 入参与数据的映射，缺失的入参将以异常处理
+     */
+    Map<Param, Data> onGetBatchData(Collection<Param> params);
+
+    @Override
+    default Data onGetData(Param param) {
+        return getFromBatchResult(onGetBatchData(Collections.singletonList(param)), param);
+    }
+
+    /**
+     * 从批量结果中获取指定入参的数据
+     */
+    static <Param, Data> Data getFromBatchResult(Map<Param, Data> result, Param param) {
+        if (null == result || !result.containsKey(param)) {
+            throw new BdCacheException("批量数据源没有返回“" + param + "”的数据");
+        }
+        return result.get(param);
+    }
+}
@@ -0,0 +1,36 @@
+package com.soybeany.cache.v2.contract.user;
+
+import com.soybeany.cache.v2.model.DataCore;
+
+/**
+ * 权重计算器，用于估算一条缓存占用的内存(字节)
+ * <br>* 在写入缓存时调用，同一条缓存的权重在其被覆盖或移除前保持不变
+ */
+public interface IWeigher<Data> {
+
+    /**
+     * 估算一条缓存的权重
+     *
+     * @param key      存储时使用的key
+     * @param dataCore 缓存的数据(或异常)
+     * @return 权重(字节)，不应为负数
+     */
+    long weigh(String key, DataCore<Data> dataCore);
+
+    /**
+     * 按json长度估算，适用于无法直接计算大小的数据，每次写入需序列化一次
+     */
+    class Json<Data> implements IWeigher<Data> {
+        /**
+         * 链表节点、引用与实体对象的固定开销(估计值)
+         */
+        private static final long ENTRY_OVERHEAD = 96;
+
+        @Override
+        public long weigh(String key, DataCore<Data> dataCore) {
+            String content = dataCore.norm ? DataCore.toJson(dataCore) : String.valueOf(dataCore.exception.getMessage());
+            // 按UTF-16估算字符串占用
+            return ENTRY_OVERHEAD + 2L * (key.length() + content.length());
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.soybeany.cache.v2.core;
+
+import com.soybeany.cache.v2.contract.user.IBatchDatasource;
+import com.soybeany.cache.v2.exception.CacheWaitException;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * 批量加载器，将时间窗口内并发的单key数据源请求合并为一次批量请求
+ * <br>* 首个请求的线程作为发起者，等待窗口结束或批次已满后执行批量请求，再逐一完成各请求
+ * <br>* 其余线程只需等待结果，不额外占用线程
+ */
+class BatchLoader<Param, Data> {
+
+    private final long windowMs;
+    private final int maxBatchSize;
+    private final Map<IBatchDatasource<Param, Data>, Batch> pendingBatches = new HashMap<>();
+
+    BatchLoader(long windowMs, int maxBatchSize) {
+        this.windowMs = Math.max(windowMs, 0);
+        this.maxBatchSize = Math.max(maxBatchSize, 1);
+    }
+
+    public Data load(IBatchDatasource<Param, Data> datasource, Param param) {
+        Batch batch;
+        CompletableFuture<Data> future;
+        boolean isLauncher = false;
+        synchronized (pendingBatches) {
+            batch = pendingBatches.get(datasource);
+            if (null == batch) {
+                batch = new Batch();
+                pendingBatches.put(datasource, batch);
+                isLauncher = true;
+            }
+            future = batch.futures.computeIfAbsent(param, p -> new CompletableFuture<>());
+            // 批次已满，不再接收新请求，并通知发起者立刻执行
+            if (batch.futures.size() >= maxBatchSize) {
+                pendingBatches.remove(datasource);
+                batch.closed = true;
+                pendingBatches.notifyAll();
+            }
+        }
+        if (isLauncher) {
+            launch(datasource, batch);
+        }
+        return waitResult(future);
+    }
+
+    // ***********************内部方法****************************
+
+    private void launch(IBatchDatasource<Param, Data> datasource, Batch batch) {
+        // 等待窗口结束或批次已满
+        synchronized (pendingBatches) {
+            long deadline = System.currentTimeMillis() + windowMs;
+            long remaining;
+            while (!batch.closed && (remaining = deadline - System.currentTimeMillis()) > 0) {
+                try {
+                    pendingBatches.wait(remaining);
+                } catch (InterruptedException e) {
+                    // 被中断时不再等待，立刻执行以免其余请求失去发起者
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+            if (!batch.closed) {
+                pendingBatches.remove(datasource);
+                batch.closed = true;
+            }
+        }
+        // 执行批量请求，并逐一完成
+        Map<Param, CompletableFuture<Data>> futures = batch.futures;
+        try {
+            Map<Param, Data> result = datasource.onGetBatchData(new ArrayList<>(futures.keySet()));
+            futures.forEach((param, future) -> {
+                try {
+                    future.complete(IBatchDatasource.getFromBatchResult(result, param));
+                } catch (RuntimeException e) {
+                    future.completeExceptionally(e);
+                }
+            });
+        } catch (Throwable e) {
+            // 确保等待中的请求都能返回
+            futures.values().forEach(future -> future.completeExceptionally(e));
+        }
+    }
+
+    private Data waitResult(CompletableFuture<Data> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            throw new CacheWaitException("批量数据源访问中断");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new RuntimeException(cause);
+        }
+    }
+
+    // ***********************内部类****************************
+
+    private class Batch {
+        // 批次关闭前只在锁内修改，关闭后只读
+        final Map<Param, CompletableFuture<Data>> futures = new LinkedHashMap<>();
+        boolean closed;
+    }
+}
@@ -0,0 +1,470 @@
+package com.soybeany.cache.v2.core;
+
+import com.soybeany.cache.v2.exception.BdCacheException;
+import com.soybeany.cache.v2.jmx.CacheMBeans;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * 缓存注册中心，统一管理数据管理器、共享的线程资源与生命周期
+ * <br>* 数据管理器通过{@link DataManager.Builder#registry}加入，按storageId登记，storageId已被其它管理器登记时抛出异常
+ * <br>* 共享的定时调度器用于可选加入的组件(内存池、容量调节器)及使用者自行提交的周期任务，
+ * 代替各组件各自创建的定时线程；缓存的过期与统计均在访问时处理，不占用调度器
+ * <br>* 共享的有界执行器用于异步访问数据源，线程与队列均已满时拒绝访问(视为数据源访问已满)
+ * <br>* 带后台线程的组件(异步日志输出、访问轨迹记录器、异步写入的存储器及上述组件)可登记为随注册中心关闭
+ * <br>* {@link #shutdown}依次停止周期任务、关闭登记的组件、等待执行器中的任务完成
+ * <br>* 周期任务与关闭组件时的异常计入{@link #errorCount()}，并交给{@link Builder#errorHandler}(默认忽略)，不会输出到标准错误流
+ */
+public class CacheRegistry {
+
+    private final String name;
+    private final Map<String, DataManager<?, ?>> managers = new ConcurrentHashMap<>();
+    private final List<Closeable> closeables = new ArrayList<>();
+    private final ScheduledThreadPoolExecutor scheduler;
+    private final ThreadPoolExecutor fetchExecutor;
+    private final Thread shutdownHook;
+    private final BiConsumer<String, Exception> errorHandler;
+    private final LongAdder errorCount = new LongAdder();
+    private volatile boolean shutdown;
+
+    /**
+     * 全局的注册中心，使用默认配置，JVM退出时自动关闭
+     */
+    public static CacheRegistry global() {
+        return GlobalHolder.INSTANCE;
+    }
+
+    private CacheRegistry(Builder builder) {
+        this.name = builder.name;
+        this.errorHandler = builder.errorHandler;
+        this.scheduler = new ScheduledThreadPoolExecutor(builder.schedulerThreads, newThreadFactory(name + "-scheduler"));
+        // 取消的任务立刻从队列中移除，避免频繁启停的周期任务堆积
+        scheduler.setRemoveOnCancelPolicy(true);
+        this.fetchExecutor = new ThreadPoolExecutor(builder.fetchThreads, builder.fetchThreads, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(builder.fetchQueueCapacity), newThreadFactory(name + "-fetch"));
+        fetchExecutor.allowCoreThreadTimeOut(true);
+        if (builder.shutdownHook) {
+            long timeoutMs = builder.shutdownTimeoutMs;
+            shutdownHook = new Thread(() -> shutdown(timeoutMs), name + "-shutdown");
+            Runtime.getRuntime().addShutdownHook(shutdownHook);
+        } else {
+            shutdownHook = null;
+        }
+    }
+
+    // ***********************管理器****************************
+
+    /**
+     * 登记数据管理器，一般由{@link DataManager.Builder#registry}在构建时调用
+     * <br>* storageId已被其它管理器登记时抛出{@link BdCacheException}，需先{@link #unregister}原管理器
+     */
+    public void register(DataManager<?, ?> manager) {
+        checkNotShutdown();
+        String storageId = manager.dataContext().storageId;
+        DataManager<?, ?> old = managers.putIfAbsent(storageId, manager);
+        if (null != old && old != manager) {
+            throw new BdCacheException("storageId“" + storageId + "”已被其它数据管理器登记");
+        }
+    }
+
+    /**
+     * 注销数据管理器，storageId已被其它管理器登记时不作处理
+     */
+    public void unregister(DataManager<?, ?> manager) {
+        managers.remove(manager.dataContext().storageId, manager);
+    }
+
+    /**
+     * 按storageId获取数据管理器，不存在时返回null
+     */
+    public DataManager<?, ?> get(String storageId) {
+        return managers.get(storageId);
+    }
+
+    /**
+     * 已登记的storageId，按字典序排列
+     */
+    public List<String> storageIds() {
+        List<String> storageIds = new ArrayList<>(managers.keySet());
+        Collections.sort(storageIds);
+        return storageIds;
+    }
+
+    /**
+     * 已登记的数据管理器，按storageId的字典序排列
+     */
+    public List<DataManager<?, ?>> managers() {
+        List<DataManager<?, ?>> result = new ArrayList<>();
+        for (String storageId : storageIds()) {
+            Optional.ofNullable(managers.get(storageId)).ifPresent(result::add);
+        }
+        return result;
+    }
+
+    // ***********************线程资源****************************
+
+    /**
+     * 在共享的调度器中执行周期任务，任务抛出的异常不会中止之后的执行
+     *
+     * @param taskDesc 任务描述，用于异常处理
+     * @return 用于取消任务
+     */
+    public ScheduledFuture<?> scheduleWithFixedDelay(String taskDesc, Runnable task, long initialDelayMs, long delayMs) {
+        checkNotShutdown();
+        return scheduler.scheduleWithFixedDelay(guard(task, e -> onError("周期任务“" + taskDesc + "”异常", e)), initialDelayMs, delayMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 定时执行组件的周期任务，供可选加入注册中心的组件(如内存池、容量调节器)使用
+     * <br>* 指定了注册中心时使用共享的调度器，并登记owner随注册中心关闭
+     * <br>* 未指定时为该组件创建独立的单线程调度器(守护线程)，任务的异常只计入{@link ScheduledTask#errorCount()}
+     *
+     * @param registry   注册中心，可为null
+     * @param threadName 独立调度器的线程名
+     * @param taskDesc   任务描述，用于异常处理
+     * @param intervalMs 执行间隔(毫秒)，首次执行也延时相同时间；小于等于0时不定时执行
+     * @param owner      任务的所有者，随注册中心关闭
+     * @return 任务的句柄，所有者关闭时需调用其{@link ScheduledTask#close()}
+     */
+    public static ScheduledTask scheduleOrOwn(CacheRegistry registry, String threadName, String taskDesc, Runnable task, long intervalMs, Closeable owner) {
+        return scheduleTask(registry, null != registry, threadName, taskDesc, task, intervalMs, owner);
+    }
+
+    /**
+     * 定时执行组件的周期任务，始终使用独立的单线程调度器(守护线程)，供耗时较长、不宜占用共享调度器的任务(如写入较慢的存储器)使用
+     * <br>* 指定了注册中心时，仍登记owner随注册中心关闭，任务的异常也交由注册中心处理
+     * <br>* 参数与返回值同{@link #scheduleOrOwn}
+     */
+    public static ScheduledTask scheduleOwn(CacheRegistry registry, String threadName, String taskDesc, Runnable task, long intervalMs, Closeable owner) {
+        return scheduleTask(registry, false, threadName, taskDesc, task, intervalMs, owner);
+    }
+
+    /**
+     * 在共享的调度器中延时执行一次任务
+     */
+    public ScheduledFuture<?> schedule(Runnable task, long delayMs) {
+        checkNotShutdown();
+        return scheduler.schedule(task, delayMs, TimeUnit.MILLISECONDS);
+    }
+
+    private static ScheduledTask scheduleTask(CacheRegistry registry, boolean shared, String threadName, String taskDesc, Runnable task, long intervalMs, Closeable owner) {
+        LongAdder errorCount = new LongAdder();
+        if (intervalMs <= 0) {
+            return new ScheduledTask(null, null, null, null, errorCount);
+        }
+        // 任务的异常计入句柄，使用注册中心时再由注册中心处理
+        Runnable countedTask = () -> {
+            try {
+                task.run();
+            } catch (RuntimeException e) {
+                errorCount.increment();
+                throw e;
+            }
+        };
+        if (shared) {
+            ScheduledFuture<?> future = registry.scheduleWithFixedDelay(taskDesc, countedTask, intervalMs, intervalMs);
+            registry.addCloseable(owner);
+            return new ScheduledTask(registry, null, future, owner, errorCount);
+        }
+        // 先登记，注册中心已关闭时不创建线程
+        if (null != registry) {
+            registry.addCloseable(owner);
+        }
+        ScheduledExecutorService ownScheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, threadName);
+            t.setDaemon(true);
+            return t;
+        });
+        Consumer<RuntimeException> onError = null != registry ? e -> registry.onError("周期任务“" + taskDesc + "”异常", e) : e -> {
+        };
+        ScheduledFuture<?> future = ownScheduler.scheduleWithFixedDelay(guard(countedTask, onError), intervalMs, intervalMs, TimeUnit.MILLISECONDS);
+        return new ScheduledTask(registry, ownScheduler, future, owner, errorCount);
+    }
+
+    /**
+     * 用于异步访问数据源的有界执行器，由注册中心负责关闭，使用者不应自行关闭
+     */
+    public ExecutorService fetchExecutor() {
+        return fetchExecutor;
+    }
+
+    // ***********************生命周期****************************
+
+    /**
+     * 登记需要随注册中心关闭的组件(如日志输出、访问记录器、容量调节器)，关闭时按登记的逆序调用
+     */
+    public void addCloseable(Closeable closeable) {
+        checkNotShutdown();
+        synchronized (closeables) {
+            closeables.add(closeable);
+        }
+    }
+
+    public void removeCloseable(Closeable closeable) {
+        synchronized (closeables) {
+            closeables.remove(closeable);
+        }
+    }
+
+    public boolean isShutdown() {
+        return shutdown;
+    }
+
+    /**
+     * 周期任务与关闭组件时出现异常的次数
+     */
+    public long errorCount() {
+        return errorCount.sum();
+    }
+
+    /**
+     * 关闭注册中心，重复调用时不作处理
+     * <br>* 停止周期任务，按登记的逆序关闭组件，等待执行中的数据源访问完成，超时后中断
+     * <br>* 已登记的数据管理器会被注销(含MBean)，但仍可使用，之后的异步数据源访问会被拒绝
+     *
+     * @param timeoutMs 等待执行中任务完成的最长时间(毫秒)
+     * @return 是否在超时前全部完成
+     */
+    public boolean shutdown(long timeoutMs) {
+        synchronized (this) {
+            if (shutdown) {
+                return true;
+            }
+            shutdown = true;
+        }
+        scheduler.shutdown();
+        List<Closeable> toClose;
+        synchronized (closeables) {
+            toClose = new ArrayList<>(closeables);
+            closeables.clear();
+        }
+        Collections.reverse(toClose);
+        for (Closeable closeable : toClose) {
+            try {
+                closeable.close();
+            } catch (IOException | RuntimeException e) {
+                onError("关闭“" + closeable + "”异常", e);
+            }
+        }
+        fetchExecutor.shutdown();
+        boolean terminated = awaitTermination(timeoutMs);
+        if (!terminated) {
+            scheduler.shutdownNow();
+            fetchExecutor.shutdownNow();
+        }
+        for (DataManager<?, ?> manager : managers.values()) {
+            CacheMBeans.unregister(manager);
+        }
+        managers.clear();
+        removeShutdownHook();
+        return terminated;
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+
+    // ***********************内部方法****************************
+
+    private void checkNotShutdown() {
+        if (shutdown) {
+            throw new BdCacheException("注册中心“" + name + "”已关闭");
+        }
+    }
+
+    private boolean awaitTermination(long timeoutMs) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(Math.max(timeoutMs, 0));
+        try {
+            return scheduler.awaitTermination(Math.max(deadline - System.nanoTime(), 0), TimeUnit.NANOSECONDS)
+                    && fetchExecutor.awaitTermination(Math.max(deadline - System.nanoTime(), 0), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private void removeShutdownHook() {
+        if (null == shutdownHook || Thread.currentThread() == shutdownHook) {
+            return;
+        }
+        try {
+            Runtime.getRuntime().removeShutdownHook(shutdownHook);
+        } catch (IllegalStateException ignore) {
+            // JVM正在退出
+        }
+    }
+
+    private void onError(String desc, Exception e) {
+        errorCount.increment();
+        try {
+            errorHandler.accept(desc, e);
+        } catch (RuntimeException ignore) {
+            // 处理器自身的异常不影响调度与关闭
+        }
+    }
+
+    /**
+     * 周期任务抛出的异常不中止之后的执行
+     */
+    private static Runnable guard(Runnable task, Consumer<RuntimeException> onError) {
+        return () -> {
+            try {
+                task.run();
+            } catch (RuntimeException e) {
+                onError.accept(e);
+            }
+        };
+    }
+
+    private static ThreadFactory newThreadFactory(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return r -> {
+            Thread t = new Thread(r, prefix + "-" + counter.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        };
+    }
+
+    // ***********************内部类****************************
+
+    /**
+     * {@link #scheduleOrOwn}返回的周期任务句柄
+     */
+    public static class ScheduledTask implements Closeable {
+        private final CacheRegistry registry;
+        private final ScheduledExecutorService ownScheduler;
+        private final ScheduledFuture<?> future;
+        private final Closeable owner;
+        private final LongAdder errorCount;
+
+        private ScheduledTask(CacheRegistry registry, ScheduledExecutorService ownScheduler, ScheduledFuture<?> future, Closeable owner, LongAdder errorCount) {
+            this.registry = registry;
+            this.ownScheduler = ownScheduler;
+            this.future = future;
+            this.owner = owner;
+            this.errorCount = errorCount;
+        }
+
+        /**
+         * 周期任务抛出异常的次数
+         */
+        public long errorCount() {
+            return errorCount.sum();
+        }
+
+        /**
+         * 在同一调度器中尽快执行一次任务，调度器已关闭时抛出{@link RejectedExecutionException}；未定时执行时在当前线程执行
+         */
+        public void execute(Runnable task) {
+            if (null != ownScheduler) {
+                ownScheduler.execute(task);
+            } else if (null != registry) {
+                registry.schedule(task, 0);
+            } else {
+                task.run();
+            }
+        }
+
+        /**
+         * 停止周期任务，并从注册中心注销所有者或关闭独立的调度器(执行中的任务会继续完成)
+         */
+        @Override
+        public void close() {
+            if (null != future) {
+                future.cancel(false);
+            }
+            if (null != registry) {
+                registry.removeCloseable(owner);
+            }
+            if (null != ownScheduler) {
+                ownScheduler.shutdown();
+            }
+        }
+    }
+
+    private static class GlobalHolder {
+        private static final CacheRegistry INSTANCE = new Builder().name("bd-cache").shutdownHook(true).build();
+    }
+
+    public static class Builder {
+        private String name = "bd-cache-registry";
+        private int schedulerThreads = 2;
+        private int fetchThreads = Math.max(4, 2 * Runtime.getRuntime().availableProcessors());
+        private int fetchQueueCapacity = 1000;
+        private boolean shutdownHook;
+        private long shutdownTimeoutMs = 5000;
+        private BiConsumer<String, Exception> errorHandler = (desc, e) -> {
+        };
+
+        /**
+         * 名称，同时作为线程名的前缀，默认“bd-cache-registry”
+         */
+        public Builder name(String name) {
+            this.name = name;
+            return this;
+        }
+
+        /**
+         * 共享调度器的线程数，默认2
+         */
+        public Builder schedulerThreads(int schedulerThreads) {
+            this.schedulerThreads = Math.max(schedulerThreads, 1);
+            return this;
+        }
+
+        /**
+         * 数据源访问执行器的线程数，默认为CPU核数的2倍(至少4)，空闲60秒后回收
+         */
+        public Builder fetchThreads(int fetchThreads) {
+            this.fetchThreads = Math.max(fetchThreads, 1);
+            return this;
+        }
+
+        /**
+         * 数据源访问执行器的队列容量，默认1000
+         */
+        public Builder fetchQueueCapacity(int fetchQueueCapacity) {
+            this.fetchQueueCapacity = Math.max(fetchQueueCapacity, 1);
+            return this;
+        }
+
+        /**
+         * 是否在JVM退出时自动关闭，默认不启用
+         *
+         * @param timeoutMs 关闭时等待任务完成的最长时间(毫秒)
+         */
+        public Builder shutdownHook(boolean flag, long timeoutMs) {
+            this.shutdownHook = flag;
+            this.shutdownTimeoutMs = timeoutMs;
+            return this;
+        }
+
+        /**
+         * 是否在JVM退出时自动关闭，默认不启用
+         */
+        public Builder shutdownHook(boolean flag) {
+            this.shutdownHook = flag;
+            return this;
+        }
+
+        /**
+         * 周期任务与关闭组件时的异常处理器(如输出到应用的日志)，参数为异常的描述与异常，默认忽略(只计数)
+         */
+        public Builder errorHandler(BiConsumer<String, Exception> errorHandler) {
+            this.errorHandler = errorHandler;
+            return this;
+        }
+
+        public CacheRegistry build() {
+            return new CacheRegistry(this);
+        }
+    }
+}
@@ -1,19 +1,27 @@
 package com.soybeany.cache.v2.core;
 
 
+import com.soybeany.cache.v2.contract.frame.IBulkhead;
 import com.soybeany.cache.v2.contract.frame.ICacheStorage;
+import com.soybeany.cache.v2.contract.frame.ICircuitBreaker;
 import com.soybeany.cache.v2.contract.frame.IKeyLock;
 import com.soybeany.cache.v2.contract.frame.ILogger;
+import com.soybeany.cache.v2.contract.frame.IPromotionPolicy;
 import com.soybeany.cache.v2.contract.user.ICacheChecker;
 import com.soybeany.cache.v2.contract.user.IDatasource;
 import com.soybeany.cache.v2.contract.user.IKeyConverter;
 import com.soybeany.cache.v2.contract.user.IOnInvalidListener;
 import com.soybeany.cache.v2.exception.BdCacheException;
 import com.soybeany.cache.v2.exception.NoDataSourceException;
+import com.soybeany.cache.v2.jmx.CacheMBeans;
 import com.soybeany.cache.v2.model.DataContext;
 import com.soybeany.cache.v2.model.DataCore;
 import com.soybeany.cache.v2.model.DataPack;
 import com.soybeany.cache.v2.model.DataParam;
+import com.soybeany.cache.v2.stats.CacheStats;
+import com.soybeany.cache.v2.stats.LatencyStats;
+import com.soybeany.cache.v2.storage.AdaptiveDatasourceTimeout;
+import com.soybeany.cache.v2.trace.AccessTraceRecorder;
 
 import java.util.HashMap;
 import java.util.List;
@@ -63,10 +71,56 @@ public class DataManager<Param, Data> {
         return storageManager.storages();
     }
 
+    /**
+     * 获取缓存统计的快照
+     */
+    public CacheStats stats() {
+        return storageManager.stats();
+    }
+
+    /**
+     * 获取耗时统计的快照，需在构建时{@link Builder#enableLatencyStats 启用}
+     */
+    public LatencyStats latencyStats() {
+        return storageManager.latencyStats(false);
+    }
+
+    /**
+     * 获取自上次重置以来的耗时统计，并重置，用于按周期输出
+     */
+    public LatencyStats latencyStatsAndReset() {
+        return storageManager.latencyStats(true);
+    }
+
     public boolean enableRenewExpiredCache() {
         return storageManager.enableRenewExpiredCache();
     }
 
+    /**
+     * 指定入参当前生效的数据源超时(毫秒)
+     *
+     * @return 同步模式时返回null
+     */
+    public Long datasourceTimeout(Param param) {
+        return storageManager.getDatasourceTimeout(paramKeyConverter.getKey(param));
+    }
+
+    /**
+     * 运行时调整数据源的超时，对之后的数据源访问生效，进行中的访问仍使用原超时
+     *
+     * @param timeoutSupplier 入参为paramKey，返回超时(毫秒)；为null或返回null时为同步模式
+     */
+    public void setDatasourceTimeout(Function<String, Long> timeoutSupplier) {
+        storageManager.setAsyncDatasourceConfig(timeoutSupplier);
+    }
+
+    /**
+     * 运行时改为使用自适应的数据源超时，对之后的数据源访问生效
+     */
+    public void setAdaptiveDatasourceTimeout(AdaptiveDatasourceTimeout adaptiveTimeout) {
+        storageManager.setAdaptiveAsyncDatasourceConfig(adaptiveTimeout);
+    }
+
     // ********************操作********************
 
     /**
@@ -287,9 +341,12 @@ public class DataManager<Param, Data> {
     // ********************内部方法********************
 
     private DataParam<Param> toDataParam(Param param) {
-        String paramDesc = paramDescConverter.getKey(param);
         String paramKey = paramKeyConverter.getKey(param);
-        return new DataParam<>(paramDesc, paramKey, param);
+        // 描述与键使用相同的转换器时直接复用，否则延迟到需要时(如输出日志)才生成
+        if (paramDescConverter == paramKeyConverter) {
+            return new DataParam<>(paramKey, paramKey, param);
+        }
+        return new DataParam<>(paramDescConverter, paramKey, param);
     }
 
     private Map<Integer, Exception> innerCacheData(Param param, DataCore<Data> dataCore) {
@@ -327,6 +384,10 @@ public class DataManager<Param, Data> {
 
         private ILogger logger = ILogger.SKIP;
 
+        private boolean registerMBean;
+
+        private CacheRegistry registry;
+
         public static <Data> Builder<String, Data> get(String dataDesc, IDatasource<String, Data> datasource) {
             return new Builder<>(dataDesc, datasource, new IKeyConverter.Std());
         }
@@ -387,6 +448,29 @@ public class DataManager<Param, Data> {
             return this;
         }
 
+        /**
+         * 启用异步数据源访问，并根据观测到的数据源耗时自适应调整超时
+         * <br>* 与{@link #enableAsyncDatasource}互斥，以后配置的为准
+         * <br>* 当前生效的超时可通过{@link AdaptiveDatasourceTimeout#currentTimeoutMs()}获取
+         */
+        public Builder<Param, Data> enableAdaptiveAsyncDatasource(AdaptiveDatasourceTimeout adaptiveTimeout) {
+            storageManager.setAdaptiveAsyncDatasourceConfig(adaptiveTimeout);
+            return this;
+        }
+
+        /**
+         * 启用批量加载，数据源需实现{@link com.soybeany.cache.v2.contract.user.IBatchDatasource}
+         * <br>* 默认不启用
+         * <br>* 时间窗口内并发的单key未命中请求会被合并为一次批量请求，命中缓存的请求不受影响
+         *
+         * @param windowMs     合并请求的时间窗口(毫秒)，自批次内首个请求起计算
+         * @param maxBatchSize 单批次最大的请求数，达到后立刻执行
+         */
+        public Builder<Param, Data> enableBatchLoad(long windowMs, int maxBatchSize) {
+            storageManager.setBatchLoadConfig(windowMs, maxBatchSize);
+            return this;
+        }
+
         /**
          * 配置数据获取锁（fetch lock）
          * <br>* 用于防止多个线程同时请求同一key的数据源（默认仅能防单台服务器，升级为分布式锁可防全链路）
@@ -398,7 +482,73 @@ public class DataManager<Param, Data> {
         }
 
         /**
-         * 配置用于异步获取数据的执行器，默认使用缓存线程池
+         * 配置数据源熔断器
+         * <br>* 默认不启用
+         * <br>* 熔断器打开时不再访问数据源，直接使用已过期的缓存，若没有缓存则返回{@link com.soybeany.cache.v2.exception.CircuitOpenException}
+         */
+        public Builder<Param, Data> circuitBreaker(ICircuitBreaker circuitBreaker) {
+            storageManager.setCircuitBreaker(circuitBreaker);
+            return this;
+        }
+
+        /**
+         * 是否将管理器及其存储器注册为MBean，用于运行时查看统计、调整容量等
+         * <br>* 默认不注册，可使用{@link CacheMBeans#unregister}注销
+         */
+        public Builder<Param, Data> registerMBean(boolean flag) {
+            this.registerMBean = flag;
+            return this;
+        }
+
+        /**
+         * 是否统计耗时(各存储器的查找/缓存、数据源访问)，使用{@link DataManager#latencyStats()}获取
+         * <br>* 默认不启用，启用后每次存储器/数据源访问会多两次计时
+         */
+        public Builder<Param, Data> enableLatencyStats(boolean flag) {
+            storageManager.enableLatencyStats(flag);
+            return this;
+        }
+
+        /**
+         * 配置访问轨迹记录器，记录此管理器的读/写/失效/移除，用于离线回放
+         * <br>* 默认不记录，记录器需由调用方关闭
+         */
+        public Builder<Param, Data> accessTraceRecorder(AccessTraceRecorder recorder) {
+            storageManager.setAccessTraceRecorder(recorder);
+            return this;
+        }
+
+        /**
+         * 配置数据源隔离舱，限制此管理器访问数据源的并发数
+         * <br>* 默认不启用
+         * <br>* 避免单个慢数据源占满共享的异步执行器，被拒绝时直接使用已过期的缓存，若没有缓存则返回{@link com.soybeany.cache.v2.exception.BulkheadFullException}
+         */
+        public Builder<Param, Data> bulkhead(IBulkhead bulkhead) {
+            storageManager.setBulkhead(bulkhead);
+            return this;
+        }
+
+        /**
+         * 配置数据提升策略，决定下级存储器命中的数据是否写入上级存储器
+         * <br>* 默认总是提升
+         * <br>* 可使用{@link com.soybeany.cache.v2.storage.StdPromotionPolicy}，只让多次访问或体积较小的数据进入上级存储器，避免只访问一次的数据挤出热点数据
+         */
+        public Builder<Param, Data> promotionPolicy(IPromotionPolicy<Data> promotionPolicy) {
+            storageManager.setPromotionPolicy(promotionPolicy);
+            return this;
+        }
+
+        /**
+         * 构建时登记到注册中心，并默认使用注册中心的有界执行器异步获取数据
+         * <br>* storageId已被注册中心中的其它管理器登记时，构建抛出{@link com.soybeany.cache.v2.exception.BdCacheException}
+         */
+        public Builder<Param, Data> registry(CacheRegistry registry) {
+            this.registry = registry;
+            return this;
+        }
+
+        /**
+         * 配置用于异步获取数据的执行器，默认使用缓存线程池，设置了注册中心时为注册中心的执行器
          * <br>* 默认线程名："bd-cache-ds"
          * <br>* 可通过此方法设置包装了MDC上下文传递的自定义执行器
          */
@@ -446,10 +596,28 @@ public class DataManager<Param, Data> {
          */
         public DataManager<Param, Data> build() {
             DataContext context = new DataContext(dataDesc, Optional.ofNullable(this.storageId).orElse(dataDesc), logger);
+            if (null != registry) {
+                storageManager.setBaseAsyncFetchExecutor(registry.fetchExecutor());
+            }
             storageManager.init(context);
             logger.onInit(context);
             // 创建管理器实例
-            return new DataManager<>(context, defaultDatasource, storageManager, paramDescConverter, paramKeyConverter);
+            DataManager<Param, Data> manager = new DataManager<>(context, defaultDatasource, storageManager, paramDescConverter, paramKeyConverter);
+            // 先登记到注册中心，storageId重复时不影响已注册的MBean
+            if (null != registry) {
+                registry.register(manager);
+            }
+            if (registerMBean) {
+                try {
+                    CacheMBeans.register(manager);
+                } catch (RuntimeException e) {
+                    if (null != registry) {
+                        registry.unregister(manager);
+                    }
+                    throw e;
+                }
+            }
+            return manager;
         }
     }
 }
@@ -0,0 +1,149 @@
+package com.soybeany.cache.v2.core;
+
+import com.soybeany.cache.v2.contract.frame.ICacheStorage;
+import com.soybeany.cache.v2.stats.CacheStats;
+import com.soybeany.cache.v2.stats.LatencyHistogram;
+import com.soybeany.cache.v2.stats.LatencyStats;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 缓存统计的记录器，每个DataManager一个实例
+ * <br>* 计数均使用LongAdder，记录时无锁且不产生对象
+ * <br>* 耗时统计需显式启用，使用无锁的直方图记录
+ */
+class StatsRecorder {
+
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
+    private final LongAdder loadCount = new LongAdder();
+    private final LongAdder loadFailureCount = new LongAdder();
+    private final LongAdder lockTimeoutCount = new LongAdder();
+    private final LongAdder fallbackCount = new LongAdder();
+
+    private LongAdder[] tierHitCounts = new LongAdder[0];
+    private LongAdder[] tierMissCounts = new LongAdder[0];
+    private LongAdder[] tierPromotionCounts = new LongAdder[0];
+
+    private boolean latencyEnabled;
+    private final LatencyHistogram datasourceLatency = new LatencyHistogram();
+    private LatencyHistogram[] tierGetLatencies = new LatencyHistogram[0];
+    private LatencyHistogram[] tierCacheLatencies = new LatencyHistogram[0];
+    private volatile long latencyFrom = System.currentTimeMillis();
+
+    void enableLatency(boolean enabled) {
+        this.latencyEnabled = enabled;
+    }
+
+    void init(int tierCount) {
+        tierHitCounts = newAdders(tierCount);
+        tierMissCounts = newAdders(tierCount);
+        tierPromotionCounts = newAdders(tierCount);
+        if (latencyEnabled) {
+            tierGetLatencies = newHistograms(tierCount);
+            tierCacheLatencies = newHistograms(tierCount);
+        }
+    }
+
+    boolean latencyEnabled() {
+        return latencyEnabled;
+    }
+
+    /**
+     * 记录一次查找的结果
+     *
+     * @param hitIndex 命中的存储器下标，等于存储器数目时表示全部未命中
+     */
+    void onLookup(int hitIndex) {
+        for (int i = 0; i < hitIndex; i++) {
+            tierMissCounts[i].increment();
+        }
+        if (hitIndex < tierHitCounts.length) {
+            tierHitCounts[hitIndex].increment();
+            hitCount.increment();
+        } else {
+            missCount.increment();
+        }
+    }
+
+    void onPromotion(int storageIndex) {
+        tierPromotionCounts[storageIndex].increment();
+    }
+
+    void onLoad(boolean success) {
+        loadCount.increment();
+        if (!success) {
+            loadFailureCount.increment();
+        }
+    }
+
+    void onLockTimeout() {
+        lockTimeoutCount.increment();
+    }
+
+    void onFallback() {
+        fallbackCount.increment();
+    }
+
+    void onGetCacheLatency(int storageIndex, long costNanos) {
+        tierGetLatencies[storageIndex].record(costNanos);
+    }
+
+    void onCacheDataLatency(int storageIndex, long costNanos) {
+        tierCacheLatencies[storageIndex].record(costNanos);
+    }
+
+    void onDatasourceLatency(long costNanos) {
+        datasourceLatency.record(costNanos);
+    }
+
+    /**
+     * @param reset 是否在快照后重置，用于按周期统计
+     */
+    LatencyStats latencySnapshot(String dataDesc, ICacheStorage<?, ?>[] tiers, boolean reset) {
+        long from = latencyFrom;
+        long to = System.currentTimeMillis();
+        if (reset) {
+            latencyFrom = to;
+        }
+        List<LatencyStats.TierLatency> tierLatencies = new ArrayList<>();
+        for (int i = 0; i < tierGetLatencies.length; i++) {
+            tierLatencies.add(new LatencyStats.TierLatency(i, tiers[i].desc(), snapshot(tierGetLatencies[i], reset), snapshot(tierCacheLatencies[i], reset)));
+        }
+        return new LatencyStats(dataDesc, from, to, snapshot(datasourceLatency, reset), tierLatencies);
+    }
+
+    CacheStats snapshot(String dataDesc, ICacheStorage<?, ?>[] tiers) {
+        List<CacheStats.TierStats> tierStats = new ArrayList<>();
+        for (int i = 0; i < tiers.length; i++) {
+            tierStats.add(new CacheStats.TierStats(i, tiers[i].desc(), tierHitCounts[i].sum(), tierMissCounts[i].sum(),
+                    tierPromotionCounts[i].sum(), tiers[i].evictedCount()));
+        }
+        return new CacheStats(dataDesc, hitCount.sum(), missCount.sum(), loadCount.sum(), loadFailureCount.sum(),
+                lockTimeoutCount.sum(), fallbackCount.sum(), tierStats);
+    }
+
+    // ***********************内部方法****************************
+
+    private static LatencyHistogram.Snapshot snapshot(LatencyHistogram histogram, boolean reset) {
+        return reset ? histogram.snapshotAndReset() : histogram.snapshot();
+    }
+
+    private static LatencyHistogram[] newHistograms(int count) {
+        LatencyHistogram[] histograms = new LatencyHistogram[count];
+        for (int i = 0; i < count; i++) {
+            histograms[i] = new LatencyHistogram();
+        }
+        return histograms;
+    }
+
+    private static LongAdder[] newAdders(int count) {
+        LongAdder[] adders = new LongAdder[count];
+        for (int i = 0; i < count; i++) {
+            adders[i] = new LongAdder();
+        }
+        return adders;
+    }
+}
@@ -1,21 +1,36 @@
 package com.soybeany.cache.v2.core;
 
+import com.soybeany.cache.v2.contract.frame.IBulkhead;
 import com.soybeany.cache.v2.contract.frame.ICacheStorage;
+import com.soybeany.cache.v2.contract.frame.ICircuitBreaker;
 import com.soybeany.cache.v2.contract.frame.IKeyLock;
+import com.soybeany.cache.v2.contract.frame.IPromotionPolicy;
+import com.soybeany.cache.v2.contract.user.IBatchDatasource;
 import com.soybeany.cache.v2.contract.user.ICacheChecker;
 import com.soybeany.cache.v2.contract.user.IDatasource;
 import com.soybeany.cache.v2.contract.user.IOnInvalidListener;
+import com.soybeany.cache.v2.exception.BulkheadFullException;
 import com.soybeany.cache.v2.exception.CacheWaitException;
+import com.soybeany.cache.v2.exception.CircuitOpenException;
+import com.soybeany.cache.v2.exception.DatasourceRejectedException;
 import com.soybeany.cache.v2.exception.NoCacheException;
 import com.soybeany.cache.v2.exception.NoDataSourceException;
+import com.soybeany.cache.v2.jfr.CacheEvents;
 import com.soybeany.cache.v2.model.DataContext;
 import com.soybeany.cache.v2.model.DataCore;
 import com.soybeany.cache.v2.model.DataPack;
 import com.soybeany.cache.v2.model.DataParam;
+import com.soybeany.cache.v2.stats.CacheStats;
+import com.soybeany.cache.v2.stats.LatencyStats;
+import com.soybeany.cache.v2.storage.AdaptiveDatasourceTimeout;
 import com.soybeany.cache.v2.storage.StdKeyLock;
+import com.soybeany.cache.v2.trace.AccessTraceRecorder;
+import com.soybeany.cache.v2.trace.TraceOp;
+import com.soybeany.cache.v2.trace.TraceRecord;
 
 import java.util.*;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Function;
 import java.util.function.Predicate;
 import java.util.function.Supplier;
@@ -29,15 +44,34 @@ class StorageManager<Param, Data> {
         return t;
     });
 
-    private final LinkedList<ICacheStorage<Param, Data>> storages = new LinkedList<>();
+    private final List<ICacheStorage<Param, Data>> storages = new ArrayList<>();
     private final Set<IOnInvalidListener<Param>> onInvalidListeners = new HashSet<>();
+    private final Map<String, SharedFetch> sharedFetches = new ConcurrentHashMap<>();
+    private final Function<RuntimeException, DataPack<Data>> onException = this::toExceptionPack;
+    private final StatsRecorder stats = new StatsRecorder();
 
     private DataContext context;
+    /**
+     * 初始化时固化的存储器数组，查找/提升/回写均按下标遍历
+     */
+    @SuppressWarnings("unchecked")
+    private ICacheStorage<Param, Data>[] tiers = newTiers(0);
     private ICheckHolder<Param, Data> checkerHolder = (param, supplier) -> supplier.get();
+    private boolean enableDataCheck;
     private boolean enableRenewExpiredCache;
     private IKeyLock fetchLock = new StdKeyLock("fetch", k -> 30 * 1000L);
-    private Function<String, Long> datasourceTimeoutSupplier;
-
+    /**
+     * 数据源超时可在运行时调整，使用时需先读取到局部变量
+     */
+    private volatile Function<String, Long> datasourceTimeoutSupplier;
+    private volatile AdaptiveDatasourceTimeout adaptiveTimeout;
+    private ICircuitBreaker circuitBreaker;
+    private IBulkhead bulkhead;
+    private IPromotionPolicy<Data> promotionPolicy;
+    private BatchLoader<Param, Data> batchLoader;
+    private AccessTraceRecorder traceRecorder;
+
+    private Function<ExecutorService, ExecutorService> asyncFetchExecutorSupplier = Function.identity();
     private ExecutorService asyncFetchExecutor = DEFAULT_ASYNC_FETCH_EXECUTOR;
 
     public DataPack<Data> getDataDirectly(Object noDatasourceInvoker, Param param, IDatasource<Param, Data> datasource, Long timeoutMs) {
@@ -45,38 +79,9 @@ class StorageManager<Param, Data> {
         if (null == datasource) {
             return new DataPack<>(DataCore.fromException(new NoDataSourceException()), noDatasourceInvoker, Long.MAX_VALUE);
         }
-        // 同步模式（不开启异步数据源访问）
-        if (null == timeoutMs) {
-            try {
-                Data data = datasource.onGetData(param);
-                return new DataPack<>(DataCore.fromData(data), datasource, datasource.onSetupExpiry(param, data));
-            } catch (RuntimeException e) {
-                return new DataPack<>(DataCore.fromException(e), datasource, datasource.onSetupExpiry(param, e));
-            }
-        }
-        // 异步执行+超时
-        try {
-            Future<Data> future = asyncFetchExecutor.submit(() -> datasource.onGetData(param));
-            Data data;
-            try {
-                data = future.get(timeoutMs, TimeUnit.MILLISECONDS);
-            } catch (TimeoutException e) {
-                future.cancel(true);
-                throw new CacheWaitException("数据源访问超时");
-            } catch (InterruptedException e) {
-                future.cancel(true);
-                throw new CacheWaitException("数据源访问中断");
-            } catch (ExecutionException e) {
-                Throwable cause = e.getCause();
-                if (cause instanceof RuntimeException) {
-                    throw (RuntimeException) cause;
-                }
-                throw new RuntimeException(cause);
-            }
-            return new DataPack<>(DataCore.fromData(data), datasource, datasource.onSetupExpiry(param, data));
-        } catch (RuntimeException e) {
-            return new DataPack<>(DataCore.fromException(e), datasource, datasource.onSetupExpiry(param, e));
-        }
+        DataPack<Data> dataPack = onGetDataWithBulkhead(param, datasource, timeoutMs);
+        stats.onLoad(dataPack.norm());
+        return dataPack;
     }
 
     public void addStorage(ICacheStorage<Param, Data> storage) {
@@ -84,12 +89,13 @@ class StorageManager<Param, Data> {
     }
 
     public void setDataChecker(Function<Param, Long> intervalSupplier, ICacheChecker<Param, Data> checker) {
+        enableDataCheck = true;
         checkerHolder = new ICheckHolder<Param, Data>() {
             @Override
             public DataPack<Data> getCheckedDataPack(DataParam<Param> param, Supplier<DataPack<Data>> supplier) {
                 DataPack<Data> dataPack = supplier.get();
                 // 没有缓存策略，直接返回
-                if (storages.isEmpty()) {
+                if (0 == tiers.length) {
                     return dataPack;
                 }
                 // 来源于数据源，只更新下次检测时间，直接返回
@@ -98,7 +104,7 @@ class StorageManager<Param, Data> {
                     return dataPack;
                 }
 
-                ICacheStorage<Param, Data> firstStorage = storages.get(0);
+                ICacheStorage<Param, Data> firstStorage = tiers[0];
                 long curTimestamp = System.currentTimeMillis();
                 // 若没到检测时间，则不作处理
                 if (curTimestamp < firstStorage.getNextCheckStamp(param)) {
@@ -117,7 +123,7 @@ class StorageManager<Param, Data> {
 
             @Override
             public void updateNextCheckTime(DataParam<Param> param) {
-                ICacheStorage<Param, Data> firstStorage = storages.get(0);
+                ICacheStorage<Param, Data> firstStorage = tiers[0];
                 long curTimestamp = System.currentTimeMillis();
                 firstStorage.setNextCheckStamp(param, curTimestamp + intervalSupplier.apply(param.value));
             }
@@ -129,7 +135,7 @@ class StorageManager<Param, Data> {
     }
 
     public List<ICacheStorage<Param, Data>> storages() {
-        return storages;
+        return Collections.unmodifiableList(storages);
     }
 
     public boolean enableRenewExpiredCache() {
@@ -142,59 +148,122 @@ class StorageManager<Param, Data> {
 
     public void setAsyncDatasourceConfig(Function<String, Long> supplier) {
         this.datasourceTimeoutSupplier = supplier;
+        this.adaptiveTimeout = null;
+    }
+
+    public void setAdaptiveAsyncDatasourceConfig(AdaptiveDatasourceTimeout adaptiveTimeout) {
+        this.datasourceTimeoutSupplier = adaptiveTimeout;
+        this.adaptiveTimeout = adaptiveTimeout;
     }
 
     public Long getDatasourceTimeout(String paramKey) {
-        return null != datasourceTimeoutSupplier ? datasourceTimeoutSupplier.apply(paramKey) : null;
+        Function<String, Long> supplier = datasourceTimeoutSupplier;
+        return null != supplier ? supplier.apply(paramKey) : null;
     }
 
     public void setFetchLock(IKeyLock fetchLock) {
         this.fetchLock = fetchLock;
     }
 
+    public void setCircuitBreaker(ICircuitBreaker circuitBreaker) {
+        this.circuitBreaker = circuitBreaker;
+    }
+
+    public void setBulkhead(IBulkhead bulkhead) {
+        this.bulkhead = bulkhead;
+    }
+
+    public void setPromotionPolicy(IPromotionPolicy<Data> promotionPolicy) {
+        this.promotionPolicy = promotionPolicy;
+    }
+
+    public void setBatchLoadConfig(long windowMs, int maxBatchSize) {
+        this.batchLoader = new BatchLoader<>(windowMs, maxBatchSize);
+    }
+
+    public void setAccessTraceRecorder(AccessTraceRecorder traceRecorder) {
+        this.traceRecorder = traceRecorder;
+    }
+
     public void setAsyncFetchExecutor(Function<ExecutorService, ExecutorService> executorSupplier) {
-        this.asyncFetchExecutor = executorSupplier.apply(DEFAULT_ASYNC_FETCH_EXECUTOR);
+        this.asyncFetchExecutorSupplier = executorSupplier;
+    }
+
+    /**
+     * 初始化时，{@link #setAsyncFetchExecutor}的入参为此执行器；不设置时使用默认的缓存线程池
+     */
+    public void setBaseAsyncFetchExecutor(ExecutorService executor) {
+        this.asyncFetchExecutor = executor;
     }
 
     public void init(DataContext context) {
         this.context = context;
-        if (storages.isEmpty()) {
+        asyncFetchExecutor = asyncFetchExecutorSupplier.apply(asyncFetchExecutor);
+        // 固化存储器，此后不再变化
+        tiers = storages.toArray(newTiers(storages.size()));
+        stats.init(tiers.length);
+        if (0 == tiers.length) {
             return;
         }
-        storages.getLast().enableRenewExpiredCache(enableRenewExpiredCache);
-        storages.forEach(storage -> storage.onInit(context));
+        tiers[tiers.length - 1].enableRenewExpiredCache(enableRenewExpiredCache);
+        for (ICacheStorage<Param, Data> storage : tiers) {
+            storage.onInit(context);
+        }
+    }
+
+    public CacheStats stats() {
+        return stats.snapshot(context.dataDesc, tiers);
+    }
+
+    public LatencyStats latencyStats(boolean reset) {
+        return stats.latencySnapshot(context.dataDesc, tiers, reset);
+    }
+
+    public void enableLatencyStats(boolean enabled) {
+        stats.enableLatency(enabled);
     }
 
     /**
      * 获取数据并自动缓存
      */
     public DataPack<Data> getDataPack(DataParam<Param> param, IDatasource<Param, Data> datasource, boolean needStore) {
-        return checkerHolder.getCheckedDataPack(param, () -> onGetDataPack(0, param, datasource, needStore, e -> new DataPack<>(DataCore.fromException(e), this, 0)));
+        // 未启用数据检查时直接获取，避免创建lambda
+        if (!enableDataCheck) {
+            return onGetDataPack(param, datasource, needStore);
+        }
+        return checkerHolder.getCheckedDataPack(param, () -> onGetDataPack(param, datasource, needStore));
     }
 
     /**
      * 获取数据并自动缓存(短超时回退模式)
-     * <br>使用短超时访问数据源，超时后回退到过期缓存
+     * <br>先同步检查各级缓存，未命中时才在后台访问数据源，并使用短超时等待，超时后回退到过期缓存
+     * <br>同一key的并发请求共享一次后台获取
      */
     public DataPack<Data> getDataPackWithCacheFallback(DataParam<Param> param, IDatasource<Param, Data> datasource, boolean needStore, long quickTimeoutMs, Function<DataPack<Data>, DataPack<Data>> fallbackProcessor) {
-        // 1. 捕获子线程引用，用于fallback时精确中断
-        Thread[] subThreadRef = new Thread[1];
-        Future<DataPack<Data>> future = asyncFetchExecutor.submit(() -> {
-            subThreadRef[0] = Thread.currentThread();
-            return getDataPack(param, datasource, needStore);
-        });
-        // 2. 短超时等待
+        // 1. 同步检查各级缓存，命中时直接返回，无需切换线程（启用数据检查时，需走完整流程）
+        if (!enableDataCheck) {
+            DataPack<Data> dataPack = getFreshCacheDataPack(param, needStore, true);
+            if (null != dataPack) {
+                return dataPack;
+            }
+        }
+        // 2. 加入(或发起)后台获取
+        SharedFetch fetch = joinSharedFetch(param, datasource, needStore);
+        // 3. 短超时等待
+        boolean giveUp = false;
         try {
-            return future.get(quickTimeoutMs, TimeUnit.MILLISECONDS);
+            return fetch.future.get(quickTimeoutMs, TimeUnit.MILLISECONDS);
         } catch (TimeoutException | InterruptedException e) {
-            if (null != subThreadRef[0]) {
-                fetchLock.cancelIfWaiting(subThreadRef[0]);
-            }
-            return fallbackProcessor.apply(onGetCacheDataPack(0, param));
+            giveUp = true;
+            stats.onFallback();
+            CacheEvents.onFallback(context.dataDesc, param.paramKey, "等待超时");
+            return fallbackProcessor.apply(onGetCacheDataPack(param));
         } catch (ExecutionException e) {
             Throwable cause = e.getCause();
             RuntimeException ex = cause instanceof RuntimeException ? (RuntimeException) cause : new RuntimeException(cause);
-            return fallbackProcessor.apply(new DataPack<>(DataCore.fromException(ex), this, 0));
+            return fallbackProcessor.apply(toExceptionPack(ex));
+        } finally {
+            fetch.leave(giveUp);
         }
     }
 
@@ -202,10 +271,11 @@ class StorageManager<Param, Data> {
      * 获取当前缓存（即使已过期），不访问数据源
      */
     public DataPack<Data> getCacheDataPack(DataParam<Param> param) {
-        return onGetCacheDataPack(0, param);
+        return onGetCacheDataPack(param);
     }
 
     public Map<Integer, Exception> cacheData(DataParam<Param> param, DataPack<Data> dataPack) {
+        trace(param, TraceOp.WRITE, TraceRecord.TIER_MISS, 0);
         Map<Integer, Exception> result = traverseR((storage, prePack) -> storage.onCacheData(param, prePack), dataPack);
         checkerHolder.updateNextCheckTime(param);
         return result;
@@ -213,12 +283,14 @@ class StorageManager<Param, Data> {
 
     public Map<Integer, Exception> batchCacheData(Map<DataParam<Param>, DataPack<Data>> dataPacks) {
         Set<DataParam<Param>> params = dataPacks.keySet();
+        params.forEach(param -> trace(param, TraceOp.WRITE, TraceRecord.TIER_MISS, 0));
         Map<Integer, Exception> result = traverseR(ICacheStorage::onBatchCacheData, dataPacks);
         params.forEach(param -> checkerHolder.updateNextCheckTime(param));
         return result;
     }
 
     public Map<Integer, Exception> invalidCache(DataParam<Param> param, int... storageIndexes) {
+        trace(param, TraceOp.INVALIDATE, TraceRecord.TIER_MISS, 0);
         List<Integer> onSuccess = new ArrayList<>();
         Map<Integer, Exception> result = traverse((index, storage) -> {
             storage.onInvalidCache(param);
@@ -233,6 +305,7 @@ class StorageManager<Param, Data> {
     }
 
     public Map<Integer, Exception> removeCache(DataParam<Param> param, int... storageIndexes) {
+        trace(param, TraceOp.REMOVE, TraceRecord.TIER_MISS, 0);
         return traverse((index, storage) -> storage.onRemoveCache(param), storageIndexes);
     }
 
@@ -241,7 +314,7 @@ class StorageManager<Param, Data> {
     }
 
     public boolean checkCache(DataParam<Param> param, ICacheChecker<Param, Data> checker) {
-        DataPack<Data> dataPack = onGetCacheDataPack(0, param);
+        DataPack<Data> dataPack = onGetCacheDataPack(param);
         if (dataPack.dataCore.exception instanceof NoCacheException) {
             return false;
         }
@@ -252,11 +325,16 @@ class StorageManager<Param, Data> {
 
     // ****************************************内部方法****************************************
 
+    @SuppressWarnings("unchecked")
+    private static <Param, Data> ICacheStorage<Param, Data>[] newTiers(int size) {
+        return (ICacheStorage<Param, Data>[]) new ICacheStorage<?, ?>[size];
+    }
+
     private <T> Map<Integer, Exception> traverseR(ICallback1<Param, Data, T> callback, T data) {
         Map<Integer, Exception> result = new HashMap<>();
-        for (int i = storages.size() - 1; i >= 0; i--) {
+        for (int i = tiers.length - 1; i >= 0; i--) {
             try {
-                data = callback.onInvoke(storages.get(i), data);
+                data = callback.onInvoke(tiers[i], data);
             } catch (Exception e) {
                 result.put(i, e);
             }
@@ -271,10 +349,10 @@ class StorageManager<Param, Data> {
             filter = indexes::contains;
         }
         Map<Integer, Exception> result = new HashMap<>();
-        for (int i = 0; i < storages.size(); i++) {
+        for (int i = 0; i < tiers.length; i++) {
             if (filter.test(i)) {
                 try {
-                    callback.onInvoke(i, storages.get(i));
+                    callback.onInvoke(i, tiers[i]);
                 } catch (Exception e) {
                     result.put(i, e);
                 }
@@ -292,65 +370,168 @@ class StorageManager<Param, Data> {
         return needUpdate;
     }
 
-    private DataPack<Data> onGetDataPack(int storageIndex, DataParam<Param> param, IDatasource<Param, Data> datasource, boolean needStore, Function<RuntimeException, DataPack<Data>> onException) {
-        // 若超出storages边界，则访问数据源
-        if (storageIndex >= storages.size()) {
-            return exeWithFetchLock(param, () -> {
-                // 双重检查：其他线程可能已写入缓存
-                for (ICacheStorage<Param, Data> storage : storages) {
-                    try {
-                        return storage.onGetCache(param);
-                    } catch (NoCacheException ignored) {
-                    }
-                }
-                List<DataPack<Data>> dataPackHolder = new ArrayList<>();
-                dataPackHolder.add(getDataDirectly(this, param.value, datasource, getDatasourceTimeout(param.paramKey)));
-                // 在fetch锁内回写所有缓存层，释放锁后其他线程可直接读到
-                if (needStore) {
-                    for (int i = storages.size() - 1; i >= 0; i--) {
-                        ICacheStorage<Param, Data> s = storages.get(i);
-                        onExe(() -> dataPackHolder.set(0, s.onCacheData(param, dataPackHolder.get(0))), onException);
-                    }
+    /**
+     * 查找→访问数据源→提升的迭代流水线
+     * <br>* 自上而下查找各级缓存，命中时将数据提升到更上级的存储器
+     * <br>* 全部未命中时，在fetch锁内访问数据源并回写所有存储器
+     * <br>* 命中路径不使用lambda，避免每次调用产生额外的对象
+     */
+    private DataPack<Data> onGetDataPack(DataParam<Param> param, IDatasource<Param, Data> datasource, boolean needStore) {
+        ICacheStorage<Param, Data>[] tiers = this.tiers;
+        int hitIndex = 0;
+        DataPack<Data> dataPack = null;
+        Object lookupEvent = CacheEvents.beginLookup();
+        try {
+            for (; hitIndex < tiers.length; hitIndex++) {
+                dataPack = findCache(hitIndex, param);
+                if (null != dataPack) {
+                    break;
                 }
-                return dataPackHolder.get(0);
-            }, onException);
+            }
+        } catch (RuntimeException e) {
+            return toExceptionPack(e);
+        }
+        CacheEvents.endLookup(lookupEvent, context.dataDesc, param.paramKey, null != dataPack ? hitIndex : -1, hitIndex);
+        stats.onLookup(hitIndex);
+        // 全部未命中，访问数据源（回写已在锁内完成）
+        if (null == dataPack) {
+            long start = null != traceRecorder ? System.nanoTime() : 0;
+            dataPack = exeWithFetchLock(param, () -> onFetchAndStore(param, datasource, needStore), onException);
+            if (null != traceRecorder) {
+                trace(param, TraceOp.READ, TraceRecord.TIER_MISS, System.nanoTime() - start);
+            }
+            return dataPack;
         }
+        trace(param, TraceOp.READ, hitIndex, 0);
+        // 数据提升
+        boolean promote = needStore && shouldPromote(param, hitIndex, dataPack);
+        for (int i = hitIndex - 1; promote && i >= 0; i--) {
+            try {
+                dataPack = cacheData(i, param, dataPack);
+            } catch (RuntimeException e) {
+                return toExceptionPack(e);
+            }
+            stats.onPromotion(i);
+        }
+        return dataPack;
+    }
 
-        ICacheStorage<Param, Data> storage = storages.get(storageIndex);
-        return onExe(() -> {
+    private DataPack<Data> onFetchAndStore(DataParam<Param> param, IDatasource<Param, Data> datasource, boolean needStore) {
+        // 双重检查：其他线程可能已写入缓存
+        DataPack<Data> dataPack = getFreshCacheDataPack(param, needStore, false);
+        if (null != dataPack) {
+            return dataPack;
+        }
+        Object loadEvent = CacheEvents.beginLoad();
+        dataPack = getDataDirectly(this, param.value, datasource, getDatasourceTimeout(param.paramKey));
+        CacheEvents.endLoad(loadEvent, context.dataDesc, param.paramKey, dataPack.norm());
+        // 数据源拒绝访问(熔断/限流)时直接使用已过期的缓存，不作回写
+        if (dataPack.dataCore.exception instanceof DatasourceRejectedException) {
+            return getStaleDataPack(param, dataPack);
+        }
+        // 在fetch锁内回写所有缓存层，释放锁后其他线程可直接读到
+        for (int i = tiers.length - 1; needStore && i >= 0; i--) {
             try {
-                // 从当前storage获取数据
-                return storage.onGetCache(param);
-            } catch (NoCacheException e) {
-                // 从下一storage获取数据
-                DataPack<Data> dataPack = onGetDataPack(storageIndex + 1, param, datasource, needStore, onException);
-                // 按需缓存数据（数据提升：非数据源路径时才回写，数据源路径已由边界统一回写）
-                if (needStore && !isFromDatasource(dataPack)) {
-                    DataPack<Data> dp = dataPack;
-                    dataPack = onExe(() -> storage.onCacheData(param, dp), onException);
+                dataPack = cacheData(i, param, dataPack);
+            } catch (RuntimeException e) {
+                return toExceptionPack(e);
+            }
+            stats.onPromotion(i);
+        }
+        return dataPack;
+    }
+
+    /**
+     * 获取未过期的缓存，并按需进行数据提升
+     *
+     * @param recordStats 是否计入命中统计(双重检查时不重复计入；未命中时由后续的完整查找计入)
+     * @return 缓存数据，若各级缓存均未命中(或出现异常)则返回null
+     */
+    private DataPack<Data> getFreshCacheDataPack(DataParam<Param> param, boolean needStore, boolean recordStats) {
+        for (int i = 0; i < tiers.length; i++) {
+            DataPack<Data> dataPack;
+            try {
+                dataPack = findCache(i, param);
+            } catch (RuntimeException e) {
+                return null;
+            }
+            if (null == dataPack) {
+                continue;
+            }
+            if (recordStats) {
+                stats.onLookup(i);
+                trace(param, TraceOp.READ, i, 0);
+            }
+            boolean promote = needStore && shouldPromote(param, i, dataPack);
+            for (int j = i - 1; promote && j >= 0; j--) {
+                try {
+                    dataPack = cacheData(j, param, dataPack);
+                } catch (RuntimeException e) {
+                    // 提升失败不影响已获取的数据
+                    break;
                 }
-                return dataPack;
+                stats.onPromotion(j);
             }
-        }, onException);
+            return dataPack;
+        }
+        return null;
     }
 
-    private DataPack<Data> onGetCacheDataPack(int storageIndex, DataParam<Param> param) {
-        if (storageIndex >= storages.size()) {
-            return new DataPack<>(DataCore.fromException(new NoCacheException()), this, 0);
+    private SharedFetch joinSharedFetch(DataParam<Param> param, IDatasource<Param, Data> datasource, boolean needStore) {
+        while (true) {
+            SharedFetch fetch = sharedFetches.computeIfAbsent(param.paramKey, k -> new SharedFetch(param, datasource, needStore));
+            // 指定了不同数据源的请求，不作共享
+            if (fetch.datasource != datasource || fetch.needStore != needStore) {
+                fetch = new SharedFetch(param, datasource, needStore);
+            }
+            if (fetch.tryJoin()) {
+                fetch.startIfNeeded();
+                return fetch;
+            }
+            // 已被放弃的获取，移除后重新创建
+            sharedFetches.remove(param.paramKey, fetch);
         }
-        ICacheStorage<Param, Data> storage = storages.get(storageIndex);
-        try {
-            return storage.onGetCacheIgnoreExpiry(param);
-        } catch (NoCacheException e) {
-            DataPack<Data> dataPack = onGetCacheDataPack(storageIndex + 1, param);
-            return storage.onCacheData(param, dataPack);
+    }
+
+    private DataPack<Data> onGetCacheDataPack(DataParam<Param> param) {
+        int hitIndex = 0;
+        DataPack<Data> dataPack = null;
+        for (; hitIndex < tiers.length; hitIndex++) {
+            dataPack = tiers[hitIndex].onFindCacheIgnoreExpiry(param);
+            if (null != dataPack) {
+                break;
+            }
+        }
+        if (null == dataPack) {
+            dataPack = new DataPack<>(DataCore.fromException(new NoCacheException()), this, 0);
         }
+        boolean promote = hitIndex < tiers.length && shouldPromote(param, hitIndex, dataPack);
+        for (int i = hitIndex - 1; promote && i >= 0; i--) {
+            dataPack = cacheData(i, param, dataPack);
+        }
+        return dataPack;
+    }
+
+    /**
+     * 获取已过期的缓存，若全部存储器都没有缓存，则返回指定的数据包
+     */
+    private DataPack<Data> getStaleDataPack(DataParam<Param> param, DataPack<Data> defaultPack) {
+        for (ICacheStorage<Param, Data> storage : tiers) {
+            DataPack<Data> dataPack = storage.onFindCacheIgnoreExpiry(param);
+            if (null != dataPack) {
+                stats.onFallback();
+                CacheEvents.onFallback(context.dataDesc, param.paramKey, "数据源拒绝访问");
+                return dataPack;
+            }
+        }
+        return defaultPack;
     }
 
     private <T> T exeWithFetchLock(DataParam<Param> param, Supplier<T> callback, Function<RuntimeException, T> onException) {
         try {
             fetchLock.onTryLock(param.paramKey);
         } catch (RuntimeException e) {
+            stats.onLockTimeout();
             context.logger.onLockException(param.paramKey, e);
             return onException.apply(e);
         }
@@ -365,6 +546,16 @@ class StorageManager<Param, Data> {
         }
     }
 
+    private void trace(DataParam<Param> param, TraceOp op, int tier, long loadNanos) {
+        if (null != traceRecorder) {
+            traceRecorder.record(param.paramKey, op, tier, loadNanos);
+        }
+    }
+
+    private DataPack<Data> toExceptionPack(RuntimeException e) {
+        return new DataPack<>(DataCore.fromException(e), this, 0);
+    }
+
     private <T> T onExe(Supplier<T> callback, Function<RuntimeException, T> onException) {
         // 执行数据获取逻辑
         try {
@@ -374,6 +565,153 @@ class StorageManager<Param, Data> {
         }
     }
 
+    private DataPack<Data> onGetDataWithBulkhead(Param param, IDatasource<Param, Data> datasource, Long timeoutMs) {
+        // 没有配置隔离舱，直接访问
+        if (null == bulkhead) {
+            return onGetDataWithCircuitBreaker(param, datasource, timeoutMs);
+        }
+        // 并发数与等待队列均已满时，不访问数据源
+        if (!bulkhead.onTryEnter()) {
+            return new DataPack<>(DataCore.fromException(new BulkheadFullException(context.dataDesc)), this, 0);
+        }
+        try {
+            return onGetDataWithCircuitBreaker(param, datasource, timeoutMs);
+        } finally {
+            bulkhead.onExit();
+        }
+    }
+
+    private DataPack<Data> onGetDataWithCircuitBreaker(Param param, IDatasource<Param, Data> datasource, Long timeoutMs) {
+        // 没有配置熔断器，直接访问
+        if (null == circuitBreaker) {
+            return onGetDataFromDatasource(param, datasource, timeoutMs);
+        }
+        // 熔断器打开时，不访问数据源
+        if (!circuitBreaker.onTryAcquire()) {
+            return new DataPack<>(DataCore.fromException(new CircuitOpenException(context.dataDesc)), this, 0);
+        }
+        long startTime = System.currentTimeMillis();
+        try {
+            DataPack<Data> dataPack = onGetDataFromDatasource(param, datasource, timeoutMs);
+            long costMs = System.currentTimeMillis() - startTime;
+            if (dataPack.norm()) {
+                circuitBreaker.onSuccess(costMs);
+            } else {
+                circuitBreaker.onFailure(costMs, dataPack.dataCore.exception);
+            }
+            return dataPack;
+        } catch (RuntimeException e) {
+            circuitBreaker.onFailure(System.currentTimeMillis() - startTime, e);
+            throw e;
+        }
+    }
+
+    private DataPack<Data> onGetDataFromDatasource(Param param, IDatasource<Param, Data> datasource, Long timeoutMs) {
+        if (!stats.latencyEnabled()) {
+            return onGetDataWithTimeout(param, datasource, timeoutMs);
+        }
+        long start = System.nanoTime();
+        try {
+            return onGetDataWithTimeout(param, datasource, timeoutMs);
+        } finally {
+            stats.onDatasourceLatency(System.nanoTime() - start);
+        }
+    }
+
+    private DataPack<Data> onGetDataWithTimeout(Param param, IDatasource<Param, Data> datasource, Long timeoutMs) {
+        // 同步模式（不开启异步数据源访问）
+        if (null == timeoutMs) {
+            try {
+                Data data = onInvokeDatasource(datasource, param);
+                return new DataPack<>(DataCore.fromData(data), datasource, datasource.onSetupExpiry(param, data));
+            } catch (RuntimeException e) {
+                return new DataPack<>(DataCore.fromException(e), datasource, datasource.onSetupExpiry(param, e));
+            }
+        }
+        // 异步执行+超时
+        AdaptiveDatasourceTimeout adaptiveTimeout = this.adaptiveTimeout;
+        try {
+            long startTime = System.currentTimeMillis();
+            Future<Data> future;
+            try {
+                future = asyncFetchExecutor.submit(() -> onInvokeDatasource(datasource, param));
+            } catch (RejectedExecutionException e) {
+                // 执行器已满或已关闭，与隔离舱已满一样拒绝访问，不缓存此异常
+                return new DataPack<>(DataCore.fromException(new BulkheadFullException(context.dataDesc)), this, 0);
+            }
+            Data data;
+            try {
+                data = future.get(timeoutMs, TimeUnit.MILLISECONDS);
+                if (null != adaptiveTimeout) {
+                    adaptiveTimeout.onRecord(System.currentTimeMillis() - startTime);
+                }
+            } catch (TimeoutException e) {
+                future.cancel(true);
+                // 超时的访问以超时值计入，使超时能逐步放宽
+                if (null != adaptiveTimeout) {
+                    adaptiveTimeout.onRecord(timeoutMs);
+                }
+                throw new CacheWaitException("数据源访问超时");
+            } catch (InterruptedException e) {
+                future.cancel(true);
+                throw new CacheWaitException("数据源访问中断");
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof RuntimeException) {
+                    throw (RuntimeException) cause;
+                }
+                throw new RuntimeException(cause);
+            }
+            return new DataPack<>(DataCore.fromData(data), datasource, datasource.onSetupExpiry(param, data));
+        } catch (RuntimeException e) {
+            return new DataPack<>(DataCore.fromException(e), datasource, datasource.onSetupExpiry(param, e));
+        }
+    }
+
+    private DataPack<Data> findCache(int storageIndex, DataParam<Param> param) {
+        if (!stats.latencyEnabled()) {
+            return tiers[storageIndex].onFindCache(param);
+        }
+        long start = System.nanoTime();
+        try {
+            return tiers[storageIndex].onFindCache(param);
+        } finally {
+            stats.onGetCacheLatency(storageIndex, System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * 下级存储器命中时，由提升策略决定是否写入上级存储器
+     */
+    private boolean shouldPromote(DataParam<Param> param, int hitIndex, DataPack<Data> dataPack) {
+        IPromotionPolicy<Data> policy = promotionPolicy;
+        return null == policy || 0 == hitIndex || policy.onShouldPromote(param.paramKey, hitIndex, dataPack);
+    }
+
+    private DataPack<Data> cacheData(int storageIndex, DataParam<Param> param, DataPack<Data> dataPack) {
+        Object promotionEvent = CacheEvents.beginPromotion();
+        if (!stats.latencyEnabled()) {
+            dataPack = tiers[storageIndex].onCacheData(param, dataPack);
+        } else {
+            long start = System.nanoTime();
+            try {
+                dataPack = tiers[storageIndex].onCacheData(param, dataPack);
+            } finally {
+                stats.onCacheDataLatency(storageIndex, System.nanoTime() - start);
+            }
+        }
+        CacheEvents.endPromotion(promotionEvent, context.dataDesc, param.paramKey, storageIndex, tiers[storageIndex].desc());
+        return dataPack;
+    }
+
+    private Data onInvokeDatasource(IDatasource<Param, Data> datasource, Param param) {
+        // 批量数据源，合并并发的请求
+        if (null != batchLoader && datasource instanceof IBatchDatasource) {
+            return batchLoader.load((IBatchDatasource<Param, Data>) datasource, param);
+        }
+        return datasource.onGetData(param);
+    }
+
     private boolean isFromDatasource(DataPack<Data> dataPack) {
         return dataPack.provider instanceof IDatasource;
     }
@@ -388,6 +726,72 @@ class StorageManager<Param, Data> {
         void onInvoke(int index, ICacheStorage<Param, Data> storage);
     }
 
+    /**
+     * 短超时回退模式下，同一key共享的后台获取
+     */
+    private class SharedFetch {
+        private final String key;
+        private final IDatasource<Param, Data> datasource;
+        private final boolean needStore;
+        private final FutureTask<DataPack<Data>> future;
+        private final AtomicBoolean started = new AtomicBoolean();
+        private volatile Thread thread;
+        private int waiters;
+        private boolean abandoned;
+
+        SharedFetch(DataParam<Param> param, IDatasource<Param, Data> datasource, boolean needStore) {
+            this.key = param.paramKey;
+            this.datasource = datasource;
+            this.needStore = needStore;
+            this.future = new FutureTask<>(() -> {
+                // 记录子线程，用于fallback时精确中断
+                thread = Thread.currentThread();
+                try {
+                    return getDataPack(param, datasource, needStore);
+                } finally {
+                    thread = null;
+                    sharedFetches.remove(key, this);
+                }
+            });
+        }
+
+        synchronized boolean tryJoin() {
+            if (abandoned) {
+                return false;
+            }
+            waiters++;
+            return true;
+        }
+
+        void startIfNeeded() {
+            if (!started.compareAndSet(false, true)) {
+                return;
+            }
+            try {
+                asyncFetchExecutor.execute(future);
+            } catch (RuntimeException e) {
+                sharedFetches.remove(key, this);
+                future.cancel(false);
+                throw e;
+            }
+        }
+
+        /**
+         * 等待者离开，最后一个放弃等待的请求会中断仍在等待fetch锁的子线程
+         */
+        synchronized void leave(boolean giveUp) {
+            if (--waiters > 0 || !giveUp) {
+                return;
+            }
+            abandoned = true;
+            sharedFetches.remove(key, this);
+            Thread subThread = thread;
+            if (null != subThread) {
+                fetchLock.cancelIfWaiting(subThread);
+            }
+        }
+    }
+
     private interface ICheckHolder<Param, Data> {
         DataPack<Data> getCheckedDataPack(DataParam<Param> param, Supplier<DataPack<Data>> supplier);
 
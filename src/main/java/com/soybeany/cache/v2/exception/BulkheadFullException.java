@@ -0,0 +1,10 @@
+package com.soybeany.cache.v2.exception;
+
+/**
+ * 数据源并发数与等待队列均已满，拒绝访问数据源时的异常
+ */
+public class BulkheadFullException extends DatasourceRejectedException {
+    public BulkheadFullException(String msg) {
+        super("数据源访问已满:" + msg);
+    }
+}
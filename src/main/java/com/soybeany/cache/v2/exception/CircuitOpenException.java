@@ -0,0 +1,10 @@
+package com.soybeany.cache.v2.exception;
+
+/**
+ * 熔断器处于打开状态，拒绝访问数据源时的异常
+ */
+public class CircuitOpenException extends DatasourceRejectedException {
+    public CircuitOpenException(String msg) {
+        super("熔断器已打开:" + msg);
+    }
+}
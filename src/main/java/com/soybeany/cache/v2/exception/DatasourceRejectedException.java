@@ -0,0 +1,10 @@
+package com.soybeany.cache.v2.exception;
+
+/**
+ * 数据源访问被拒绝时的异常（如熔断、限流），此时会尝试使用已过期的缓存
+ */
+public class DatasourceRejectedException extends BdCacheException {
+    public DatasourceRejectedException(String message) {
+        super(message);
+    }
+}
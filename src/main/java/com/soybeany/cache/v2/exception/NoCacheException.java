@@ -2,10 +2,16 @@ package com.soybeany.cache.v2.exception;
 
 /**
  * 该异常只供框架内部使用，用户不应接触该异常
+ * <br>* 仅用于表示缓存未命中，不记录调用栈以减少创建开销
  * <br>Created by Soybeany on 2020/10/15.
  */
 public class NoCacheException extends BdCacheException {
     public NoCacheException() {
         super("没有找到缓存");
     }
+
+    @Override
+    public synchronized Throwable fillInStackTrace() {
+        return this;
+    }
 }
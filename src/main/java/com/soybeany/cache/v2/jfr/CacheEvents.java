@@ -0,0 +1,115 @@
+package com.soybeany.cache.v2.jfr;
+
+/**
+ * 缓存操作的JFR事件入口（框架内部使用）
+ * <br>* 事件的实现依赖jdk.jfr，单独以Java 11编译，运行时通过反射加载
+ * <br>* 运行环境不支持JFR(如jdk8)或未包含事件的实现时，所有方法均为空操作，且不会加载jdk.jfr中的类
+ * <br>* 没有正在进行的录制(或对应事件未启用)时，begin*方法返回null，不创建事件对象
+ * <br>* begin*返回的令牌需原样传给对应的end*方法，令牌为null时end*直接返回
+ */
+public final class CacheEvents {
+
+    private static final String SINK_CLASS = "com.soybeany.cache.v2.jfr.JfrEventSupport";
+    private static final ICacheEventSink SINK = loadSink();
+
+    private CacheEvents() {
+    }
+
+    /**
+     * 开始访问数据源
+     */
+    public static Object beginLoad() {
+        return null != SINK ? SINK.beginLoad() : null;
+    }
+
+    /**
+     * 结束访问数据源
+     */
+    public static void endLoad(Object token, String dataDesc, String key, boolean success) {
+        if (null != token) {
+            SINK.endLoad(token, dataDesc, key, success);
+        }
+    }
+
+    /**
+     * 开始等待fetch锁
+     */
+    public static Object beginLockWait() {
+        return null != SINK ? SINK.beginLockWait() : null;
+    }
+
+    /**
+     * 结束等待fetch锁
+     */
+    public static void endLockWait(Object token, String lockDesc, String key, boolean acquired) {
+        if (null != token) {
+            SINK.endLockWait(token, lockDesc, key, acquired);
+        }
+    }
+
+    /**
+     * 开始逐级查找缓存
+     */
+    public static Object beginLookup() {
+        return null != SINK ? SINK.beginLookup() : null;
+    }
+
+    /**
+     * 结束逐级查找缓存，只有存在未命中的存储器时才提交事件
+     *
+     * @param hitTier 命中的存储器下标，全部未命中时为-1
+     */
+    public static void endLookup(Object token, String dataDesc, String key, int hitTier, int missedTiers) {
+        if (null != token && missedTiers > 0) {
+            SINK.endLookup(token, dataDesc, key, hitTier, missedTiers);
+        }
+    }
+
+    /**
+     * 开始将数据提升(写入)到指定存储器
+     */
+    public static Object beginPromotion() {
+        return null != SINK ? SINK.beginPromotion() : null;
+    }
+
+    /**
+     * 结束将数据提升(写入)到指定存储器
+     */
+    public static void endPromotion(Object token, String dataDesc, String key, int tier, String storageDesc) {
+        if (null != token) {
+            SINK.endPromotion(token, dataDesc, key, tier, storageDesc);
+        }
+    }
+
+    /**
+     * 回退到(过期)缓存
+     */
+    public static void onFallback(String dataDesc, String key, String reason) {
+        if (null != SINK) {
+            SINK.onFallback(dataDesc, key, reason);
+        }
+    }
+
+    /**
+     * 缓存被淘汰
+     */
+    public static void onEviction(String storageDesc, String key, String reason) {
+        if (null != SINK) {
+            SINK.onEviction(storageDesc, key, reason);
+        }
+    }
+
+    // ***********************内部方法****************************
+
+    private static ICacheEventSink loadSink() {
+        try {
+            Class.forName("jdk.jfr.Event", false, CacheEvents.class.getClassLoader());
+            // 提前创建实例，确认事件类可以正常加载
+            return (ICacheEventSink) Class.forName(SINK_CLASS, true, CacheEvents.class.getClassLoader())
+                    .getDeclaredConstructor()
+                    .newInstance();
+        } catch (Throwable e) {
+            return null;
+        }
+    }
+}
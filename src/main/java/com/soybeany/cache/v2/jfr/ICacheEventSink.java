@@ -0,0 +1,28 @@
+package com.soybeany.cache.v2.jfr;
+
+/**
+ * 缓存事件的实际输出，方法与{@link CacheEvents}一一对应
+ * <br>* 实现类可依赖更高版本的jdk，由{@link CacheEvents}通过反射加载，加载失败时不输出事件
+ */
+interface ICacheEventSink {
+
+    Object beginLoad();
+
+    void endLoad(Object token, String dataDesc, String key, boolean success);
+
+    Object beginLockWait();
+
+    void endLockWait(Object token, String lockDesc, String key, boolean acquired);
+
+    Object beginLookup();
+
+    void endLookup(Object token, String dataDesc, String key, int hitTier, int missedTiers);
+
+    Object beginPromotion();
+
+    void endPromotion(Object token, String dataDesc, String key, int tier, String storageDesc);
+
+    void onFallback(String dataDesc, String key, String reason);
+
+    void onEviction(String storageDesc, String key, String reason);
+}
@@ -0,0 +1,257 @@
+package com.soybeany.cache.v2.jmx;
+
+import com.soybeany.cache.v2.contract.frame.ICacheStorage;
+import com.soybeany.cache.v2.core.DataManager;
+import com.soybeany.cache.v2.exception.BdCacheException;
+import com.soybeany.cache.v2.stats.CacheStats;
+import com.soybeany.cache.v2.storage.LruMemCacheStorage;
+import com.soybeany.cache.v2.storage.StdStorage;
+
+import javax.management.*;
+import java.lang.management.ManagementFactory;
+import java.util.List;
+
+/**
+ * 将数据管理器及其存储器注册为MBean
+ * <br>* 数据管理器：com.soybeany.cache:type=DataManager,storageId=xxx
+ * <br>* 存储器：com.soybeany.cache:type=Storage,storageId=xxx,index=n
+ * <br>* 相同storageId重复注册时，以后注册的为准
+ */
+public final class CacheMBeans {
+
+    private static final String DOMAIN = "com.soybeany.cache";
+
+    private CacheMBeans() {
+    }
+
+    public static void register(DataManager<?, ?> manager) {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        String storageId = manager.dataContext().storageId;
+        unregister(storageId);
+        try {
+            server.registerMBean(new StdDataManagerMXBean(manager), managerName(storageId));
+            List<? extends ICacheStorage<?, ?>> storages = manager.storages();
+            for (int i = 0; i < storages.size(); i++) {
+                server.registerMBean(new StdCacheStorageMXBean(manager, i), storageName(storageId, i));
+            }
+        } catch (JMException e) {
+            throw new BdCacheException("MBean注册异常:" + e.getMessage());
+        }
+    }
+
+    public static void unregister(DataManager<?, ?> manager) {
+        unregister(manager.dataContext().storageId);
+    }
+
+    // ***********************内部方法****************************
+
+    private static void unregister(String storageId) {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            for (ObjectName name : server.queryNames(new ObjectName(DOMAIN + ":storageId=" + ObjectName.quote(storageId) + ",*"), null)) {
+                server.unregisterMBean(name);
+            }
+        } catch (InstanceNotFoundException ignore) {
+            // 已被并发移除
+        } catch (JMException e) {
+            throw new BdCacheException("MBean注销异常:" + e.getMessage());
+        }
+    }
+
+    static ObjectName managerName(String storageId) throws MalformedObjectNameException {
+        return new ObjectName(DOMAIN + ":type=DataManager,storageId=" + ObjectName.quote(storageId));
+    }
+
+    static ObjectName storageName(String storageId, int index) throws MalformedObjectNameException {
+        return new ObjectName(DOMAIN + ":type=Storage,storageId=" + ObjectName.quote(storageId) + ",index=" + index);
+    }
+
+    // ***********************内部类****************************
+
+    private static class StdDataManagerMXBean extends StandardMBean implements DataManagerMXBean {
+        private final DataManager<?, ?> manager;
+
+        StdDataManagerMXBean(DataManager<?, ?> manager) {
+            super(DataManagerMXBean.class, true);
+            this.manager = manager;
+        }
+
+        @Override
+        public String getDataDesc() {
+            return manager.dataContext().dataDesc;
+        }
+
+        @Override
+        public String getStorageId() {
+            return manager.dataContext().storageId;
+        }
+
+        @Override
+        public int getStorageCount() {
+            return manager.storages().size();
+        }
+
+        @Override
+        public long getHitCount() {
+            return manager.stats().hitCount;
+        }
+
+        @Override
+        public long getMissCount() {
+            return manager.stats().missCount;
+        }
+
+        @Override
+        public double getHitRate() {
+            return manager.stats().hitRate();
+        }
+
+        @Override
+        public long getLoadCount() {
+            return manager.stats().loadCount;
+        }
+
+        @Override
+        public long getLoadFailureCount() {
+            return manager.stats().loadFailureCount;
+        }
+
+        @Override
+        public long getLockTimeoutCount() {
+            return manager.stats().lockTimeoutCount;
+        }
+
+        @Override
+        public long getFallbackCount() {
+            return manager.stats().fallbackCount;
+        }
+
+        @Override
+        public String getStatsSummary() {
+            return manager.stats().toString();
+        }
+
+        @Override
+        public void setDatasourceTimeoutMs(long timeoutMs) {
+            Long timeout = timeoutMs > 0 ? timeoutMs : null;
+            manager.setDatasourceTimeout(null != timeout ? paramKey -> timeout : null);
+        }
+
+        @Override
+        public void invalidAllCache() {
+            manager.invalidAllCache();
+        }
+
+        @Override
+        public void clearCache() {
+            manager.clearCache();
+        }
+    }
+
+    private static class StdCacheStorageMXBean extends StandardMBean implements CacheStorageMXBean {
+        private final DataManager<?, ?> manager;
+        private final int index;
+        private final ICacheStorage<?, ?> storage;
+
+        StdCacheStorageMXBean(DataManager<?, ?> manager, int index) {
+            super(CacheStorageMXBean.class, true);
+            this.manager = manager;
+            this.index = index;
+            this.storage = manager.storages().get(index);
+        }
+
+        @Override
+        public String getDesc() {
+            return storage.desc();
+        }
+
+        @Override
+        public int getIndex() {
+            return index;
+        }
+
+        @Override
+        public int getCachedDataCount() {
+            return storage.cachedDataCount();
+        }
+
+        @Override
+        public long getHitCount() {
+            return tierStats().hitCount;
+        }
+
+        @Override
+        public long getMissCount() {
+            return tierStats().missCount;
+        }
+
+        @Override
+        public long getPromotionCount() {
+            return tierStats().promotionCount;
+        }
+
+        @Override
+        public long getEvictionCount() {
+            return storage.evictedCount();
+        }
+
+        @Override
+        public long getPTtl() {
+            return storage instanceof StdStorage ? ((StdStorage<?, ?>) storage).pTtl() : -1;
+        }
+
+        @Override
+        public long getPTtlErr() {
+            return storage instanceof StdStorage ? ((StdStorage<?, ?>) storage).pTtlErr() : -1;
+        }
+
+        @Override
+        public void setPTtl(long pTtl) {
+            toStdStorage().setPTtl(pTtl);
+        }
+
+        @Override
+        public void setPTtlErr(long pTtlErr) {
+            toStdStorage().setPTtlErr(pTtlErr);
+        }
+
+        @Override
+        public int getCapacity() {
+            return storage instanceof LruMemCacheStorage ? ((LruMemCacheStorage<?, ?>) storage).capacity() : -1;
+        }
+
+        @Override
+        public void resize(int capacity) {
+            if (!(storage instanceof LruMemCacheStorage)) {
+                throw new BdCacheException("“" + storage.desc() + "”不支持调整容量");
+            }
+            LruMemCacheStorage<?, ?> lruStorage = (LruMemCacheStorage<?, ?>) storage;
+            // 调整后会被下一次自动调节覆盖，直接拒绝
+            if (lruStorage.isAutoAdjusted()) {
+                throw new BdCacheException("“" + storage.desc() + "”正由内存池或容量调节器自动调节，不能手动调整容量");
+            }
+            lruStorage.setCapacity(capacity);
+        }
+
+        @Override
+        public void invalidAllCache() {
+            manager.invalidAllCache(index);
+        }
+
+        @Override
+        public void clearCache() {
+            manager.clearCache(index);
+        }
+
+        private StdStorage<?, ?> toStdStorage() {
+            if (!(storage instanceof StdStorage)) {
+                throw new BdCacheException("“" + storage.desc() + "”不支持调整生存时间");
+            }
+            return (StdStorage<?, ?>) storage;
+        }
+
+        private CacheStats.TierStats tierStats() {
+            return manager.stats().tiers.get(index);
+        }
+    }
+}
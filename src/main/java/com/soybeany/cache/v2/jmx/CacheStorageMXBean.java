@@ -0,0 +1,55 @@
+package com.soybeany.cache.v2.jmx;
+
+/**
+ * 存储器的JMX接口
+ */
+public interface CacheStorageMXBean {
+
+    String getDesc();
+
+    int getIndex();
+
+    int getCachedDataCount();
+
+    long getHitCount();
+
+    long getMissCount();
+
+    long getPromotionCount();
+
+    long getEvictionCount();
+
+    /**
+     * 正常数据的生存时间(毫秒)，不支持时为-1
+     */
+    long getPTtl();
+
+    /**
+     * 异常的生存时间(毫秒)，不支持时为-1
+     */
+    long getPTtlErr();
+
+    /**
+     * 运行时调整正常数据的生存时间(毫秒)，不支持时抛出异常
+     */
+    void setPTtl(long pTtl);
+
+    /**
+     * 运行时调整异常的生存时间(毫秒)，不支持时抛出异常
+     */
+    void setPTtlErr(long pTtlErr);
+
+    /**
+     * 容量，不支持时为-1，只读，通过{@link #resize}调整
+     */
+    int getCapacity();
+
+    /**
+     * 运行时调整容量，淘汰方式见{@link com.soybeany.cache.v2.storage.LruMemCacheStorage#setCapacity}，不支持或存储器正被自动调节时抛出异常
+     */
+    void resize(int capacity);
+
+    void invalidAllCache();
+
+    void clearCache();
+}
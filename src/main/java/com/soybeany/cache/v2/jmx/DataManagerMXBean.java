@@ -0,0 +1,47 @@
+package com.soybeany.cache.v2.jmx;
+
+/**
+ * 数据管理器的JMX接口
+ */
+public interface DataManagerMXBean {
+
+    String getDataDesc();
+
+    String getStorageId();
+
+    int getStorageCount();
+
+    long getHitCount();
+
+    long getMissCount();
+
+    double getHitRate();
+
+    long getLoadCount();
+
+    long getLoadFailureCount();
+
+    long getLockTimeoutCount();
+
+    long getFallbackCount();
+
+    /**
+     * 统计的文字描述
+     */
+    String getStatsSummary();
+
+    /**
+     * 运行时为全部入参设置统一的数据源超时(毫秒)，小于等于0时恢复同步模式
+     */
+    void setDatasourceTimeoutMs(long timeoutMs);
+
+    /**
+     * 失效全部存储器中的全部缓存
+     */
+    void invalidAllCache();
+
+    /**
+     * 清空全部存储器中的全部缓存
+     */
+    void clearCache();
+}
@@ -0,0 +1,463 @@
+package com.soybeany.cache.v2.log;
+
+import com.soybeany.cache.v2.core.CacheRegistry;
+import com.soybeany.cache.v2.exception.BdCacheException;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 异步批量写文件的追加器（框架内部使用），{@link AsyncFileLogWriter}与访问轨迹的记录器共用
+ * <br>* 管理多生产者、单消费者的无锁环形缓冲区，槽位中的数据由使用者按下标存放在自己的数组中，放入时不产生对象
+ * <br>* 生产者通过{@link #claim}占用槽位，写入数据后通过{@link #publish}发布；缓冲区已满或已关闭时计入丢弃数
+ * <br>* 后台线程批量取出已发布的槽位，交由{@link IEncoder}编码后通过FileChannel写入文件，文件超出大小后滚动
+ * <br>* 关闭时在tail上设置标记，此前已占用的槽位都会被写入，此后的占用计入丢弃数
+ * <br>* 写入文件失败时丢弃该批数据并计数，不会输出到标准错误流
+ * <br>* 指定注册中心时，启动后将使用者登记为随注册中心关闭，关闭后取消登记
+ */
+public final class AsyncFileAppender implements Closeable {
+
+    /**
+     * 关闭时置于tail上的标记，之后生产者无法再占用槽位
+     */
+    private static final long CLOSED = 1L << 62;
+
+    private final Path file;
+    private final long maxFileBytes;
+    private final int maxBackups;
+    private final long idleWaitNanos;
+    private final int recordBytes;
+    private final int batchSize;
+    private final int bufferBytes;
+    private final byte[] header;
+    private final IEncoder encoder;
+    private final CacheRegistry registry;
+    private final Closeable owner;
+
+    // sequences用于标识槽位的状态
+    private final int mask;
+    private final AtomicLongArray sequences;
+    private final AtomicLong tail = new AtomicLong();
+    private volatile long head;
+
+    private final LongAdder droppedCount = new LongAdder();
+    private final LongAdder writtenCount = new LongAdder();
+    private final LongAdder errorCount = new LongAdder();
+    private final Thread worker;
+
+    private FileChannel channel;
+    private long fileBytes;
+
+    private AsyncFileAppender(Builder builder) {
+        this.file = builder.file;
+        this.header = builder.header;
+        this.maxFileBytes = Math.max(builder.maxFileBytes, header.length + builder.recordBytes);
+        this.maxBackups = builder.maxBackups;
+        this.idleWaitNanos = TimeUnit.MILLISECONDS.toNanos(builder.idleWaitMs);
+        this.recordBytes = builder.recordBytes;
+        this.batchSize = builder.batchSize;
+        this.bufferBytes = builder.bufferBytes;
+        this.encoder = builder.encoder;
+        this.registry = builder.registry;
+        this.owner = builder.owner;
+        int capacity = Integer.highestOneBit(Math.max(builder.capacity, 2) - 1) << 1;
+        this.mask = capacity - 1;
+        this.sequences = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            sequences.set(i, i);
+        }
+        try {
+            openChannel(builder.truncate);
+        } catch (IOException e) {
+            throw new BdCacheException("无法打开文件“" + file + "”:" + e.getMessage());
+        }
+        this.worker = new Thread(this::onWork, builder.threadName);
+        worker.setDaemon(true);
+    }
+
+    /**
+     * 缓冲区的容量(已向上取整为2的幂)，使用者按此创建存放数据的数组
+     */
+    public int capacity() {
+        return mask + 1;
+    }
+
+    /**
+     * 启动后台线程，使用者创建好存放数据的数组后调用
+     */
+    public void start() {
+        worker.start();
+        if (null == registry) {
+            return;
+        }
+        try {
+            registry.addCloseable(owner);
+        } catch (RuntimeException e) {
+            // 注册中心已关闭
+            close();
+            throw e;
+        }
+    }
+
+    /**
+     * 占用一个槽位
+     *
+     * @param maxPending 允许的最大积压数，积压达到该值时视为已满，不限制时传入{@link #capacity()}
+     * @return 槽位的序号，用于{@link #indexOf}与{@link #publish}；缓冲区已满或已关闭时返回-1，并计入丢弃数
+     */
+    public long claim(int maxPending) {
+        while (true) {
+            long t = tail.get();
+            // 与关闭竞争同一个变量，不会有数据在最后一次取出后放入缓冲区
+            if (t >= CLOSED || t - head >= maxPending) {
+                droppedCount.increment();
+                return -1;
+            }
+            int index = (int) t & mask;
+            long diff = sequences.get(index) - t;
+            if (diff < 0) {
+                // 缓冲区已满
+                droppedCount.increment();
+                return -1;
+            }
+            if (0 == diff && tail.compareAndSet(t, t + 1)) {
+                return t;
+            }
+        }
+    }
+
+    /**
+     * 序号对应的数组下标
+     */
+    public int indexOf(long sequence) {
+        return (int) sequence & mask;
+    }
+
+    /**
+     * 发布已写入数据的槽位，后台线程读取sequences后可见此前的写入
+     */
+    public void publish(long sequence) {
+        sequences.lazySet(indexOf(sequence), sequence + 1);
+    }
+
+    /**
+     * 将数据写入缓冲区，空间不足时先写入文件，只能在{@link IEncoder}中调用
+     *
+     * @return 写入后的缓冲区，数据超出缓冲区容量时为新的缓冲区
+     */
+    public ByteBuffer append(ByteBuffer buffer, byte[] bytes) {
+        if (buffer.remaining() < bytes.length) {
+            flush(buffer);
+            if (buffer.capacity() < bytes.length) {
+                buffer = ByteBuffer.allocate(bytes.length);
+            }
+        }
+        return buffer.put(bytes);
+    }
+
+    /**
+     * 已丢弃的数据数
+     */
+    public long droppedCount() {
+        return droppedCount.sum();
+    }
+
+    /**
+     * 已写入文件的数据数
+     */
+    public long writtenCount() {
+        return writtenCount.sum();
+    }
+
+    /**
+     * 写入文件失败的次数
+     */
+    public long errorCount() {
+        return errorCount.sum();
+    }
+
+    /**
+     * 停止接收数据，等待缓冲区中的数据全部写入文件后关闭
+     */
+    @Override
+    public void close() {
+        long t;
+        do {
+            t = tail.get();
+            if (t >= CLOSED) {
+                return;
+            }
+        } while (!tail.compareAndSet(t, t | CLOSED));
+        if (null != registry) {
+            registry.removeCloseable(owner);
+        }
+        LockSupport.unpark(worker);
+        try {
+            worker.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // ***********************内部方法****************************
+
+    private void onWork() {
+        ByteBuffer buffer = recordBytes > 0 ? ByteBuffer.allocateDirect(bufferBytes) : ByteBuffer.allocate(bufferBytes);
+        while (true) {
+            long t = tail.get();
+            int count = 0;
+            long h = head;
+            // 批量取出数据
+            while (count < batchSize) {
+                int index = (int) h & mask;
+                if (sequences.get(index) != h + 1) {
+                    break;
+                }
+                buffer = encoder.onEncode(index, buffer);
+                sequences.lazySet(index, h + mask + 1);
+                head = ++h;
+                count++;
+            }
+            buffer = encoder.onBatchEnd(buffer);
+            flush(buffer);
+            writtenCount.add(count);
+            if (0 == count) {
+                if (t >= CLOSED) {
+                    // 关闭前占用的槽位已全部取出
+                    if (head == (t & ~CLOSED)) {
+                        break;
+                    }
+                    // 生产者已占用槽位但尚未发布
+                    Thread.yield();
+                    continue;
+                }
+                LockSupport.parkNanos(this, idleWaitNanos);
+            }
+        }
+        try {
+            channel.force(false);
+            channel.close();
+        } catch (IOException ignore) {
+        }
+    }
+
+    private void flush(ByteBuffer buffer) {
+        if (0 == buffer.position()) {
+            return;
+        }
+        buffer.flip();
+        try {
+            if (recordBytes > 0) {
+                writeRecords(buffer);
+            } else {
+                if (fileBytes + buffer.remaining() > maxFileBytes && fileBytes > header.length) {
+                    roll();
+                }
+                while (buffer.hasRemaining()) {
+                    fileBytes += channel.write(buffer);
+                }
+            }
+        } catch (IOException e) {
+            // 写入失败时丢弃本批数据并计数，不影响后续写入
+            errorCount.increment();
+        } finally {
+            buffer.clear();
+        }
+    }
+
+    /**
+     * 定长记录按记录边界滚动，保证每个文件都可独立读取
+     */
+    private void writeRecords(ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (fileBytes + recordBytes > maxFileBytes) {
+                roll();
+            }
+            int writable = (int) ((maxFileBytes - fileBytes) / recordBytes) * recordBytes;
+            ByteBuffer slice = buffer.duplicate();
+            slice.limit(Math.min(buffer.limit(), buffer.position() + writable));
+            while (slice.hasRemaining()) {
+                fileBytes += channel.write(slice);
+            }
+            buffer.position(slice.position());
+        }
+    }
+
+    private void roll() throws IOException {
+        channel.close();
+        // file.(n-1) → file.n ... file → file.1
+        for (int i = maxBackups - 1; i >= 1; i--) {
+            Path source = backupPath(file, i);
+            if (Files.exists(source)) {
+                Files.move(source, backupPath(file, i + 1), StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+        if (maxBackups > 0) {
+            Files.move(file, backupPath(file, 1), StandardCopyOption.REPLACE_EXISTING);
+        } else {
+            Files.delete(file);
+        }
+        openChannel(true);
+    }
+
+    private void openChannel(boolean truncate) throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        if (null != parent) {
+            Files.createDirectories(parent);
+        }
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                truncate ? StandardOpenOption.TRUNCATE_EXISTING : StandardOpenOption.APPEND);
+        fileBytes = channel.size();
+        if (0 == fileBytes && header.length > 0) {
+            ByteBuffer headerBuffer = ByteBuffer.wrap(header);
+            while (headerBuffer.hasRemaining()) {
+                fileBytes += channel.write(headerBuffer);
+            }
+        }
+    }
+
+    /**
+     * 第index个历史文件的路径
+     */
+    public static Path backupPath(Path file, int index) {
+        return file.resolveSibling(file.getFileName() + "." + index);
+    }
+
+    // ***********************内部类****************************
+
+    /**
+     * 槽位数据的编码器，在后台线程中调用
+     */
+    public interface IEncoder {
+
+        /**
+         * 将下标为index的槽位中的数据写入缓冲区，返回后槽位即被复用
+         *
+         * @return 写入后的缓冲区
+         */
+        ByteBuffer onEncode(int index, ByteBuffer buffer);
+
+        /**
+         * 一批数据取出后、写入文件前调用，可追加汇总的信息
+         */
+        default ByteBuffer onBatchEnd(ByteBuffer buffer) {
+            return buffer;
+        }
+    }
+
+    public static class Builder {
+        private final Path file;
+        private final String threadName;
+        private final IEncoder encoder;
+        private int capacity = 8192;
+        private long maxFileBytes = 50 * 1024 * 1024L;
+        private int maxBackups = 5;
+        private long idleWaitMs = 10;
+        private boolean truncate;
+        private byte[] header = new byte[0];
+        private int recordBytes;
+        private int batchSize = 1024;
+        private int bufferBytes = 64 * 1024;
+        private CacheRegistry registry;
+        private Closeable owner;
+
+        public Builder(Path file, String threadName, IEncoder encoder) {
+            this.file = file;
+            this.threadName = threadName;
+            this.encoder = encoder;
+        }
+
+        /**
+         * 缓冲区的容量(会向上取整为2的幂)，默认8192
+         */
+        public Builder capacity(int capacity) {
+            this.capacity = capacity;
+            return this;
+        }
+
+        /**
+         * 单个文件的最大字节数，超出后滚动，默认50MB
+         */
+        public Builder maxFileBytes(long maxFileBytes) {
+            this.maxFileBytes = maxFileBytes;
+            return this;
+        }
+
+        /**
+         * 保留的历史文件数，默认5
+         */
+        public Builder maxBackups(int maxBackups) {
+            this.maxBackups = Math.max(maxBackups, 0);
+            return this;
+        }
+
+        /**
+         * 缓冲区为空时，后台线程的等待时间(毫秒)，默认10毫秒
+         */
+        public Builder idleWaitMs(long idleWaitMs) {
+            this.idleWaitMs = Math.max(idleWaitMs, 1);
+            return this;
+        }
+
+        /**
+         * 打开时清空已有的文件，默认在已有的文件后追加
+         */
+        public Builder truncate(boolean truncate) {
+            this.truncate = truncate;
+            return this;
+        }
+
+        /**
+         * 每个文件开头的文件头，默认无
+         */
+        public Builder header(byte[] header) {
+            this.header = header;
+            return this;
+        }
+
+        /**
+         * 定长记录的字节数，设置后按记录边界滚动，且每批取出的数据不超出写缓冲区；默认为0，即变长数据，整批写入前判断是否滚动
+         */
+        public Builder recordBytes(int recordBytes) {
+            this.recordBytes = recordBytes;
+            return this;
+        }
+
+        /**
+         * 每批最多取出的数据数，默认1024
+         */
+        public Builder batchSize(int batchSize) {
+            this.batchSize = Math.max(batchSize, 1);
+            return this;
+        }
+
+        /**
+         * 启动后将使用者登记到注册中心，随注册中心关闭，默认不登记
+         *
+         * @param owner 使用者，其关闭方法需关闭本追加器
+         */
+        public Builder registry(CacheRegistry registry, Closeable owner) {
+            this.registry = registry;
+            this.owner = owner;
+            return this;
+        }
+
+        public AsyncFileAppender build() {
+            if (recordBytes > 0) {
+                bufferBytes = batchSize * recordBytes;
+            }
+            return new AsyncFileAppender(this);
+        }
+    }
+}
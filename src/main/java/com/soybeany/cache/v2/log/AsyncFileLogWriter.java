@@ -0,0 +1,225 @@
+package com.soybeany.cache.v2.log;
+
+import com.soybeany.cache.v2.core.CacheRegistry;
+
+import java.io.Closeable;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+
+/**
+ * 异步批量写文件的日志输出
+ * <br>* 调用线程只把日志放入无锁的环形缓冲区，不会因磁盘IO阻塞
+ * <br>* 后台线程批量取出日志，通过FileChannel写入文件，文件超出大小后滚动
+ * <br>* 缓冲区已满时按{@link DropPolicy}丢弃日志，丢弃的数量会在之后写入文件
+ * <br>* 写入文件失败时丢弃该批日志并计数，失败的次数同样会在之后写入文件，不会输出到标准错误流
+ * <br>* 使用完毕后需调用{@link #close()}，将缓冲区中剩余的日志写入文件
+ */
+public class AsyncFileLogWriter implements ILogWriter, Closeable {
+
+    private static final byte LEVEL_INFO = 0;
+    private static final byte LEVEL_WARN = 1;
+
+    private final AsyncFileAppender appender;
+
+    // 槽位中的数据，下标由appender分配
+    private final int infoLimit;
+    private final String[] messages;
+    private final long[] timestamps;
+    private final byte[] levels;
+
+    private AsyncFileLogWriter(Builder builder) {
+        this.appender = new AsyncFileAppender.Builder(builder.file, "bd-cache-log", new LineEncoder())
+                .capacity(builder.capacity)
+                .maxFileBytes(builder.maxFileBytes)
+                .maxBackups(builder.maxBackups)
+                .idleWaitMs(builder.idleWaitMs)
+                .registry(builder.registry, this)
+                .build();
+        int capacity = appender.capacity();
+        // 缓冲区剩余不足1/8时，优先丢弃info日志
+        this.infoLimit = DropPolicy.DISCARD_INFO_FIRST == builder.dropPolicy ? capacity - Math.max(capacity >> 3, 1) : capacity;
+        this.messages = new String[capacity];
+        this.timestamps = new long[capacity];
+        this.levels = new byte[capacity];
+        appender.start();
+    }
+
+    @Override
+    public void onWriteInfo(String msg) {
+        offer(LEVEL_INFO, msg);
+    }
+
+    @Override
+    public void onWriteWarn(String msg) {
+        offer(LEVEL_WARN, msg);
+    }
+
+    /**
+     * 已丢弃的日志数
+     */
+    public long droppedCount() {
+        return appender.droppedCount();
+    }
+
+    /**
+     * 已写入文件的日志数
+     */
+    public long writtenCount() {
+        return appender.writtenCount();
+    }
+
+    /**
+     * 写入文件失败的次数
+     */
+    public long errorCount() {
+        return appender.errorCount();
+    }
+
+    /**
+     * 停止接收日志，等待缓冲区中的日志全部写入文件后关闭
+     * <br>* 此前已放入缓冲区的日志都会被写入，此后的日志计入丢弃数
+     */
+    @Override
+    public void close() {
+        appender.close();
+    }
+
+    // ***********************内部方法****************************
+
+    private void offer(byte level, String msg) {
+        long timestamp = System.currentTimeMillis();
+        // 缓冲区接近满时，按策略优先丢弃info日志
+        long sequence = appender.claim(LEVEL_INFO == level ? infoLimit : messages.length);
+        if (sequence < 0) {
+            return;
+        }
+        int index = appender.indexOf(sequence);
+        messages[index] = msg;
+        timestamps[index] = timestamp;
+        levels[index] = level;
+        appender.publish(sequence);
+    }
+
+    // ***********************内部类****************************
+
+    /**
+     * 按行编码日志，并在之后的批次中写入丢弃与写入失败的数量
+     */
+    private class LineEncoder implements AsyncFileAppender.IEncoder {
+        private final SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss.SSS");
+        private final Date date = new Date();
+        private long reportedDropped;
+        private long reportedErrors;
+
+        @Override
+        public ByteBuffer onEncode(int index, ByteBuffer buffer) {
+            date.setTime(timestamps[index]);
+            String line = format.format(date) + (LEVEL_WARN == levels[index] ? " [WARN] " : " [INFO] ") + messages[index] + "\n";
+            messages[index] = null;
+            return appender.append(buffer, line.getBytes(StandardCharsets.UTF_8));
+        }
+
+        @Override
+        public ByteBuffer onBatchEnd(ByteBuffer buffer) {
+            long dropped = appender.droppedCount();
+            if (dropped > reportedDropped) {
+                buffer = appendWarn(buffer, "日志缓冲区已满，累计丢弃了" + dropped + "条日志");
+                reportedDropped = dropped;
+            }
+            long errors = appender.errorCount();
+            if (errors > reportedErrors) {
+                buffer = appendWarn(buffer, "日志文件写入异常，累计失败了" + errors + "次");
+                reportedErrors = errors;
+            }
+            return buffer;
+        }
+
+        private ByteBuffer appendWarn(ByteBuffer buffer, String msg) {
+            date.setTime(System.currentTimeMillis());
+            return appender.append(buffer, (format.format(date) + " [WARN] " + msg + "\n").getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    /**
+     * 缓冲区已满时的丢弃策略
+     */
+    public enum DropPolicy {
+        /**
+         * 丢弃新的日志
+         */
+        DISCARD,
+        /**
+         * 缓冲区接近满时先丢弃info日志，为warn日志保留余量
+         */
+        DISCARD_INFO_FIRST
+    }
+
+    public static class Builder {
+        private final Path file;
+        private int capacity = 8192;
+        private long maxFileBytes = 50 * 1024 * 1024L;
+        private int maxBackups = 5;
+        private DropPolicy dropPolicy = DropPolicy.DISCARD_INFO_FIRST;
+        private long idleWaitMs = 10;
+        private CacheRegistry registry;
+
+        public Builder(Path file) {
+            this.file = file;
+        }
+
+        /**
+         * 缓冲区的容量(会向上取整为2的幂)，默认8192
+         */
+        public Builder capacity(int capacity) {
+            this.capacity = capacity;
+            return this;
+        }
+
+        /**
+         * 单个文件的最大字节数，超出后滚动，默认50MB
+         */
+        public Builder maxFileBytes(long maxFileBytes) {
+            this.maxFileBytes = maxFileBytes;
+            return this;
+        }
+
+        /**
+         * 保留的历史文件数，默认5
+         */
+        public Builder maxBackups(int maxBackups) {
+            this.maxBackups = Math.max(maxBackups, 0);
+            return this;
+        }
+
+        /**
+         * 缓冲区已满时的丢弃策略，默认{@link DropPolicy#DISCARD_INFO_FIRST}
+         */
+        public Builder dropPolicy(DropPolicy dropPolicy) {
+            this.dropPolicy = dropPolicy;
+            return this;
+        }
+
+        /**
+         * 缓冲区为空时，后台线程的等待时间(毫秒)，默认10毫秒
+         */
+        public Builder idleWaitMs(long idleWaitMs) {
+            this.idleWaitMs = Math.max(idleWaitMs, 1);
+            return this;
+        }
+
+        /**
+         * 登记到注册中心，随注册中心关闭(关闭时写入缓冲区中剩余的日志)，默认不登记
+         */
+        public Builder registry(CacheRegistry registry) {
+            this.registry = registry;
+            return this;
+        }
+
+        public AsyncFileLogWriter build() {
+            return new AsyncFileLogWriter(this);
+        }
+    }
+}
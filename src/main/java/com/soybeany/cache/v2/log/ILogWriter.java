@@ -1,5 +1,7 @@
 package com.soybeany.cache.v2.log;
 
+import java.util.function.Supplier;
+
 /**
  * @author Soybeany
  * @date 2020/12/8
@@ -10,4 +12,36 @@ public interface ILogWriter {
 
     void onWriteWarn(String msg);
 
+    /**
+     * 是否输出info级别的日志，返回false时不会生成对应的日志内容
+     */
+    default boolean isInfoEnabled() {
+        return true;
+    }
+
+    /**
+     * 是否输出warn级别的日志，返回false时不会生成对应的日志内容
+     */
+    default boolean isWarnEnabled() {
+        return true;
+    }
+
+    /**
+     * 延迟生成日志内容，只有对应级别启用时才会调用supplier
+     */
+    default void onWriteInfo(Supplier<String> msgSupplier) {
+        if (isInfoEnabled()) {
+            onWriteInfo(msgSupplier.get());
+        }
+    }
+
+    /**
+     * 延迟生成日志内容，只有对应级别启用时才会调用supplier
+     */
+    default void onWriteWarn(Supplier<String> msgSupplier) {
+        if (isWarnEnabled()) {
+            onWriteWarn(msgSupplier.get());
+        }
+    }
+
 }
@@ -11,8 +11,15 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
+ * 标准日志，每个DataManager使用独立的实例
+ * <br>* 日志级别未启用时不生成日志内容
+ * <br>* 可对正常获取数据的日志进行采样(异常总是输出)，或改为按周期输出汇总
+ *
  * @author Soybeany
  * @since 2020/12/8
  */
@@ -21,10 +28,35 @@ public class StdLogger implements ILogger {
     private final ILogWriter mWriter;
     private DataContext context;
 
+    private int hitSampleRate = 1;
+    private long summaryIntervalMs;
+    private final AtomicLong nextSummaryAt = new AtomicLong();
+    private final LongAdder cacheCount = new LongAdder();
+    private final LongAdder datasourceCount = new LongAdder();
+    private final LongAdder otherCount = new LongAdder();
+
     public StdLogger(ILogWriter writer) {
         mWriter = writer;
     }
 
+    /**
+     * 正常获取数据的日志，每n次只随机输出1次，异常总是输出，默认为1(全部输出)
+     */
+    public StdLogger hitSampleRate(int n) {
+        this.hitSampleRate = Math.max(n, 1);
+        return this;
+    }
+
+    /**
+     * 启用汇总模式，正常获取数据时不逐条输出，而是每隔指定时间(毫秒)输出一次汇总，异常总是输出
+     * <br>* 汇总只在有新请求时输出，为0时关闭汇总模式
+     */
+    public StdLogger summaryIntervalMs(long intervalMs) {
+        this.summaryIntervalMs = Math.max(intervalMs, 0);
+        nextSummaryAt.set(System.currentTimeMillis() + this.summaryIntervalMs);
+        return this;
+    }
+
     @Override
     public void onInit(DataContext context) {
         this.context = context;
@@ -32,6 +64,9 @@ public class StdLogger implements ILogger {
 
     @Override
     public <Param> void onGetCache(DataParam<Param> param, DataPack<?> pack) {
+        if (!needLogGet(pack, pack.norm() ? mWriter.isInfoEnabled() : mWriter.isWarnEnabled())) {
+            return;
+        }
         String valid = "[" + (pack.pTtl > 0 ? "有效" : "过期") + "]";
         String from = getFrom(pack.provider, false);
         String dataDesc = getDataDesc();
@@ -45,6 +80,9 @@ public class StdLogger implements ILogger {
 
     @Override
     public <Param, Data> void onGetData(DataParam<Param> param, DataPack<Data> pack, boolean needStore) {
+        if (!needLogGet(pack, mWriter.isInfoEnabled())) {
+            return;
+        }
         String from = getFrom(pack.provider, needStore);
         String dataDesc = getDataDesc();
         String paramDesc = getParamDesc(param);
@@ -57,6 +95,9 @@ public class StdLogger implements ILogger {
 
     @Override
     public <Param, Data> void onGetDataWithCacheFallback(DataParam<Param> param, DataPack<Data> pack) {
+        if (!needLogGet(pack, mWriter.isInfoEnabled())) {
+            return;
+        }
         String valid = "[" + (pack.pTtl > 0 ? "有效" : "过期") + "]";
         String from = getFrom(pack.provider, true);
         String dataDesc = getDataDesc();
@@ -70,6 +111,9 @@ public class StdLogger implements ILogger {
 
     @Override
     public <Param, Data> void onCacheData(DataParam<Param> param, DataPack<Data> pack) {
+        if (pack.norm() ? !mWriter.isInfoEnabled() : !mWriter.isWarnEnabled()) {
+            return;
+        }
         String dataDesc = getDataDesc();
         String paramDesc = getParamDesc(param);
         if (pack.norm()) {
@@ -81,6 +125,9 @@ public class StdLogger implements ILogger {
 
     @Override
     public <Param, Data> void onBatchCacheData(Map<DataParam<Param>, DataPack<Data>> dataPacks) {
+        if (!mWriter.isInfoEnabled() && !mWriter.isWarnEnabled()) {
+            return;
+        }
         String dataDesc = getDataDesc();
         List<String> dataList = new ArrayList<>();
         List<String> exceptionList = new ArrayList<>();
@@ -91,55 +138,100 @@ public class StdLogger implements ILogger {
             list.add(paramDesc);
         });
         // 打印
-        if (!dataList.isEmpty()) {
+        if (!dataList.isEmpty() && mWriter.isInfoEnabled()) {
             mWriter.onWriteInfo("“" + dataDesc + "”批量缓存了数据，“" + dataList + "”");
         }
-        if (!exceptionList.isEmpty()) {
+        if (!exceptionList.isEmpty() && mWriter.isWarnEnabled()) {
             mWriter.onWriteWarn("“" + dataDesc + "”批量缓存了异常，“" + exceptionList + "”");
         }
     }
 
     @Override
     public <Param> void onInvalidCache(DataParam<Param> param, int... storageIndexes) {
-        mWriter.onWriteInfo("“" + getDataDesc() + "”失效了" + getIndexMsg(storageIndexes) + "中“" + getParamDesc(param) + "”的缓存");
+        mWriter.onWriteInfo(() -> "“" + getDataDesc() + "”失效了" + getIndexMsg(storageIndexes) + "中“" + getParamDesc(param) + "”的缓存");
     }
 
     @Override
     public void onInvalidAllCache(int... storageIndexes) {
-        mWriter.onWriteInfo("“" + context.dataDesc + "”失效了" + getIndexMsg(storageIndexes) + "的缓存");
+        mWriter.onWriteInfo(() -> "“" + context.dataDesc + "”失效了" + getIndexMsg(storageIndexes) + "的缓存");
     }
 
     @Override
     public <Param> void onRemoveCache(DataParam<Param> param, int... storageIndexes) {
-        mWriter.onWriteInfo("“" + getDataDesc() + "”移除了" + getIndexMsg(storageIndexes) + "中“" + getParamDesc(param) + "”的缓存");
+        mWriter.onWriteInfo(() -> "“" + getDataDesc() + "”移除了" + getIndexMsg(storageIndexes) + "中“" + getParamDesc(param) + "”的缓存");
     }
 
     @Override
     public <Param> void onRenewExpiredCache(DataParam<Param> param, Object provider) {
-        mWriter.onWriteInfo("“" + getDataDesc() + "”在“" + getFrom(provider, true) + "”续期了“" + getParamDesc(param) + "”的缓存");
+        mWriter.onWriteInfo(() -> "“" + getDataDesc() + "”在“" + getFrom(provider, true) + "”续期了“" + getParamDesc(param) + "”的缓存");
     }
 
     @Override
     public void onClearCache(int... storageIndexes) {
-        mWriter.onWriteInfo("“" + context.dataDesc + "”清空了" + getIndexMsg(storageIndexes) + "的缓存");
+        mWriter.onWriteInfo(() -> "“" + context.dataDesc + "”清空了" + getIndexMsg(storageIndexes) + "的缓存");
     }
 
     @Override
     public <Param> void onContainCache(DataParam<Param> param, boolean exist) {
-        mWriter.onWriteInfo("“" + getDataDesc() + "”" + (exist ? "存在" : "没有") + "“" + getParamDesc(param) + "”的缓存");
+        mWriter.onWriteInfo(() -> "“" + getDataDesc() + "”" + (exist ? "存在" : "没有") + "“" + getParamDesc(param) + "”的缓存");
     }
 
     @Override
     public <Param> void onCheckCache(DataParam<Param> param, boolean needUpdate) {
-        mWriter.onWriteInfo("“" + getDataDesc() + "”" + (needUpdate ? "需要" : "无需") + "更新“" + getParamDesc(param) + "”的缓存");
+        mWriter.onWriteInfo(() -> "“" + getDataDesc() + "”" + (needUpdate ? "需要" : "无需") + "更新“" + getParamDesc(param) + "”的缓存");
     }
 
     @Override
     public void onLockException(String key, Exception ex) {
+        if (!mWriter.isInfoEnabled()) {
+            return;
+        }
         String paramDesc = null == key ? "全局" : key;
         mWriter.onWriteInfo("“" + getDataDesc() + "”在“" + paramDesc + "”中出现了“" + ex.getMessage() + "”的锁异常");
     }
 
+    // ***********************内部方法****************************
+
+    /**
+     * 获取数据类日志的过滤：异常总是输出；正常数据按汇总模式计数，或按采样率输出
+     */
+    private boolean needLogGet(DataPack<?> pack, boolean levelEnabled) {
+        if (!pack.norm()) {
+            return levelEnabled;
+        }
+        if (summaryIntervalMs > 0) {
+            if (mWriter.isInfoEnabled()) {
+                onCountForSummary(pack.provider);
+            }
+            return false;
+        }
+        if (!levelEnabled) {
+            return false;
+        }
+        return hitSampleRate <= 1 || 0 == ThreadLocalRandom.current().nextInt(hitSampleRate);
+    }
+
+    private void onCountForSummary(Object provider) {
+        if (provider instanceof ICacheStorage) {
+            cacheCount.increment();
+        } else if (provider instanceof IDatasource) {
+            datasourceCount.increment();
+        } else {
+            otherCount.increment();
+        }
+        long now = System.currentTimeMillis();
+        long summaryAt = nextSummaryAt.get();
+        // 只由一个线程输出汇总
+        if (now < summaryAt || !nextSummaryAt.compareAndSet(summaryAt, now + summaryIntervalMs)) {
+            return;
+        }
+        long cache = cacheCount.sumThenReset();
+        long datasource = datasourceCount.sumThenReset();
+        long other = otherCount.sumThenReset();
+        mWriter.onWriteInfo("“" + getDataDesc() + "”近" + summaryIntervalMs + "ms内正常获取了" + (cache + datasource + other)
+                + "次数据，其中缓存" + cache + "次，数据源" + datasource + "次，其它来源" + other + "次");
+    }
+
     private String getFrom(Object provider, boolean needStore) {
         if (provider instanceof ICacheStorage) {
             return "缓存(" + ((ICacheStorage<?, ?>) provider).desc() + ")";
@@ -158,8 +250,8 @@ public class StdLogger implements ILogger {
     }
 
     private <Param> String getParamDesc(DataParam<Param> dataParam) {
-        String desc = dataParam.paramDesc;
-        if (!Objects.equals(dataParam.paramDesc, dataParam.paramKey)) {
+        String desc = dataParam.paramDesc();
+        if (!Objects.equals(desc, dataParam.paramKey)) {
             desc += "(" + dataParam.paramKey + ")";
         }
         return desc;
@@ -21,6 +21,11 @@ public class CacheEntity<Data> {
      */
     public long pNextCheckAt;
 
+    /**
+     * 最近一次生成的数据包，剩余生存时间与提供者均相同时可直接复用（数据包不可变，无需同步）
+     */
+    private DataPack<Data> lastDataPack;
+
     public static <Data> CacheEntity<Data> fromDataPack(DataPack<Data> dataPack, long curTimestamp, long pTtlMaxNorm, long pTtlMaxErr) {
         long pTtlMax = dataPack.dataCore.norm ? pTtlMaxNorm : pTtlMaxErr;
         long pTtl = Math.min(dataPack.pTtl, pTtlMax);
@@ -28,7 +33,12 @@ public class CacheEntity<Data> {
     }
 
     public static <Data> DataPack<Data> toDataPack(CacheEntity<Data> entity, Object provider, long curTimestamp) {
-        return new DataPack<>(entity.dataCore, provider, entity.pExpireAt - curTimestamp);
+        long pTtl = Math.max(entity.pExpireAt - curTimestamp, 0);
+        DataPack<Data> dataPack = entity.lastDataPack;
+        if (null != dataPack && dataPack.pTtl == pTtl && dataPack.provider == provider) {
+            return dataPack;
+        }
+        return entity.lastDataPack = new DataPack<>(entity.dataCore, provider, pTtl);
     }
 
     public CacheEntity(DataCore<Data> dataCore, long pExpireAt) {
@@ -1,16 +1,58 @@
 package com.soybeany.cache.v2.model;
 
+import com.soybeany.cache.v2.contract.user.IKeyConverter;
+
 import java.util.Objects;
 
 public class DataParam<T> {
+    /**
+     * 入参的描述，使用延迟生成描述的构造方法时为paramKey，此时需通过{@link #paramDesc()}获取
+     */
     public final String paramDesc;
     public final String paramKey;
     public final T value;
+    private final int hash;
+
+    /**
+     * 延迟生成描述时使用的转换器
+     */
+    private final IKeyConverter<T> descConverter;
+    /**
+     * 延迟生成的描述，并发生成时结果相同，只会重复计算
+     */
+    private volatile String lazyDesc;
 
     public DataParam(String paramDesc, String paramKey, T value) {
+        this(paramDesc, paramKey, value, null);
+    }
+
+    /**
+     * 描述在首次使用时才生成（一般只有输出日志时才需要）
+     */
+    public DataParam(IKeyConverter<T> descConverter, String paramKey, T value) {
+        this(paramKey, paramKey, value, descConverter);
+    }
+
+    private DataParam(String paramDesc, String paramKey, T value, IKeyConverter<T> descConverter) {
         this.paramDesc = paramDesc;
         this.paramKey = paramKey;
         this.value = value;
+        this.hash = null != paramKey ? paramKey.hashCode() : 0;
+        this.descConverter = descConverter;
+    }
+
+    /**
+     * 入参的描述，用于日志输出
+     */
+    public String paramDesc() {
+        if (null == descConverter) {
+            return paramDesc;
+        }
+        String desc = lazyDesc;
+        if (null == desc) {
+            lazyDesc = desc = descConverter.getKey(value);
+        }
+        return desc;
     }
 
     @Override
@@ -18,11 +60,11 @@ public class DataParam<T> {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         DataParam<?> param = (DataParam<?>) o;
-        return Objects.equals(paramKey, param.paramKey);
+        return hash == param.hash && Objects.equals(paramKey, param.paramKey);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(paramKey);
+        return hash;
     }
 }
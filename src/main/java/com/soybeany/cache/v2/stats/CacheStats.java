@@ -0,0 +1,95 @@
+package com.soybeany.cache.v2.stats;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 缓存统计的快照（不可变），数值均为自创建以来的累计值
+ * <br>* 命中/未命中：一次完整查找的结果，任一存储器命中即为命中
+ * <br>* 加载：对数据源的访问，失败包括数据源异常、超时、熔断与限流
+ * <br>* 回退：短超时回退模式下超时，或数据源拒绝访问时使用了(过期)缓存
+ */
+public class CacheStats {
+
+    public final String dataDesc;
+    public final long hitCount;
+    public final long missCount;
+    public final long loadCount;
+    public final long loadFailureCount;
+    public final long lockTimeoutCount;
+    public final long fallbackCount;
+    /**
+     * 各存储器的统计，按存储器下标排列
+     */
+    public final List<TierStats> tiers;
+
+    public CacheStats(String dataDesc, long hitCount, long missCount, long loadCount, long loadFailureCount,
+                      long lockTimeoutCount, long fallbackCount, List<TierStats> tiers) {
+        this.dataDesc = dataDesc;
+        this.hitCount = hitCount;
+        this.missCount = missCount;
+        this.loadCount = loadCount;
+        this.loadFailureCount = loadFailureCount;
+        this.lockTimeoutCount = lockTimeoutCount;
+        this.fallbackCount = fallbackCount;
+        this.tiers = Collections.unmodifiableList(tiers);
+    }
+
+    public long requestCount() {
+        return hitCount + missCount;
+    }
+
+    /**
+     * 命中率，没有请求时为1
+     */
+    public double hitRate() {
+        long requestCount = requestCount();
+        return 0 == requestCount ? 1.0 : (double) hitCount / requestCount;
+    }
+
+    @Override
+    public String toString() {
+        return "“" + dataDesc + "”请求" + requestCount() + "次(命中" + hitCount + "，未命中" + missCount
+                + ")，加载" + loadCount + "次(失败" + loadFailureCount + ")，锁超时" + lockTimeoutCount
+                + "次，回退" + fallbackCount + "次，存储器" + tiers;
+    }
+
+    // ***********************内部类****************************
+
+    /**
+     * 单个存储器的统计
+     */
+    public static class TierStats {
+        public final int index;
+        public final String desc;
+        public final long hitCount;
+        public final long missCount;
+        /**
+         * 从下级存储器(或数据源)写入本存储器的次数
+         */
+        public final long promotionCount;
+        public final long evictionCount;
+
+        public TierStats(int index, String desc, long hitCount, long missCount, long promotionCount, long evictionCount) {
+            this.index = index;
+            this.desc = desc;
+            this.hitCount = hitCount;
+            this.missCount = missCount;
+            this.promotionCount = promotionCount;
+            this.evictionCount = evictionCount;
+        }
+
+        /**
+         * 到达本存储器的请求中命中的比例，没有请求时为1
+         */
+        public double hitRate() {
+            long requestCount = hitCount + missCount;
+            return 0 == requestCount ? 1.0 : (double) hitCount / requestCount;
+        }
+
+        @Override
+        public String toString() {
+            return index + ":" + desc + "(命中" + hitCount + "，未命中" + missCount + "，提升" + promotionCount + "，淘汰" + evictionCount + ")";
+        }
+    }
+}
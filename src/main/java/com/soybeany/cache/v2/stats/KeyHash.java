@@ -0,0 +1,32 @@
+package com.soybeany.cache.v2.stats;
+
+/**
+ * key的64位散列（框架内部使用），按key散列抽样的统计共用
+ * <br>* 缺失率曲线的估计与访问轨迹的记录使用同一散列，同一抽样比例下抽中的key相同
+ */
+public final class KeyHash {
+
+    private static final long FNV_OFFSET_BASIS = 0xCBF29CE484222325L;
+    private static final long FNV_PRIME = 1099511628211L;
+
+    private KeyHash() {
+    }
+
+    /**
+     * FNV-1a并再混合，不产生对象
+     */
+    public static long of(String key) {
+        long hash = FNV_OFFSET_BASIS;
+        for (int i = 0; i < key.length(); i++) {
+            hash ^= key.charAt(i);
+            hash *= FNV_PRIME;
+        }
+        // murmur3的fmix64，使高位也充分混合，便于按散列抽样
+        hash ^= hash >>> 33;
+        hash *= 0xFF51AFD7ED558CCDL;
+        hash ^= hash >>> 33;
+        hash *= 0xC4CEB9FE1A85EC53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
@@ -0,0 +1,155 @@
+package com.soybeany.cache.v2.stats;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 无锁的对数分桶直方图（HDR风格），用于统计耗时等非负数值的分位数
+ * <br>* 每个2的幂区间再均分为{@link #SUB_BUCKET_COUNT}个子桶，相对误差不超过1/{@link #SUB_BUCKET_COUNT}
+ * <br>* 记录只涉及一次原子自增，可在热点路径中使用
+ * <br>* 数值的单位由调用方决定
+ */
+public class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKET_COUNT = (64 - SUB_BUCKET_BITS) * SUB_BUCKET_COUNT;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+
+    /**
+     * 记录一个数值，负数按0处理
+     */
+    public void record(long value) {
+        counts.incrementAndGet(indexOf(Math.max(value, 0)));
+    }
+
+    /**
+     * 获取当前数据的快照
+     */
+    public Snapshot snapshot() {
+        long[] copy = new long[BUCKET_COUNT];
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            copy[i] = counts.get(i);
+        }
+        return new Snapshot(copy);
+    }
+
+    /**
+     * 获取当前数据的快照，并清空（用于按周期统计，并发记录的数值不会丢失，只会计入其中一个周期）
+     */
+    public Snapshot snapshotAndReset() {
+        long[] copy = new long[BUCKET_COUNT];
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            copy[i] = counts.getAndSet(i, 0);
+        }
+        return new Snapshot(copy);
+    }
+
+    public void reset() {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            counts.set(i, 0);
+        }
+    }
+
+    // ***********************内部方法****************************
+
+    static int indexOf(long value) {
+        if (value < SUB_BUCKET_COUNT) {
+            return (int) value;
+        }
+        int exp = 63 - Long.numberOfLeadingZeros(value);
+        int sub = (int) (value >>> (exp - SUB_BUCKET_BITS)) & (SUB_BUCKET_COUNT - 1);
+        return (exp - SUB_BUCKET_BITS + 1) * SUB_BUCKET_COUNT + sub;
+    }
+
+    /**
+     * 指定桶所能容纳的最大数值
+     */
+    static long highestValueOf(int index) {
+        if (index < SUB_BUCKET_COUNT) {
+            return index;
+        }
+        int exp = index / SUB_BUCKET_COUNT + SUB_BUCKET_BITS - 1;
+        long sub = index % SUB_BUCKET_COUNT;
+        long lowest = (SUB_BUCKET_COUNT + sub) << (exp - SUB_BUCKET_BITS);
+        return lowest + (1L << (exp - SUB_BUCKET_BITS)) - 1;
+    }
+
+    // ***********************内部类****************************
+
+    /**
+     * 直方图的不可变快照
+     */
+    public static class Snapshot {
+        private final long[] counts;
+        private final long totalCount;
+
+        public static Snapshot merge(Snapshot s1, Snapshot s2) {
+            long[] merged = new long[BUCKET_COUNT];
+            for (int i = 0; i < BUCKET_COUNT; i++) {
+                merged[i] = s1.counts[i] + s2.counts[i];
+            }
+            return new Snapshot(merged);
+        }
+
+        private Snapshot(long[] counts) {
+            this.counts = counts;
+            long total = 0;
+            for (long count : counts) {
+                total += count;
+            }
+            this.totalCount = total;
+        }
+
+        public long count() {
+            return totalCount;
+        }
+
+        /**
+         * 指定分位的数值（桶的上界），没有数据时返回0
+         *
+         * @param percentile 分位，取值范围[0,1]，如0.99
+         */
+        public long percentile(double percentile) {
+            if (0 == totalCount) {
+                return 0;
+            }
+            long target = Math.max((long) Math.ceil(totalCount * Math.min(Math.max(percentile, 0), 1)), 1);
+            long accumulated = 0;
+            for (int i = 0; i < BUCKET_COUNT; i++) {
+                accumulated += counts[i];
+                if (accumulated >= target) {
+                    return highestValueOf(i);
+                }
+            }
+            return max();
+        }
+
+        public long max() {
+            for (int i = BUCKET_COUNT - 1; i >= 0; i--) {
+                if (counts[i] > 0) {
+                    return highestValueOf(i);
+                }
+            }
+            return 0;
+        }
+
+        public double mean() {
+            if (0 == totalCount) {
+                return 0;
+            }
+            double sum = 0;
+            for (int i = 0; i < BUCKET_COUNT; i++) {
+                if (counts[i] > 0) {
+                    sum += (double) highestValueOf(i) * counts[i];
+                }
+            }
+            return sum / totalCount;
+        }
+
+        @Override
+        public String toString() {
+            return "count=" + totalCount + ", p50=" + percentile(0.5) + ", p99=" + percentile(0.99) + ", p999=" + percentile(0.999) + ", max=" + max();
+        }
+    }
+}
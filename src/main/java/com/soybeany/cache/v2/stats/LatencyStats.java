@@ -0,0 +1,66 @@
+package com.soybeany.cache.v2.stats;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 耗时统计的快照（不可变），耗时单位均为纳秒
+ * <br>* 统计区间为[fromTimestamp, toTimestamp]，按周期重置时为上次重置至今
+ */
+public class LatencyStats {
+
+    public final String dataDesc;
+    public final long fromTimestamp;
+    public final long toTimestamp;
+    /**
+     * 数据源访问的耗时（含异步等待与超时）
+     */
+    public final LatencyHistogram.Snapshot datasource;
+    /**
+     * 各存储器的耗时，按存储器下标排列
+     */
+    public final List<TierLatency> tiers;
+
+    public LatencyStats(String dataDesc, long fromTimestamp, long toTimestamp, LatencyHistogram.Snapshot datasource, List<TierLatency> tiers) {
+        this.dataDesc = dataDesc;
+        this.fromTimestamp = fromTimestamp;
+        this.toTimestamp = toTimestamp;
+        this.datasource = datasource;
+        this.tiers = Collections.unmodifiableList(tiers);
+    }
+
+    @Override
+    public String toString() {
+        return "“" + dataDesc + "”数据源(" + datasource + ")，存储器" + tiers;
+    }
+
+    // ***********************内部类****************************
+
+    /**
+     * 单个存储器的耗时
+     */
+    public static class TierLatency {
+        public final int index;
+        public final String desc;
+        /**
+         * 查找缓存的耗时
+         */
+        public final LatencyHistogram.Snapshot getCache;
+        /**
+         * 缓存数据的耗时
+         */
+        public final LatencyHistogram.Snapshot cacheData;
+
+        public TierLatency(int index, String desc, LatencyHistogram.Snapshot getCache, LatencyHistogram.Snapshot cacheData) {
+            this.index = index;
+            this.desc = desc;
+            this.getCache = getCache;
+            this.cacheData = cacheData;
+        }
+
+        @Override
+        public String toString() {
+            return index + ":" + desc + "(查找:" + getCache + "；缓存:" + cacheData + ")";
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.soybeany.cache.v2.stats;
+
+/**
+ * 缺失率曲线的快照（不可变），表示LRU存储器在不同容量下的预期命中率
+ * <br>* 曲线按固定的容量间隔采样，间隔之间线性插值，超出最大容量时取最大容量处的值
+ */
+public class MissRatioCurve {
+
+    /**
+     * 快照时存储器的容量
+     */
+    public final int currentCapacity;
+    /**
+     * 当前的抽样比例
+     */
+    public final double sampleRate;
+    /**
+     * 统计区间内估计的访问次数
+     */
+    public final long referenceCount;
+    private final int bucketWidth;
+    /**
+     * hitRates[i]：容量为(i+1)*bucketWidth时的命中率
+     */
+    private final double[] hitRates;
+
+    public MissRatioCurve(int currentCapacity, double sampleRate, long referenceCount, int bucketWidth, double[] hitRates) {
+        this.currentCapacity = currentCapacity;
+        this.sampleRate = sampleRate;
+        this.referenceCount = referenceCount;
+        this.bucketWidth = bucketWidth;
+        this.hitRates = hitRates.clone();
+    }
+
+    /**
+     * 曲线覆盖的最大容量
+     */
+    public int maxCapacity() {
+        return bucketWidth * hitRates.length;
+    }
+
+    /**
+     * 指定容量下的预期命中率，没有数据时为0
+     */
+    public double hitRate(int capacity) {
+        if (capacity <= 0 || 0 == hitRates.length) {
+            return 0;
+        }
+        if (capacity >= maxCapacity()) {
+            return hitRates[hitRates.length - 1];
+        }
+        int index = capacity / bucketWidth;
+        double lower = index > 0 ? hitRates[index - 1] : 0;
+        return lower + (hitRates[index] - lower) * (capacity - index * bucketWidth) / bucketWidth;
+    }
+
+    /**
+     * 指定容量下的预期缺失率
+     */
+    public double missRate(int capacity) {
+        return 1 - hitRate(capacity);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder("访问" + referenceCount + "次(抽样比例" + sampleRate + ")，预期命中率");
+        for (double ratio : new double[]{0.25, 0.5, 1, 2, 4}) {
+            int capacity = Math.max((int) (currentCapacity * ratio), 1);
+            builder.append(String.format(" %d:%.2f%%", capacity, hitRate(capacity) * 100));
+        }
+        return builder.toString();
+    }
+}
@@ -0,0 +1,173 @@
+package com.soybeany.cache.v2.storage;
+
+import com.soybeany.cache.v2.stats.LatencyHistogram;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * 自适应的数据源超时，根据观测到的数据源耗时动态调整
+ * <br>* 超时 = 指定分位的耗时 × 倍数，并限制在[最小值, 最大值]之间
+ * <br>* 耗时按周期统计，计算时合并当前与上一周期的数据，使超时能跟随数据源的变化
+ * <br>* 样本不足时使用初始超时
+ */
+public class AdaptiveDatasourceTimeout implements Function<String, Long> {
+
+    private final double percentile;
+    private final double multiplier;
+    private final long minTimeoutMs;
+    private final long maxTimeoutMs;
+    private final long windowMs;
+    private final long refreshMs;
+    private final int minSamples;
+
+    private final AtomicLong nextRefreshAt = new AtomicLong();
+    private volatile long windowStartAt = System.currentTimeMillis();
+    private volatile LatencyHistogram curWindow = new LatencyHistogram();
+    private volatile LatencyHistogram.Snapshot preWindow = new LatencyHistogram().snapshot();
+    private volatile long currentTimeoutMs;
+
+    private AdaptiveDatasourceTimeout(Builder builder) {
+        this.percentile = builder.percentile;
+        this.multiplier = builder.multiplier;
+        this.minTimeoutMs = builder.minTimeoutMs;
+        this.maxTimeoutMs = Math.max(builder.maxTimeoutMs, builder.minTimeoutMs);
+        this.windowMs = builder.windowMs;
+        this.refreshMs = builder.refreshMs;
+        this.minSamples = builder.minSamples;
+        this.currentTimeoutMs = clamp(builder.initialTimeoutMs);
+    }
+
+    @Override
+    public Long apply(String paramKey) {
+        long now = System.currentTimeMillis();
+        long refreshAt = nextRefreshAt.get();
+        if (now >= refreshAt && nextRefreshAt.compareAndSet(refreshAt, now + refreshMs)) {
+            refresh(now);
+        }
+        return currentTimeoutMs;
+    }
+
+    /**
+     * 记录一次数据源访问的耗时，超时的访问以超时值记录
+     */
+    public void onRecord(long costMs) {
+        curWindow.record(costMs);
+    }
+
+    /**
+     * 当前生效的超时(毫秒)
+     */
+    public long currentTimeoutMs() {
+        return currentTimeoutMs;
+    }
+
+    /**
+     * 当前统计周期内(含上一周期)的耗时快照
+     */
+    public LatencyHistogram.Snapshot latencySnapshot() {
+        return LatencyHistogram.Snapshot.merge(preWindow, curWindow.snapshot());
+    }
+
+    // ***********************内部方法****************************
+
+    private void refresh(long now) {
+        // 切换统计周期
+        if (now - windowStartAt >= windowMs) {
+            LatencyHistogram old = curWindow;
+            curWindow = new LatencyHistogram();
+            windowStartAt = now;
+            preWindow = old.snapshot();
+        }
+        LatencyHistogram.Snapshot snapshot = latencySnapshot();
+        if (snapshot.count() < minSamples) {
+            return;
+        }
+        currentTimeoutMs = clamp((long) Math.ceil(snapshot.percentile(percentile) * multiplier));
+    }
+
+    private long clamp(long timeoutMs) {
+        return Math.min(Math.max(timeoutMs, minTimeoutMs), maxTimeoutMs);
+    }
+
+    // ***********************内部类****************************
+
+    public static class Builder {
+        private double percentile = 0.99;
+        private double multiplier = 2;
+        private long initialTimeoutMs = 3 * 1000L;
+        private long minTimeoutMs = 50;
+        private long maxTimeoutMs = 30 * 1000L;
+        private long windowMs = 60 * 1000L;
+        private long refreshMs = 1000;
+        private int minSamples = 50;
+
+        /**
+         * 参考的耗时分位，默认0.99
+         */
+        public Builder percentile(double percentile) {
+            this.percentile = percentile;
+            return this;
+        }
+
+        /**
+         * 在参考耗时上乘以的倍数，默认2
+         */
+        public Builder multiplier(double multiplier) {
+            this.multiplier = multiplier;
+            return this;
+        }
+
+        /**
+         * 样本不足时使用的超时(毫秒)，默认3秒
+         */
+        public Builder initialTimeoutMs(long initialTimeoutMs) {
+            this.initialTimeoutMs = initialTimeoutMs;
+            return this;
+        }
+
+        /**
+         * 超时的下限(毫秒)，默认50毫秒
+         */
+        public Builder minTimeoutMs(long minTimeoutMs) {
+            this.minTimeoutMs = minTimeoutMs;
+            return this;
+        }
+
+        /**
+         * 超时的上限(毫秒)，默认30秒
+         */
+        public Builder maxTimeoutMs(long maxTimeoutMs) {
+            this.maxTimeoutMs = maxTimeoutMs;
+            return this;
+        }
+
+        /**
+         * 耗时统计周期(毫秒)，默认1分钟
+         */
+        public Builder windowMs(long windowMs) {
+            this.windowMs = windowMs;
+            return this;
+        }
+
+        /**
+         * 重新计算超时的间隔(毫秒)，默认1秒
+         */
+        public Builder refreshMs(long refreshMs) {
+            this.refreshMs = refreshMs;
+            return this;
+        }
+
+        /**
+         * 计算超时所需的最少样本数，默认50
+         */
+        public Builder minSamples(int minSamples) {
+            this.minSamples = minSamples;
+            return this;
+        }
+
+        public AdaptiveDatasourceTimeout build() {
+            return new AdaptiveDatasourceTimeout(this);
+        }
+    }
+}
@@ -0,0 +1,327 @@
+package com.soybeany.cache.v2.storage;
+
+import com.soybeany.cache.v2.contract.frame.ICacheStorage;
+import com.soybeany.cache.v2.core.CacheRegistry;
+import com.soybeany.cache.v2.core.DataManager;
+import com.soybeany.cache.v2.exception.BdCacheException;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 内存池，在多个数据管理器之间分配一份总的内存预算(字节)
+ * <br>* 各数据管理器使用设置了权重计算器的LruMemCacheStorage，其配额通过{@link LruMemCacheStorage#setMaxWeight}生效
+ * <br>* 构建时先满足各自的最小配额，剩余预算平均分配(不超过最大配额)
+ * <br>* 每轮按上一轮至今的命中数计算单位内存的命中价值，把内存从价值低或有闲置的存储器移到价值高且发生了淘汰的存储器
+ * <br>* 存储器按条数的容量仍然生效，加入前应设置足够大的capacity
+ * <br>* 同一存储器同一时间只能由一个内存池或{@link CapacityAutoTuner}调节，构建时存储器已被调节会抛出异常，{@link #close()}后释放
+ */
+public class CacheArena implements Closeable {
+
+    private final long budgetBytes;
+    private final List<Member> members;
+    private final long step;
+    private final int maxMovesPerRound;
+    private final CacheRegistry.ScheduledTask task;
+
+    private CacheArena(Builder builder) {
+        this.budgetBytes = builder.budgetBytes;
+        this.members = Collections.unmodifiableList(new ArrayList<>(builder.members));
+        this.step = builder.step > 0 ? builder.step : Math.max(budgetBytes / 100, 1);
+        this.maxMovesPerRound = Math.max(builder.maxMovesPerRound, 1);
+        allocate();
+        LruMemCacheStorage.claimController(this, "内存池", storages());
+        for (Member member : members) {
+            member.lastHitCount = member.hitCount();
+            member.lastEvictedCount = member.storage.evictedCount();
+            member.storage.setMaxWeight(member.quota);
+        }
+        try {
+            this.task = CacheRegistry.scheduleOrOwn(builder.registry, "bd-cache-arena", "内存池再分配", this::rebalance, builder.intervalMs, this);
+        } catch (RuntimeException e) {
+            LruMemCacheStorage.releaseController(this, storages());
+            throw e;
+        }
+    }
+
+    /**
+     * 执行一轮再分配，定时执行时由后台线程调用
+     *
+     * @return 各存储器再分配后的配额，与加入的顺序一致
+     */
+    public synchronized long[] rebalance() {
+        int size = members.size();
+        long[] hits = new long[size];
+        boolean[] pressured = new boolean[size];
+        boolean[] idle = new boolean[size];
+        long[] quotas = new long[size];
+        for (int i = 0; i < size; i++) {
+            Member member = members.get(i);
+            long hitCount = member.hitCount();
+            long evictedCount = member.storage.evictedCount();
+            hits[i] = hitCount - member.lastHitCount;
+            // 本轮发生了淘汰，说明配额不足
+            pressured[i] = evictedCount > member.lastEvictedCount;
+            member.lastHitCount = hitCount;
+            member.lastEvictedCount = evictedCount;
+            quotas[i] = member.quota;
+            idle[i] = member.storage.weightedSize() <= member.quota - step;
+        }
+        for (int move = 0; move < maxMovesPerRound; move++) {
+            int receiver = -1, donor = -1;
+            double maxValue = -1, minValue = Double.MAX_VALUE;
+            for (int i = 0; i < size; i++) {
+                // 只有发生了淘汰且有命中的存储器才能从更多内存中获益
+                if (!pressured[i] || 0 == hits[i] || quotas[i] >= members.get(i).maxBytes) {
+                    continue;
+                }
+                double value = valuePerByte(hits[i], quotas[i]);
+                if (value > maxValue) {
+                    maxValue = value;
+                    receiver = i;
+                }
+            }
+            if (receiver < 0) {
+                break;
+            }
+            long amount = Math.min(step, members.get(receiver).maxBytes - quotas[receiver]);
+            for (int i = 0; i < size; i++) {
+                if (i == receiver || quotas[i] - amount < members.get(i).minBytes) {
+                    continue;
+                }
+                // 优先回收闲置的配额
+                double value = idle[i] ? -1 : valuePerByte(hits[i], quotas[i]);
+                if (value < minValue) {
+                    minValue = value;
+                    donor = i;
+                }
+            }
+            if (donor < 0 || maxValue <= minValue) {
+                break;
+            }
+            quotas[receiver] += amount;
+            quotas[donor] -= amount;
+            idle[donor] = members.get(donor).storage.weightedSize() <= quotas[donor] - step;
+        }
+        // 先缩小再扩大，避免总占用短暂超出预算
+        for (int i = 0; i < size; i++) {
+            if (quotas[i] < members.get(i).quota) {
+                members.get(i).applyQuota(quotas[i]);
+            }
+        }
+        for (int i = 0; i < size; i++) {
+            if (quotas[i] > members.get(i).quota) {
+                members.get(i).applyQuota(quotas[i]);
+            }
+        }
+        return quotas;
+    }
+
+    /**
+     * 总的内存预算(字节)
+     */
+    public long budgetBytes() {
+        return budgetBytes;
+    }
+
+    /**
+     * 各存储器当前的配额，与加入的顺序一致
+     */
+    public synchronized long[] quotas() {
+        long[] quotas = new long[members.size()];
+        for (int i = 0; i < quotas.length; i++) {
+            quotas[i] = members.get(i).quota;
+        }
+        return quotas;
+    }
+
+    /**
+     * 参与分配的存储器名称，与加入的顺序一致
+     */
+    public List<String> names() {
+        List<String> names = new ArrayList<>();
+        members.forEach(member -> names.add(member.name));
+        return names;
+    }
+
+    /**
+     * 停止定时再分配，已分配的配额保持不变
+     */
+    @Override
+    public void close() {
+        task.close();
+        LruMemCacheStorage.releaseController(this, storages());
+    }
+
+    // ***********************内部方法****************************
+
+    private List<LruMemCacheStorage<?, ?>> storages() {
+        List<LruMemCacheStorage<?, ?>> storages = new ArrayList<>();
+        members.forEach(member -> storages.add(member.storage));
+        return storages;
+    }
+
+    private void allocate() {
+        long remaining = budgetBytes;
+        for (Member member : members) {
+            member.quota = member.minBytes;
+            remaining -= member.minBytes;
+        }
+        // 剩余预算平均分配，达到最大配额的不再参与
+        while (remaining > 0) {
+            List<Member> growable = new ArrayList<>();
+            for (Member member : members) {
+                if (member.quota < member.maxBytes) {
+                    growable.add(member);
+                }
+            }
+            if (growable.isEmpty()) {
+                break;
+            }
+            long share = Math.max(remaining / growable.size(), 1);
+            for (Member member : growable) {
+                long amount = Math.min(Math.min(share, member.maxBytes - member.quota), remaining);
+                member.quota += amount;
+                remaining -= amount;
+            }
+        }
+    }
+
+    private static double valuePerByte(long hits, long quota) {
+        return (double) hits / Math.max(quota, 1);
+    }
+
+    // ***********************内部类****************************
+
+    private static class Member {
+        final String name;
+        final DataManager<?, ?> manager;
+        final int storageIndex;
+        final LruMemCacheStorage<?, ?> storage;
+        final long minBytes;
+        final long maxBytes;
+        long quota;
+        long lastHitCount;
+        long lastEvictedCount;
+
+        Member(String name, DataManager<?, ?> manager, int storageIndex, long minBytes, long maxBytes) {
+            this.name = name;
+            this.manager = manager;
+            this.storageIndex = storageIndex;
+            this.storage = (LruMemCacheStorage<?, ?>) manager.storages().get(storageIndex);
+            this.minBytes = minBytes;
+            this.maxBytes = maxBytes;
+        }
+
+        long hitCount() {
+            return manager.stats().tiers.get(storageIndex).hitCount;
+        }
+
+        void applyQuota(long quota) {
+            this.quota = quota;
+            storage.setMaxWeight(quota);
+        }
+    }
+
+    public static class Builder {
+        private final long budgetBytes;
+        private final List<Member> members = new ArrayList<>();
+        private long step;
+        private int maxMovesPerRound = 10;
+        private long intervalMs = 60 * 1000L;
+        private CacheRegistry registry;
+
+        /**
+         * @param budgetBytes 总的内存预算(字节)
+         */
+        public Builder(long budgetBytes) {
+            this.budgetBytes = budgetBytes;
+        }
+
+        /**
+         * 加入管理器中首个设置了权重计算器的LruMemCacheStorage，使用storageId作为名称
+         *
+         * @param minBytes 最小配额，再分配时不会低于此值
+         * @param maxBytes 最大配额，再分配时不会高于此值
+         */
+        public Builder add(DataManager<?, ?> manager, long minBytes, long maxBytes) {
+            if (!tryAdd(manager, minBytes, maxBytes)) {
+                throw new BdCacheException("“" + manager.dataContext().dataDesc + "”中没有设置了权重计算器的LruMemCacheStorage");
+            }
+            return this;
+        }
+
+        /**
+         * 加入注册中心中全部使用了带权重计算器的LruMemCacheStorage的管理器，配额范围相同
+         */
+        public Builder addAll(CacheRegistry registry, long minBytes, long maxBytes) {
+            for (DataManager<?, ?> manager : registry.managers()) {
+                tryAdd(manager, minBytes, maxBytes);
+            }
+            return this;
+        }
+
+        /**
+         * 每次移动的字节数，默认为总预算的1%
+         */
+        public Builder step(long step) {
+            this.step = step;
+            return this;
+        }
+
+        /**
+         * 每轮最多移动的次数，默认10
+         */
+        public Builder maxMovesPerRound(int maxMovesPerRound) {
+            this.maxMovesPerRound = maxMovesPerRound;
+            return this;
+        }
+
+        /**
+         * 定时再分配的间隔(毫秒)，默认1分钟，小于等于0时只能手动调用{@link #rebalance()}
+         */
+        public Builder intervalMs(long intervalMs) {
+            this.intervalMs = intervalMs;
+            return this;
+        }
+
+        /**
+         * 使用注册中心的共享调度器定时执行，并随注册中心关闭；不设置时使用独立的后台线程
+         */
+        public Builder registry(CacheRegistry registry) {
+            this.registry = registry;
+            return this;
+        }
+
+        private boolean tryAdd(DataManager<?, ?> manager, long minBytes, long maxBytes) {
+            List<? extends ICacheStorage<?, ?>> storages = manager.storages();
+            for (int i = 0; i < storages.size(); i++) {
+                ICacheStorage<?, ?> storage = storages.get(i);
+                if (storage instanceof LruMemCacheStorage && ((LruMemCacheStorage<?, ?>) storage).weighted()) {
+                    if (minBytes < 0 || minBytes > maxBytes) {
+                        throw new BdCacheException("“" + manager.dataContext().storageId + "”的配额范围不正确");
+                    }
+                    members.add(new Member(manager.dataContext().storageId, manager, i, minBytes, maxBytes));
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        public CacheArena build() {
+            if (members.isEmpty()) {
+                throw new BdCacheException("内存池中没有存储器");
+            }
+            long minTotal = 0;
+            for (Member member : members) {
+                minTotal += member.minBytes;
+            }
+            if (minTotal > budgetBytes) {
+                throw new BdCacheException("最小配额之和(" + minTotal + ")超出了总预算(" + budgetBytes + ")");
+            }
+            return new CacheArena(this);
+        }
+    }
+}
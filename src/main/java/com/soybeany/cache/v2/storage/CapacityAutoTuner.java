@@ -0,0 +1,231 @@
+package com.soybeany.cache.v2.storage;
+
+import com.soybeany.cache.v2.contract.frame.ICacheStorage;
+import com.soybeany.cache.v2.core.CacheRegistry;
+import com.soybeany.cache.v2.core.DataManager;
+import com.soybeany.cache.v2.exception.BdCacheException;
+import com.soybeany.cache.v2.stats.MissRatioCurve;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 容量自动调节器，在多个LruMemCacheStorage之间分配固定的总容量(条数)
+ * <br>* 每轮根据各存储器的缺失率曲线与访问量，估计增减一个步长带来的命中数变化，
+ * 把容量从损失最小的存储器移到收益最大的存储器，直到收益不再大于损失
+ * <br>* 存储器需启用缺失率曲线估计，曲线覆盖范围之外的容量不会带来收益
+ * <br>* 每轮使用上一轮至今的统计，以适应访问模式的变化
+ * <br>* 同一存储器同一时间只能由一个调节器或{@link CacheArena}调节，构建时存储器已被调节会抛出异常，{@link #close()}后释放
+ */
+public class CapacityAutoTuner implements Closeable {
+
+    private final List<Target> targets;
+    private final int step;
+    private final int minCapacity;
+    private final int maxMovesPerRound;
+    private final CacheRegistry.ScheduledTask task;
+
+    private CapacityAutoTuner(Builder builder) {
+        this.targets = Collections.unmodifiableList(new ArrayList<>(builder.targets));
+        LruMemCacheStorage.claimController(this, "容量调节器", storages());
+        int total = 0;
+        for (Target target : targets) {
+            total += target.storage.capacity();
+        }
+        int totalCapacity = builder.totalCapacity > 0 ? builder.totalCapacity : total;
+        this.step = builder.step > 0 ? builder.step : Math.max(totalCapacity / 100, 1);
+        this.minCapacity = Math.max(builder.minCapacity, 1);
+        this.maxMovesPerRound = Math.max(builder.maxMovesPerRound, 1);
+        // 指定了总容量时，按现有比例重新分配
+        if (builder.totalCapacity > 0 && total > 0) {
+            int remaining = totalCapacity;
+            for (int i = 0; i < targets.size(); i++) {
+                LruMemCacheStorage<?, ?> storage = targets.get(i).storage;
+                int capacity = i == targets.size() - 1 ? remaining : (int) ((long) totalCapacity * storage.capacity() / total);
+                capacity = Math.max(capacity, minCapacity);
+                storage.setCapacity(capacity);
+                remaining -= capacity;
+            }
+        }
+        try {
+            this.task = CacheRegistry.scheduleOrOwn(builder.registry, "bd-cache-tuner", "容量调节", this::tune, builder.intervalMs, this);
+        } catch (RuntimeException e) {
+            LruMemCacheStorage.releaseController(this, storages());
+            throw e;
+        }
+    }
+
+    /**
+     * 执行一轮调节，定时调节时由后台线程调用
+     *
+     * @return 各存储器调节后的容量，与加入的顺序一致
+     */
+    public synchronized int[] tune() {
+        int size = targets.size();
+        int[] capacities = new int[size];
+        MissRatioCurve[] curves = new MissRatioCurve[size];
+        for (int i = 0; i < size; i++) {
+            LruMemCacheStorage<?, ?> storage = targets.get(i).storage;
+            capacities[i] = storage.capacity();
+            curves[i] = storage.missRatioCurve(true);
+        }
+        int[] original = capacities.clone();
+        for (int move = 0; move < maxMovesPerRound; move++) {
+            int receiver = -1, donor = -1;
+            double maxGain = 0, minLoss = Double.MAX_VALUE;
+            for (int i = 0; i < size; i++) {
+                double gain = curves[i].referenceCount * (curves[i].hitRate(capacities[i] + step) - curves[i].hitRate(capacities[i]));
+                if (gain > maxGain) {
+                    maxGain = gain;
+                    receiver = i;
+                }
+            }
+            for (int i = 0; i < size; i++) {
+                if (i == receiver || capacities[i] - step < minCapacity) {
+                    continue;
+                }
+                double loss = curves[i].referenceCount * (curves[i].hitRate(capacities[i]) - curves[i].hitRate(capacities[i] - step));
+                if (loss < minLoss) {
+                    minLoss = loss;
+                    donor = i;
+                }
+            }
+            if (receiver < 0 || donor < 0 || maxGain <= minLoss) {
+                break;
+            }
+            capacities[receiver] += step;
+            capacities[donor] -= step;
+        }
+        for (int i = 0; i < size; i++) {
+            if (capacities[i] != original[i]) {
+                targets.get(i).storage.setCapacity(capacities[i]);
+            }
+        }
+        return capacities;
+    }
+
+    /**
+     * 参与调节的存储器名称，与加入的顺序一致
+     */
+    public List<String> names() {
+        List<String> names = new ArrayList<>();
+        targets.forEach(target -> names.add(target.name));
+        return names;
+    }
+
+    /**
+     * 停止定时调节
+     */
+    @Override
+    public void close() {
+        task.close();
+        LruMemCacheStorage.releaseController(this, storages());
+    }
+
+    // ***********************内部方法****************************
+
+    private List<LruMemCacheStorage<?, ?>> storages() {
+        List<LruMemCacheStorage<?, ?>> storages = new ArrayList<>();
+        targets.forEach(target -> storages.add(target.storage));
+        return storages;
+    }
+
+    // ***********************内部类****************************
+
+    private static class Target {
+        final String name;
+        final LruMemCacheStorage<?, ?> storage;
+
+        Target(String name, LruMemCacheStorage<?, ?> storage) {
+            this.name = name;
+            this.storage = storage;
+        }
+    }
+
+    public static class Builder {
+        private final List<Target> targets = new ArrayList<>();
+        private int totalCapacity;
+        private int step;
+        private int minCapacity = 1;
+        private int maxMovesPerRound = 10;
+        private long intervalMs = 60 * 1000L;
+        private CacheRegistry registry;
+
+        /**
+         * 加入管理器中首个启用了缺失率曲线估计的LruMemCacheStorage，使用storageId作为名称
+         */
+        public Builder add(DataManager<?, ?> manager) {
+            for (ICacheStorage<?, ?> storage : manager.storages()) {
+                if (storage instanceof LruMemCacheStorage && null != ((LruMemCacheStorage<?, ?>) storage).missRatioCurve()) {
+                    return add(manager.dataContext().storageId, (LruMemCacheStorage<?, ?>) storage);
+                }
+            }
+            throw new BdCacheException("“" + manager.dataContext().dataDesc + "”中没有启用缺失率曲线估计的LruMemCacheStorage");
+        }
+
+        public Builder add(String name, LruMemCacheStorage<?, ?> storage) {
+            if (null == storage.missRatioCurve()) {
+                throw new BdCacheException("“" + name + "”的存储器未启用缺失率曲线估计");
+            }
+            targets.add(new Target(name, storage));
+            return this;
+        }
+
+        /**
+         * 总容量，构建时按现有容量的比例重新分配；默认为现有容量之和
+         */
+        public Builder totalCapacity(int totalCapacity) {
+            this.totalCapacity = totalCapacity;
+            return this;
+        }
+
+        /**
+         * 每次移动的容量，默认为总容量的1%
+         */
+        public Builder step(int step) {
+            this.step = step;
+            return this;
+        }
+
+        /**
+         * 单个存储器的最小容量，默认1
+         */
+        public Builder minCapacity(int minCapacity) {
+            this.minCapacity = minCapacity;
+            return this;
+        }
+
+        /**
+         * 每轮最多移动的次数，默认10
+         */
+        public Builder maxMovesPerRound(int maxMovesPerRound) {
+            this.maxMovesPerRound = maxMovesPerRound;
+            return this;
+        }
+
+        /**
+         * 定时调节的间隔(毫秒)，默认1分钟，小于等于0时只能手动调用{@link #tune()}
+         */
+        public Builder intervalMs(long intervalMs) {
+            this.intervalMs = intervalMs;
+            return this;
+        }
+
+        /**
+         * 使用注册中心的共享调度器定时执行，并随注册中心关闭；不设置时使用独立的后台线程
+         */
+        public Builder registry(CacheRegistry registry) {
+            this.registry = registry;
+            return this;
+        }
+
+        public CapacityAutoTuner build() {
+            if (targets.size() < 2) {
+                throw new BdCacheException("至少需要两个存储器才能调节容量");
+            }
+            return new CapacityAutoTuner(this);
+        }
+    }
+}
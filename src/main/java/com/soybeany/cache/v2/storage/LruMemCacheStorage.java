@@ -1,17 +1,26 @@
 package com.soybeany.cache.v2.storage;
 
 import com.soybeany.cache.v2.contract.frame.ICacheStorage;
+import com.soybeany.cache.v2.contract.user.IWeigher;
 import com.soybeany.cache.v2.exception.BdCacheException;
 import com.soybeany.cache.v2.exception.NoCacheException;
+import com.soybeany.cache.v2.jfr.CacheEvents;
 import com.soybeany.cache.v2.model.CacheEntity;
 import com.soybeany.cache.v2.model.DataCore;
+import com.soybeany.cache.v2.model.DataPack;
 import com.soybeany.cache.v2.model.DataParam;
+import com.soybeany.cache.v2.stats.KeyHash;
+import com.soybeany.cache.v2.stats.MissRatioCurve;
 
 import java.lang.ref.Reference;
 import java.lang.ref.SoftReference;
 import java.lang.ref.WeakReference;
 import java.lang.reflect.Type;
 import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.function.Function;
@@ -22,15 +31,25 @@ import java.util.function.Function;
  */
 public class LruMemCacheStorage<Param, Data> extends StdStorage<Param, Data> {
     private static final String DESC = "LRU";
+    /**
+     * 容量减小时每批淘汰的数目，批次之间释放写锁
+     */
+    private static final int EVICT_BATCH_SIZE = 256;
 
     private final ReadWriteLock rwLock = new ReentrantReadWriteLock();
     private final Type deppCopyType;
     private final MapStorage<Data> mapStorage;
+    private final ShardsEstimator mrcEstimator;
+    /**
+     * 自动调节此存储器的组件(内存池或容量调节器)，同一时间只允许一个，避免相互覆盖对方的调整
+     */
+    private final AtomicReference<Object> controller = new AtomicReference<>();
 
-    private LruMemCacheStorage(long pTtl, long pTtlErr, Type deppCopyType, MapStorage<Data> storage) {
+    private LruMemCacheStorage(long pTtl, long pTtlErr, Type deppCopyType, MapStorage<Data> storage, ShardsEstimator mrcEstimator) {
         super(pTtl, pTtlErr);
         this.deppCopyType = deppCopyType;
         mapStorage = storage;
+        this.mrcEstimator = mrcEstimator;
     }
 
     @Override
@@ -42,8 +61,12 @@ public class LruMemCacheStorage<Param, Data> extends StdStorage<Param, Data> {
     public void onInvalidAllCache() {
         rwLock.writeLock().lock();
         try {
-            Set<String> keys = new HashSet<>(mapStorage.getMap().keySet());
-            keys.forEach(key -> mapStorage.onLoad(key).ifPresent(entity -> mapStorage.onSave(key, new CacheEntity<>(entity.dataCore, 0))));
+            mapStorage.keys().forEach(key -> {
+                CacheEntity<Data> entity = mapStorage.onLoad(key, false);
+                if (null != entity) {
+                    mapStorage.onSave(key, new CacheEntity<>(entity.dataCore, 0));
+                }
+            });
         } finally {
             rwLock.writeLock().unlock();
         }
@@ -53,7 +76,7 @@ public class LruMemCacheStorage<Param, Data> extends StdStorage<Param, Data> {
     public void onClearCache() {
         rwLock.writeLock().lock();
         try {
-            mapStorage.getMap().clear();
+            mapStorage.clear();
         } finally {
             rwLock.writeLock().unlock();
         }
@@ -63,33 +86,130 @@ public class LruMemCacheStorage<Param, Data> extends StdStorage<Param, Data> {
     public int cachedDataCount() {
         rwLock.readLock().lock();
         try {
-            return mapStorage.getMap().size();
+            return mapStorage.size();
         } finally {
             rwLock.readLock().unlock();
         }
     }
 
+    /**
+     * 当前的容量
+     */
+    public int capacity() {
+        return mapStorage.capacity();
+    }
+
+    /**
+     * 运行时调整容量，容量减小时按最久未使用的顺序分批淘汰多出的数据
+     * <br>* 新容量立刻对写入生效，淘汰的批次之间释放写锁，不会长时间阻塞并发的读写
+     */
+    public void setCapacity(int capacity) {
+        mapStorage.setCapacity(Math.max(capacity, 1));
+        trimIncrementally();
+    }
+
+    /**
+     * 是否设置了权重计算器
+     */
+    public boolean weighted() {
+        return mapStorage.weighted();
+    }
+
+    /**
+     * 当前缓存的总权重(字节)，未设置权重计算器时为0
+     */
+    public long weightedSize() {
+        rwLock.readLock().lock();
+        try {
+            return mapStorage.weight();
+        } finally {
+            rwLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 当前的总权重上限(字节)，未设置时为{@link Long#MAX_VALUE}
+     */
+    public long maxWeight() {
+        return mapStorage.maxWeight();
+    }
+
+    /**
+     * 运行时调整总权重上限，减小时与{@link #setCapacity}一样分批淘汰
+     */
+    public void setMaxWeight(long maxWeight) {
+        if (!mapStorage.weighted()) {
+            throw new BdCacheException("未设置权重计算器，不能按权重限制缓存");
+        }
+        mapStorage.setMaxWeight(Math.max(maxWeight, 0));
+        trimIncrementally();
+    }
+
+    @Override
+    public long evictedCount() {
+        return mapStorage.evictedCount().sum();
+    }
+
+    @Override
+    public DataPack<Data> onFindCache(DataParam<Param> param) {
+        DataPack<Data> dataPack = super.onFindCache(param);
+        // 未命中时不计入，随后的写入才是一次访问
+        if (null != dataPack) {
+            onMrcReference(getStorageKey(param));
+        }
+        return dataPack;
+    }
+
+    /**
+     * 当前的缺失率曲线(自创建或上次重置以来)，未启用时返回null
+     */
+    public MissRatioCurve missRatioCurve() {
+        return missRatioCurve(false);
+    }
+
+    /**
+     * 当前的缺失率曲线，未启用时返回null
+     *
+     * @param reset 是否在快照后重置统计(保留已跟踪key的重用信息)，用于按周期估计
+     */
+    public MissRatioCurve missRatioCurve(boolean reset) {
+        if (null == mrcEstimator) {
+            return null;
+        }
+        synchronized (mrcEstimator) {
+            return mrcEstimator.snapshot(capacity(), reset);
+        }
+    }
+
     @Override
     protected CacheEntity<Data> onLoadCacheEntity(DataParam<Param> param, String storageKey) throws NoCacheException {
+        CacheEntity<Data> result = onFindCacheEntity(param, storageKey);
+        if (null == result) {
+            throw new NoCacheException();
+        }
+        return result;
+    }
+
+    @Override
+    protected CacheEntity<Data> onFindCacheEntity(DataParam<Param> param, String storageKey) {
+        CacheEntity<Data> result;
+        // 读取时只记录访问，不调整淘汰顺序，并发的读取只需读锁
         rwLock.readLock().lock();
         try {
-            Optional<CacheEntity<Data>> entityOpt = mapStorage.onLoad(storageKey);
-            if (!entityOpt.isPresent()) {
-                throw new NoCacheException();
-            }
-            CacheEntity<Data> result = entityOpt.get();
-            if (null != deppCopyType) {
-                String coreJson = DataCore.toJson(result.dataCore);
-                try {
-                    result = new CacheEntity<>(DataCore.fromJson(coreJson, deppCopyType), result.pExpireAt);
-                } catch (Exception e) {
-                    throw new BdCacheException("LoadCache异常:" + e.getMessage());
-                }
-            }
-            return result;
+            result = mapStorage.onLoad(storageKey, true);
         } finally {
             rwLock.readLock().unlock();
         }
+        tryDrainAccesses();
+        if (null == result || null == deppCopyType) {
+            return result;
+        }
+        String coreJson = DataCore.toJson(result.dataCore);
+        try {
+            return new CacheEntity<>(DataCore.fromJson(coreJson, deppCopyType), result.pExpireAt);
+        } catch (Exception e) {
+            throw new BdCacheException("LoadCache异常:" + e.getMessage());
+        }
     }
 
     @Override
@@ -97,17 +217,18 @@ public class LruMemCacheStorage<Param, Data> extends StdStorage<Param, Data> {
         rwLock.writeLock().lock();
         try {
             mapStorage.onSave(storageKey, entity);
-            return entity;
         } finally {
             rwLock.writeLock().unlock();
         }
+        onMrcReference(storageKey);
+        return entity;
     }
 
     @Override
     protected void onRemoveCacheEntity(DataParam<Param> param, String storageKey) {
         rwLock.writeLock().lock();
         try {
-            mapStorage.getMap().remove(storageKey);
+            mapStorage.remove(storageKey);
         } finally {
             rwLock.writeLock().unlock();
         }
@@ -122,9 +243,8 @@ public class LruMemCacheStorage<Param, Data> extends StdStorage<Param, Data> {
     public long getNextCheckStamp(DataParam<Param> param) {
         rwLock.readLock().lock();
         try {
-            return mapStorage.onLoad(getStorageKey(param))
-                    .map(entity -> entity.pNextCheckAt)
-                    .orElse(0L);
+            CacheEntity<Data> entity = mapStorage.onLoad(getStorageKey(param), false);
+            return null != entity ? entity.pNextCheckAt : 0L;
         } finally {
             rwLock.readLock().unlock();
         }
@@ -134,13 +254,98 @@ public class LruMemCacheStorage<Param, Data> extends StdStorage<Param, Data> {
     public void setNextCheckStamp(DataParam<Param> param, long stamp) {
         rwLock.writeLock().lock();
         try {
-            mapStorage.onLoad(getStorageKey(param))
-                    .ifPresent(entity -> entity.pNextCheckAt = stamp);
+            CacheEntity<Data> entity = mapStorage.onLoad(getStorageKey(param), false);
+            if (null != entity) {
+                entity.pNextCheckAt = stamp;
+            }
+        } finally {
+            rwLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 截短已缓存数据的剩余生存时间，不改变数据的访问顺序
+     */
+    @Override
+    protected void onPTtlShortened(long pTtl, long pTtlErr) {
+        long curTimestamp = onGetCurTimestamp();
+        rwLock.writeLock().lock();
+        try {
+            mapStorage.capExpiry(curTimestamp + pTtl, curTimestamp + pTtlErr);
         } finally {
             rwLock.writeLock().unlock();
         }
     }
 
+    /**
+     * 是否正由内存池或容量调节器自动调节，此时手动调整的容量会在下一次调节时被覆盖
+     */
+    public boolean isAutoAdjusted() {
+        return null != controller.get();
+    }
+
+    /**
+     * 由内存池或容量调节器在构建时调用，全部成功或全部不生效
+     *
+     * @throws BdCacheException 任一存储器已被其它组件调节
+     */
+    static void claimController(Object owner, String ownerDesc, List<LruMemCacheStorage<?, ?>> storages) {
+        for (int i = 0; i < storages.size(); i++) {
+            if (!storages.get(i).controller.compareAndSet(null, owner)) {
+                releaseController(owner, storages.subList(0, i));
+                throw new BdCacheException("存储器已由其它内存池或容量调节器自动调节(或重复加入)，不能再加入“" + ownerDesc + "”");
+            }
+        }
+    }
+
+    /**
+     * 由内存池或容量调节器在关闭时调用
+     */
+    static void releaseController(Object owner, List<LruMemCacheStorage<?, ?>> storages) {
+        for (LruMemCacheStorage<?, ?> storage : storages) {
+            storage.controller.compareAndSet(owner, null);
+        }
+    }
+
+    // ***********************内部方法****************************
+
+    private void trimIncrementally() {
+        boolean overflow = true;
+        while (overflow) {
+            rwLock.writeLock().lock();
+            try {
+                overflow = mapStorage.trimToCapacity(EVICT_BATCH_SIZE);
+            } finally {
+                rwLock.writeLock().unlock();
+            }
+        }
+    }
+
+    /**
+     * 未回放的访问记录较多时回放，写锁被占用时跳过，由之后的读取或写入回放
+     */
+    private void tryDrainAccesses() {
+        if (mapStorage.needDrain() && rwLock.writeLock().tryLock()) {
+            try {
+                mapStorage.drainAccesses();
+            } finally {
+                rwLock.writeLock().unlock();
+            }
+        }
+    }
+
+    private void onMrcReference(String storageKey) {
+        if (null == mrcEstimator) {
+            return;
+        }
+        long hash = KeyHash.of(storageKey);
+        if (mrcEstimator.onReference(hash)) {
+            synchronized (mrcEstimator) {
+                mrcEstimator.onAccess(hash);
+            }
+        }
+    }
+
     // ***********************内部类****************************
 
     public static class Builder<Param, Data> extends StdStorageBuilder<Param, Data> {
@@ -150,6 +355,11 @@ public class LruMemCacheStorage<Param, Data> extends StdStorage<Param, Data> {
         protected int capacity = 100;
         protected boolean weakRef;
         protected Type deppCopyType;
+        protected int mrcMaxCapacity = -1;
+        protected double mrcSampleRate = 0.01;
+        protected int mrcMaxSampledKeys = 8192;
+        protected IWeigher<Data> weigher;
+        protected long maxWeight = Long.MAX_VALUE;
 
         public Builder<Param, Data> capacity(int capacity) {
             this.capacity = capacity;
@@ -167,10 +377,58 @@ public class LruMemCacheStorage<Param, Data> extends StdStorage<Param, Data> {
             return this;
         }
 
+        /**
+         * 设置权重计算器，设置后可按总权重(字节)限制缓存，条数容量仍然生效
+         */
+        public Builder<Param, Data> weigher(IWeigher<Data> weigher) {
+            this.weigher = weigher;
+            return this;
+        }
+
+        /**
+         * 总权重上限(字节)，需同时设置{@link #weigher}，默认不限制
+         */
+        public Builder<Param, Data> maxWeight(long maxWeight) {
+            this.maxWeight = maxWeight;
+            return this;
+        }
+
+        /**
+         * 启用缺失率曲线估计，使用{@link #missRatioCurve()}获取不同容量下的预期命中率
+         * <br>* 默认不启用，抽样比例为1%，最多跟踪8192个key
+         *
+         * @param maxCapacity 曲线覆盖的最大容量，小于等于0时为容量的4倍
+         */
+        public Builder<Param, Data> enableMissRatioCurve(int maxCapacity) {
+            this.mrcMaxCapacity = Math.max(maxCapacity, 0);
+            return this;
+        }
+
+        /**
+         * 启用缺失率曲线估计，并指定抽样参数
+         *
+         * @param sampleRate     初始的抽样比例，取值(0,1]，跟踪的key超出上限时自动降低
+         * @param maxSampledKeys 最多跟踪的key数目，决定额外占用的内存
+         */
+        public Builder<Param, Data> enableMissRatioCurve(int maxCapacity, double sampleRate, int maxSampledKeys) {
+            this.mrcSampleRate = sampleRate;
+            this.mrcMaxSampledKeys = maxSampledKeys;
+            return enableMissRatioCurve(maxCapacity);
+        }
+
         @Override
         protected ICacheStorage<Param, Data> onBuild() {
-            RefImpl<Data> storage = weakRef ? new RefImpl<>(capacity, WeakReference::new) : new RefImpl<>(capacity, SoftReference::new);
-            return new LruMemCacheStorage<>(pTtl, pTtlErr, deppCopyType, storage);
+            if (Long.MAX_VALUE != maxWeight && null == weigher) {
+                throw new BdCacheException("设置maxWeight时需同时设置weigher");
+            }
+            RefImpl<Data> storage = weakRef ? new RefImpl<>(capacity, WeakReference::new, weigher) : new RefImpl<>(capacity, SoftReference::new, weigher);
+            storage.setMaxWeight(Math.max(maxWeight, 0));
+            ShardsEstimator estimator = null;
+            if (mrcMaxCapacity >= 0) {
+                int maxCapacity = mrcMaxCapacity > 0 ? mrcMaxCapacity : 4 * capacity;
+                estimator = new ShardsEstimator(maxCapacity, mrcSampleRate, mrcMaxSampledKeys);
+            }
+            return new LruMemCacheStorage<>(pTtl, pTtlErr, deppCopyType, storage, estimator);
         }
 
         @Override
@@ -179,62 +437,361 @@ public class LruMemCacheStorage<Param, Data> extends StdStorage<Param, Data> {
         }
     }
 
-    private static class LruMap<K, V> extends LinkedHashMap<K, V> {
-        private final int capacity;
+    /**
+     * 按访问顺序淘汰的map，由外部的读写锁保护
+     * <br>* 读取(读锁内)不调整顺序，只把访问的节点记录到有损的环形缓冲区，在写锁内回放，因此淘汰顺序是近似的LRU
+     * <br>* 使用侵入式双向链表，回放时移动节点不产生分配
+     */
+    private static class LruMap<Data> {
+        private static final int BUFFER_SIZE = 128;
+        private static final int BUFFER_MASK = BUFFER_SIZE - 1;
+        private static final int DRAIN_THRESHOLD = BUFFER_SIZE / 2;
+
+        private final Map<String, Node<Data>> map = new HashMap<>();
+        /**
+         * 链表的哨兵，next为最久未使用的节点，prev为最近使用的节点
+         */
+        private final Node<Data> head = new Node<>(null, null, 0);
+        private final LongAdder evictedCount;
+        private volatile int capacity;
+        private volatile long maxWeight = Long.MAX_VALUE;
+        /**
+         * 当前的总权重，只在写锁内修改
+         */
+        private long weight;
+
+        // 访问记录(多生产者、写锁内消费)，未及时回放时新的记录覆盖旧的记录，只影响淘汰顺序的精确度
+        private final AtomicReferenceArray<Node<Data>> accessBuffer = new AtomicReferenceArray<>(BUFFER_SIZE);
+        private final AtomicLong accessWriteIndex = new AtomicLong();
+        private volatile long accessReadIndex;
 
-        public LruMap(int capacity) {
-            super(0, 0.75f, true);
+        LruMap(int capacity, LongAdder evictedCount) {
             this.capacity = capacity;
+            this.evictedCount = evictedCount;
+            head.prev = head.next = head;
         }
 
-        @Override
-        protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
-            return size() > capacity;
+        /**
+         * 读锁内调用，不调整顺序
+         */
+        Node<Data> get(String key) {
+            return map.get(key);
+        }
+
+        /**
+         * 记录一次访问，读锁内调用
+         */
+        void recordAccess(Node<Data> node) {
+            long index = accessWriteIndex.getAndIncrement();
+            accessBuffer.lazySet((int) (index & BUFFER_MASK), node);
+        }
+
+        /**
+         * 未回放的访问记录是否较多，可在读锁外据此尝试获取写锁回放
+         */
+        boolean needDrain() {
+            return accessWriteIndex.get() - accessReadIndex >= DRAIN_THRESHOLD;
+        }
+
+        /**
+         * 回放访问记录，写锁内调用
+         */
+        void drainAccesses() {
+            long end = accessWriteIndex.get();
+            for (long i = Math.max(accessReadIndex, end - BUFFER_SIZE); i < end; i++) {
+                Node<Data> node = accessBuffer.getAndSet((int) (i & BUFFER_MASK), null);
+                // 已被移除或替换的节点不作处理
+                if (null == node || map.get(node.key) != node) {
+                    continue;
+                }
+                if (null == node.value.get()) {
+                    remove(node.key);
+                    onEvicted(node.key, "已被回收");
+                } else {
+                    unlink(node);
+                    linkLast(node);
+                }
+            }
+            accessReadIndex = end;
+        }
+
+        /**
+         * 写锁内调用，新数据及被覆盖的数据均作为最近使用
+         */
+        void put(String key, Reference<CacheEntity<Data>> value, long weight) {
+            drainAccesses();
+            Node<Data> node = map.get(key);
+            if (null == node) {
+                node = new Node<>(key, value, weight);
+                map.put(key, node);
+            } else {
+                // 覆盖已被回收的数据，与读取时发现回收一样计入淘汰
+                if (null == node.value.get()) {
+                    onEvicted(key, "已被回收");
+                }
+                this.weight -= node.weight;
+                node.value = value;
+                node.weight = weight;
+                unlink(node);
+            }
+            linkLast(node);
+            this.weight += weight;
+            trimToCapacity(Integer.MAX_VALUE, "容量不足");
+        }
+
+        Node<Data> remove(String key) {
+            Node<Data> node = map.remove(key);
+            if (null != node) {
+                unlink(node);
+                weight -= node.weight;
+            }
+            return node;
+        }
+
+        void clear() {
+            map.clear();
+            head.prev = head.next = head;
+            weight = 0;
+        }
+
+        int size() {
+            return map.size();
+        }
+
+        List<String> keys() {
+            return new ArrayList<>(map.keySet());
+        }
+
+        /**
+         * 按访问顺序从最久未使用的开始淘汰
+         *
+         * @return 淘汰后是否仍超出容量
+         */
+        boolean trimToCapacity(int maxCount, String reason) {
+            drainAccesses();
+            for (int i = 0; i < maxCount && overflow() && head.next != head; i++) {
+                String key = head.next.key;
+                remove(key);
+                onEvicted(key, reason);
+            }
+            return overflow();
+        }
+
+        private boolean overflow() {
+            return map.size() > capacity || weight > maxWeight;
+        }
+
+        private void onEvicted(String key, String reason) {
+            evictedCount.increment();
+            CacheEvents.onEviction(DESC, key, reason);
+        }
+
+        private void linkLast(Node<Data> node) {
+            node.prev = head.prev;
+            node.next = head;
+            head.prev.next = node;
+            head.prev = node;
+        }
+
+        private void unlink(Node<Data> node) {
+            node.prev.next = node.next;
+            node.next.prev = node.prev;
+            node.prev = node.next = null;
         }
     }
 
-    private interface MapStorage<Data> {
-        Map<String, ?> getMap();
+    private static class Node<Data> {
+        final String key;
+        Reference<CacheEntity<Data>> value;
+        /**
+         * 权重，在写入时计算
+         */
+        long weight;
+        Node<Data> prev;
+        Node<Data> next;
+
+        Node(String key, Reference<CacheEntity<Data>> value, long weight) {
+            this.key = key;
+            this.value = value;
+            this.weight = weight;
+        }
+    }
 
-        Optional<CacheEntity<Data>> onLoad(String key);
+    private interface MapStorage<Data> {
+        /**
+         * @param recordAccess 是否记录为一次访问(读锁内调用时，在写锁内回放)
+         * @return 缓存实体，若不存在或已被回收则返回null
+         */
+        CacheEntity<Data> onLoad(String key, boolean recordAccess);
 
         void onSave(String key, CacheEntity<Data> entity);
+
+        void remove(String key);
+
+        void clear();
+
+        int size();
+
+        List<String> keys();
+
+        /**
+         * 是否有较多未回放的访问记录
+         */
+        boolean needDrain();
+
+        /**
+         * 回放访问记录，写锁内调用
+         */
+        void drainAccesses();
+
+        /**
+         * 淘汰的数据条数
+         */
+        LongAdder evictedCount();
+
+        int capacity();
+
+        void setCapacity(int capacity);
+
+        /**
+         * 是否设置了权重计算器
+         */
+        boolean weighted();
+
+        long weight();
+
+        long maxWeight();
+
+        void setMaxWeight(long maxWeight);
+
+        /**
+         * @return 淘汰后是否仍超出容量
+         */
+        boolean trimToCapacity(int maxCount);
+
+        /**
+         * 将失效时间晚于上限的数据截短至上限
+         */
+        void capExpiry(long maxExpireAtNorm, long maxExpireAtErr);
     }
 
     private static class RefImpl<Data> implements MapStorage<Data> {
 
-        private final LruMap<String, Reference<CacheEntity<Data>>> lruMap;
+        private final LruMap<Data> lruMap;
         private final Function<CacheEntity<Data>, Reference<CacheEntity<Data>>> parser;
+        private final IWeigher<Data> weigher;
+        private final LongAdder evictedCount = new LongAdder();
 
-        public RefImpl(int capacity, Function<CacheEntity<Data>, Reference<CacheEntity<Data>>> parser) {
-            this.lruMap = new LruMap<>(capacity);
+        public RefImpl(int capacity, Function<CacheEntity<Data>, Reference<CacheEntity<Data>>> parser, IWeigher<Data> weigher) {
+            this.lruMap = new LruMap<>(capacity, evictedCount);
             this.parser = parser;
+            this.weigher = weigher;
+        }
+
+        @Override
+        public LongAdder evictedCount() {
+            return evictedCount;
         }
 
         @Override
-        public Map<String, ?> getMap() {
-            return lruMap;
+        public int capacity() {
+            return lruMap.capacity;
         }
 
         @Override
-        public Optional<CacheEntity<Data>> onLoad(String key) {
-            Reference<CacheEntity<Data>> reference = lruMap.get(key);
-            if (null != reference) {
-                CacheEntity<Data> data;
-                // 找到具体的数据，返回
-                if (null != (data = reference.get())) {
-                    return Optional.of(data);
+        public void setCapacity(int capacity) {
+            lruMap.capacity = capacity;
+        }
+
+        @Override
+        public boolean trimToCapacity(int maxCount) {
+            return lruMap.trimToCapacity(maxCount, "容量调整");
+        }
+
+        @Override
+        public boolean weighted() {
+            return null != weigher;
+        }
+
+        @Override
+        public long weight() {
+            return lruMap.weight;
+        }
+
+        @Override
+        public long maxWeight() {
+            return lruMap.maxWeight;
+        }
+
+        @Override
+        public void setMaxWeight(long maxWeight) {
+            lruMap.maxWeight = maxWeight;
+        }
+
+        @Override
+        public void capExpiry(long maxExpireAtNorm, long maxExpireAtErr) {
+            // 直接替换节点中的值，不影响访问顺序
+            for (Node<Data> node = lruMap.head.next; node != lruMap.head; node = node.next) {
+                CacheEntity<Data> entity = node.value.get();
+                if (null == entity) {
+                    continue;
                 }
-                // 只剩空壳，移除
-                lruMap.remove(key);
+                long maxExpireAt = entity.dataCore.norm ? maxExpireAtNorm : maxExpireAtErr;
+                if (entity.pExpireAt > maxExpireAt) {
+                    CacheEntity<Data> newEntity = new CacheEntity<>(entity.dataCore, maxExpireAt);
+                    newEntity.pNextCheckAt = entity.pNextCheckAt;
+                    node.value = parser.apply(newEntity);
+                }
+            }
+        }
+
+        @Override
+        public CacheEntity<Data> onLoad(String key, boolean recordAccess) {
+            Node<Data> node = lruMap.get(key);
+            if (null == node) {
+                return null;
             }
-            // 没有找到key，返回空
-            return Optional.empty();
+            // 已被GC回收的数据在回放访问记录时移除
+            if (recordAccess) {
+                lruMap.recordAccess(node);
+            }
+            return node.value.get();
         }
 
         @Override
         public void onSave(String key, CacheEntity<Data> entity) {
-            lruMap.put(key, parser.apply(entity));
+            long weight = null != weigher ? Math.max(weigher.weigh(key, entity.dataCore), 0) : 0;
+            lruMap.put(key, parser.apply(entity), weight);
+        }
+
+        @Override
+        public void remove(String key) {
+            lruMap.remove(key);
+        }
+
+        @Override
+        public void clear() {
+            lruMap.clear();
+        }
+
+        @Override
+        public int size() {
+            return lruMap.size();
+        }
+
+        @Override
+        public List<String> keys() {
+            return lruMap.keys();
+        }
+
+        @Override
+        public boolean needDrain() {
+            return lruMap.needDrain();
+        }
+
+        @Override
+        public void drainAccesses() {
+            lruMap.drainAccesses();
         }
     }
 
@@ -0,0 +1,191 @@
+package com.soybeany.cache.v2.storage;
+
+import com.soybeany.cache.v2.contract.user.IKeyConverter;
+import com.soybeany.cache.v2.exception.BdCacheException;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.*;
+
+/**
+ * 基于字段自动生成key的转换器，适用于POJO类型的入参
+ * <br>* 构建时解析字段的读取方式(优先使用getter，否则直接读取字段)并生成MethodHandle，转换时不再反射
+ * <br>* 字段值按字段名排序后以“|”拼接，字符串(及其它类型的toString()结果)中的“|”与“\”会被转义，枚举使用name()，null记为“\0”
+ * <br>* 数组按{@link Arrays#deepToString}的格式逐个元素生成，元素中的“,”“[”“]”也会被转义
+ * <br>* 字段类型(或运行时的值类型)没有基于值的toString()时抛出异常，避免每次生成不同的key
+ * <br>* 未指定字段时使用全部非static、非transient的字段(含父类)
+ */
+public class PojoKeyConverter<Param> implements IKeyConverter<Param> {
+
+    private static final char SEPARATOR = '|';
+    private static final char ESCAPE = '\\';
+    private static final String NULL_VALUE = "\\0";
+    private static final Set<Class<?>> RAW_TYPES = new HashSet<>(Arrays.asList(
+            Integer.class, Long.class, Short.class, Byte.class, Double.class, Float.class, Boolean.class));
+    private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+    private static final ClassValue<Boolean> VALUE_BASED_TO_STRING = new ClassValue<Boolean>() {
+        @Override
+        protected Boolean computeValue(Class<?> type) {
+            // 运行时的类型已确定，Object本身不再视为待定
+            return Object.class != type && hasValueBasedToString(type);
+        }
+    };
+
+    private final MethodHandle[] getters;
+    /**
+     * 上一次生成的key长度，用于预估StringBuilder的容量
+     */
+    private int lastLength = 16;
+
+    public PojoKeyConverter(Class<Param> type, String... fieldNames) {
+        List<Field> fields = getFields(type, fieldNames);
+        if (fields.isEmpty()) {
+            throw new BdCacheException("“" + type.getName() + "”没有可用于生成key的字段");
+        }
+        MethodHandles.Lookup lookup = MethodHandles.lookup();
+        getters = new MethodHandle[fields.size()];
+        for (int i = 0; i < getters.length; i++) {
+            Field field = fields.get(i);
+            if (!hasValueBasedToString(field.getType())) {
+                throw new BdCacheException("“" + type.getName() + "”的字段“" + field.getName() + "”的类型没有基于值的toString()，不能用于生成key");
+            }
+            getters[i] = toGetter(lookup, type, field).asType(GETTER_TYPE);
+        }
+    }
+
+    @Override
+    public String getKey(Param param) {
+        if (null == param) {
+            return NULL_VALUE;
+        }
+        StringBuilder builder = new StringBuilder(lastLength);
+        for (int i = 0; i < getters.length; i++) {
+            if (i > 0) {
+                builder.append(SEPARATOR);
+            }
+            appendValue(builder, invoke(getters[i], param), false);
+        }
+        lastLength = builder.length();
+        return builder.toString();
+    }
+
+    // ***********************内部方法****************************
+
+    private Object invoke(MethodHandle getter, Object param) {
+        try {
+            return (Object) getter.invokeExact(param);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new BdCacheException("读取入参字段异常:" + e.getMessage());
+        }
+    }
+
+    private void appendValue(StringBuilder builder, Object value, boolean inArray) {
+        if (null == value) {
+            builder.append(NULL_VALUE);
+            return;
+        }
+        Class<?> valueType = value.getClass();
+        // JDK的基本包装类型不可被继承，其文本不含分隔符，无需转义
+        if (RAW_TYPES.contains(valueType)) {
+            builder.append(value);
+            return;
+        }
+        if (valueType.isArray()) {
+            appendArray(builder, value);
+            return;
+        }
+        // 声明为接口、抽象类等类型的字段，在转换时检查实际的类型
+        if (!(value instanceof String) && !VALUE_BASED_TO_STRING.get(valueType)) {
+            throw new BdCacheException("“" + valueType.getName() + "”没有基于值的toString()，不能用于生成key");
+        }
+        // 枚举使用不可重写的name()；其它类型(含自定义的Number)的toString()可能被重写，需转义
+        String text = value instanceof Enum ? ((Enum<?>) value).name() : value.toString();
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (SEPARATOR == c || ESCAPE == c || inArray && (',' == c || '[' == c || ']' == c)) {
+                builder.append(ESCAPE);
+            }
+            builder.append(c);
+        }
+    }
+
+    private void appendArray(StringBuilder builder, Object array) {
+        builder.append('[');
+        int length = Array.getLength(array);
+        for (int i = 0; i < length; i++) {
+            if (i > 0) {
+                builder.append(", ");
+            }
+            appendValue(builder, Array.get(array, i), true);
+        }
+        builder.append(']');
+    }
+
+    /**
+     * 接口、抽象类与Object无法在构建时确定，返回true，留到转换时按实际类型检查
+     */
+    private static boolean hasValueBasedToString(Class<?> type) {
+        if (type.isArray()) {
+            return hasValueBasedToString(type.getComponentType());
+        }
+        if (type.isPrimitive() || type.isEnum() || type.isInterface() || Object.class == type || Modifier.isAbstract(type.getModifiers())) {
+            return true;
+        }
+        try {
+            return Object.class != type.getMethod("toString").getDeclaringClass();
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+
+    private static List<Field> getFields(Class<?> type, String... fieldNames) {
+        Map<String, Field> fields = new TreeMap<>();
+        for (Class<?> clazz = type; null != clazz && Object.class != clazz; clazz = clazz.getSuperclass()) {
+            for (Field field : clazz.getDeclaredFields()) {
+                int modifiers = field.getModifiers();
+                if (Modifier.isStatic(modifiers) || Modifier.isTransient(modifiers) || field.isSynthetic()) {
+                    continue;
+                }
+                // 子类字段优先
+                fields.putIfAbsent(field.getName(), field);
+            }
+        }
+        if (null == fieldNames || 0 == fieldNames.length) {
+            return new ArrayList<>(fields.values());
+        }
+        List<Field> result = new ArrayList<>();
+        for (String name : new TreeSet<>(Arrays.asList(fieldNames))) {
+            Field field = fields.get(name);
+            if (null == field) {
+                throw new BdCacheException("“" + type.getName() + "”中找不到字段“" + name + "”");
+            }
+            result.add(field);
+        }
+        return result;
+    }
+
+    private static MethodHandle toGetter(MethodHandles.Lookup lookup, Class<?> type, Field field) {
+        String name = field.getName();
+        String suffix = Character.toUpperCase(name.charAt(0)) + name.substring(1);
+        String[] getterNames = boolean.class == field.getType() ? new String[]{"is" + suffix, "get" + suffix} : new String[]{"get" + suffix};
+        for (String getterName : getterNames) {
+            try {
+                return lookup.findVirtual(type, getterName, MethodType.methodType(field.getType()));
+            } catch (NoSuchMethodException | IllegalAccessException ignore) {
+            }
+        }
+        // 没有可访问的getter，直接读取字段
+        try {
+            field.setAccessible(true);
+            return lookup.unreflectGetter(field);
+        } catch (IllegalAccessException | RuntimeException e) {
+            throw new BdCacheException("无法读取“" + type.getName() + "”的字段“" + name + "”:" + e.getMessage());
+        }
+    }
+}
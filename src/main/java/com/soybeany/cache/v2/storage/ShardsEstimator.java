@@ -0,0 +1,175 @@
+package com.soybeany.cache.v2.storage;
+
+import com.soybeany.cache.v2.stats.MissRatioCurve;
+
+import java.util.*;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 基于空间抽样(SHARDS，Waldspurger等人，FAST'15)的LRU缺失率曲线估计
+ * <br>* 访问指命中的查找或数据的写入(未命中的查找随后必定写入，双重检查等重复查找不重复计入)
+ * <br>* 只跟踪key散列落在阈值内的访问，用树状数组计算抽样key间的重用距离，再按抽样比例放大
+ * <br>* 跟踪的key超出上限时降低阈值(固定空间版本)，已有的统计按新旧比例缩放
+ * <br>* key数目较少且访问极度集中时，个别热点key是否被抽中会造成较大误差，可提高抽样比例
+ * <br>* {@link #onAccess}非线程安全，由调用方加锁；未被抽中的访问只计数与计算散列，不产生对象
+ */
+class ShardsEstimator {
+
+    private static final long HASH_SPACE = 1L << 53;
+    private static final int BUCKET_COUNT = 256;
+
+    private final int maxSampledKeys;
+    private final int bucketWidth;
+    /**
+     * 按放大后的重用距离分桶的访问数(以抽样单位计)，超出范围与首次访问计入farCount
+     */
+    private final double[] buckets = new double[BUCKET_COUNT];
+    private double farCount;
+    private final LongAdder references = new LongAdder();
+
+    private volatile long threshold;
+    private final Map<Long, Ref> refs = new HashMap<>();
+    private final PriorityQueue<Long> sampledHashes = new PriorityQueue<>(Comparator.reverseOrder());
+    /**
+     * 树状数组，标记每个抽样key最近一次访问的时间点
+     */
+    private int[] tree;
+    private int now;
+
+    ShardsEstimator(int maxCapacity, double sampleRate, int maxSampledKeys) {
+        this.maxSampledKeys = Math.max(maxSampledKeys, 16);
+        this.bucketWidth = Math.max((maxCapacity + BUCKET_COUNT - 1) / BUCKET_COUNT, 1);
+        this.threshold = Math.max((long) (Math.min(Math.max(sampleRate, 0), 1) * HASH_SPACE), 1);
+        this.tree = new int[4 * this.maxSampledKeys + 1];
+    }
+
+    /**
+     * 对访问计数，并返回是否被抽中(被抽中时需加锁调用{@link #onAccess})
+     */
+    boolean onReference(long hash) {
+        references.increment();
+        return (hash >>> 11) < threshold;
+    }
+
+    /**
+     * 记录一次被抽中的访问
+     */
+    void onAccess(long hash) {
+        if ((hash >>> 11) >= threshold) {
+            return;
+        }
+        if (now == tree.length - 1) {
+            compact();
+        }
+        Ref ref = refs.get(hash);
+        if (null == ref) {
+            farCount++;
+            ref = new Ref();
+            refs.put(hash, ref);
+            sampledHashes.add(hash);
+            mark(ref);
+            if (refs.size() > maxSampledKeys) {
+                lowerThreshold();
+            }
+            return;
+        }
+        int distance = prefixSum(now - 1) - prefixSum(ref.time);
+        long scaled = (long) (distance / rate());
+        int index = (int) (scaled / bucketWidth);
+        if (index < BUCKET_COUNT) {
+            buckets[index]++;
+        } else {
+            farCount++;
+        }
+        update(ref.time, -1);
+        mark(ref);
+    }
+
+    MissRatioCurve snapshot(int currentCapacity, boolean reset) {
+        long referenceCount = reset ? references.sumThenReset() : references.sum();
+        double total = farCount;
+        for (double count : buckets) {
+            total += count;
+        }
+        double[] hitRates = new double[BUCKET_COUNT];
+        double hits = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            hits += buckets[i];
+            hitRates[i] = total > 0 ? hits / total : 0;
+        }
+        if (reset) {
+            Arrays.fill(buckets, 0);
+            farCount = 0;
+        }
+        return new MissRatioCurve(currentCapacity, rate(), referenceCount, bucketWidth, hitRates);
+    }
+
+    // ***********************内部方法****************************
+
+    private double rate() {
+        return (double) threshold / HASH_SPACE;
+    }
+
+    private void mark(Ref ref) {
+        ref.time = now++;
+        update(ref.time, 1);
+    }
+
+    /**
+     * 丢弃散列最大的key，并以其散列作为新阈值
+     */
+    private void lowerThreshold() {
+        long oldThreshold = threshold;
+        long newThreshold = oldThreshold;
+        while (refs.size() > maxSampledKeys || (!sampledHashes.isEmpty() && (sampledHashes.peek() >>> 11) >= newThreshold)) {
+            long hash = sampledHashes.poll();
+            newThreshold = Math.min(newThreshold, hash >>> 11);
+            Ref ref = refs.remove(hash);
+            update(ref.time, -1);
+        }
+        threshold = Math.max(newThreshold, 1);
+        // 按新旧抽样比例缩放已有统计，使其与之后的访问权重一致
+        double factor = (double) threshold / oldThreshold;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            buckets[i] *= factor;
+        }
+        farCount *= factor;
+    }
+
+    /**
+     * 时间点用尽时，按最近访问的先后重新编号
+     */
+    private void compact() {
+        List<Ref> ordered = new ArrayList<>(refs.values());
+        ordered.sort(Comparator.comparingInt(r -> r.time));
+        Arrays.fill(tree, 0);
+        now = 0;
+        for (Ref ref : ordered) {
+            ref.time = now++;
+            update(ref.time, 1);
+        }
+    }
+
+    private void update(int time, int delta) {
+        for (int i = time + 1; i < tree.length; i += i & -i) {
+            tree[i] += delta;
+        }
+    }
+
+    /**
+     * 时间点[0, time]内的标记数
+     */
+    private int prefixSum(int time) {
+        int sum = 0;
+        for (int i = time + 1; i > 0; i -= i & -i) {
+            sum += tree[i];
+        }
+        return sum;
+    }
+
+    // ***********************内部类****************************
+
+    private static class Ref {
+        int time;
+    }
+}
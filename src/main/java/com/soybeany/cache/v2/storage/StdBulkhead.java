@@ -0,0 +1,101 @@
+package com.soybeany.cache.v2.storage;
+
+import com.soybeany.cache.v2.contract.frame.IBulkhead;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 标准隔离舱（信号量+有界等待队列）
+ * <br>* 并发数未满时直接进入
+ * <br>* 并发数已满时进入等待队列，队列已满或等待超时则拒绝
+ */
+public class StdBulkhead implements IBulkhead {
+
+    private final String desc;
+    private final int maxConcurrent;
+    private final int maxWaiting;
+    private final long maxWaitMs;
+
+    private final Semaphore semaphore;
+    private final AtomicInteger waitingCount = new AtomicInteger();
+    private final LongAdder rejectedCount = new LongAdder();
+
+    /**
+     * @param maxConcurrent 最大并发数
+     * @param maxWaiting    等待队列的最大长度，为0时不排队直接拒绝
+     * @param maxWaitMs     排队的最大等待时间(毫秒)
+     */
+    public StdBulkhead(String desc, int maxConcurrent, int maxWaiting, long maxWaitMs) {
+        this.desc = desc;
+        this.maxConcurrent = Math.max(maxConcurrent, 1);
+        this.maxWaiting = Math.max(maxWaiting, 0);
+        this.maxWaitMs = Math.max(maxWaitMs, 0);
+        this.semaphore = new Semaphore(this.maxConcurrent);
+    }
+
+    @Override
+    public boolean onTryEnter() {
+        if (semaphore.tryAcquire()) {
+            return true;
+        }
+        // 队列已满，快速拒绝
+        if (waitingCount.incrementAndGet() > maxWaiting) {
+            waitingCount.decrementAndGet();
+            rejectedCount.increment();
+            return false;
+        }
+        try {
+            if (semaphore.tryAcquire(maxWaitMs, TimeUnit.MILLISECONDS)) {
+                return true;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            waitingCount.decrementAndGet();
+        }
+        rejectedCount.increment();
+        return false;
+    }
+
+    @Override
+    public void onExit() {
+        semaphore.release();
+    }
+
+    /**
+     * 正在访问数据源的数目
+     */
+    public int activeCount() {
+        return maxConcurrent - semaphore.availablePermits();
+    }
+
+    /**
+     * 正在排队等待的数目
+     */
+    public int waitingCount() {
+        return waitingCount.get();
+    }
+
+    /**
+     * 累计被拒绝的数目
+     */
+    public long rejectedCount() {
+        return rejectedCount.sum();
+    }
+
+    public int maxConcurrent() {
+        return maxConcurrent;
+    }
+
+    public int maxWaiting() {
+        return maxWaiting;
+    }
+
+    @Override
+    public String toString() {
+        return "隔离舱(" + desc + ")-活跃:" + activeCount() + "/" + maxConcurrent + ",等待:" + waitingCount() + "/" + maxWaiting + ",拒绝:" + rejectedCount();
+    }
+}
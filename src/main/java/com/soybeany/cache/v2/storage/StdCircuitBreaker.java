@@ -0,0 +1,240 @@
+package com.soybeany.cache.v2.storage;
+
+import com.soybeany.cache.v2.contract.frame.ICircuitBreaker;
+
+import java.util.function.Predicate;
+
+/**
+ * 标准熔断器（基于计数滑动窗口）
+ * <br>* 关闭：正常访问数据源，窗口内失败率(含慢调用)达到阈值后打开
+ * <br>* 打开：拒绝全部访问，持续指定时长后进入半开
+ * <br>* 半开：仅放行有限次数的探测访问，全部成功则关闭，任一失败则重新打开
+ */
+public class StdCircuitBreaker implements ICircuitBreaker {
+
+    private final String desc;
+    private final float failureRateThreshold;
+    private final long slowCallMs;
+    private final int minCalls;
+    private final long openMs;
+    private final int halfOpenProbes;
+    private final Predicate<RuntimeException> failurePredicate;
+
+    // 滑动窗口，true表示失败
+    private final boolean[] window;
+    private int windowIndex;
+    private int windowCount;
+    private int failureCount;
+
+    private State state = State.CLOSED;
+    private long openUntil;
+    private int probesIssued;
+    private int probesSucceeded;
+
+    private StdCircuitBreaker(Builder builder) {
+        this.desc = builder.desc;
+        this.failureRateThreshold = builder.failureRateThreshold;
+        this.slowCallMs = builder.slowCallMs;
+        this.minCalls = Math.min(builder.minCalls, builder.windowSize);
+        this.openMs = builder.openMs;
+        this.halfOpenProbes = builder.halfOpenProbes;
+        this.failurePredicate = builder.failurePredicate;
+        this.window = new boolean[builder.windowSize];
+    }
+
+    @Override
+    public synchronized boolean onTryAcquire() {
+        switch (state) {
+            case CLOSED:
+                return true;
+            case OPEN:
+                if (System.currentTimeMillis() < openUntil) {
+                    return false;
+                }
+                // 进入半开，继续尝试探测
+                toState(State.HALF_OPEN);
+                return tryIssueProbe();
+            case HALF_OPEN:
+            default:
+                return tryIssueProbe();
+        }
+    }
+
+    @Override
+    public synchronized void onSuccess(long costMs) {
+        onRecord(costMs >= slowCallMs);
+    }
+
+    @Override
+    public synchronized void onFailure(long costMs, RuntimeException e) {
+        onRecord(failurePredicate.test(e) || costMs >= slowCallMs);
+    }
+
+    /**
+     * 当前的状态
+     */
+    public synchronized State state() {
+        return state;
+    }
+
+    /**
+     * 当前窗口内的失败率，窗口为空时返回0
+     */
+    public synchronized float failureRate() {
+        return 0 == windowCount ? 0 : (float) failureCount / windowCount;
+    }
+
+    @Override
+    public String toString() {
+        return "熔断器(" + desc + ")-" + state();
+    }
+
+    // ***********************内部方法****************************
+
+    private void onRecord(boolean failed) {
+        switch (state) {
+            case HALF_OPEN:
+                if (failed) {
+                    toState(State.OPEN);
+                } else if (++probesSucceeded >= halfOpenProbes) {
+                    toState(State.CLOSED);
+                }
+                break;
+            case CLOSED:
+                addToWindow(failed);
+                if (windowCount >= minCalls && failureRate() >= failureRateThreshold) {
+                    toState(State.OPEN);
+                }
+                break;
+            default:
+                // 打开期间放行前的访问结果，不再计入
+        }
+    }
+
+    /**
+     * 半开状态下放行有限次数的探测访问
+     */
+    private boolean tryIssueProbe() {
+        if (probesIssued >= halfOpenProbes) {
+            return false;
+        }
+        probesIssued++;
+        return true;
+    }
+
+    private void addToWindow(boolean failed) {
+        if (windowCount == window.length) {
+            if (window[windowIndex]) {
+                failureCount--;
+            }
+        } else {
+            windowCount++;
+        }
+        window[windowIndex] = failed;
+        if (failed) {
+            failureCount++;
+        }
+        windowIndex = (windowIndex + 1) % window.length;
+    }
+
+    private void toState(State newState) {
+        state = newState;
+        switch (newState) {
+            case OPEN:
+                openUntil = System.currentTimeMillis() + openMs;
+                break;
+            case HALF_OPEN:
+                probesIssued = 0;
+                probesSucceeded = 0;
+                break;
+            case CLOSED:
+                windowIndex = 0;
+                windowCount = 0;
+                failureCount = 0;
+                break;
+        }
+    }
+
+    // ***********************内部类****************************
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    public static class Builder {
+        private final String desc;
+        private float failureRateThreshold = 0.5f;
+        private long slowCallMs = Long.MAX_VALUE;
+        private int windowSize = 20;
+        private int minCalls = 10;
+        private long openMs = 5 * 1000L;
+        private int halfOpenProbes = 1;
+        private Predicate<RuntimeException> failurePredicate = e -> true;
+
+        public Builder(String desc) {
+            this.desc = desc;
+        }
+
+        /**
+         * 打开熔断器的失败率阈值(0~1]，默认0.5
+         */
+        public Builder failureRateThreshold(float threshold) {
+            this.failureRateThreshold = threshold;
+            return this;
+        }
+
+        /**
+         * 耗时达到此值(毫秒)的访问视为失败，默认不限制
+         */
+        public Builder slowCallMs(long slowCallMs) {
+            this.slowCallMs = slowCallMs;
+            return this;
+        }
+
+        /**
+         * 滑动窗口记录的访问次数，默认20
+         */
+        public Builder windowSize(int windowSize) {
+            this.windowSize = Math.max(windowSize, 1);
+            return this;
+        }
+
+        /**
+         * 窗口内至少需要记录的访问次数，达到后才会计算失败率，默认10
+         */
+        public Builder minCalls(int minCalls) {
+            this.minCalls = Math.max(minCalls, 1);
+            return this;
+        }
+
+        /**
+         * 熔断器打开的持续时间(毫秒)，之后进入半开状态，默认5秒
+         */
+        public Builder openMs(long openMs) {
+            this.openMs = openMs;
+            return this;
+        }
+
+        /**
+         * 半开状态下允许的探测次数，全部成功才会关闭，默认1
+         */
+        public Builder halfOpenProbes(int probes) {
+            this.halfOpenProbes = Math.max(probes, 1);
+            return this;
+        }
+
+        /**
+         * 判断数据源抛出的异常是否计为失败，默认全部计为失败
+         * <br>* 可用于排除“数据不存在”之类的业务异常
+         */
+        public Builder failurePredicate(Predicate<RuntimeException> predicate) {
+            this.failurePredicate = predicate;
+            return this;
+        }
+
+        public StdCircuitBreaker build() {
+            return new StdCircuitBreaker(this);
+        }
+    }
+
+}
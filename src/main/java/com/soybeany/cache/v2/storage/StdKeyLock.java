@@ -2,12 +2,9 @@ package com.soybeany.cache.v2.storage;
 
 import com.soybeany.cache.v2.contract.frame.IKeyLock;
 import com.soybeany.cache.v2.exception.CacheWaitException;
+import com.soybeany.cache.v2.jfr.CacheEvents;
 
-import java.util.Map;
-import java.util.Optional;
-import java.util.Set;
-import java.util.WeakHashMap;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.*;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
@@ -18,10 +15,14 @@ import java.util.function.Function;
  */
 public class StdKeyLock implements IKeyLock {
     private final String desc;
-    private final Map<String, Lock> lockMap = new WeakHashMap<>();
+    /**
+     * 锁在有线程持有或等待时保留，最后一个使用者释放后移除
+     */
+    private final Map<String, KeyLock> lockMap = new HashMap<>();
     private final Lock mapLock = new ReentrantLock();
     private final Function<String, Long> lockWaitTimeSupplier;
-    private final Set<Thread> waitingThreads = ConcurrentHashMap.newKeySet();
+    private final Set<Thread> waitingThreads = new HashSet<>();
+    private final Set<Thread> cancelledThreads = new HashSet<>();
 
     public StdKeyLock(String desc, Function<String, Long> lockWaitTimeSupplier) {
         this.desc = desc;
@@ -30,21 +31,38 @@ public class StdKeyLock implements IKeyLock {
 
     @Override
     public void onTryLock(String key) {
-        Lock lock = getLock(key);
+        KeyLock lock = retainLock(key);
         Thread currentThread = Thread.currentThread();
         // 尝试获取锁前注册当前线程，使其可被cancelIfWaiting中断
         registerWaiting(currentThread);
+        Object lockWaitEvent = CacheEvents.beginLockWait();
+        boolean acquired = false;
         try {
             tryLock(key, lock, lockWaitTimeSupplier.apply(key));
+            acquired = true;
         } finally {
+            CacheEvents.endLockWait(lockWaitEvent, desc, key, acquired);
             // 无论成功获取锁还是异常退出，都取消注册
             unregisterWaiting(currentThread);
+            if (!acquired) {
+                releaseLock(key, lock);
+            }
         }
     }
 
     @Override
     public void onUnlock(String key) {
-        Optional.ofNullable(lockMap.get(key)).ifPresent(Lock::unlock);
+        KeyLock lock;
+        mapLock.lock();
+        try {
+            lock = lockMap.get(key);
+        } finally {
+            mapLock.unlock();
+        }
+        if (null != lock) {
+            lock.unlock();
+            releaseLock(key, lock);
+        }
     }
 
     /**
@@ -52,8 +70,11 @@ public class StdKeyLock implements IKeyLock {
      */
     @Override
     public void cancelIfWaiting(Thread thread) {
-        if (waitingThreads.contains(thread)) {
-            thread.interrupt();
+        synchronized (waitingThreads) {
+            if (waitingThreads.contains(thread)) {
+                cancelledThreads.add(thread);
+                thread.interrupt();
+            }
         }
     }
 
@@ -69,20 +90,50 @@ public class StdKeyLock implements IKeyLock {
         }
     }
 
-    private Lock getLock(String key) {
+    private KeyLock retainLock(String key) {
+        mapLock.lock();
+        try {
+            KeyLock lock = lockMap.computeIfAbsent(key, k -> new KeyLock());
+            lock.users++;
+            return lock;
+        } finally {
+            mapLock.unlock();
+        }
+    }
+
+    private void releaseLock(String key, KeyLock lock) {
         mapLock.lock();
         try {
-            return lockMap.computeIfAbsent(key, k -> new ReentrantLock());
+            if (0 == --lock.users) {
+                lockMap.remove(key, lock);
+            }
         } finally {
             mapLock.unlock();
         }
     }
 
     private void registerWaiting(Thread thread) {
-        waitingThreads.add(thread);
+        synchronized (waitingThreads) {
+            waitingThreads.add(thread);
+        }
     }
 
     private void unregisterWaiting(Thread thread) {
-        waitingThreads.remove(thread);
+        synchronized (waitingThreads) {
+            waitingThreads.remove(thread);
+            // 中断发生在获取锁之后、取消注册之前时，清除残留的中断标志，避免影响后续的数据源访问
+            if (cancelledThreads.remove(thread)) {
+                Thread.interrupted();
+            }
+        }
+    }
+
+    // ***********************内部类****************************
+
+    private static class KeyLock extends ReentrantLock {
+        /**
+         * 持有或等待此锁的次数，在mapLock内修改
+         */
+        int users;
     }
 }
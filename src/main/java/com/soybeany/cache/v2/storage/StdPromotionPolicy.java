@@ -0,0 +1,291 @@
+package com.soybeany.cache.v2.storage;
+
+import com.soybeany.cache.v2.contract.frame.IPromotionPolicy;
+import com.soybeany.cache.v2.contract.user.IWeigher;
+import com.soybeany.cache.v2.exception.BdCacheException;
+import com.soybeany.cache.v2.model.DataPack;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 标准提升策略，下级存储器命中的数据需满足全部已设置的条件才提升
+ * <br>* 按命中次数：在时间窗口内命中指定次数后提升，精确计数，跟踪的key数有上限
+ * <br>* 按访问频率：使用4位计数的Count-Min Sketch估算频率，达到阈值后提升，内存占用固定，计数定期减半以淘汰旧的热点
+ * <br>* 按数据大小：权重不超过上限的数据才提升，避免大对象挤出上级存储器中的多条数据
+ * <br>* 未设置任何条件时总是提升
+ * <br>* 先更新计数，计数满足后才计算权重；计数按key的散列分段加锁，不同key的命中不竞争同一把锁
+ */
+public class StdPromotionPolicy<Data> implements IPromotionPolicy<Data> {
+
+    private static final int STRIPES = 16;
+
+    private final HitCounter[] hitCounters;
+    private final FrequencySketch[] sketches;
+    private final int minFrequency;
+    private final IWeigher<Data> weigher;
+    private final long maxWeight;
+
+    private final LongAdder promotedCount = new LongAdder();
+    private final LongAdder rejectedCount = new LongAdder();
+
+    private StdPromotionPolicy(Builder<Data> builder) {
+        if (builder.minHits > 1) {
+            hitCounters = new HitCounter[STRIPES];
+            int maxTrackedKeys = Math.max((builder.maxTrackedKeys + STRIPES - 1) / STRIPES, 1);
+            for (int i = 0; i < STRIPES; i++) {
+                hitCounters[i] = new HitCounter(builder.minHits, builder.windowMs, maxTrackedKeys);
+            }
+        } else {
+            hitCounters = null;
+        }
+        if (builder.minFrequency > 1) {
+            sketches = new FrequencySketch[STRIPES];
+            for (int i = 0; i < STRIPES; i++) {
+                sketches[i] = new FrequencySketch(Math.max((builder.sketchSize + STRIPES - 1) / STRIPES, 16));
+            }
+        } else {
+            sketches = null;
+        }
+        this.minFrequency = builder.minFrequency;
+        this.weigher = builder.weigher;
+        this.maxWeight = builder.maxWeight;
+    }
+
+    @Override
+    public boolean onShouldPromote(String paramKey, int hitIndex, DataPack<Data> dataPack) {
+        int hash = spread(paramKey.hashCode());
+        int stripe = hash & (STRIPES - 1);
+        boolean promote = true;
+        // 计数不受其它条件影响，保证频率反映真实的访问
+        if (null != sketches) {
+            promote = sketches[stripe].incrementAndGet(hash) >= minFrequency;
+        }
+        if (null != hitCounters) {
+            promote &= hitCounters[stripe].onHit(paramKey, System.currentTimeMillis());
+        }
+        // 权重的计算可能较慢(如序列化)，只在计数满足时计算
+        if (promote && null != weigher) {
+            promote = weigher.weigh(paramKey, dataPack.dataCore) <= maxWeight;
+        }
+        if (promote && null != hitCounters) {
+            hitCounters[stripe].onPromoted(paramKey);
+        }
+        (promote ? promotedCount : rejectedCount).increment();
+        return promote;
+    }
+
+    /**
+     * 估算的访问频率，未启用按访问频率提升时返回0
+     */
+    public int frequency(String paramKey) {
+        if (null == sketches) {
+            return 0;
+        }
+        int hash = spread(paramKey.hashCode());
+        return sketches[hash & (STRIPES - 1)].frequency(hash);
+    }
+
+    /**
+     * 已提升的次数
+     */
+    public long promotedCount() {
+        return promotedCount.sum();
+    }
+
+    /**
+     * 已拒绝提升的次数
+     */
+    public long rejectedCount() {
+        return rejectedCount.sum();
+    }
+
+    // ***********************内部方法****************************
+
+    private static int spread(int hash) {
+        hash ^= hash >>> 16;
+        hash *= 0x45d9f3b;
+        return hash ^ (hash >>> 16);
+    }
+
+    // ***********************内部类****************************
+
+    /**
+     * 时间窗口内的命中计数(一个分段)，按最近访问顺序淘汰
+     */
+    private static class HitCounter {
+        private final int minHits;
+        private final long windowMs;
+        private final Map<String, Window> windows;
+
+        HitCounter(int minHits, long windowMs, int maxTrackedKeys) {
+            this.minHits = minHits;
+            this.windowMs = windowMs;
+            this.windows = new LinkedHashMap<String, Window>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Window> eldest) {
+                    return size() > maxTrackedKeys;
+                }
+            };
+        }
+
+        /**
+         * @return 时间窗口内的命中次数是否已达到要求
+         */
+        synchronized boolean onHit(String key, long now) {
+            Window window = windows.get(key);
+            if (null == window) {
+                windows.put(key, window = new Window(now));
+            } else if (now - window.start >= windowMs) {
+                window.start = now;
+                window.hits = 0;
+            }
+            return ++window.hits >= minHits;
+        }
+
+        /**
+         * 提升后由上级存储器命中，无需继续跟踪
+         */
+        synchronized void onPromoted(String key) {
+            windows.remove(key);
+        }
+    }
+
+    private static class Window {
+        long start;
+        int hits;
+
+        Window(long start) {
+            this.start = start;
+        }
+    }
+
+    /**
+     * Count-Min Sketch(一个分段)，4行，每个计数器最大为15
+     */
+    private static class FrequencySketch {
+        private static final long[] SEEDS = {0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L};
+        private static final int MAX_COUNT = 15;
+
+        private final byte[] table;
+        private final int width;
+        private final int resetThreshold;
+        private int additions;
+
+        FrequencySketch(int expectedKeys) {
+            int w = 1;
+            while (w < expectedKeys) {
+                w <<= 1;
+            }
+            this.width = w;
+            this.table = new byte[SEEDS.length * width];
+            this.resetThreshold = 10 * width;
+        }
+
+        synchronized int incrementAndGet(int hash) {
+            int min = MAX_COUNT;
+            for (int i = 0; i < SEEDS.length; i++) {
+                int index = indexOf(hash, i);
+                if (table[index] < MAX_COUNT) {
+                    table[index]++;
+                }
+                min = Math.min(min, table[index]);
+            }
+            if (++additions >= resetThreshold) {
+                reset();
+            }
+            return min;
+        }
+
+        synchronized int frequency(int hash) {
+            int min = MAX_COUNT;
+            for (int i = 0; i < SEEDS.length; i++) {
+                min = Math.min(min, table[indexOf(hash, i)]);
+            }
+            return min;
+        }
+
+        /**
+         * 全部计数减半，使过去的热点逐渐失效
+         */
+        private void reset() {
+            for (int i = 0; i < table.length; i++) {
+                table[i] >>= 1;
+            }
+            additions >>= 1;
+        }
+
+        private int indexOf(int hash, int row) {
+            long h = (hash + SEEDS[row]) * SEEDS[row];
+            return row * width + ((int) (h >>> 32) & (width - 1));
+        }
+    }
+
+    public static class Builder<Data> {
+        private int minHits;
+        private long windowMs = 60 * 1000L;
+        private int maxTrackedKeys = 10_000;
+        private int minFrequency;
+        private int sketchSize = 10_000;
+        private IWeigher<Data> weigher;
+        private long maxWeight;
+
+        /**
+         * 在时间窗口内命中指定次数后提升
+         *
+         * @param minHits  最少命中次数，小于等于1时不作限制
+         * @param windowMs 时间窗口(毫秒)，从首次命中开始计算，超出后重新计数
+         */
+        public Builder<Data> minHits(int minHits, long windowMs) {
+            this.minHits = minHits;
+            this.windowMs = windowMs;
+            return this;
+        }
+
+        /**
+         * 按命中次数提升时，最多跟踪的key数(按分段平均分配)，超出时不再跟踪最久未命中的key，默认10000
+         */
+        public Builder<Data> maxTrackedKeys(int maxTrackedKeys) {
+            this.maxTrackedKeys = Math.max(maxTrackedKeys, 1);
+            return this;
+        }
+
+        /**
+         * 估算的访问频率达到阈值后提升
+         *
+         * @param minFrequency 频率阈值，范围为[1, 15]，小于等于1时不作限制
+         */
+        public Builder<Data> minFrequency(int minFrequency) {
+            if (minFrequency > FrequencySketch.MAX_COUNT) {
+                throw new BdCacheException("频率阈值不能大于" + FrequencySketch.MAX_COUNT);
+            }
+            this.minFrequency = minFrequency;
+            return this;
+        }
+
+        /**
+         * 按访问频率提升时，预计的key数，用于确定Sketch的宽度，默认10000
+         */
+        public Builder<Data> sketchSize(int sketchSize) {
+            this.sketchSize = Math.max(sketchSize, 16);
+            return this;
+        }
+
+        /**
+         * 权重不超过上限的数据才提升
+         *
+         * @param weigher   权重计算器，其它条件均满足时才调用
+         * @param maxWeight 权重上限
+         */
+        public Builder<Data> maxWeight(IWeigher<Data> weigher, long maxWeight) {
+            this.weigher = weigher;
+            this.maxWeight = maxWeight;
+            return this;
+        }
+
+        public StdPromotionPolicy<Data> build() {
+            return new StdPromotionPolicy<>(this);
+        }
+    }
+}
@@ -15,8 +15,16 @@ import com.soybeany.cache.v2.model.DataParam;
 public abstract class StdStorage<Param, Data> implements ICacheStorage<Param, Data> {
 
     private final IKeyConverter<String> storageKeyConverter = onSetupStorageKeyConverter();
-    protected final long pTtl;
-    protected final long pTtlErr;
+    /**
+     * 子类是否重写了抛异常的查找，重写时框架的查找经由重写的方法，保证旧的存储器行为不变
+     */
+    private final boolean customGetCache = isOverridden(getClass(), "onGetCache");
+    private final boolean customGetCacheIgnoreExpiry = isOverridden(getClass(), "onGetCacheIgnoreExpiry");
+    /**
+     * 生存时间的上限，可在运行时调整，见{@link #setPTtl}
+     */
+    protected volatile long pTtl;
+    protected volatile long pTtlErr;
 
     protected DataContext context;
     private boolean enableRenewExpiredCache;
@@ -31,24 +39,54 @@ public abstract class StdStorage<Param, Data> implements ICacheStorage<Param, Da
         this.context = context;
     }
 
+    /**
+     * 由{@link #onFindCache}适配，保留给旧的存储器
+     * <br>* 新的存储器应重写{@link #onFindCache}或{@link #onFindCacheEntity}；重写本方法时，框架的查找也会经由本方法
+     */
     @Override
     public DataPack<Data> onGetCache(DataParam<Param> param) throws NoCacheException {
-        String key = getStorageKey(param);
-        CacheEntity<Data> cacheEntity = onLoadCacheEntity(param, key);
-        long curTimestamp = onGetCurTimestamp();
-        // 若缓存中的数据过期，则抛出无数据异常（不删除，给 fallback 等场景保留回退的可能）
-        if (cacheEntity.isExpired(curTimestamp)) {
+        // 子类重写时的super调用，直接查找，避免与onFindCache相互调用
+        DataPack<Data> dataPack = customGetCache ? findCache(param) : onFindCache(param);
+        if (null == dataPack) {
             throw new NoCacheException();
         }
-        // 返回数据
-        return CacheEntity.toDataPack(cacheEntity, this, curTimestamp);
+        return dataPack;
     }
 
+    /**
+     * 由{@link #onFindCacheIgnoreExpiry}适配，保留给旧的存储器，说明同{@link #onGetCache}
+     */
     @Override
     public DataPack<Data> onGetCacheIgnoreExpiry(DataParam<Param> param) throws NoCacheException {
-        String key = getStorageKey(param);
-        CacheEntity<Data> cacheEntity = onLoadCacheEntity(param, key);
-        return CacheEntity.toDataPack(cacheEntity, this, onGetCurTimestamp());
+        DataPack<Data> dataPack = customGetCacheIgnoreExpiry ? findCacheIgnoreExpiry(param) : onFindCacheIgnoreExpiry(param);
+        if (null == dataPack) {
+            throw new NoCacheException();
+        }
+        return dataPack;
+    }
+
+    @Override
+    public DataPack<Data> onFindCache(DataParam<Param> param) {
+        if (!customGetCache) {
+            return findCache(param);
+        }
+        try {
+            return onGetCache(param);
+        } catch (NoCacheException e) {
+            return null;
+        }
+    }
+
+    @Override
+    public DataPack<Data> onFindCacheIgnoreExpiry(DataParam<Param> param) {
+        if (!customGetCacheIgnoreExpiry) {
+            return findCacheIgnoreExpiry(param);
+        }
+        try {
+            return onGetCacheIgnoreExpiry(param);
+        } catch (NoCacheException e) {
+            return null;
+        }
     }
 
     @Override
@@ -58,37 +96,35 @@ public abstract class StdStorage<Param, Data> implements ICacheStorage<Param, Da
         if (dataPack.norm() || !enableRenewExpiredCache) {
             return simpleCacheData(param, key, dataPack);
         }
-        try {
-            CacheEntity<Data> cacheEntity = onLoadCacheEntity(param, key);
-            // 若缓存依旧可用，则直接使用
-            long curTimestamp = onGetCurTimestamp();
-            if (!cacheEntity.isExpired(curTimestamp)) {
-                return CacheEntity.toDataPack(cacheEntity, this, curTimestamp);
-            }
-            // 不是正常数据，则当缓存不存在处理
-            if (!cacheEntity.dataCore.norm) {
-                throw new NoCacheException();
-            }
-            // 重新持久化一个使用新过期时间的info
-            CacheEntity<Data> newCacheEntity = new CacheEntity<>(cacheEntity.dataCore, curTimestamp + pTtlErr);
-            onSaveCacheEntity(param, key, newCacheEntity);
-            if (null != context.logger) {
-                context.logger.onRenewExpiredCache(param, this);
-            }
-            return CacheEntity.toDataPack(newCacheEntity, this, curTimestamp);
-        } catch (NoCacheException e) {
-            // 没有本地缓存，按常规处理
+        CacheEntity<Data> cacheEntity = onFindCacheEntity(param, key);
+        // 没有本地缓存，按常规处理
+        if (null == cacheEntity) {
             return simpleCacheData(param, key, dataPack);
         }
+        // 若缓存依旧可用，则直接使用
+        long curTimestamp = onGetCurTimestamp();
+        if (!cacheEntity.isExpired(curTimestamp)) {
+            return CacheEntity.toDataPack(cacheEntity, this, curTimestamp);
+        }
+        // 不是正常数据，则当缓存不存在处理
+        if (!cacheEntity.dataCore.norm) {
+            return simpleCacheData(param, key, dataPack);
+        }
+        // 重新持久化一个使用新过期时间的info
+        CacheEntity<Data> newCacheEntity = new CacheEntity<>(cacheEntity.dataCore, curTimestamp + pTtlErr);
+        onSaveCacheEntity(param, key, newCacheEntity);
+        if (null != context.logger) {
+            context.logger.onRenewExpiredCache(param, this);
+        }
+        return CacheEntity.toDataPack(newCacheEntity, this, curTimestamp);
     }
 
     @Override
     public void onInvalidCache(DataParam<Param> param) {
         String key = getStorageKey(param);
-        try {
-            CacheEntity<Data> cacheEntity = onLoadCacheEntity(param, key);
+        CacheEntity<Data> cacheEntity = onFindCacheEntity(param, key);
+        if (null != cacheEntity) {
             onSaveCacheEntity(param, key, new CacheEntity<>(cacheEntity.dataCore, 0));
-        } catch (NoCacheException ignore) {
         }
     }
 
@@ -102,6 +138,35 @@ public abstract class StdStorage<Param, Data> implements ICacheStorage<Param, Da
         enableRenewExpiredCache = enable;
     }
 
+    /**
+     * 正常数据的生存时间(毫秒)
+     */
+    public long pTtl() {
+        return pTtl;
+    }
+
+    /**
+     * 异常的生存时间(毫秒)
+     */
+    public long pTtlErr() {
+        return pTtlErr;
+    }
+
+    /**
+     * 运行时调整正常数据的生存时间(毫秒)，与构建时一样，异常的生存时间不会超过正常数据的生存时间
+     * <br>* 新的上限对之后写入的数据生效；缩短时，已缓存数据的剩余生存时间也会被截短(由子类按存储特性实现)
+     */
+    public synchronized void setPTtl(long pTtl) {
+        applyPTtl(pTtl, this.pTtlErr);
+    }
+
+    /**
+     * 运行时调整异常的生存时间(毫秒)，超出正常数据的生存时间时，以正常数据的生存时间为准
+     */
+    public synchronized void setPTtlErr(long pTtlErr) {
+        applyPTtl(this.pTtl, pTtlErr);
+    }
+
 
     // ***********************子类重写****************************
 
@@ -125,14 +190,82 @@ public abstract class StdStorage<Param, Data> implements ICacheStorage<Param, Da
 
     protected abstract CacheEntity<Data> onLoadCacheEntity(DataParam<Param> param, String storageKey) throws NoCacheException;
 
+    /**
+     * 加载缓存实体，未命中时返回null
+     * <br>* 默认由{@link #onLoadCacheEntity}适配，子类可重写以避免未命中时创建异常
+     */
+    protected CacheEntity<Data> onFindCacheEntity(DataParam<Param> param, String storageKey) {
+        try {
+            return onLoadCacheEntity(param, storageKey);
+        } catch (NoCacheException e) {
+            return null;
+        }
+    }
+
     protected abstract CacheEntity<Data> onSaveCacheEntity(DataParam<Param> param, String storageKey, CacheEntity<Data> entity);
 
     protected abstract void onRemoveCacheEntity(DataParam<Param> param, String storageKey);
 
     protected abstract long onGetCurTimestamp();
 
+    /**
+     * 生存时间的上限被缩短后回调，子类可据此截短已缓存数据的剩余生存时间，默认不作处理
+     */
+    protected void onPTtlShortened(long pTtl, long pTtlErr) {
+    }
+
     // ***********************内部方法****************************
 
+    private DataPack<Data> findCache(DataParam<Param> param) {
+        String key = getStorageKey(param);
+        CacheEntity<Data> cacheEntity = onFindCacheEntity(param, key);
+        if (null == cacheEntity) {
+            return null;
+        }
+        long curTimestamp = onGetCurTimestamp();
+        // 若缓存中的数据过期，则视为无数据（不删除，给 fallback 等场景保留回退的可能）
+        if (cacheEntity.isExpired(curTimestamp)) {
+            return null;
+        }
+        // 返回数据
+        return CacheEntity.toDataPack(cacheEntity, this, curTimestamp);
+    }
+
+    private DataPack<Data> findCacheIgnoreExpiry(DataParam<Param> param) {
+        String key = getStorageKey(param);
+        CacheEntity<Data> cacheEntity = onFindCacheEntity(param, key);
+        if (null == cacheEntity) {
+            return null;
+        }
+        return CacheEntity.toDataPack(cacheEntity, this, onGetCurTimestamp());
+    }
+
+    private static boolean isOverridden(Class<?> clazz, String methodName) {
+        try {
+            return StdStorage.class != clazz.getMethod(methodName, DataParam.class).getDeclaringClass();
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+
+    private void applyPTtl(long pTtl, long pTtlErr) {
+        long oldPTtl = this.pTtl;
+        long oldPTtlErr = this.pTtlErr;
+        pTtl = Math.max(pTtl, 1);
+        pTtlErr = Math.min(Math.max(pTtlErr, 1), pTtl);
+        // 先收紧异常的上限，使并发写入时不会读到异常上限大于正常上限的组合
+        if (pTtlErr < oldPTtlErr) {
+            this.pTtlErr = pTtlErr;
+            this.pTtl = pTtl;
+        } else {
+            this.pTtl = pTtl;
+            this.pTtlErr = pTtlErr;
+        }
+        if (pTtl < oldPTtl || pTtlErr < oldPTtlErr) {
+            onPTtlShortened(pTtl, pTtlErr);
+        }
+    }
+
     private DataPack<Data> simpleCacheData(DataParam<Param> param, String storageKey, DataPack<Data> dataPack) {
         CacheEntity<Data> cacheEntity = CacheEntity.fromDataPack(dataPack, onGetCurTimestamp(), pTtl, pTtlErr);
         CacheEntity<Data> newCacheEntity = onSaveCacheEntity(param, storageKey, cacheEntity);
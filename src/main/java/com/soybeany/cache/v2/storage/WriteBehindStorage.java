@@ -0,0 +1,459 @@
+package com.soybeany.cache.v2.storage;
+
+import com.soybeany.cache.v2.contract.frame.ICacheStorage;
+import com.soybeany.cache.v2.core.CacheRegistry;
+import com.soybeany.cache.v2.exception.NoCacheException;
+import com.soybeany.cache.v2.model.DataContext;
+import com.soybeany.cache.v2.model.DataPack;
+import com.soybeany.cache.v2.model.DataParam;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 异步写入(write-behind)的存储器，包装较慢的存储器(如远程缓存、磁盘)，使写入不再阻塞调用方
+ * <br>* 写入先放入待写队列，同一key的多次写入只保留最后一次，后台线程定时(或积累满一批时)通过{@link ICacheStorage#onBatchCacheData}批量写入
+ * <br>* 读取时优先使用待写队列中的数据，保证写入后立刻可读
+ * <br>* 待写队列已满时，新key直接同步写入；异常数据直接同步写入，以保留被包装存储器对过期缓存的续期处理
+ * <br>* 待写数据的下次检查时间记录在队列中，写入成功后再设置到被包装存储器
+ * <br>* 失效、移除、清除与同步写入均不等待进行中的批量写入；
+ * 批量写入完成后，对期间被修改的key重新移除(或失效)，避免已移除的数据被重新写入
+ * <br>* 定时写入始终使用独立的后台线程，不占用注册中心的共享调度器
+ * <br>* 写入时返回原数据，不经过被包装存储器对生存时间的调整
+ * <br>* {@link #close()}时写入全部待写的数据
+ */
+public class WriteBehindStorage<Param, Data> implements ICacheStorage<Param, Data>, Closeable {
+
+    private final ICacheStorage<Param, Data> delegate;
+    private final int maxPendingKeys;
+    private final int maxBatchSize;
+    private final Map<String, Pending<Param, Data>> pending = new ConcurrentHashMap<>();
+    // 只用于串行化批量写入
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+    // 批量写入期间被修改的key，值为true时需移除，为false时需失效
+    private final Map<String, Boolean> touched = new ConcurrentHashMap<>();
+    private volatile boolean flushing;
+    private volatile boolean clearedDuringFlush;
+    private volatile boolean invalidatedAllDuringFlush;
+
+    private final CacheRegistry.ScheduledTask task;
+    private volatile boolean closed;
+
+    private final LongAdder flushedCount = new LongAdder();
+    private final LongAdder syncWriteCount = new LongAdder();
+    private final LongAdder failedCount = new LongAdder();
+
+    private WriteBehindStorage(Builder<Param, Data> builder) {
+        this.delegate = builder.delegate;
+        this.maxPendingKeys = builder.maxPendingKeys;
+        this.maxBatchSize = builder.maxBatchSize;
+        this.task = CacheRegistry.scheduleOwn(builder.registry, "bd-cache-write-behind", "异步写入", this::flush, builder.flushIntervalMs, this);
+    }
+
+    @Override
+    public String desc() {
+        return "WB-" + delegate.desc();
+    }
+
+    @Override
+    public void onInit(DataContext context) {
+        delegate.onInit(context);
+    }
+
+    @Override
+    public DataPack<Data> onGetCache(DataParam<Param> param) throws NoCacheException {
+        DataPack<Data> dataPack = findPending(param, false);
+        return null != dataPack ? dataPack : delegate.onGetCache(param);
+    }
+
+    @Override
+    public DataPack<Data> onGetCacheIgnoreExpiry(DataParam<Param> param) throws NoCacheException {
+        DataPack<Data> dataPack = findPending(param, true);
+        return null != dataPack ? dataPack : delegate.onGetCacheIgnoreExpiry(param);
+    }
+
+    @Override
+    public DataPack<Data> onFindCache(DataParam<Param> param) {
+        DataPack<Data> dataPack = findPending(param, false);
+        return null != dataPack ? dataPack : delegate.onFindCache(param);
+    }
+
+    @Override
+    public DataPack<Data> onFindCacheIgnoreExpiry(DataParam<Param> param) {
+        DataPack<Data> dataPack = findPending(param, true);
+        return null != dataPack ? dataPack : delegate.onFindCacheIgnoreExpiry(param);
+    }
+
+    @Override
+    public DataPack<Data> onCacheData(DataParam<Param> param, DataPack<Data> dataPack) {
+        if (closed || !dataPack.norm()) {
+            return writeThrough(param, dataPack);
+        }
+        // 队列已满时，新key同步写入(已在队列中的key仍可合并)
+        if (pending.size() >= maxPendingKeys && !pending.containsKey(param.paramKey)) {
+            syncWriteCount.increment();
+            return writeThrough(param, dataPack);
+        }
+        pending.put(param.paramKey, new Pending<>(param, dataPack, System.currentTimeMillis()));
+        if (pending.size() >= maxBatchSize) {
+            requestFlush();
+        }
+        return dataPack;
+    }
+
+    @Override
+    public Map<DataParam<Param>, DataPack<Data>> onBatchCacheData(Map<DataParam<Param>, DataPack<Data>> dataPacks) {
+        Map<DataParam<Param>, DataPack<Data>> result = new LinkedHashMap<>();
+        dataPacks.forEach((k, v) -> result.put(k, onCacheData(k, v)));
+        return result;
+    }
+
+    @Override
+    public void onInvalidCache(DataParam<Param> param) {
+        pending.remove(param.paramKey);
+        markTouched(param.paramKey, false);
+        delegate.onInvalidCache(param);
+    }
+
+    @Override
+    public void onInvalidAllCache() {
+        pending.clear();
+        if (flushing) {
+            invalidatedAllDuringFlush = true;
+        }
+        delegate.onInvalidAllCache();
+    }
+
+    @Override
+    public void onRemoveCache(DataParam<Param> param) {
+        pending.remove(param.paramKey);
+        markTouched(param.paramKey, true);
+        delegate.onRemoveCache(param);
+    }
+
+    @Override
+    public void onClearCache() {
+        pending.clear();
+        if (flushing) {
+            clearedDuringFlush = true;
+        }
+        delegate.onClearCache();
+    }
+
+    @Override
+    public long getNextCheckStamp(DataParam<Param> param) {
+        Pending<Param, Data> p = pending.get(param.paramKey);
+        return null != p ? p.nextCheckStamp : delegate.getNextCheckStamp(param);
+    }
+
+    @Override
+    public void setNextCheckStamp(DataParam<Param> param, long stamp) {
+        Pending<Param, Data> p = pending.get(param.paramKey);
+        if (null != p) {
+            p.nextCheckStamp = stamp;
+            // 仍在队列中时由写入后设置，否则写入可能已读取了旧值，直接设置到被包装存储器
+            if (p == pending.get(param.paramKey)) {
+                return;
+            }
+        }
+        delegate.setNextCheckStamp(param, stamp);
+    }
+
+    @Override
+    public void enableRenewExpiredCache(boolean enable) {
+        delegate.enableRenewExpiredCache(enable);
+    }
+
+    /**
+     * 被包装存储器中的数据条数，不含待写的数据
+     */
+    @Override
+    public int cachedDataCount() {
+        return delegate.cachedDataCount();
+    }
+
+    @Override
+    public long evictedCount() {
+        return delegate.evictedCount();
+    }
+
+    /**
+     * 立刻写入全部待写的数据，定时写入时由后台线程调用
+     * <br>* 写入时仍在队列中的数据可被读取，写入完成后才移出队列(期间被覆盖的数据保留到下一次写入)
+     * <br>* 同一时间只有一个线程写入，但写入期间不阻塞其它操作
+     * <br>* 批量写入失败时丢弃该批数据并计入失败数
+     */
+    public void flush() {
+        flushLock.lock();
+        try {
+            flushRequested.set(false);
+            // 只处理开始时已有的数据，避免持续写入时无法结束
+            int rounds = pending.size() / maxBatchSize + 1;
+            for (int round = 0; round < rounds && !pending.isEmpty(); round++) {
+                flushBatch();
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * 待写的key数
+     */
+    public int pendingCount() {
+        return pending.size();
+    }
+
+    /**
+     * 已通过批量写入的数据条数
+     */
+    public long flushedCount() {
+        return flushedCount.sum();
+    }
+
+    /**
+     * 因待写队列已满而同步写入的次数
+     */
+    public long syncWriteCount() {
+        return syncWriteCount.sum();
+    }
+
+    /**
+     * 批量写入失败而丢弃的数据条数
+     */
+    public long failedCount() {
+        return failedCount.sum();
+    }
+
+    public ICacheStorage<Param, Data> delegate() {
+        return delegate;
+    }
+
+    /**
+     * 停止定时写入并写入全部待写的数据，之后的写入均为同步写入
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        task.close();
+        flush();
+    }
+
+    // ***********************内部方法****************************
+
+    private DataPack<Data> findPending(DataParam<Param> param, boolean ignoreExpiry) {
+        if (pending.isEmpty()) {
+            return null;
+        }
+        Pending<Param, Data> p = pending.get(param.paramKey);
+        if (null == p) {
+            return null;
+        }
+        long remaining = p.remainingTtl(System.currentTimeMillis());
+        if (remaining <= 0 && !ignoreExpiry) {
+            return null;
+        }
+        return new DataPack<>(p.dataPack.dataCore, this, remaining);
+    }
+
+    private DataPack<Data> writeThrough(DataParam<Param> param, DataPack<Data> dataPack) {
+        // 丢弃旧的待写数据，避免之后覆盖本次写入；进行中的批量写入完成后会移除该key，代价只是一次未命中
+        pending.remove(param.paramKey);
+        markTouched(param.paramKey, true);
+        return delegate.onCacheData(param, dataPack);
+    }
+
+    /**
+     * 在修改待写队列之后调用，此时读到未在写入时，之后的批量写入不会包含旧数据
+     */
+    private void markTouched(String paramKey, boolean remove) {
+        if (!flushing) {
+            return;
+        }
+        if (remove) {
+            touched.put(paramKey, true);
+        } else {
+            touched.putIfAbsent(paramKey, false);
+        }
+    }
+
+    private void flushBatch() {
+        touched.clear();
+        clearedDuringFlush = false;
+        invalidatedAllDuringFlush = false;
+        // 先标记再取数据，与markTouched配合
+        flushing = true;
+        long now = System.currentTimeMillis();
+        Map<DataParam<Param>, DataPack<Data>> batch = new LinkedHashMap<>();
+        List<Pending<Param, Data>> entries = new ArrayList<>();
+        for (Pending<Param, Data> p : pending.values()) {
+            entries.add(p);
+            long remaining = p.remainingTtl(now);
+            // 已过期的数据无需写入
+            if (remaining > 0) {
+                batch.put(p.param, new DataPack<>(p.dataPack.dataCore, p.dataPack.provider, remaining));
+            }
+            if (entries.size() >= maxBatchSize) {
+                break;
+            }
+        }
+        boolean success = false;
+        try {
+            if (!batch.isEmpty()) {
+                delegate.onBatchCacheData(batch);
+            }
+            flushedCount.add(batch.size());
+            success = true;
+        } catch (RuntimeException e) {
+            // 丢弃该批数据，只计入失败数
+            failedCount.add(batch.size());
+        } finally {
+            flushing = false;
+            for (Pending<Param, Data> p : entries) {
+                pending.remove(p.param.paramKey, p);
+            }
+        }
+        // 失败时也可能已部分写入，同样需要修正
+        repairTouched(batch.keySet());
+        if (success) {
+            applyNextCheckStamps(batch.keySet(), entries);
+        }
+    }
+
+    /**
+     * 写入期间被移除、失效、清除或同步写入的key，可能已被本批的旧数据覆盖，重新移除(或失效)
+     */
+    private void repairTouched(Set<DataParam<Param>> written) {
+        boolean cleared = clearedDuringFlush;
+        boolean invalidatedAll = invalidatedAllDuringFlush;
+        if (touched.isEmpty() && !cleared && !invalidatedAll) {
+            return;
+        }
+        for (DataParam<Param> param : written) {
+            Boolean remove = cleared ? Boolean.TRUE : touched.get(param.paramKey);
+            if (null == remove && invalidatedAll) {
+                remove = false;
+            }
+            if (null == remove) {
+                continue;
+            }
+            if (remove) {
+                delegate.onRemoveCache(param);
+            } else {
+                delegate.onInvalidCache(param);
+            }
+        }
+    }
+
+    /**
+     * 移出队列后设置下次检查时间，与{@link #setNextCheckStamp}配合，不会遗漏写入期间设置的值
+     */
+    private void applyNextCheckStamps(Set<DataParam<Param>> written, List<Pending<Param, Data>> entries) {
+        for (Pending<Param, Data> p : entries) {
+            long stamp = p.nextCheckStamp;
+            if (0 == stamp || !written.contains(p.param) || touched.containsKey(p.param.paramKey) || clearedDuringFlush || invalidatedAllDuringFlush) {
+                continue;
+            }
+            try {
+                delegate.setNextCheckStamp(p.param, stamp);
+            } catch (RuntimeException ignore) {
+                // 被包装存储器不支持时不作处理
+            }
+        }
+    }
+
+    private void requestFlush() {
+        if (!flushRequested.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            task.execute(this::flush);
+        } catch (RuntimeException e) {
+            // 调度器已关闭，等待下一次定时写入或关闭时写入
+            flushRequested.set(false);
+        }
+    }
+
+    // ***********************内部类****************************
+
+    private static class Pending<Param, Data> {
+        final DataParam<Param> param;
+        final DataPack<Data> dataPack;
+        final long enqueuedAt;
+        // 下次检查的时间戳，0表示未设置
+        volatile long nextCheckStamp;
+
+        Pending(DataParam<Param> param, DataPack<Data> dataPack, long enqueuedAt) {
+            this.param = param;
+            this.dataPack = dataPack;
+            this.enqueuedAt = enqueuedAt;
+        }
+
+        long remainingTtl(long now) {
+            return dataPack.pTtl - (now - enqueuedAt);
+        }
+    }
+
+    public static class Builder<Param, Data> {
+        private final ICacheStorage<Param, Data> delegate;
+        private int maxPendingKeys = 10_000;
+        private int maxBatchSize = 100;
+        private long flushIntervalMs = 100;
+        private CacheRegistry registry;
+
+        /**
+         * @param delegate 被包装的存储器
+         */
+        public Builder(ICacheStorage<Param, Data> delegate) {
+            this.delegate = delegate;
+        }
+
+        /**
+         * 待写队列的最大key数，已满时新key同步写入，默认10000
+         */
+        public Builder<Param, Data> maxPendingKeys(int maxPendingKeys) {
+            this.maxPendingKeys = Math.max(maxPendingKeys, 1);
+            return this;
+        }
+
+        /**
+         * 每批写入的最大条数，待写的key数达到此值时立刻触发写入，默认100
+         */
+        public Builder<Param, Data> maxBatchSize(int maxBatchSize) {
+            this.maxBatchSize = Math.max(maxBatchSize, 1);
+            return this;
+        }
+
+        /**
+         * 定时写入的间隔(毫秒)，默认100
+         */
+        public Builder<Param, Data> flushIntervalMs(long flushIntervalMs) {
+            this.flushIntervalMs = Math.max(flushIntervalMs, 1);
+            return this;
+        }
+
+        /**
+         * 随注册中心关闭(关闭时写入全部待写的数据)；定时写入仍使用独立的后台线程，避免较慢的写入占用共享调度器
+         */
+        public Builder<Param, Data> registry(CacheRegistry registry) {
+            this.registry = registry;
+            return this;
+        }
+
+        public WriteBehindStorage<Param, Data> build() {
+            return new WriteBehindStorage<>(this);
+        }
+    }
+}
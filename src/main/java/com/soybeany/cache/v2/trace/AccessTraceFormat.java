@@ -0,0 +1,15 @@
+package com.soybeany.cache.v2.trace;
+
+/**
+ * 访问轨迹文件的格式常量，格式说明见{@link AccessTraceReader}
+ */
+final class AccessTraceFormat {
+
+    static final int MAGIC = 0x42444354;
+    static final short VERSION = 1;
+    static final int HEADER_BYTES = 8;
+    static final int RECORD_BYTES = 22;
+
+    private AccessTraceFormat() {
+    }
+}
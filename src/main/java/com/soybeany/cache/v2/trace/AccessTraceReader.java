@@ -0,0 +1,102 @@
+package com.soybeany.cache.v2.trace;
+
+import com.soybeany.cache.v2.exception.BdCacheException;
+import com.soybeany.cache.v2.log.AsyncFileAppender;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * 访问轨迹的读取器，按时间顺序依次读取{@link AccessTraceRecorder}生成的各个文件
+ * <br>* 文件格式(大端序)：文件头为魔数"BDCT"(4字节)、版本(2字节)、记录长度(2字节)
+ * <br>* 每条记录为时间戳(8字节)、key散列(8字节)、操作(1字节)、命中的存储器下标(1字节)、加载耗时微秒(4字节)
+ */
+public class AccessTraceReader implements Closeable {
+
+    private final Iterator<Path> files;
+    private DataInputStream input;
+
+    /**
+     * 读取指定的轨迹文件及其滚动出的历史文件(从最旧的开始)
+     */
+    public static AccessTraceReader open(Path file) {
+        List<Path> files = new ArrayList<>();
+        for (int i = 1; ; i++) {
+            Path backup = AsyncFileAppender.backupPath(file, i);
+            if (!Files.exists(backup)) {
+                break;
+            }
+            files.add(0, backup);
+        }
+        if (Files.exists(file)) {
+            files.add(file);
+        }
+        return new AccessTraceReader(files);
+    }
+
+    public AccessTraceReader(List<Path> files) {
+        this.files = new ArrayList<>(files).iterator();
+    }
+
+    /**
+     * 读取下一条记录到指定的实例中
+     *
+     * @return 是否读取成功，已无记录时返回false
+     */
+    public boolean next(TraceRecord record) throws IOException {
+        while (true) {
+            if (null == input) {
+                if (!files.hasNext()) {
+                    return false;
+                }
+                input = openFile(files.next());
+            }
+            try {
+                record.timestamp = input.readLong();
+                record.keyHash = input.readLong();
+                record.op = TraceOp.fromCode(input.readByte());
+                record.tier = input.readByte();
+                record.loadMicros = input.readInt();
+                return true;
+            } catch (EOFException e) {
+                // 当前文件已读完(末尾不完整的记录一并丢弃)，继续下一个文件
+                input.close();
+                input = null;
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (null != input) {
+            input.close();
+            input = null;
+        }
+    }
+
+    // ***********************内部方法****************************
+
+    private DataInputStream openFile(Path file) throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 64 * 1024));
+        try {
+            int magic = in.readInt();
+            short version = in.readShort();
+            short recordBytes = in.readShort();
+            if (AccessTraceFormat.MAGIC != magic || AccessTraceFormat.VERSION != version || AccessTraceFormat.RECORD_BYTES != recordBytes) {
+                throw new BdCacheException("“" + file + "”不是有效的轨迹文件");
+            }
+        } catch (IOException | RuntimeException e) {
+            in.close();
+            throw e;
+        }
+        return in;
+    }
+}
@@ -0,0 +1,191 @@
+package com.soybeany.cache.v2.trace;
+
+import com.soybeany.cache.v2.core.CacheRegistry;
+import com.soybeany.cache.v2.log.AsyncFileAppender;
+import com.soybeany.cache.v2.stats.KeyHash;
+
+import java.io.Closeable;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 访问轨迹的记录器，将线上的访问以紧凑的二进制格式写入滚动文件，用于离线回放(评估淘汰策略、容量调整等)
+ * <br>* 调用线程只把记录放入无锁的环形缓冲区(不产生对象)，后台线程批量写入文件，缓冲区已满时丢弃，见{@link AsyncFileAppender}
+ * <br>* 按key散列抽样：同一key的访问要么全部记录、要么全部不记录，保证回放时单个key的访问序列完整
+ * <br>* 只记录key的散列，不记录key本身；格式见{@link AccessTraceReader}
+ * <br>* 一个记录器对应一个DataManager，使用完毕后需调用{@link #close()}
+ */
+public class AccessTraceRecorder implements Closeable {
+
+    private final long sampleThreshold;
+    private final AsyncFileAppender appender;
+
+    // 槽位中的数据，下标由appender分配
+    private final long[] timestamps;
+    private final long[] keyHashes;
+    private final byte[] ops;
+    private final byte[] tiers;
+    private final int[] loadMicros;
+
+    private AccessTraceRecorder(Builder builder) {
+        this.sampleThreshold = (long) (builder.sampleRate * (1L << 53));
+        byte[] header = ByteBuffer.allocate(AccessTraceFormat.HEADER_BYTES)
+                .putInt(AccessTraceFormat.MAGIC)
+                .putShort(AccessTraceFormat.VERSION)
+                .putShort((short) AccessTraceFormat.RECORD_BYTES)
+                .array();
+        this.appender = new AsyncFileAppender.Builder(builder.file, "bd-cache-trace", this::onEncode)
+                .capacity(builder.capacity)
+                .maxFileBytes(builder.maxFileBytes)
+                .maxBackups(builder.maxBackups)
+                .idleWaitMs(builder.idleWaitMs)
+                .truncate(true)
+                .header(header)
+                .recordBytes(AccessTraceFormat.RECORD_BYTES)
+                .registry(builder.registry, this)
+                .build();
+        int capacity = appender.capacity();
+        this.timestamps = new long[capacity];
+        this.keyHashes = new long[capacity];
+        this.ops = new byte[capacity];
+        this.tiers = new byte[capacity];
+        this.loadMicros = new int[capacity];
+        appender.start();
+    }
+
+    /**
+     * 记录一次访问，由框架调用
+     *
+     * @param tier      命中的存储器下标，未命中或非读操作时为{@link TraceRecord#TIER_MISS}
+     * @param loadNanos 未命中时获取数据的耗时(纳秒)
+     */
+    public void record(String paramKey, TraceOp op, int tier, long loadNanos) {
+        long keyHash = KeyHash.of(paramKey);
+        if ((keyHash >>> 11) >= sampleThreshold) {
+            return;
+        }
+        long timestamp = System.currentTimeMillis();
+        long sequence = appender.claim(timestamps.length);
+        if (sequence < 0) {
+            return;
+        }
+        int index = appender.indexOf(sequence);
+        timestamps[index] = timestamp;
+        keyHashes[index] = keyHash;
+        ops[index] = op.code;
+        tiers[index] = (byte) tier;
+        loadMicros[index] = (int) Math.min(TimeUnit.NANOSECONDS.toMicros(loadNanos), Integer.MAX_VALUE);
+        appender.publish(sequence);
+    }
+
+    /**
+     * 因缓冲区已满(或已关闭)而丢弃的记录数
+     */
+    public long droppedCount() {
+        return appender.droppedCount();
+    }
+
+    /**
+     * 已写入文件的记录数
+     */
+    public long writtenCount() {
+        return appender.writtenCount();
+    }
+
+    /**
+     * 写入文件失败的次数，失败时丢弃该批记录
+     */
+    public long errorCount() {
+        return appender.errorCount();
+    }
+
+    /**
+     * 停止记录，等待缓冲区中的记录全部写入文件后关闭
+     */
+    @Override
+    public void close() {
+        appender.close();
+    }
+
+    // ***********************内部方法****************************
+
+    private ByteBuffer onEncode(int index, ByteBuffer buffer) {
+        return buffer.putLong(timestamps[index])
+                .putLong(keyHashes[index])
+                .put(ops[index])
+                .put(tiers[index])
+                .putInt(loadMicros[index]);
+    }
+
+    // ***********************内部类****************************
+
+    public static class Builder {
+        private final Path file;
+        private int capacity = 65536;
+        private long maxFileBytes = 100 * 1024 * 1024L;
+        private int maxBackups = 10;
+        private double sampleRate = 1.0;
+        private long idleWaitMs = 10;
+        private CacheRegistry registry;
+
+        /**
+         * @param file 轨迹文件，已存在时会被覆盖
+         */
+        public Builder(Path file) {
+            this.file = file;
+        }
+
+        /**
+         * 缓冲区的容量(会向上取整为2的幂)，默认65536
+         */
+        public Builder capacity(int capacity) {
+            this.capacity = capacity;
+            return this;
+        }
+
+        /**
+         * 单个文件的最大字节数，超出后滚动，默认100MB(约470万条记录)
+         */
+        public Builder maxFileBytes(long maxFileBytes) {
+            this.maxFileBytes = maxFileBytes;
+            return this;
+        }
+
+        /**
+         * 保留的历史文件数，默认10
+         */
+        public Builder maxBackups(int maxBackups) {
+            this.maxBackups = Math.max(maxBackups, 0);
+            return this;
+        }
+
+        /**
+         * 抽样比例，取值[0,1]，按key散列抽样，默认1(全部记录)
+         */
+        public Builder sampleRate(double sampleRate) {
+            this.sampleRate = Math.min(Math.max(sampleRate, 0), 1);
+            return this;
+        }
+
+        /**
+         * 缓冲区为空时，后台线程的等待时间(毫秒)，默认10毫秒
+         */
+        public Builder idleWaitMs(long idleWaitMs) {
+            this.idleWaitMs = Math.max(idleWaitMs, 1);
+            return this;
+        }
+
+        /**
+         * 登记到注册中心，随注册中心关闭(关闭时写入缓冲区中剩余的记录)，默认不登记
+         */
+        public Builder registry(CacheRegistry registry) {
+            this.registry = registry;
+            return this;
+        }
+
+        public AccessTraceRecorder build() {
+            return new AccessTraceRecorder(this);
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.soybeany.cache.v2.trace;
+
+/**
+ * 访问轨迹中的操作类型
+ */
+public enum TraceOp {
+    /**
+     * 获取数据(查找缓存，未命中时访问数据源)
+     */
+    READ(0),
+    /**
+     * 手动缓存数据
+     */
+    WRITE(1),
+    /**
+     * 失效缓存
+     */
+    INVALIDATE(2),
+    /**
+     * 移除缓存
+     */
+    REMOVE(3);
+
+    private static final TraceOp[] VALUES = values();
+
+    public final byte code;
+
+    public static TraceOp fromCode(byte code) {
+        if (code < 0 || code >= VALUES.length) {
+            throw new IllegalArgumentException("未知的操作类型:" + code);
+        }
+        return VALUES[code];
+    }
+
+    TraceOp(int code) {
+        this.code = (byte) code;
+    }
+}
@@ -0,0 +1,35 @@
+package com.soybeany.cache.v2.trace;
+
+/**
+ * 单条访问轨迹，读取时可复用同一实例
+ */
+public class TraceRecord {
+
+    /**
+     * 表示各级缓存均未命中的存储器下标
+     */
+    public static final int TIER_MISS = -1;
+
+    /**
+     * 访问的时间戳(毫秒)
+     */
+    public long timestamp;
+    /**
+     * paramKey的64位散列
+     */
+    public long keyHash;
+    public TraceOp op;
+    /**
+     * 读操作命中的存储器下标，{@link #TIER_MISS}表示未命中；其它操作恒为{@link #TIER_MISS}
+     */
+    public int tier;
+    /**
+     * 未命中时获取数据的耗时(微秒，含等待fetch锁)，其它情况为0
+     */
+    public int loadMicros;
+
+    @Override
+    public String toString() {
+        return timestamp + " " + Long.toHexString(keyHash) + " " + op + " " + tier + " " + loadMicros + "us";
+    }
+}
@@ -0,0 +1,220 @@
+package com.soybeany.cache.v2.jfr;
+
+import jdk.jfr.*;
+
+/**
+ * JFR事件的实际实现，由{@link CacheEvents}确认JFR可用后通过反射加载
+ * <br>* 依赖jdk.jfr，以Java 11编译，位于单独的源码目录
+ * <br>* 使用静态的探测实例判断事件是否启用，未启用时不创建事件对象
+ */
+final class JfrEventSupport implements ICacheEventSink {
+
+    private static final String CATEGORY = "bd-cache";
+
+    private static final LoadEvent LOAD_PROBE = new LoadEvent();
+    private static final LockWaitEvent LOCK_WAIT_PROBE = new LockWaitEvent();
+    private static final TierMissEvent TIER_MISS_PROBE = new TierMissEvent();
+    private static final PromotionEvent PROMOTION_PROBE = new PromotionEvent();
+    private static final FallbackEvent FALLBACK_PROBE = new FallbackEvent();
+    private static final EvictionEvent EVICTION_PROBE = new EvictionEvent();
+
+    @Override
+    public Object beginLoad() {
+        if (!LOAD_PROBE.isEnabled()) {
+            return null;
+        }
+        LoadEvent event = new LoadEvent();
+        event.begin();
+        return event;
+    }
+
+    @Override
+    public void endLoad(Object token, String dataDesc, String key, boolean success) {
+        LoadEvent event = (LoadEvent) token;
+        event.end();
+        if (event.shouldCommit()) {
+            event.dataDesc = dataDesc;
+            event.key = key;
+            event.success = success;
+            event.commit();
+        }
+    }
+
+    @Override
+    public Object beginLockWait() {
+        if (!LOCK_WAIT_PROBE.isEnabled()) {
+            return null;
+        }
+        LockWaitEvent event = new LockWaitEvent();
+        event.begin();
+        return event;
+    }
+
+    @Override
+    public void endLockWait(Object token, String lockDesc, String key, boolean acquired) {
+        LockWaitEvent event = (LockWaitEvent) token;
+        event.end();
+        if (event.shouldCommit()) {
+            event.lockDesc = lockDesc;
+            event.key = key;
+            event.acquired = acquired;
+            event.commit();
+        }
+    }
+
+    @Override
+    public Object beginLookup() {
+        if (!TIER_MISS_PROBE.isEnabled()) {
+            return null;
+        }
+        TierMissEvent event = new TierMissEvent();
+        event.begin();
+        return event;
+    }
+
+    @Override
+    public void endLookup(Object token, String dataDesc, String key, int hitTier, int missedTiers) {
+        TierMissEvent event = (TierMissEvent) token;
+        event.end();
+        if (event.shouldCommit()) {
+            event.dataDesc = dataDesc;
+            event.key = key;
+            event.hitTier = hitTier;
+            event.missedTiers = missedTiers;
+            event.commit();
+        }
+    }
+
+    @Override
+    public Object beginPromotion() {
+        if (!PROMOTION_PROBE.isEnabled()) {
+            return null;
+        }
+        PromotionEvent event = new PromotionEvent();
+        event.begin();
+        return event;
+    }
+
+    @Override
+    public void endPromotion(Object token, String dataDesc, String key, int tier, String storageDesc) {
+        PromotionEvent event = (PromotionEvent) token;
+        event.end();
+        if (event.shouldCommit()) {
+            event.dataDesc = dataDesc;
+            event.key = key;
+            event.tier = tier;
+            event.storageDesc = storageDesc;
+            event.commit();
+        }
+    }
+
+    @Override
+    public void onFallback(String dataDesc, String key, String reason) {
+        if (!FALLBACK_PROBE.isEnabled()) {
+            return;
+        }
+        FallbackEvent event = new FallbackEvent();
+        event.dataDesc = dataDesc;
+        event.key = key;
+        event.reason = reason;
+        event.commit();
+    }
+
+    @Override
+    public void onEviction(String storageDesc, String key, String reason) {
+        if (!EVICTION_PROBE.isEnabled()) {
+            return;
+        }
+        EvictionEvent event = new EvictionEvent();
+        event.storageDesc = storageDesc;
+        event.key = key;
+        event.reason = reason;
+        event.commit();
+    }
+
+    // ***********************内部类****************************
+
+    @Name("bd.cache.DatasourceLoad")
+    @Label("数据源加载")
+    @Category(CATEGORY)
+    @StackTrace(false)
+    static class LoadEvent extends Event {
+        @Label("数据描述")
+        String dataDesc;
+        @Label("键")
+        String key;
+        @Label("是否成功")
+        boolean success;
+    }
+
+    @Name("bd.cache.FetchLockWait")
+    @Label("等待fetch锁")
+    @Category(CATEGORY)
+    @StackTrace(false)
+    static class LockWaitEvent extends Event {
+        @Label("锁描述")
+        String lockDesc;
+        @Label("键")
+        String key;
+        @Label("是否获取到锁")
+        boolean acquired;
+    }
+
+    @Name("bd.cache.TierMiss")
+    @Label("缓存未命中")
+    @Description("逐级查找缓存时存在未命中的存储器")
+    @Category(CATEGORY)
+    @StackTrace(false)
+    static class TierMissEvent extends Event {
+        @Label("数据描述")
+        String dataDesc;
+        @Label("键")
+        String key;
+        @Label("命中的存储器下标")
+        @Description("全部未命中时为-1")
+        int hitTier;
+        @Label("未命中的存储器数")
+        int missedTiers;
+    }
+
+    @Name("bd.cache.Promotion")
+    @Label("数据提升")
+    @Category(CATEGORY)
+    @StackTrace(false)
+    static class PromotionEvent extends Event {
+        @Label("数据描述")
+        String dataDesc;
+        @Label("键")
+        String key;
+        @Label("写入的存储器下标")
+        int tier;
+        @Label("存储器描述")
+        String storageDesc;
+    }
+
+    @Name("bd.cache.Fallback")
+    @Label("回退到缓存")
+    @Category(CATEGORY)
+    @StackTrace(false)
+    static class FallbackEvent extends Event {
+        @Label("数据描述")
+        String dataDesc;
+        @Label("键")
+        String key;
+        @Label("原因")
+        String reason;
+    }
+
+    @Name("bd.cache.Eviction")
+    @Label("缓存淘汰")
+    @Category(CATEGORY)
+    @StackTrace(false)
+    static class EvictionEvent extends Event {
+        @Label("存储器描述")
+        String storageDesc;
+        @Label("键")
+        String key;
+        @Label("原因")
+        String reason;
+    }
+}
@@ -0,0 +1,143 @@
+package com.soybeany.cache.v2.dm;
+
+import com.soybeany.cache.v2.contract.user.IDatasource;
+import com.soybeany.cache.v2.core.DataManager;
+import com.soybeany.cache.v2.storage.LruMemCacheStorage;
+import com.soybeany.cache.v2.trace.AccessTraceReader;
+import com.soybeany.cache.v2.trace.AccessTraceRecorder;
+import com.soybeany.cache.v2.trace.TraceOp;
+import com.soybeany.cache.v2.trace.TraceRecord;
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * 测试访问轨迹的记录与读取
+ */
+public class AccessTraceDMTest {
+
+    private final Path dir = createDir();
+
+    @After
+    public void tearDown() throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            for (Path file : files.collect(Collectors.toList())) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(dir);
+    }
+
+    @Test
+    public void 记录各类操作() throws Exception {
+        Path file = dir.resolve("trace.bin");
+        AccessTraceRecorder recorder = new AccessTraceRecorder.Builder(file).build();
+        DataManager<String, String> manager = newManager(recorder, s -> {
+            try {
+                Thread.sleep(20);
+            } catch (InterruptedException ignore) {
+            }
+            return "数据:" + s;
+        });
+        manager.getData("key");
+        manager.getData("key");
+        manager.cacheData("key", "新数据");
+        manager.invalidCache("key");
+        manager.removeCache("key");
+        recorder.close();
+
+        List<TraceRecord> records = readAll(file);
+        assert 5 == records.size() : "应记录5条，实际:" + records.size();
+        assert TraceOp.READ == records.get(0).op && TraceRecord.TIER_MISS == records.get(0).tier : "首次读取应未命中";
+        assert records.get(0).loadMicros >= 20_000 : "未命中应记录加载耗时，实际:" + records.get(0).loadMicros;
+        assert TraceOp.READ == records.get(1).op && 0 == records.get(1).tier && 0 == records.get(1).loadMicros : "再次读取应命中一级缓存";
+        assert TraceOp.WRITE == records.get(2).op;
+        assert TraceOp.INVALIDATE == records.get(3).op;
+        assert TraceOp.REMOVE == records.get(4).op;
+        long keyHash = records.get(0).keyHash;
+        assert records.stream().allMatch(r -> r.keyHash == keyHash) : "同一key的散列应一致";
+        assert 5 == recorder.writtenCount() && 0 == recorder.droppedCount();
+    }
+
+    @Test
+    public void 按key抽样() throws Exception {
+        Path file = dir.resolve("sample.bin");
+        AccessTraceRecorder recorder = new AccessTraceRecorder.Builder(file).sampleRate(0.25).build();
+        DataManager<String, String> manager = newManager(recorder, s -> "数据:" + s);
+        for (int round = 0; round < 3; round++) {
+            for (int i = 0; i < 1000; i++) {
+                manager.getData("key" + i);
+            }
+        }
+        recorder.close();
+
+        Map<Long, Integer> counts = new HashMap<>();
+        readAll(file).forEach(r -> counts.merge(r.keyHash, 1, Integer::sum));
+        assert counts.size() > 150 && counts.size() < 350 : "抽样的key数目应约为250，实际:" + counts.size();
+        assert counts.values().stream().allMatch(c -> 3 == c) : "被抽中的key应记录全部访问";
+    }
+
+    @Test
+    public void 超出大小后滚动() throws Exception {
+        Path file = dir.resolve("roll.bin");
+        AccessTraceRecorder recorder = new AccessTraceRecorder.Builder(file).maxFileBytes(8 + 22 * 10).maxBackups(100).build();
+        DataManager<String, String> manager = newManager(recorder, s -> "数据:" + s);
+        for (int i = 0; i < 95; i++) {
+            manager.getData("key" + i);
+        }
+        recorder.close();
+
+        assert Files.exists(dir.resolve("roll.bin.9")) : "应滚动出9个历史文件";
+        assert Files.size(file) <= 8 + 22 * 10;
+        List<TraceRecord> records = readAll(file);
+        assert 95 == records.size() : "应能按顺序读出全部记录，实际:" + records.size();
+        for (int i = 1; i < records.size(); i++) {
+            assert records.get(i).timestamp >= records.get(i - 1).timestamp : "记录应按时间排列";
+        }
+    }
+
+    @Test
+    public void 未配置时不记录() {
+        DataManager<String, String> manager = DataManager.Builder
+                .get("轨迹测试", (String s) -> "数据:" + s)
+                .withCache(new LruMemCacheStorage.Builder<String, String>().build())
+                .build();
+        assert "数据:key".equals(manager.getData("key"));
+    }
+
+    // ***********************内部方法****************************
+
+    private static DataManager<String, String> newManager(AccessTraceRecorder recorder, IDatasource<String, String> datasource) {
+        return DataManager.Builder
+                .get("轨迹测试", datasource)
+                .withCache(new LruMemCacheStorage.Builder<String, String>().build())
+                .accessTraceRecorder(recorder)
+                .build();
+    }
+
+    private static List<TraceRecord> readAll(Path file) throws IOException {
+        List<TraceRecord> records = new ArrayList<>();
+        try (AccessTraceReader reader = AccessTraceReader.open(file)) {
+            TraceRecord record = new TraceRecord();
+            while (reader.next(record)) {
+                records.add(record);
+                record = new TraceRecord();
+            }
+        }
+        return records;
+    }
+
+    private static Path createDir() {
+        try {
+            return Files.createTempDirectory("bd-cache-trace");
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.soybeany.cache.v2.dm;
+
+import com.soybeany.cache.v2.contract.user.IDatasource;
+import com.soybeany.cache.v2.core.DataManager;
+import com.soybeany.cache.v2.exception.CacheWaitException;
+import com.soybeany.cache.v2.log.ConsoleLogger;
+import com.soybeany.cache.v2.model.DataPack;
+import com.soybeany.cache.v2.stats.LatencyHistogram;
+import com.soybeany.cache.v2.storage.AdaptiveDatasourceTimeout;
+import com.soybeany.cache.v2.storage.LruMemCacheStorage;
+import org.junit.Test;
+
+/**
+ * 测试自适应数据源超时
+ */
+public class AdaptiveTimeoutDMTest {
+
+    private final IDatasource<String, String> datasource = s -> {
+        try {
+            Thread.sleep(s.startsWith("slow") ? 1000 : 20);
+        } catch (InterruptedException ignore) {
+        }
+        return "数据:" + s;
+    };
+
+    @Test
+    public void 超时根据耗时收敛() {
+        AdaptiveDatasourceTimeout timeout = newTimeout();
+        DataManager<String, String> manager = createManager(timeout);
+        assert timeout.currentTimeoutMs() == 2000 : "样本不足时应使用初始超时";
+        for (int i = 0; i < 20; i++) {
+            assert manager.getDataPack("key" + i).norm();
+        }
+        long timeoutMs = manager.datasourceTimeout("any");
+        assert timeoutMs == timeout.currentTimeoutMs();
+        assert timeoutMs >= 40 && timeoutMs < 500 : "超时应收敛到耗时的倍数附近，实际:" + timeoutMs;
+        // 慢请求会被新的超时截断
+        DataPack<String> pack = manager.getDataPack("slow");
+        assert pack.dataCore.exception instanceof CacheWaitException : "慢请求应超时";
+    }
+
+    @Test
+    public void 超时不超出上下限() {
+        AdaptiveDatasourceTimeout timeout = new AdaptiveDatasourceTimeout.Builder()
+                .initialTimeoutMs(10_000)
+                .minTimeoutMs(300)
+                .maxTimeoutMs(600)
+                .minSamples(1)
+                .refreshMs(0)
+                .build();
+        assert timeout.apply("k") == 600 : "初始超时也应受上限约束";
+        timeout.onRecord(1);
+        assert timeout.apply("k") == 300 : "超时应不低于下限";
+        timeout.onRecord(100_000);
+        timeout.onRecord(100_000);
+        assert timeout.apply("k") == 600 : "超时应不高于上限";
+    }
+
+    @Test
+    public void 直方图分位数误差在范围内() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 1; i <= 10000; i++) {
+            histogram.record(i);
+        }
+        LatencyHistogram.Snapshot snapshot = histogram.snapshotAndReset();
+        assert snapshot.count() == 10000;
+        assertNear(snapshot.percentile(0.5), 5000);
+        assertNear(snapshot.percentile(0.99), 9900);
+        assertNear(snapshot.max(), 10000);
+        assert histogram.snapshot().count() == 0 : "快照后应被清空";
+    }
+
+    // ********************内部方法********************
+
+    private void assertNear(long actual, long expect) {
+        assert Math.abs(actual - expect) <= expect / 16 : "期望:" + expect + "，实际:" + actual;
+    }
+
+    private AdaptiveDatasourceTimeout newTimeout() {
+        return new AdaptiveDatasourceTimeout.Builder()
+                .initialTimeoutMs(2000)
+                .minTimeoutMs(10)
+                .maxTimeoutMs(5000)
+                .multiplier(2)
+                .minSamples(10)
+                .refreshMs(0)
+                .build();
+    }
+
+    private DataManager<String, String> createManager(AdaptiveDatasourceTimeout timeout) {
+        return DataManager.Builder
+                .get("自适应超时测试", datasource)
+                .withCache(new LruMemCacheStorage.Builder<String, String>().build())
+                .logger(new ConsoleLogger())
+                .enableAdaptiveAsyncDatasource(timeout)
+                .build();
+    }
+}
@@ -0,0 +1,137 @@
+package com.soybeany.cache.v2.dm;
+
+import com.soybeany.cache.v2.core.DataManager;
+import com.soybeany.cache.v2.log.AsyncFileLogWriter;
+import com.soybeany.cache.v2.log.StdLogger;
+import com.soybeany.cache.v2.storage.LruMemCacheStorage;
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * 测试异步批量写文件的日志输出
+ */
+public class AsyncLogWriterTest {
+
+    private final Path dir = createDir();
+
+    @After
+    public void tearDown() throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            for (Path file : files.collect(Collectors.toList())) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(dir);
+    }
+
+    @Test
+    public void 关闭时写入全部日志() throws Exception {
+        Path file = dir.resolve("cache.log");
+        AsyncFileLogWriter writer = new AsyncFileLogWriter.Builder(file).build();
+        DataManager<String, String> manager = DataManager.Builder
+                .get("异步日志测试", s -> "数据:" + s)
+                .withCache(new LruMemCacheStorage.Builder<String, String>().build())
+                .logger(new StdLogger(writer))
+                .build();
+        for (int i = 0; i < 100; i++) {
+            manager.getData("key" + (i % 10));
+        }
+        writer.close();
+        List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+        assert 100 == lines.size() : "日志应全部写入，实际:" + lines.size();
+        assert lines.get(0).contains("[INFO]") && lines.get(0).contains("异步日志测试");
+        assert 100 == writer.writtenCount();
+    }
+
+    @Test
+    public void 超出大小后滚动() throws Exception {
+        Path file = dir.resolve("roll.log");
+        AsyncFileLogWriter writer = new AsyncFileLogWriter.Builder(file)
+                .maxFileBytes(1024)
+                .maxBackups(2)
+                .build();
+        for (int i = 0; i < 200; i++) {
+            writer.onWriteInfo("第" + i + "条日志");
+            if (i % 20 == 0) {
+                Thread.sleep(15);
+            }
+        }
+        writer.close();
+        assert Files.size(file) <= 1024 : "当前文件不应超出上限";
+        assert Files.exists(dir.resolve("roll.log.1")) && Files.exists(dir.resolve("roll.log.2")) : "应滚动出历史文件";
+        assert !Files.exists(dir.resolve("roll.log.3")) : "历史文件数不应超出上限";
+    }
+
+    @Test
+    public void 缓冲区满时丢弃而不阻塞() throws Exception {
+        Path file = dir.resolve("drop.log");
+        AsyncFileLogWriter writer = new AsyncFileLogWriter.Builder(file)
+                .capacity(4)
+                .dropPolicy(AsyncFileLogWriter.DropPolicy.DISCARD)
+                .idleWaitMs(1000)
+                .build();
+        int total = 10000;
+        for (int i = 0; i < total; i++) {
+            writer.onWriteWarn("日志" + i);
+        }
+        writer.close();
+        assert writer.droppedCount() > 0 : "缓冲区满时应丢弃";
+        assert writer.droppedCount() + writer.writtenCount() == total : "写入与丢弃之和应等于总数";
+        List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+        assert lines.stream().anyMatch(line -> line.contains("丢弃了")) : "应记录丢弃的数量";
+    }
+
+    @Test
+    public void 关闭时并发写入的日志不丢失计数() throws Exception {
+        for (int round = 0; round < 20; round++) {
+            Path file = dir.resolve("close" + round + ".log");
+            AsyncFileLogWriter writer = new AsyncFileLogWriter.Builder(file).capacity(1024).build();
+            int threadCount = 4;
+            int perThread = 2000;
+            CountDownLatch start = new CountDownLatch(1);
+            Thread[] threads = new Thread[threadCount];
+            for (int i = 0; i < threadCount; i++) {
+                threads[i] = new Thread(() -> {
+                    try {
+                        start.await();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    for (int j = 0; j < perThread; j++) {
+                        writer.onWriteWarn("日志" + j);
+                    }
+                });
+                threads[i].start();
+            }
+            start.countDown();
+            writer.close();
+            for (Thread thread : threads) {
+                thread.join();
+            }
+            long total = (long) threadCount * perThread;
+            assert writer.droppedCount() + writer.writtenCount() == total : "第" + round + "轮，写入" + writer.writtenCount() + "，丢弃" + writer.droppedCount();
+            long lines = Files.readAllLines(file, StandardCharsets.UTF_8).stream().filter(line -> !line.contains("丢弃了")).count();
+            assert lines == writer.writtenCount() : "文件中的日志数应等于写入数";
+            assert 0 == writer.errorCount();
+        }
+    }
+
+    // ***********************内部方法****************************
+
+    private static Path createDir() {
+        try {
+            return Files.createTempDirectory("bd-cache-log");
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.soybeany.cache.v2.dm;
+
+import com.soybeany.cache.v2.contract.user.IBatchDatasource;
+import com.soybeany.cache.v2.core.DataManager;
+import com.soybeany.cache.v2.log.ConsoleLogger;
+import com.soybeany.cache.v2.model.DataPack;
+import com.soybeany.cache.v2.storage.LruMemCacheStorage;
+import org.junit.Test;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * 测试批量加载（合并并发的单key请求）
+ */
+public class BatchLoadDMTest {
+
+    private final List<Integer> batchSizes = new CopyOnWriteArrayList<>();
+
+    private final IBatchDatasource<String, String> datasource = params -> {
+        batchSizes.add(params.size());
+        Map<String, String> result = new HashMap<>();
+        for (String param : params) {
+            if (!param.startsWith("missing")) {
+                result.put(param, "数据:" + param);
+            }
+        }
+        return result;
+    };
+
+    @Test
+    public void 窗口内的并发请求合并为一次批量请求() throws Exception {
+        DataManager<String, String> manager = createManager(200, 100);
+        Map<String, String> results = runConcurrently(manager, 5);
+        for (int i = 0; i < 5; i++) {
+            assert ("数据:key" + i).equals(results.get("key" + i)) : "每个请求应获得各自的数据";
+        }
+        assert batchSizes.size() == 1 : "应合并为一次批量请求，实际:" + batchSizes;
+        assert batchSizes.get(0) == 5;
+    }
+
+    @Test
+    public void 批次满后立刻执行() throws Exception {
+        DataManager<String, String> manager = createManager(5000, 2);
+        long start = System.currentTimeMillis();
+        Map<String, String> results = runConcurrently(manager, 4);
+        long cost = System.currentTimeMillis() - start;
+        assert results.size() == 4;
+        assert cost < 2000 : "批次满后应立刻执行，不等待窗口结束，实际耗时:" + cost;
+        for (int size : batchSizes) {
+            assert size <= 2 : "单批次不应超过上限，实际:" + batchSizes;
+        }
+    }
+
+    @Test
+    public void 命中缓存不受窗口影响() {
+        DataManager<String, String> manager = createManager(300, 100);
+        manager.getData("hit");
+        long start = System.currentTimeMillis();
+        DataPack<String> pack = manager.getDataPack("hit");
+        long cost = System.currentTimeMillis() - start;
+        assert !datasource.equals(pack.provider) : "应命中缓存";
+        assert cost < 100 : "命中缓存不应等待窗口，实际耗时:" + cost;
+    }
+
+    @Test
+    public void 批量结果缺失的入参返回异常() {
+        DataManager<String, String> manager = createManager(0, 100);
+        DataPack<String> pack = manager.getDataPack("missing_key");
+        assert !pack.norm() : "缺失的入参应返回异常";
+    }
+
+    // ********************内部方法********************
+
+    private Map<String, String> runConcurrently(DataManager<String, String> manager, int count) throws InterruptedException {
+        Map<String, String> results = new ConcurrentHashMap<>();
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            String key = "key" + i;
+            threads.add(new Thread(() -> results.put(key, manager.getData(key))));
+        }
+        threads.forEach(Thread::start);
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        return results;
+    }
+
+    private DataManager<String, String> createManager(long windowMs, int maxBatchSize) {
+        return DataManager.Builder
+                .get("批量加载测试", datasource)
+                .withCache(new LruMemCacheStorage.Builder<String, String>().build())
+                .logger(new ConsoleLogger())
+                .enableBatchLoad(windowMs, maxBatchSize)
+                .build();
+    }
+}
@@ -0,0 +1,96 @@
+package com.soybeany.cache.v2.dm;
+
+import com.soybeany.cache.v2.contract.frame.ICacheStorage;
+import com.soybeany.cache.v2.contract.user.IDatasource;
+import com.soybeany.cache.v2.core.DataManager;
+import com.soybeany.cache.v2.exception.BulkheadFullException;
+import com.soybeany.cache.v2.log.ConsoleLogger;
+import com.soybeany.cache.v2.model.DataPack;
+import com.soybeany.cache.v2.storage.LruMemCacheStorage;
+import com.soybeany.cache.v2.storage.StdBulkhead;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * 测试数据源隔离舱
+ */
+public class BulkheadDMTest {
+
+    private final CountDownLatch entered = new CountDownLatch(1);
+
+    private final IDatasource<String, String> slowDatasource = s -> {
+        entered.countDown();
+        try {
+            Thread.sleep(300);
+        } catch (InterruptedException ignore) {
+        }
+        return "数据:" + s;
+    };
+
+    @Test
+    public void 并发已满且不排队时快速拒绝() throws Exception {
+        StdBulkhead bulkhead = new StdBulkhead("测试", 1, 0, 0);
+        DataManager<String, String> manager = createManager(bulkhead, new LruMemCacheStorage.Builder<String, String>().build());
+        Thread threadA = new Thread(() -> manager.getDataPack("keyA"));
+        threadA.start();
+        entered.await();
+        long start = System.currentTimeMillis();
+        DataPack<String> pack = manager.getDataPack("keyB");
+        long cost = System.currentTimeMillis() - start;
+        assert pack.dataCore.exception instanceof BulkheadFullException : "应被隔离舱拒绝";
+        assert cost < 200 : "应快速拒绝，实际耗时:" + cost;
+        assert bulkhead.rejectedCount() == 1;
+        assert bulkhead.activeCount() == 1;
+        threadA.join();
+        assert bulkhead.activeCount() == 0;
+    }
+
+    @Test
+    public void 被拒绝时使用过期缓存() throws Exception {
+        StdBulkhead bulkhead = new StdBulkhead("测试", 1, 0, 0);
+        ICacheStorage<String, String> storage = new LruMemCacheStorage.Builder<String, String>().pTtl(50).build();
+        DataManager<String, String> manager = createManager(bulkhead, storage);
+        manager.cacheData("keyB", "旧数据");
+        Thread.sleep(100);
+        Thread threadA = new Thread(() -> manager.getDataPack("keyA"));
+        threadA.start();
+        entered.await();
+        DataPack<String> pack = manager.getDataPack("keyB");
+        assert pack.norm() : "被拒绝时应返回过期缓存";
+        assert "旧数据".equals(pack.getData());
+        threadA.join();
+    }
+
+    @Test
+    public void 排队等待后正常访问() throws Exception {
+        StdBulkhead bulkhead = new StdBulkhead("测试", 1, 1, 2000);
+        DataManager<String, String> manager = createManager(bulkhead, new LruMemCacheStorage.Builder<String, String>().build());
+        Thread threadA = new Thread(() -> manager.getDataPack("keyA"));
+        threadA.start();
+        entered.await();
+        Thread threadB = new Thread(() -> manager.getDataPack("keyB"));
+        threadB.start();
+        Thread.sleep(100);
+        assert bulkhead.waitingCount() == 1 : "B应在排队，实际:" + bulkhead.waitingCount();
+        // 队列已满，C被拒绝
+        DataPack<String> packC = manager.getDataPack("keyC");
+        assert packC.dataCore.exception instanceof BulkheadFullException : "队列已满时应拒绝";
+        threadA.join();
+        threadB.join();
+        assert "数据:keyB".equals(manager.getCache("keyB")) : "B排队后应访问到数据源";
+        assert bulkhead.rejectedCount() == 1;
+        assert bulkhead.waitingCount() == 0;
+    }
+
+    // ********************内部方法********************
+
+    private DataManager<String, String> createManager(StdBulkhead bulkhead, ICacheStorage<String, String> storage) {
+        return DataManager.Builder
+                .get("隔离舱测试", slowDatasource)
+                .withCache(storage)
+                .logger(new ConsoleLogger())
+                .bulkhead(bulkhead)
+                .build();
+    }
+}
@@ -0,0 +1,180 @@
+package com.soybeany.cache.v2.dm;
+
+import com.soybeany.cache.v2.contract.user.IWeigher;
+import com.soybeany.cache.v2.core.DataManager;
+import com.soybeany.cache.v2.exception.BdCacheException;
+import com.soybeany.cache.v2.model.DataCore;
+import com.soybeany.cache.v2.storage.CacheArena;
+import com.soybeany.cache.v2.storage.CapacityAutoTuner;
+import com.soybeany.cache.v2.storage.LruMemCacheStorage;
+import org.junit.Test;
+
+import java.util.Random;
+
+public class CacheArenaDMTest {
+
+    @Test
+    public void 按总权重淘汰() {
+        LruMemCacheStorage<String, String> storage = new LruMemCacheStorage.Builder<String, String>()
+                .capacity(1000).weigher((key, core) -> 10).maxWeight(100).build();
+        DataManager<String, String> manager = newManager("权重", storage);
+        for (int i = 0; i < 20; i++) {
+            manager.getData("key" + i);
+        }
+        assert 10 == storage.cachedDataCount() : "剩余:" + storage.cachedDataCount();
+        assert 100 == storage.weightedSize();
+        assert 10 == storage.evictedCount();
+        // 覆盖已有的数据，总权重不变
+        manager.cacheData("key19", "new");
+        assert 100 == storage.weightedSize();
+        // 减小上限后按最久未使用淘汰
+        storage.setMaxWeight(50);
+        assert 5 == storage.cachedDataCount();
+        assert 50 == storage.weightedSize();
+        assert manager.containCache("key19");
+        manager.removeCache("key19");
+        assert 40 == storage.weightedSize();
+        manager.clearCache();
+        assert 0 == storage.weightedSize();
+    }
+
+    @Test
+    public void 按json长度估算权重() {
+        IWeigher<String> weigher = new IWeigher.Json<>();
+        long small = weigher.weigh("key", DataCore.fromData("a"));
+        long large = weigher.weigh("key", DataCore.fromData(repeat('a', 1000)));
+        assert small > 0;
+        assert large - small >= 2 * 999 : "权重应随数据长度增长:" + small + "→" + large;
+        assert weigher.weigh("key", DataCore.fromException(new RuntimeException("err"))) > 0;
+    }
+
+    @Test
+    public void 未设置权重计算器时不能限制权重() {
+        LruMemCacheStorage<String, String> storage = new LruMemCacheStorage.Builder<String, String>().capacity(10).build();
+        assert !storage.weighted();
+        assert 0 == storage.weightedSize();
+        try {
+            storage.setMaxWeight(100);
+            throw new RuntimeException("不应成功设置");
+        } catch (BdCacheException ignore) {
+        }
+    }
+
+    @Test
+    public void 初始分配满足最小与最大配额() {
+        DataManager<String, String> a = newManager("a", newStorage());
+        DataManager<String, String> b = newManager("b", newStorage());
+        DataManager<String, String> c = newManager("c", newStorage());
+        CacheArena arena = new CacheArena.Builder(10_000).intervalMs(0)
+                .add(a, 1000, 2000)
+                .add(b, 500, 10_000)
+                .add(c, 0, 10_000)
+                .build();
+        long[] quotas = arena.quotas();
+        assert 2000 == quotas[0] : "达到最大配额:" + quotas[0];
+        assert 10_000 == quotas[0] + quotas[1] + quotas[2];
+        assert quotas[1] >= 500 && quotas[2] >= 0;
+        assert Math.abs(quotas[1] - quotas[2]) <= 500 : "剩余预算应平均分配:" + quotas[1] + "，" + quotas[2];
+        assert 2000 == ((LruMemCacheStorage<?, ?>) a.storages().get(0)).maxWeight();
+        assert 3 == arena.names().size();
+    }
+
+    @Test
+    public void 最小配额之和超出预算时报错() {
+        DataManager<String, String> a = newManager("a", newStorage());
+        DataManager<String, String> b = newManager("b", newStorage());
+        try {
+            new CacheArena.Builder(1000).intervalMs(0).add(a, 600, 1000).add(b, 600, 1000).build();
+            throw new RuntimeException("不应构建成功");
+        } catch (BdCacheException ignore) {
+        }
+    }
+
+    @Test
+    public void 内存移向命中价值高的管理器() {
+        // 每条数据100字节
+        DataManager<String, String> busy = newManager("busy", newStorage());
+        DataManager<String, String> idle = newManager("idle", newStorage());
+        CacheArena arena = new CacheArena.Builder(4000).intervalMs(0).step(100)
+                .add(busy, 500, 4000)
+                .add(idle, 500, 4000)
+                .build();
+        assert 2000 == arena.quotas()[0];
+        idle.getData("only");
+        Random random = new Random(1);
+        for (int round = 0; round < 5; round++) {
+            for (int i = 0; i < 2000; i++) {
+                busy.getData("key" + random.nextInt(40));
+            }
+            arena.rebalance();
+        }
+        long[] quotas = arena.quotas();
+        assert 3500 == quotas[0] : "繁忙的管理器应获得闲置的内存:" + quotas[0];
+        assert 500 == quotas[1] : "闲置的管理器应降至最小配额:" + quotas[1];
+        assert 4000 == quotas[0] + quotas[1];
+        assert ((LruMemCacheStorage<?, ?>) busy.storages().get(0)).weightedSize() <= 3500;
+        assert idle.containCache("only") : "闲置管理器中的数据未超出配额，应保留";
+    }
+
+    @Test
+    public void 命中价值低的管理器让出内存() {
+        DataManager<String, String> hot = newManager("hot", newStorage());
+        DataManager<String, String> cold = newManager("cold", newStorage());
+        CacheArena arena = new CacheArena.Builder(4000).intervalMs(0).step(100)
+                .add(hot, 500, 4000)
+                .add(cold, 500, 4000)
+                .build();
+        Random random = new Random(2);
+        for (int round = 0; round < 3; round++) {
+            for (int i = 0; i < 2000; i++) {
+                // 两者都在淘汰，hot的工作集更集中，命中更多
+                hot.getData("key" + random.nextInt(25));
+                cold.getData("key" + random.nextInt(1000));
+            }
+            arena.rebalance();
+        }
+        long[] quotas = arena.quotas();
+        assert quotas[0] > quotas[1] : "配额:" + quotas[0] + "，" + quotas[1];
+        assert 4000 == quotas[0] + quotas[1];
+    }
+
+    @Test
+    public void 存储器不能同时由内存池与容量调节器调节() {
+        LruMemCacheStorage<String, String> s1 = new LruMemCacheStorage.Builder<String, String>().capacity(1000).weigher((key, core) -> 100).enableMissRatioCurve(0).build();
+        LruMemCacheStorage<String, String> s2 = new LruMemCacheStorage.Builder<String, String>().capacity(1000).weigher((key, core) -> 100).enableMissRatioCurve(0).build();
+        DataManager<String, String> a = newManager("a", s1);
+        DataManager<String, String> b = newManager("b", s2);
+        CacheArena arena = new CacheArena.Builder(4000).intervalMs(0).add(a, 0, 4000).add(b, 0, 4000).build();
+        try {
+            new CapacityAutoTuner.Builder().intervalMs(0).add(a).add(b).build();
+            throw new RuntimeException("不应构建成功");
+        } catch (BdCacheException ignore) {
+        }
+        try {
+            new CacheArena.Builder(4000).intervalMs(0).add(b, 0, 4000).build();
+            throw new RuntimeException("不应构建成功");
+        } catch (BdCacheException ignore) {
+        }
+        arena.close();
+        CapacityAutoTuner tuner = new CapacityAutoTuner.Builder().intervalMs(0).add(a).add(b).build();
+        tuner.close();
+    }
+
+    // ***********************内部方法****************************
+
+    private LruMemCacheStorage<String, String> newStorage() {
+        return new LruMemCacheStorage.Builder<String, String>().capacity(100_000).weigher((key, core) -> 100).build();
+    }
+
+    private DataManager<String, String> newManager(String storageId, LruMemCacheStorage<String, String> storage) {
+        return DataManager.Builder.get("内存池", s -> s).storageId(storageId).withCache(storage).build();
+    }
+
+    private static String repeat(char c, int count) {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            builder.append(c);
+        }
+        return builder.toString();
+    }
+}
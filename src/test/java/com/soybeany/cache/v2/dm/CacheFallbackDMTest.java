@@ -10,6 +10,9 @@ import com.soybeany.cache.v2.storage.LruMemCacheStorage;
 import com.soybeany.cache.v2.storage.StdKeyLock;
 import org.junit.Test;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicInteger;
 
 /**
@@ -395,8 +398,86 @@ public class CacheFallbackDMTest {
         System.out.println("已获锁不中断测试 - 缓存数据:" + pack.getData() + ", fallback耗时:" + (t2 - t1) + "ms, dsCallCount:" + dsCallCount.get());
     }
 
+    // ********************同步快速路径与共享获取********************
+
+    @Test
+    public void fallback_命中未过期缓存时不提交后台任务() {
+        AtomicInteger submitCount = new AtomicInteger();
+        DataManager<String, String> manager = newBuilder(new LruMemCacheStorage.Builder<String, String>().pTtl(60_000).build(), fastDatasource)
+                .asyncFetchExecutor(executor -> newCountingExecutor(submitCount))
+                .build();
+        String key = "fast_path";
+        manager.getDataPack(key);
+        DataPack<String> pack = manager.getDataPackWithCacheFallback(key, 2000L);
+        assert pack.provider instanceof ICacheStorage : "应直接从缓存读取";
+        assert submitCount.get() == 0 : "命中缓存时不应提交后台任务，实际:" + submitCount.get();
+        // 未命中时才提交
+        manager.getDataPackWithCacheFallback("fast_path_miss", 2000L);
+        assert submitCount.get() == 1;
+    }
+
+    @Test
+    public void fallback_二级缓存命中时同步提升() {
+        ICacheStorage<String, String> l1 = new LruMemCacheStorage.Builder<String, String>().pTtl(60_000).build();
+        ICacheStorage<String, String> l2 = new LruMemCacheStorage.Builder<String, String>().pTtl(60_000).build();
+        DataManager<String, String> manager = DataManager.Builder
+                .get("回退提升测试", slowDatasource)
+                .withCache(l1)
+                .withCache(l2)
+                .logger(new ConsoleLogger())
+                .build();
+        String key = "promote";
+        manager.getDataPack(key, fastDatasource);
+        manager.removeCache(key, 0);
+        DataPack<String> pack = manager.getDataPackWithCacheFallback(key, 100L);
+        assert l2.equals(pack.provider) : "应从l2读取，实际:" + pack.provider;
+        assert l1.equals(manager.getDataPack(key).provider) : "l2的数据应被提升到l1";
+    }
+
+    @Test
+    public void fallback_同一key的并发请求共享一次后台获取() throws Exception {
+        AtomicInteger submitCount = new AtomicInteger();
+        AtomicInteger dsCallCount = new AtomicInteger();
+        IDatasource<String, String> slowDs = s -> {
+            dsCallCount.incrementAndGet();
+            try {
+                Thread.sleep(300);
+            } catch (InterruptedException ignore) {
+            }
+            return "共享数据";
+        };
+        DataManager<String, String> manager = newBuilder(new LruMemCacheStorage.Builder<String, String>().build(), slowDs)
+                .asyncFetchExecutor(executor -> newCountingExecutor(submitCount))
+                .build();
+        List<Thread> threads = new ArrayList<>();
+        List<String> results = new CopyOnWriteArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            threads.add(new Thread(() -> results.add(manager.getDataWithCacheFallback("shared", 2000L))));
+        }
+        threads.forEach(Thread::start);
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assert results.size() == 5;
+        results.forEach(result -> {
+            assert "共享数据".equals(result);
+        });
+        assert submitCount.get() == 1 : "并发请求应共享后台任务，实际提交:" + submitCount.get();
+        assert dsCallCount.get() == 1 : "数据源应只被访问1次，实际:" + dsCallCount.get();
+    }
+
     // ********************内部方法********************
 
+    private ExecutorService newCountingExecutor(AtomicInteger submitCount) {
+        return new ThreadPoolExecutor(0, Integer.MAX_VALUE, 60L, TimeUnit.SECONDS, new SynchronousQueue<>()) {
+            @Override
+            public void execute(Runnable command) {
+                submitCount.incrementAndGet();
+                super.execute(command);
+            }
+        };
+    }
+
     private DataManager<String, String> createManager(IDatasource<String, String> ds) {
         return createManager(new LruMemCacheStorage.Builder<String, String>().pTtl(200).build(), ds);
     }
@@ -0,0 +1,254 @@
+package com.soybeany.cache.v2.dm;
+
+import com.soybeany.cache.v2.contract.user.IDatasource;
+import com.soybeany.cache.v2.core.CacheRegistry;
+import com.soybeany.cache.v2.core.DataManager;
+import com.soybeany.cache.v2.exception.BdCacheException;
+import com.soybeany.cache.v2.exception.DatasourceRejectedException;
+import com.soybeany.cache.v2.log.AsyncFileLogWriter;
+import com.soybeany.cache.v2.model.DataPack;
+import com.soybeany.cache.v2.storage.CacheArena;
+import com.soybeany.cache.v2.storage.LruMemCacheStorage;
+import com.soybeany.cache.v2.trace.AccessTraceRecorder;
+import com.soybeany.cache.v2.trace.TraceOp;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+public class CacheRegistryDMTest {
+
+    @Test
+    public void 按storageId登记与查询() {
+        CacheRegistry registry = new CacheRegistry.Builder().build();
+        try {
+            DataManager<String, String> b = newManager(registry, "b", s -> s);
+            DataManager<String, String> a = newManager(registry, "a", s -> s);
+            assert Arrays.asList("a", "b").equals(registry.storageIds()) : "storageId:" + registry.storageIds();
+            assert a == registry.get("a");
+            assert Arrays.asList(a, b).equals(registry.managers());
+            assert null == registry.get("c");
+            // 相同storageId不能重复登记
+            try {
+                newManager(registry, "a", s -> s);
+                throw new RuntimeException("storageId重复时应抛出异常");
+            } catch (BdCacheException e) {
+                assert a == registry.get("a") : "已登记的管理器不应被替换";
+            }
+            // 重复登记同一实例不报错
+            registry.register(a);
+            // 注销后可用相同storageId登记新实例
+            registry.unregister(a);
+            DataManager<String, String> newA = newManager(registry, "a", s -> s);
+            assert newA == registry.get("a");
+            registry.unregister(a);
+            assert newA == registry.get("a") : "旧实例注销时不应影响新实例";
+            registry.unregister(newA);
+            assert Arrays.asList("b").equals(registry.storageIds());
+        } finally {
+            registry.shutdown(1000);
+        }
+    }
+
+    @Test
+    public void 使用注册中心的有界执行器() throws Exception {
+        CacheRegistry registry = new CacheRegistry.Builder().name("test-registry").fetchThreads(1).fetchQueueCapacity(1).build();
+        try {
+            AtomicReference<String> threadName = new AtomicReference<>();
+            DataManager<String, String> manager = DataManager.Builder.get("注册中心", (String s) -> {
+                threadName.set(Thread.currentThread().getName());
+                return s;
+            }).storageId("bounded").registry(registry).enableAsyncDatasource(p -> 2000L).build();
+            assert "key".equals(manager.getData("key"));
+            assert threadName.get().startsWith("test-registry-fetch") : "线程名:" + threadName.get();
+            // 占满线程与队列
+            CountDownLatch started = new CountDownLatch(1);
+            CountDownLatch release = new CountDownLatch(1);
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < 2; i++) {
+                futures.add(registry.fetchExecutor().submit(() -> {
+                    started.countDown();
+                    release.await();
+                    return null;
+                }));
+                started.await();
+            }
+            DataPack<String> pack = manager.getDataPack("key2");
+            assert pack.dataCore.exception instanceof DatasourceRejectedException : "执行器已满时应拒绝访问:" + pack.dataCore.exception;
+            release.countDown();
+            for (Future<?> future : futures) {
+                future.get(1, TimeUnit.SECONDS);
+            }
+            assert "key2".equals(manager.getData("key2"));
+        } finally {
+            registry.shutdown(1000);
+        }
+    }
+
+    @Test
+    public void 周期任务异常不中止之后的执行() throws Exception {
+        List<String> errors = Collections.synchronizedList(new ArrayList<>());
+        CacheRegistry registry = new CacheRegistry.Builder().errorHandler((desc, e) -> errors.add(desc + ":" + e.getMessage())).build();
+        try {
+            AtomicInteger count = new AtomicInteger();
+            registry.scheduleWithFixedDelay("异常任务", () -> {
+                count.incrementAndGet();
+                throw new RuntimeException("测试异常");
+            }, 0, 10);
+            long deadline = System.currentTimeMillis() + 2000;
+            while (count.get() < 3 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            assert count.get() >= 3 : "执行次数:" + count.get();
+            assert registry.errorCount() >= 3 : "异常数:" + registry.errorCount();
+            assert errors.get(0).equals("周期任务“异常任务”异常:测试异常") : "异常:" + errors.get(0);
+        } finally {
+            registry.shutdown(1000);
+        }
+    }
+
+    @Test
+    public void 关闭时等待任务并按逆序关闭组件() throws Exception {
+        CacheRegistry registry = new CacheRegistry.Builder().build();
+        newManager(registry, "m", s -> s);
+        List<String> closed = new ArrayList<>();
+        registry.addCloseable(() -> closed.add("first"));
+        registry.addCloseable(() -> closed.add("second"));
+        AtomicInteger periodic = new AtomicInteger();
+        registry.scheduleWithFixedDelay("计数", periodic::incrementAndGet, 0, 5);
+        AtomicInteger finished = new AtomicInteger();
+        registry.fetchExecutor().submit(() -> {
+            try {
+                Thread.sleep(200);
+            } catch (InterruptedException ignore) {
+            }
+            finished.incrementAndGet();
+        });
+        assert registry.shutdown(2000) : "应在超时前完成";
+        assert 1 == finished.get() : "执行中的任务应完成";
+        assert Arrays.asList("second", "first").equals(closed) : "关闭顺序:" + closed;
+        assert registry.isShutdown();
+        assert registry.storageIds().isEmpty();
+        int count = periodic.get();
+        Thread.sleep(50);
+        assert count == periodic.get() : "周期任务应停止";
+        try {
+            newManager(registry, "late", s -> s);
+            throw new RuntimeException("关闭后不应再登记");
+        } catch (BdCacheException ignore) {
+        }
+        // 重复关闭不作处理
+        assert registry.shutdown(0);
+    }
+
+    @Test
+    public void 关闭组件的异常不中止关闭() {
+        CacheRegistry registry = new CacheRegistry.Builder().errorHandler((desc, e) -> {
+            throw new RuntimeException("处理器异常");
+        }).build();
+        List<String> closed = new ArrayList<>();
+        registry.addCloseable(() -> closed.add("first"));
+        registry.addCloseable(() -> {
+            throw new IOException("关闭异常");
+        });
+        assert registry.shutdown(1000);
+        assert Collections.singletonList("first").equals(closed) : "之后的组件仍应关闭:" + closed;
+        assert 1 == registry.errorCount();
+    }
+
+    @Test
+    public void 日志输出与访问记录器随注册中心关闭() throws Exception {
+        Path dir = Files.createTempDirectory("registry");
+        CacheRegistry registry = new CacheRegistry.Builder().build();
+        AsyncFileLogWriter writer = new AsyncFileLogWriter.Builder(dir.resolve("cache.log")).idleWaitMs(1000).registry(registry).build();
+        AccessTraceRecorder recorder = new AccessTraceRecorder.Builder(dir.resolve("trace.bin")).idleWaitMs(1000).registry(registry).build();
+        AsyncFileLogWriter closedWriter = new AsyncFileLogWriter.Builder(dir.resolve("closed.log")).registry(registry).build();
+        closedWriter.close();
+        writer.onWriteInfo("msg");
+        recorder.record("key", TraceOp.READ, 0, 0);
+        registry.shutdown(1000);
+        assert 1 == writer.writtenCount() : "关闭时应写入缓冲区中的日志";
+        assert 1 == recorder.writtenCount() : "关闭时应写入缓冲区中的记录";
+        assert 0 == registry.errorCount() : "已关闭的组件应从注册中心注销";
+        writer.onWriteInfo("late");
+        assert 1 == writer.droppedCount() : "关闭后的日志应丢弃";
+        try {
+            new AsyncFileLogWriter.Builder(dir.resolve("late.log")).registry(registry).build();
+            throw new RuntimeException("注册中心关闭后不应登记");
+        } catch (BdCacheException ignore) {
+        }
+    }
+
+    @Test
+    public void 组件的周期任务使用注册中心或独立调度器() throws Exception {
+        CacheRegistry registry = new CacheRegistry.Builder().build();
+        List<String> closed = new ArrayList<>();
+        AtomicInteger shared = new AtomicInteger();
+        CacheRegistry.ScheduledTask sharedTask = CacheRegistry.scheduleOrOwn(registry, "own", "共享", shared::incrementAndGet, 5, () -> closed.add("shared"));
+        AtomicInteger own = new AtomicInteger();
+        CacheRegistry.ScheduledTask ownTask = CacheRegistry.scheduleOrOwn(null, "own", "独立", own::incrementAndGet, 5, () -> closed.add("own"));
+        long deadline = System.currentTimeMillis() + 2000;
+        while ((shared.get() < 2 || own.get() < 2) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assert shared.get() >= 2 && own.get() >= 2 : "共享:" + shared.get() + "，独立:" + own.get();
+        assert 0 == ownTask.errorCount() && 0 == sharedTask.errorCount();
+        ownTask.close();
+        sharedTask.close();
+        // 等待执行中的任务完成
+        Thread.sleep(20);
+        int sharedCount = shared.get(), ownCount = own.get();
+        Thread.sleep(50);
+        assert sharedCount == shared.get() && ownCount == own.get() : "关闭后周期任务应停止";
+        registry.shutdown(1000);
+        assert closed.isEmpty() : "已关闭的组件应从注册中心注销:" + closed;
+    }
+
+    @Test
+    public void 内存池使用共享调度器() throws Exception {
+        CacheRegistry registry = new CacheRegistry.Builder().build();
+        try {
+            DataManager<String, String> busy = newWeightedManager(registry, "busy");
+            DataManager<String, String> idle = newWeightedManager(registry, "idle");
+            newManager(registry, "plain", s -> s);
+            CacheArena arena = new CacheArena.Builder(4000).step(100).intervalMs(20).registry(registry)
+                    .addAll(registry, 500, 4000)
+                    .build();
+            assert Arrays.asList("busy", "idle").equals(arena.names()) : "未设置权重计算器的管理器不应加入:" + arena.names();
+            idle.getData("only");
+            Random random = new Random(1);
+            long deadline = System.currentTimeMillis() + 3000;
+            while (arena.quotas()[0] <= 2000 && System.currentTimeMillis() < deadline) {
+                for (int i = 0; i < 500; i++) {
+                    busy.getData("key" + random.nextInt(40));
+                }
+                Thread.sleep(5);
+            }
+            assert arena.quotas()[0] > 2000 : "定时再分配应生效:" + arena.quotas()[0];
+        } finally {
+            registry.shutdown(1000);
+        }
+    }
+
+    // ***********************内部方法****************************
+
+    private DataManager<String, String> newManager(CacheRegistry registry, String storageId, IDatasource<String, String> datasource) {
+        return DataManager.Builder.get("注册中心", datasource).storageId(storageId).registry(registry).build();
+    }
+
+    private DataManager<String, String> newWeightedManager(CacheRegistry registry, String storageId) {
+        LruMemCacheStorage<String, String> storage = new LruMemCacheStorage.Builder<String, String>().capacity(100_000).weigher((key, core) -> 100).build();
+        return DataManager.Builder.get("注册中心", (String s) -> s).storageId(storageId).withCache(storage).registry(registry).build();
+    }
+}
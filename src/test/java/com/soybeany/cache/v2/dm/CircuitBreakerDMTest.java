@@ -0,0 +1,144 @@
+package com.soybeany.cache.v2.dm;
+
+import com.soybeany.cache.v2.contract.frame.ICacheStorage;
+import com.soybeany.cache.v2.contract.user.IDatasource;
+import com.soybeany.cache.v2.core.DataManager;
+import com.soybeany.cache.v2.exception.CircuitOpenException;
+import com.soybeany.cache.v2.log.ConsoleLogger;
+import com.soybeany.cache.v2.model.DataPack;
+import com.soybeany.cache.v2.storage.LruMemCacheStorage;
+import com.soybeany.cache.v2.storage.StdCircuitBreaker;
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 测试数据源熔断器
+ */
+public class CircuitBreakerDMTest {
+
+    private final AtomicInteger dsCallCount = new AtomicInteger();
+    private final AtomicBoolean dsDown = new AtomicBoolean();
+
+    private final IDatasource<String, String> datasource = s -> {
+        dsCallCount.incrementAndGet();
+        if (dsDown.get()) {
+            throw new RuntimeException("数据源不可用");
+        }
+        return "数据:" + s;
+    };
+
+    @Test
+    public void 连续失败后熔断_不再访问数据源() {
+        StdCircuitBreaker breaker = newBreaker(60_000);
+        DataManager<String, String> manager = createManager(breaker, datasource);
+        dsDown.set(true);
+        for (int i = 0; i < 4; i++) {
+            assert !manager.getDataPack("key" + i).norm();
+        }
+        assert breaker.state() == StdCircuitBreaker.State.OPEN : "失败率达到阈值后应打开熔断器";
+        int count = dsCallCount.get();
+        DataPack<String> pack = manager.getDataPack("other");
+        assert pack.dataCore.exception instanceof CircuitOpenException : "无缓存时应返回熔断异常";
+        assert dsCallCount.get() == count : "熔断期间不应访问数据源";
+    }
+
+    @Test
+    public void 熔断时直接使用过期缓存() throws Exception {
+        StdCircuitBreaker breaker = newBreaker(60_000);
+        ICacheStorage<String, String> storage = new LruMemCacheStorage.Builder<String, String>().pTtl(100).build();
+        DataManager<String, String> manager = createManager(breaker, storage, datasource);
+        manager.getDataPack("stale");
+        Thread.sleep(150);
+        // 使熔断器打开
+        dsDown.set(true);
+        for (int i = 0; i < 4; i++) {
+            manager.getDataPack("key" + i);
+        }
+        assert breaker.state() == StdCircuitBreaker.State.OPEN;
+        // 过期缓存应被直接返回
+        DataPack<String> pack = manager.getDataPack("stale");
+        assert pack.norm() : "熔断时应返回过期缓存";
+        assert "数据:stale".equals(pack.getData());
+        assert storage.equals(pack.provider);
+    }
+
+    @Test
+    public void 半开探测成功后恢复() throws Exception {
+        StdCircuitBreaker breaker = newBreaker(100);
+        DataManager<String, String> manager = createManager(breaker, datasource);
+        dsDown.set(true);
+        for (int i = 0; i < 4; i++) {
+            manager.getDataPack("key" + i);
+        }
+        assert breaker.state() == StdCircuitBreaker.State.OPEN;
+        // 等待进入半开，数据源恢复
+        Thread.sleep(150);
+        dsDown.set(false);
+        DataPack<String> pack = manager.getDataPack("probe");
+        assert pack.norm() : "半开探测应访问数据源";
+        assert breaker.state() == StdCircuitBreaker.State.CLOSED : "探测成功后应关闭熔断器";
+    }
+
+    @Test
+    public void 半开探测失败后重新打开() throws Exception {
+        StdCircuitBreaker breaker = newBreaker(100);
+        DataManager<String, String> manager = createManager(breaker, datasource);
+        dsDown.set(true);
+        for (int i = 0; i < 4; i++) {
+            manager.getDataPack("key" + i);
+        }
+        Thread.sleep(150);
+        int count = dsCallCount.get();
+        manager.getDataPack("probe1");
+        manager.getDataPack("probe2");
+        assert dsCallCount.get() == count + 1 : "半开期间只允许一次探测，实际:" + (dsCallCount.get() - count);
+        assert breaker.state() == StdCircuitBreaker.State.OPEN : "探测失败后应重新打开";
+    }
+
+    @Test
+    public void 慢调用计为失败() {
+        StdCircuitBreaker breaker = new StdCircuitBreaker.Builder("慢调用")
+                .windowSize(4)
+                .minCalls(2)
+                .slowCallMs(50)
+                .openMs(60_000)
+                .build();
+        IDatasource<String, String> slowDatasource = s -> {
+            try {
+                Thread.sleep(80);
+            } catch (InterruptedException ignore) {
+            }
+            return "慢数据";
+        };
+        DataManager<String, String> manager = createManager(breaker, slowDatasource);
+        manager.getDataPack("k1");
+        manager.getDataPack("k2");
+        assert breaker.state() == StdCircuitBreaker.State.OPEN : "慢调用应导致熔断";
+    }
+
+    // ********************内部方法********************
+
+    private StdCircuitBreaker newBreaker(long openMs) {
+        return new StdCircuitBreaker.Builder("测试")
+                .windowSize(4)
+                .minCalls(4)
+                .failureRateThreshold(0.5f)
+                .openMs(openMs)
+                .build();
+    }
+
+    private DataManager<String, String> createManager(StdCircuitBreaker breaker, IDatasource<String, String> ds) {
+        return createManager(breaker, new LruMemCacheStorage.Builder<String, String>().pTtlErr(1).build(), ds);
+    }
+
+    private DataManager<String, String> createManager(StdCircuitBreaker breaker, ICacheStorage<String, String> storage, IDatasource<String, String> ds) {
+        return DataManager.Builder
+                .get("熔断测试", ds)
+                .withCache(storage)
+                .logger(new ConsoleLogger())
+                .circuitBreaker(breaker)
+                .build();
+    }
+}
@@ -6,9 +6,13 @@ import com.soybeany.cache.v2.contract.user.IDatasource;
 import com.soybeany.cache.v2.core.DataManager;
 import com.soybeany.cache.v2.log.ConsoleLogger;
 import com.soybeany.cache.v2.model.DataPack;
+import com.soybeany.cache.v2.model.DataParam;
 import com.soybeany.cache.v2.storage.LruMemCacheStorage;
 import org.junit.Test;
 
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * 测试多级缓存中的数据提升(Data Promotion)行为，以及needStore=false模式<br>
  * 对应{@link com.soybeany.cache.v2.core.DataManager#getDataPack} 中数据回写(数据提升)逻辑
@@ -89,6 +93,35 @@ public class DataPromotionDMTest {
         assert l1.equals(pack.provider) : "缓存未过期时应直接从l1读取，实际: " + pack.provider;
     }
 
+    @Test
+    public void promotion_深层缓存命中后提升到所有上级() {
+        DataManager.Builder<String, String> builder = DataManager.Builder
+                .get("深层提升测试", datasource)
+                .logger(new ConsoleLogger());
+        List<ICacheStorage<String, String>> tiers = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            ICacheStorage<String, String> storage = new LruMemCacheStorage.Builder<String, String>().pTtl(60_000).build();
+            tiers.add(storage);
+            builder.withCache(storage);
+        }
+        DataManager<String, String> manager = builder.build();
+        String key = "promotion_deep";
+        // 只在最底层写入数据
+        ICacheStorage<String, String> last = tiers.get(tiers.size() - 1);
+        last.onCacheData(new DataParam<>("深层提升测试", key, key), manager.getDataPackDirectly(key));
+        DataPack<String> pack = manager.getDataPack(key);
+        assert last.equals(pack.provider) : "应从最底层获取，实际: " + pack.provider;
+        for (ICacheStorage<String, String> storage : tiers) {
+            assert 1 == storage.cachedDataCount() : "数据应被提升到所有上级";
+        }
+        assert tiers.get(0).equals(manager.getDataPack(key).provider);
+        try {
+            manager.storages().clear();
+            throw new IllegalStateException("存储器列表不应允许修改");
+        } catch (UnsupportedOperationException ignore) {
+        }
+    }
+
     // ********************needStore=false********************
 
     @Test
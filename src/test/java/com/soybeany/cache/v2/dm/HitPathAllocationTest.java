@@ -0,0 +1,73 @@
+package com.soybeany.cache.v2.dm;
+
+import com.soybeany.cache.v2.contract.frame.ICacheStorage;
+import com.soybeany.cache.v2.core.DataManager;
+import com.soybeany.cache.v2.model.DataPack;
+import com.soybeany.cache.v2.storage.LruMemCacheStorage;
+import org.junit.Assume;
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.lang.reflect.Method;
+
+/**
+ * 观察缓存命中路径的内存分配，只输出测量结果<br>
+ * 分配的字节数依赖JIT(逃逸分析)，受-Xint、覆盖率工具等影响，分配的上限由基准测试DataManagerBenchmark.hit(-prof gc)检查<br>
+ * 只在HotSpot且支持按线程统计分配时执行
+ */
+public class HitPathAllocationTest {
+
+    private static final int WARM_UP = 200_000;
+    private static final int ROUNDS = 200_000;
+
+    @Test
+    public void 一级缓存命中时的分配() throws Exception {
+        Method allocatedBytes = allocatedBytesMethod();
+        ICacheStorage<String, String> storage = new LruMemCacheStorage.Builder<String, String>().build();
+        DataManager<String, String> manager = DataManager.Builder
+                .get("分配测试", s -> "数据")
+                .withCache(storage)
+                .build();
+        manager.getData("key");
+        long bytesPerHit = measure(manager, allocatedBytes);
+        System.out.println("每次命中分配的字节数:" + bytesPerHit);
+    }
+
+    // ********************内部方法********************
+
+    /**
+     * 不满足测量条件时跳过测试
+     */
+    private Method allocatedBytesMethod() throws Exception {
+        Assume.assumeTrue("仅在HotSpot中测量", System.getProperty("java.vm.name", "").contains("HotSpot")
+                || System.getProperty("java.vm.name", "").contains("OpenJDK"));
+        Class<?> type;
+        try {
+            type = Class.forName("com.sun.management.ThreadMXBean");
+        } catch (ClassNotFoundException e) {
+            type = null;
+        }
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        Assume.assumeTrue("不支持按线程统计分配", null != type && type.isInstance(bean)
+                && (Boolean) type.getMethod("isThreadAllocatedMemorySupported").invoke(bean)
+                && (Boolean) type.getMethod("isThreadAllocatedMemoryEnabled").invoke(bean));
+        return type.getMethod("getThreadAllocatedBytes", long.class);
+    }
+
+    private long measure(DataManager<String, String> manager, Method allocatedBytes) throws Exception {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        DataPack<String> pack = null;
+        for (int i = 0; i < WARM_UP; i++) {
+            pack = manager.getDataPack("key");
+        }
+        long start = (Long) allocatedBytes.invoke(bean, threadId);
+        for (int i = 0; i < ROUNDS; i++) {
+            pack = manager.getDataPack("key");
+        }
+        long end = (Long) allocatedBytes.invoke(bean, threadId);
+        assert pack.norm();
+        return (end - start) / ROUNDS;
+    }
+}
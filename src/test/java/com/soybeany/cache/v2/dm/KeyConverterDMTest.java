@@ -0,0 +1,211 @@
+package com.soybeany.cache.v2.dm;
+
+import com.soybeany.cache.v2.contract.user.IDatasource;
+import com.soybeany.cache.v2.contract.user.IKeyConverter;
+import com.soybeany.cache.v2.core.DataManager;
+import com.soybeany.cache.v2.exception.BdCacheException;
+import com.soybeany.cache.v2.log.ConsoleLogger;
+import com.soybeany.cache.v2.model.DataPack;
+import com.soybeany.cache.v2.model.DataParam;
+import com.soybeany.cache.v2.storage.LruMemCacheStorage;
+import com.soybeany.cache.v2.storage.PojoKeyConverter;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 测试POJO入参的key转换器，及描述的延迟生成
+ */
+public class KeyConverterDMTest {
+
+    private final IDatasource<Query, String> datasource = q -> "数据:" + q.name + "_" + q.page;
+
+    @Test
+    public void 相同字段值共享缓存() {
+        DataManager<Query, String> manager = DataManager.Builder
+                .get("POJO测试", datasource, new PojoKeyConverter<>(Query.class))
+                .withCache(new LruMemCacheStorage.Builder<Query, String>().build())
+                .logger(new ConsoleLogger())
+                .build();
+        assert datasource.equals(manager.getDataPack(new Query("a", 1)).provider);
+        assert !datasource.equals(manager.getDataPack(new Query("a", 1)).provider) : "字段值相同应命中缓存";
+        assert datasource.equals(manager.getDataPack(new Query("a", 2)).provider) : "字段值不同应访问数据源";
+        assert datasource.equals(manager.getDataPack(new Query(null, 1)).provider);
+    }
+
+    @Test
+    public void key的生成规则() {
+        PojoKeyConverter<Query> converter = new PojoKeyConverter<>(Query.class);
+        assert "a\\|b|3".equals(converter.getKey(new Query("a|b", 3))) : "分隔符应被转义";
+        assert "\\0|3".equals(converter.getKey(new Query(null, 3))) : "null应有专门的记号";
+        assert !converter.getKey(new Query("a|", 1)).equals(converter.getKey(new Query("a", 1))) : "转义后不应冲突";
+        // 只使用指定字段，transient字段不参与
+        assert "3".equals(new PojoKeyConverter<>(Query.class, "page").getKey(new Query("x", 3)));
+    }
+
+    @Test
+    public void 重写了toString的枚举与数值不产生冲突() {
+        PojoKeyConverter<Filter> converter = new PojoKeyConverter<>(Filter.class);
+        assert "1|A".equals(converter.getKey(new Filter(Level.A, new Amount("1"))));
+        String key1 = converter.getKey(new Filter(Level.A, new Amount("1|B")));
+        String key2 = converter.getKey(new Filter(Level.B, new Amount("1")));
+        assert !key1.equals(key2) : "自定义Number的toString应被转义:" + key1;
+        assert "\\\\0|A".equals(converter.getKey(new Filter(Level.A, new Amount("\\0")))) : "转义符应被转义";
+    }
+
+    @Test
+    public void 数组按元素生成key() {
+        PojoKeyConverter<Tags> converter = new PojoKeyConverter<>(Tags.class);
+        String key = converter.getKey(new Tags(new int[]{1, 2}, new String[][]{{"a", null}, {"b|c"}}, null));
+        assert "\\0|[1, 2]|[[a, \\0], [b\\|c]]".equals(key) : "key:" + key;
+        assert key.equals(converter.getKey(new Tags(new int[]{1, 2}, new String[][]{{"a", null}, {"b|c"}}, null))) : "元素相同的数组应生成相同的key";
+        String key1 = converter.getKey(new Tags(new int[0], new String[][]{{"a, b"}}, null));
+        String key2 = converter.getKey(new Tags(new int[0], new String[][]{{"a", "b"}}, null));
+        assert !key1.equals(key2) : "元素中的分隔符应被转义:" + key1;
+    }
+
+    @Test
+    public void 没有基于值的toString的字段不能生成key() {
+        try {
+            new PojoKeyConverter<>(Nested.class);
+            throw new RuntimeException("不应构建成功");
+        } catch (BdCacheException ignore) {
+        }
+        // 声明为接口的字段在转换时检查实际的类型
+        PojoKeyConverter<Tags> converter = new PojoKeyConverter<>(Tags.class);
+        assert converter.getKey(new Tags(new int[0], new String[0][], Collections.singletonList("x"))).startsWith("[x]|");
+        try {
+            converter.getKey(new Tags(new int[0], new String[0][], new Object()));
+            throw new RuntimeException("不应生成key");
+        } catch (BdCacheException ignore) {
+        }
+    }
+
+    @Test
+    public void 描述在输出日志时才生成() {
+        AtomicInteger descCount = new AtomicInteger();
+        IKeyConverter<Query> descConverter = q -> {
+            descCount.incrementAndGet();
+            return q.name;
+        };
+        DataManager<Query, String> silentManager = DataManager.Builder
+                .get("无日志", datasource, new PojoKeyConverter<>(Query.class))
+                .paramDescConverter(descConverter)
+                .withCache(new LruMemCacheStorage.Builder<Query, String>().build())
+                .build();
+        silentManager.getData(new Query("a", 1));
+        silentManager.getData(new Query("a", 1));
+        assert 0 == descCount.get() : "不输出日志时不应生成描述，实际:" + descCount.get();
+
+        DataManager<Query, String> loggingManager = DataManager.Builder
+                .get("有日志", datasource, new PojoKeyConverter<>(Query.class))
+                .paramDescConverter(descConverter)
+                .withCache(new LruMemCacheStorage.Builder<Query, String>().build())
+                .logger(new ConsoleLogger())
+                .build();
+        loggingManager.getData(new Query("a", 1));
+        assert 1 == descCount.get() : "同一次请求的描述只应生成一次，实际:" + descCount.get();
+    }
+
+    @Test
+    public void 仍可读取描述字段() {
+        DataParam<Query> param = new DataParam<>("描述", "key", new Query("a", 1));
+        assert "描述".equals(param.paramDesc) && "描述".equals(param.paramDesc());
+        AtomicInteger descCount = new AtomicInteger();
+        DataParam<Query> lazyParam = new DataParam<>((IKeyConverter<Query>) q -> {
+            descCount.incrementAndGet();
+            return q.name;
+        }, "key", new Query("a", 1));
+        assert "key".equals(lazyParam.paramDesc) : "延迟生成时字段应为paramKey";
+        assert "a".equals(lazyParam.paramDesc());
+        assert "a".equals(lazyParam.paramDesc());
+        assert 1 == descCount.get() : "描述只应生成一次";
+        assert "key".equals(lazyParam.paramDesc) : "生成后不应修改字段";
+    }
+
+    // ***********************内部类****************************
+
+    private enum Level {
+        A, B;
+
+        @Override
+        public String toString() {
+            return "level|" + name();
+        }
+    }
+
+    private static class Amount extends Number {
+        private final String text;
+
+        Amount(String text) {
+            this.text = text;
+        }
+
+        @Override
+        public int intValue() {
+            return 0;
+        }
+
+        @Override
+        public long longValue() {
+            return 0;
+        }
+
+        @Override
+        public float floatValue() {
+            return 0;
+        }
+
+        @Override
+        public double doubleValue() {
+            return 0;
+        }
+
+        @Override
+        public String toString() {
+            return text;
+        }
+    }
+
+    private static class Filter {
+        private final Amount amount;
+        private final Level level;
+
+        Filter(Level level, Amount amount) {
+            this.level = level;
+            this.amount = amount;
+        }
+    }
+
+    private static class Tags {
+        private final int[] ids;
+        private final String[][] names;
+        private final Object extra;
+
+        Tags(int[] ids, String[][] names, Object extra) {
+            this.ids = ids;
+            this.names = names;
+            this.extra = extra;
+        }
+    }
+
+    private static class Nested {
+        private final Tags tags;
+
+        Nested(Tags tags) {
+            this.tags = tags;
+        }
+    }
+
+    private static class Query {
+        private final String name;
+        private final int page;
+        private transient int hits;
+
+        Query(String name, int page) {
+            this.name = name;
+            this.page = page;
+        }
+    }
+}
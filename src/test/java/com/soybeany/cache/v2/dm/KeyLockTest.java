@@ -0,0 +1,111 @@
+package com.soybeany.cache.v2.dm;
+
+import com.soybeany.cache.v2.exception.CacheWaitException;
+import com.soybeany.cache.v2.storage.StdKeyLock;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * 测试按key加锁
+ */
+public class KeyLockTest {
+
+    @Test
+    public void 并发加解锁时锁均被释放() throws Exception {
+        // 解锁时查找锁与其它key的加锁并发修改锁表，查找不到锁时锁不会被释放，等待者将超时
+        StdKeyLock keyLock = new StdKeyLock("并发测试", key -> 1000L);
+        int threadCount = 8;
+        int rounds = 2000;
+        List<Throwable> errors = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch start = new CountDownLatch(1);
+        Thread[] threads = new Thread[threadCount];
+        for (int i = 0; i < threadCount; i++) {
+            int offset = i;
+            threads[i] = new Thread(() -> {
+                try {
+                    start.await();
+                    for (int j = 0; j < rounds; j++) {
+                        String key = "key" + ((j + offset) % 16);
+                        keyLock.onTryLock(key);
+                        keyLock.onUnlock(key);
+                    }
+                } catch (Throwable e) {
+                    errors.add(e);
+                }
+            });
+            threads[i].start();
+        }
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assert errors.isEmpty() : "不应出现异常:" + errors;
+        // 全部锁已释放，其它线程可获取
+        for (int i = 0; i < 16; i++) {
+            assert tryLockInOtherThread(keyLock, "key" + i) : "锁未被释放:key" + i;
+        }
+    }
+
+    @Test
+    public void 等待超时不移除被持有的锁() throws Exception {
+        // 等待者超时退出时若移除了仍被持有的锁，之后的线程会创建新锁，与持有者同时进入
+        StdKeyLock keyLock = new StdKeyLock("超时测试", key -> 50L);
+        CountDownLatch locked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Thread holder = new Thread(() -> {
+            keyLock.onTryLock("key");
+            locked.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException ignore) {
+            } finally {
+                keyLock.onUnlock("key");
+            }
+        });
+        holder.start();
+        locked.await();
+        assert !tryLockInOtherThread(keyLock, "key") : "锁被持有时应等待超时";
+        assert !tryLockInOtherThread(keyLock, "key") : "之前的等待者超时后，锁仍应被持有";
+        release.countDown();
+        holder.join();
+        assert tryLockInOtherThread(keyLock, "key") : "持有者解锁后应可获取";
+        assert tryLockInOtherThread(keyLock, "key") : "锁应被再次释放";
+    }
+
+    @Test
+    public void 被持有的锁不会被回收() throws Exception {
+        // 锁表以非规范化的字符串为弱引用key时，持有者不再引用key后锁会被回收，之后的线程会创建新锁，与持有者同时进入
+        StdKeyLock keyLock = new StdKeyLock("回收测试", key -> 50L);
+        keyLock.onTryLock(new String("key"));
+        try {
+            for (int i = 0; i < 5; i++) {
+                System.gc();
+                assert !tryLockInOtherThread(keyLock, new String("key")) : "锁被持有时应等待超时";
+            }
+        } finally {
+            keyLock.onUnlock(new String("key"));
+        }
+        assert tryLockInOtherThread(keyLock, "key") : "持有者解锁后应可获取";
+    }
+
+    // ***********************内部方法****************************
+
+    private static boolean tryLockInOtherThread(StdKeyLock keyLock, String key) throws InterruptedException {
+        boolean[] acquired = new boolean[1];
+        Thread thread = new Thread(() -> {
+            try {
+                keyLock.onTryLock(key);
+                acquired[0] = true;
+                keyLock.onUnlock(key);
+            } catch (CacheWaitException ignore) {
+            }
+        });
+        thread.start();
+        thread.join();
+        return acquired[0];
+    }
+}
@@ -0,0 +1,90 @@
+package com.soybeany.cache.v2.dm;
+
+import com.soybeany.cache.v2.component.DBSimulationStorage;
+import com.soybeany.cache.v2.contract.user.IDatasource;
+import com.soybeany.cache.v2.core.DataManager;
+import com.soybeany.cache.v2.model.CacheEntity;
+import com.soybeany.cache.v2.model.DataParam;
+import com.soybeany.cache.v2.stats.LatencyStats;
+import com.soybeany.cache.v2.storage.LruMemCacheStorage;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 测试各存储器与数据源的耗时统计
+ */
+public class LatencyStatsDMTest {
+
+    private final IDatasource<String, String> datasource = s -> {
+        sleep(30);
+        return "数据:" + s;
+    };
+
+    @Test
+    public void 按存储器区分耗时() {
+        DataManager<String, String> manager = createManager(true);
+        for (int i = 0; i < 5; i++) {
+            manager.getData("key" + i);
+        }
+        LatencyStats stats = manager.latencyStats();
+        assert 5 == stats.datasource.count();
+        assert stats.datasource.percentile(0.5) >= TimeUnit.MILLISECONDS.toNanos(30) : "数据源耗时错误:" + stats;
+        LatencyStats.TierLatency l1 = stats.tiers.get(0);
+        LatencyStats.TierLatency l2 = stats.tiers.get(1);
+        // 每次请求查找两级缓存，并在锁内双重检查
+        assert 10 == l1.getCache.count() && 10 == l2.getCache.count() : "查找次数错误:" + stats;
+        assert 5 == l1.cacheData.count() && 5 == l2.cacheData.count();
+        assert l2.cacheData.percentile(0.5) >= TimeUnit.MILLISECONDS.toNanos(10) : "慢存储器的耗时应被体现:" + stats;
+        assert l1.cacheData.percentile(0.99) < TimeUnit.MILLISECONDS.toNanos(10) : "内存缓存不应有明显耗时:" + stats;
+    }
+
+    @Test
+    public void 周期快照后重置() {
+        DataManager<String, String> manager = createManager(true);
+        manager.getData("key");
+        LatencyStats first = manager.latencyStatsAndReset();
+        assert 1 == first.datasource.count();
+        manager.getData("key");
+        LatencyStats second = manager.latencyStatsAndReset();
+        assert 0 == second.datasource.count() : "重置后不应保留上一周期的数据";
+        assert 1 == second.tiers.get(0).getCache.count();
+        assert second.fromTimestamp == first.toTimestamp;
+    }
+
+    @Test
+    public void 未启用时不统计() {
+        DataManager<String, String> manager = createManager(false);
+        manager.getData("key");
+        LatencyStats stats = manager.latencyStats();
+        assert 0 == stats.datasource.count() && stats.tiers.isEmpty();
+    }
+
+    // ***********************内部方法****************************
+
+    private DataManager<String, String> createManager(boolean enableLatencyStats) {
+        return DataManager.Builder
+                .get("耗时统计测试", datasource)
+                .withCache(new LruMemCacheStorage.Builder<String, String>().build())
+                .withCache(new SlowStorage())
+                .enableLatencyStats(enableLatencyStats)
+                .build();
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException ignore) {
+        }
+    }
+
+    // ***********************内部类****************************
+
+    private static class SlowStorage extends DBSimulationStorage<String, String> {
+        @Override
+        protected CacheEntity<String> onSaveCacheEntity(DataParam<String> param, String storageKey, CacheEntity<String> entity) {
+            sleep(15);
+            return super.onSaveCacheEntity(param, storageKey, entity);
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package com.soybeany.cache.v2.dm;
+
+import com.soybeany.cache.v2.contract.user.IDatasource;
+import com.soybeany.cache.v2.contract.user.IKeyConverter;
+import com.soybeany.cache.v2.core.DataManager;
+import com.soybeany.cache.v2.log.ILogWriter;
+import com.soybeany.cache.v2.log.StdLogger;
+import com.soybeany.cache.v2.storage.LruMemCacheStorage;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 测试日志的级别控制、采样与汇总
+ */
+public class LoggerDMTest {
+
+    private final IDatasource<String, String> datasource = s -> {
+        if (s.startsWith("error")) {
+            throw new RuntimeException("测试异常");
+        }
+        return "数据:" + s;
+    };
+
+    @Test
+    public void 级别未启用时不生成日志() {
+        RecordWriter writer = new RecordWriter(false);
+        AtomicInteger descCount = new AtomicInteger();
+        DataManager<String, String> manager = createBuilder(new StdLogger(writer))
+                .paramDescConverter((IKeyConverter<String>) s -> {
+                    descCount.incrementAndGet();
+                    return s;
+                })
+                .build();
+        for (int i = 0; i < 10; i++) {
+            manager.getData("key");
+        }
+        manager.invalidCache("key");
+        assert writer.infos.isEmpty() : "info未启用时不应输出";
+        assert 0 == descCount.get() : "info未启用时不应生成描述";
+    }
+
+    @Test
+    public void 采样只影响正常数据() {
+        RecordWriter writer = new RecordWriter(true);
+        DataManager<String, String> manager = createBuilder(new StdLogger(writer).hitSampleRate(10)).build();
+        for (int i = 0; i < 1000; i++) {
+            manager.getData("key");
+        }
+        int count = writer.infos.size();
+        assert count > 30 && count < 300 : "应约输出1/10的日志，实际:" + count;
+        writer.infos.clear();
+        for (int i = 0; i < 20; i++) {
+            manager.getDataPack("error" + i);
+        }
+        assert 20 == writer.infos.stream().filter(msg -> msg.contains("异常")).count() : "异常应全部输出";
+    }
+
+    @Test
+    public void 汇总模式按周期输出() throws Exception {
+        RecordWriter writer = new RecordWriter(true);
+        DataManager<String, String> manager = createBuilder(new StdLogger(writer).summaryIntervalMs(200)).build();
+        for (int i = 0; i < 100; i++) {
+            manager.getData("key");
+        }
+        assert writer.infos.isEmpty() : "周期内不应输出，实际:" + writer.infos;
+        Thread.sleep(250);
+        manager.getData("key");
+        assert 1 == writer.infos.size() : "周期结束后应输出一条汇总，实际:" + writer.infos;
+        assert writer.infos.get(0).contains("正常获取了101次数据") : writer.infos.get(0);
+        manager.getDataPack("error");
+        assert 2 == writer.infos.size() : "异常应立刻输出";
+    }
+
+    // ***********************内部方法****************************
+
+    private DataManager.Builder<String, String> createBuilder(StdLogger logger) {
+        return DataManager.Builder
+                .get("日志测试", datasource)
+                .withCache(new LruMemCacheStorage.Builder<String, String>().build())
+                .logger(logger);
+    }
+
+    // ***********************内部类****************************
+
+    private static class RecordWriter implements ILogWriter {
+        private final List<String> infos = new CopyOnWriteArrayList<>();
+        private final boolean infoEnabled;
+
+        RecordWriter(boolean infoEnabled) {
+            this.infoEnabled = infoEnabled;
+        }
+
+        @Override
+        public void onWriteInfo(String msg) {
+            infos.add(msg);
+        }
+
+        @Override
+        public void onWriteWarn(String msg) {
+            infos.add(msg);
+        }
+
+        @Override
+        public boolean isInfoEnabled() {
+            return infoEnabled;
+        }
+    }
+}
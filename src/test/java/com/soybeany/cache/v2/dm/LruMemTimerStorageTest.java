@@ -8,7 +8,11 @@ import com.soybeany.cache.v2.model.DataPack;
 import com.soybeany.cache.v2.storage.LruMemCacheStorage;
 import org.junit.Test;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
 import java.util.UUID;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * 测试LRU存储的过期和淘汰行为
@@ -67,4 +71,45 @@ public class LruMemTimerStorageTest {
         assert datasource.equals(dataManager.getDataPack(key1).provider) : "key1应被LRU淘汰";
     }
 
+    @Test
+    public void test_读取过的数据不被优先淘汰() {
+        String key1 = "k_read_1";
+        dataManager.getDataPack(key1);
+        dataManager.getDataPack("k_read_2");
+        dataManager.getDataPack("k_read_3");
+        // 读取只记录访问，在写入时回放
+        dataManager.getDataPack(key1);
+        dataManager.getDataPack("k_read_4");
+        assert cacheStorage.equals(dataManager.getDataPack(key1).provider) : "读取过的key1不应被淘汰";
+        assert datasource.equals(dataManager.getDataPack("k_read_2").provider) : "k_read_2应被淘汰";
+    }
+
+    @Test
+    public void test_并发读写时不超出容量() throws Exception {
+        LruMemCacheStorage<String, String> storage = new LruMemCacheStorage.Builder<String, String>().capacity(100).build();
+        DataManager<String, String> manager = DataManager.Builder.get("LRU并发测试", (String s) -> s).withCache(storage).build();
+        AtomicReference<Throwable> error = new AtomicReference<>();
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            int seed = t;
+            threads.add(new Thread(() -> {
+                Random random = new Random(seed);
+                try {
+                    for (int i = 0; i < 20_000; i++) {
+                        String key = "key" + random.nextInt(300);
+                        assert key.equals(manager.getData(key));
+                    }
+                } catch (Throwable e) {
+                    error.set(e);
+                }
+            }));
+        }
+        threads.forEach(Thread::start);
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assert null == error.get() : "并发读写异常:" + error.get();
+        assert storage.cachedDataCount() <= 100 : "数目:" + storage.cachedDataCount();
+    }
+
 }
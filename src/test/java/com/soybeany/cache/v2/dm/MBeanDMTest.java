@@ -0,0 +1,104 @@
+package com.soybeany.cache.v2.dm;
+
+import com.soybeany.cache.v2.core.DataManager;
+import com.soybeany.cache.v2.exception.BdCacheException;
+import com.soybeany.cache.v2.jmx.CacheMBeans;
+import com.soybeany.cache.v2.storage.CapacityAutoTuner;
+import com.soybeany.cache.v2.storage.LruMemCacheStorage;
+import org.junit.After;
+import org.junit.Test;
+
+import javax.management.MBeanAttributeInfo;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.RuntimeMBeanException;
+import java.lang.management.ManagementFactory;
+
+/**
+ * 测试通过JMX查看与控制缓存
+ */
+public class MBeanDMTest {
+
+    private final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+    private final LruMemCacheStorage<String, String> storage = (LruMemCacheStorage<String, String>) new LruMemCacheStorage.Builder<String, String>()
+            .capacity(10)
+            .pTtl(60_000)
+            .build();
+    private final DataManager<String, String> manager = DataManager.Builder
+            .get("MBean测试", s -> "数据:" + s)
+            .storageId("mbean_test")
+            .withCache(storage)
+            .registerMBean(true)
+            .build();
+
+    @After
+    public void tearDown() {
+        CacheMBeans.unregister(manager);
+    }
+
+    @Test
+    public void 查看统计与配置() throws Exception {
+        manager.getData("a");
+        manager.getData("a");
+        ObjectName managerName = new ObjectName("com.soybeany.cache:type=DataManager,storageId=\"mbean_test\"");
+        ObjectName storageName = new ObjectName("com.soybeany.cache:type=Storage,storageId=\"mbean_test\",index=0");
+        assert "MBean测试".equals(server.getAttribute(managerName, "DataDesc"));
+        assert 1L == (Long) server.getAttribute(managerName, "HitCount");
+        assert 1L == (Long) server.getAttribute(managerName, "LoadCount");
+        assert 1 == (Integer) server.getAttribute(storageName, "CachedDataCount");
+        assert 60_000L == (Long) server.getAttribute(storageName, "PTtl");
+        assert 10 == (Integer) server.getAttribute(storageName, "Capacity");
+    }
+
+    @Test
+    public void 运行时调整容量与清空() throws Exception {
+        for (int i = 0; i < 10; i++) {
+            manager.getData("key" + i);
+        }
+        ObjectName storageName = new ObjectName("com.soybeany.cache:type=Storage,storageId=\"mbean_test\",index=0");
+        for (MBeanAttributeInfo info : server.getMBeanInfo(storageName).getAttributes()) {
+            assert !"Capacity".equals(info.getName()) || !info.isWritable() : "容量应为只读属性";
+        }
+        server.invoke(storageName, "resize", new Object[]{3}, new String[]{"int"});
+        assert 3 == storage.capacity();
+        assert 3 == storage.cachedDataCount() : "容量减小后应立刻淘汰";
+        assert 7L == (Long) server.getAttribute(storageName, "EvictionCount");
+        // 最近使用的数据应被保留
+        assert storage.equals(manager.getDataPack("key9").provider);
+        ObjectName managerName = new ObjectName("com.soybeany.cache:type=DataManager,storageId=\"mbean_test\"");
+        server.invoke(managerName, "clearCache", null, null);
+        assert 0 == storage.cachedDataCount();
+    }
+
+    @Test
+    public void 自动调节中的存储器不能手动调整容量() throws Exception {
+        LruMemCacheStorage<String, String> tuned = new LruMemCacheStorage.Builder<String, String>().capacity(100).enableMissRatioCurve(0).build();
+        LruMemCacheStorage<String, String> other = new LruMemCacheStorage.Builder<String, String>().capacity(100).enableMissRatioCurve(0).build();
+        DataManager<String, String> tunedManager = DataManager.Builder
+                .get("MBean调节测试", s -> "数据:" + s)
+                .storageId("mbean_tuned")
+                .withCache(tuned)
+                .registerMBean(true)
+                .build();
+        ObjectName storageName = new ObjectName("com.soybeany.cache:type=Storage,storageId=\"mbean_tuned\",index=0");
+        CapacityAutoTuner tuner = new CapacityAutoTuner.Builder().intervalMs(0).add(tunedManager).add("other", other).build();
+        try {
+            server.invoke(storageName, "resize", new Object[]{50}, new String[]{"int"});
+            throw new RuntimeException("自动调节中不应手动调整容量");
+        } catch (RuntimeMBeanException e) {
+            assert e.getCause() instanceof BdCacheException : "异常:" + e.getCause();
+        } finally {
+            tuner.close();
+        }
+        assert 100 == tuned.capacity();
+        server.invoke(storageName, "resize", new Object[]{50}, new String[]{"int"});
+        assert 50 == tuned.capacity() : "停止自动调节后应可调整";
+        CacheMBeans.unregister(tunedManager);
+    }
+
+    @Test
+    public void 注销后不再可见() throws Exception {
+        CacheMBeans.unregister(manager);
+        assert server.queryNames(new ObjectName("com.soybeany.cache:storageId=\"mbean_test\",*"), null).isEmpty();
+    }
+}
@@ -0,0 +1,126 @@
+package com.soybeany.cache.v2.dm;
+
+import com.soybeany.cache.v2.core.DataManager;
+import com.soybeany.cache.v2.stats.CacheStats;
+import com.soybeany.cache.v2.stats.MissRatioCurve;
+import com.soybeany.cache.v2.storage.CapacityAutoTuner;
+import com.soybeany.cache.v2.storage.LruMemCacheStorage;
+import org.junit.Test;
+
+import java.util.Random;
+
+/**
+ * 测试缺失率曲线的估计与容量自动调节
+ */
+public class MissRatioCurveDMTest {
+
+    @Test
+    public void 全量抽样时与实际命中率一致() {
+        LruMemCacheStorage<String, String> storage = newStorage(500, 2000, 1.0, 8192);
+        DataManager<String, String> manager = newManager("全量", storage);
+        Random random = new Random(1);
+        for (int i = 0; i < 50000; i++) {
+            manager.getData("key" + random.nextInt(1000));
+        }
+        MissRatioCurve curve = storage.missRatioCurve();
+        CacheStats.TierStats tier = manager.stats().tiers.get(0);
+        assert Math.abs(curve.hitRate(500) - tier.hitRate()) < 0.02 : "估计:" + curve.hitRate(500) + "，实际:" + tier.hitRate();
+        assert Math.abs(curve.hitRate(250) - 0.25) < 0.03 : "均匀访问时命中率应与容量成正比:" + curve.hitRate(250);
+        assert curve.hitRate(1000) > 0.97 : "容量覆盖全部key时应几乎全部命中:" + curve.hitRate(1000);
+        assert 50000 == curve.referenceCount : "访问次数不应包含获取数据前的双重检查:" + curve.referenceCount;
+    }
+
+    @Test
+    public void 抽样估计倾斜访问() {
+        LruMemCacheStorage<String, String> storage = newStorage(5000, 0, 0.1, 8192);
+        DataManager<String, String> manager = newManager("抽样", storage);
+        Random random = new Random(2);
+        for (int i = 0; i < 300000; i++) {
+            manager.getData("key" + skewed(random, 200000));
+        }
+        MissRatioCurve curve = storage.missRatioCurve();
+        double actual = manager.stats().tiers.get(0).hitRate();
+        assert Math.abs(curve.hitRate(5000) - actual) < 0.01 : "估计:" + curve.hitRate(5000) + "，实际:" + actual;
+        assert curve.hitRate(20000) > curve.hitRate(5000) : "容量越大命中率应越高";
+        assert curve.maxCapacity() >= 20000 : "默认覆盖容量的4倍:" + curve.maxCapacity();
+    }
+
+    @Test
+    public void 跟踪的key超出上限时降低抽样比例() {
+        LruMemCacheStorage<String, String> storage = newStorage(5000, 0, 1.0, 256);
+        DataManager<String, String> manager = newManager("固定空间", storage);
+        Random random = new Random(3);
+        for (int i = 0; i < 300000; i++) {
+            manager.getData("key" + skewed(random, 200000));
+        }
+        MissRatioCurve curve = storage.missRatioCurve();
+        double actual = manager.stats().tiers.get(0).hitRate();
+        assert curve.sampleRate < 0.01 : "抽样比例应自动降低:" + curve.sampleRate;
+        assert Math.abs(curve.hitRate(5000) - actual) < 0.01 : "估计:" + curve.hitRate(5000) + "，实际:" + actual;
+    }
+
+    @Test
+    public void 重置后重新统计() {
+        LruMemCacheStorage<String, String> storage = newStorage(100, 0, 1.0, 8192);
+        DataManager<String, String> manager = newManager("重置", storage);
+        for (int i = 0; i < 100; i++) {
+            manager.getData("key" + i % 10);
+        }
+        assert 100 == storage.missRatioCurve(true).referenceCount;
+        assert 0 == storage.missRatioCurve().referenceCount;
+        manager.getData("key1");
+        MissRatioCurve curve = storage.missRatioCurve();
+        assert 1 == curve.referenceCount && 1.0 == curve.hitRate(100) : "重置后应保留重用信息";
+    }
+
+    @Test
+    public void 未启用时返回null() {
+        assert null == new LruMemCacheStorage.Builder<String, String>().build().missRatioCurve();
+    }
+
+    @Test
+    public void 容量移向边际收益高的管理器() {
+        LruMemCacheStorage<String, String> bigStorage = newStorage(1000, 4000, 1.0, 8192);
+        LruMemCacheStorage<String, String> smallStorage = newStorage(1000, 4000, 1.0, 8192);
+        DataManager<String, String> big = newManager("大工作集", bigStorage);
+        DataManager<String, String> small = newManager("小工作集", smallStorage);
+        CapacityAutoTuner tuner = new CapacityAutoTuner.Builder()
+                .add(big)
+                .add(small)
+                .step(50)
+                .intervalMs(0)
+                .build();
+        Random random = new Random(4);
+        for (int round = 0; round < 5; round++) {
+            for (int i = 0; i < 20000; i++) {
+                big.getData("key" + random.nextInt(1800));
+                small.getData("key" + random.nextInt(200));
+            }
+            tuner.tune();
+        }
+        tuner.close();
+        assert bigStorage.capacity() > 1500 : "大工作集应获得更多容量:" + bigStorage.capacity();
+        assert smallStorage.capacity() >= 200 && smallStorage.capacity() < 500 : "小工作集应让出多余容量:" + smallStorage.capacity();
+        assert 2000 == bigStorage.capacity() + smallStorage.capacity() : "总容量应保持不变";
+    }
+
+    // ***********************内部方法****************************
+
+    private static int skewed(Random random, int n) {
+        return (int) (n * Math.pow(random.nextDouble(), 1.5));
+    }
+
+    private static LruMemCacheStorage<String, String> newStorage(int capacity, int maxCapacity, double sampleRate, int maxSampledKeys) {
+        return new LruMemCacheStorage.Builder<String, String>()
+                .capacity(capacity)
+                .enableMissRatioCurve(maxCapacity, sampleRate, maxSampledKeys)
+                .build();
+    }
+
+    private static DataManager<String, String> newManager(String desc, LruMemCacheStorage<String, String> storage) {
+        return DataManager.Builder
+                .get(desc, (String s) -> "数据:" + s)
+                .withCache(storage)
+                .build();
+    }
+}
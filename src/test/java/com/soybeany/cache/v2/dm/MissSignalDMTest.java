@@ -0,0 +1,149 @@
+package com.soybeany.cache.v2.dm;
+
+import com.soybeany.cache.v2.component.DBSimulationStorage;
+import com.soybeany.cache.v2.contract.user.IDatasource;
+import com.soybeany.cache.v2.core.DataManager;
+import com.soybeany.cache.v2.exception.NoCacheException;
+import com.soybeany.cache.v2.log.ConsoleLogger;
+import com.soybeany.cache.v2.model.CacheEntity;
+import com.soybeany.cache.v2.model.DataPack;
+import com.soybeany.cache.v2.model.DataParam;
+import com.soybeany.cache.v2.storage.StdStorage;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 测试未命中时不抛出异常的缓存查找
+ */
+public class MissSignalDMTest {
+
+    private final IDatasource<String, String> datasource = s -> "数据:" + s;
+
+    @Test
+    public void 框架不使用抛异常的查找() {
+        NoThrowStorage storage = new NoThrowStorage();
+        DataManager<String, String> manager = DataManager.Builder
+                .get("无异常查找测试", datasource)
+                .withCache(storage)
+                .logger(new ConsoleLogger())
+                .build();
+        // 未命中、回写、命中、失效均不应走抛异常的路径
+        DataPack<String> pack = manager.getDataPack("key");
+        assert datasource.equals(pack.provider);
+        pack = manager.getDataPack("key");
+        assert storage.equals(pack.provider) : "应命中缓存";
+        manager.invalidCache("key");
+        assert datasource.equals(manager.getDataPack("key").provider);
+        assert manager.getDataPackWithCacheFallback("other", 1000).norm();
+    }
+
+    @Test
+    public void 旧存储器仍可使用() {
+        DBSimulationStorage<String, String> storage = new DBSimulationStorage<>();
+        DataManager<String, String> manager = DataManager.Builder
+                .get("旧存储器测试", datasource)
+                .withCache(storage)
+                .logger(new ConsoleLogger())
+                .build();
+        assert datasource.equals(manager.getDataPack("key").provider);
+        assert storage.equals(manager.getDataPack("key").provider) : "应命中缓存";
+        try {
+            storage.onGetCache(new DataParam<>("无", "missing", "missing"));
+            throw new RuntimeException("未命中时应抛出异常");
+        } catch (NoCacheException ignore) {
+        }
+        assert null == storage.onFindCache(new DataParam<>("无", "missing", "missing")) : "未命中时应返回null";
+    }
+
+    @Test
+    public void 重写抛异常查找的旧存储器仍生效() {
+        LegacyGetStorage storage = new LegacyGetStorage();
+        DataManager<String, String> manager = DataManager.Builder
+                .get("旧查找测试", datasource)
+                .withCache(storage)
+                .build();
+        assert datasource.equals(manager.getDataPack("key").provider);
+        int count = storage.getCount;
+        assert count > 0 : "框架的查找应经由重写的onGetCache";
+        assert storage.equals(manager.getDataPack("key").provider) : "应命中缓存";
+        assert count + 1 == storage.getCount : "命中时应调用一次重写的onGetCache:" + storage.getCount;
+        storage.hidden = true;
+        assert datasource.equals(manager.getDataPack("key").provider) : "重写的onGetCache抛出异常时应视为未命中";
+        assert null == storage.onFindCacheIgnoreExpiry(new DataParam<>("无", "missing", "missing"));
+        try {
+            storage.onGetCache(new DataParam<>("无", "missing", "missing"));
+            throw new RuntimeException("未命中时应抛出异常");
+        } catch (NoCacheException ignore) {
+        }
+    }
+
+    // ***********************内部类****************************
+
+    /**
+     * 重写了onGetCache的旧存储器
+     */
+    private static class LegacyGetStorage extends NoThrowStorage {
+        int getCount;
+        boolean hidden;
+
+        @Override
+        public DataPack<String> onGetCache(DataParam<String> param) throws NoCacheException {
+            getCount++;
+            if (hidden) {
+                throw new NoCacheException();
+            }
+            return super.onGetCache(param);
+        }
+    }
+
+    private static class NoThrowStorage extends StdStorage<String, String> {
+        private final Map<String, CacheEntity<String>> map = new HashMap<>();
+
+        NoThrowStorage() {
+            super(Integer.MAX_VALUE, Integer.MAX_VALUE);
+        }
+
+        @Override
+        public String desc() {
+            return "无异常存储";
+        }
+
+        @Override
+        protected CacheEntity<String> onLoadCacheEntity(DataParam<String> param, String storageKey) {
+            throw new AssertionError("不应调用抛异常的查找");
+        }
+
+        @Override
+        protected CacheEntity<String> onFindCacheEntity(DataParam<String> param, String storageKey) {
+            return map.get(storageKey);
+        }
+
+        @Override
+        protected CacheEntity<String> onSaveCacheEntity(DataParam<String> param, String storageKey, CacheEntity<String> entity) {
+            map.put(storageKey, entity);
+            return entity;
+        }
+
+        @Override
+        protected void onRemoveCacheEntity(DataParam<String> param, String storageKey) {
+            map.remove(storageKey);
+        }
+
+        @Override
+        protected long onGetCurTimestamp() {
+            return System.currentTimeMillis();
+        }
+
+        @Override
+        public void onClearCache() {
+            map.clear();
+        }
+
+        @Override
+        public int cachedDataCount() {
+            return map.size();
+        }
+    }
+}
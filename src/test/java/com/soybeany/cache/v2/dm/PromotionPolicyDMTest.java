@@ -0,0 +1,155 @@
+package com.soybeany.cache.v2.dm;
+
+import com.soybeany.cache.v2.contract.frame.IPromotionPolicy;
+import com.soybeany.cache.v2.core.DataManager;
+import com.soybeany.cache.v2.exception.BdCacheException;
+import com.soybeany.cache.v2.model.DataPack;
+import com.soybeany.cache.v2.storage.LruMemCacheStorage;
+import com.soybeany.cache.v2.storage.StdPromotionPolicy;
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class PromotionPolicyDMTest {
+
+    private final LruMemCacheStorage<String, String> l1 = new LruMemCacheStorage.Builder<String, String>().capacity(3).build();
+    private final LruMemCacheStorage<String, String> l2 = new LruMemCacheStorage.Builder<String, String>().capacity(1000).build();
+
+    @Test
+    public void 默认总是提升() {
+        DataManager<String, String> manager = newManager(null);
+        manager.getData("key");
+        manager.removeCache("key", 0);
+        assert l2 == manager.getDataPack("key").provider;
+        assert l1 == manager.getDataPack("key").provider : "下级命中后应提升";
+    }
+
+    @Test
+    public void 命中指定次数后提升() {
+        StdPromotionPolicy<String> policy = new StdPromotionPolicy.Builder<String>().minHits(3, 60_000).build();
+        DataManager<String, String> manager = newManager(policy);
+        manager.getData("key");
+        manager.removeCache("key", 0);
+        for (int i = 0; i < 3; i++) {
+            assert l2 == manager.getDataPack("key").provider : "第" + (i + 1) + "次应由下级命中";
+        }
+        assert l1 == manager.getDataPack("key").provider : "命中3次后应提升";
+        assert 1 == policy.promotedCount();
+        assert 2 == policy.rejectedCount();
+    }
+
+    @Test
+    public void 超出时间窗口后重新计数() throws Exception {
+        StdPromotionPolicy<String> policy = new StdPromotionPolicy.Builder<String>().minHits(2, 50).build();
+        DataManager<String, String> manager = newManager(policy);
+        manager.getData("key");
+        manager.removeCache("key", 0);
+        assert l2 == manager.getDataPack("key").provider;
+        Thread.sleep(80);
+        assert l2 == manager.getDataPack("key").provider : "窗口已过，应重新计数";
+        assert l2 == manager.getDataPack("key").provider;
+        assert l1 == manager.getDataPack("key").provider;
+    }
+
+    @Test
+    public void 按访问频率提升() {
+        StdPromotionPolicy<String> policy = new StdPromotionPolicy.Builder<String>().minFrequency(3).sketchSize(1024).build();
+        DataManager<String, String> manager = newManager(policy);
+        manager.getData("key");
+        manager.removeCache("key", 0);
+        manager.getDataPack("key");
+        assert 1 == policy.frequency("key");
+        manager.getDataPack("key");
+        assert l1 != manager.getDataPack("key").provider;
+        assert l1 == manager.getDataPack("key").provider : "频率达到阈值后应提升";
+        assert policy.frequency("key") >= 3;
+        assert 0 == policy.frequency("other") : "未访问的key频率应为0";
+        try {
+            new StdPromotionPolicy.Builder<String>().minFrequency(16);
+            throw new RuntimeException("不应设置成功");
+        } catch (BdCacheException ignore) {
+        }
+    }
+
+    @Test
+    public void 按数据大小提升() {
+        StdPromotionPolicy<String> policy = new StdPromotionPolicy.Builder<String>().maxWeight((key, core) -> core.data.length(), 5).build();
+        DataManager<String, String> manager = newManager(policy);
+        manager.getData("small");
+        manager.getData("large-value");
+        manager.clearCache(0);
+        assert l2 == manager.getDataPack("small").provider;
+        assert l1 == manager.getDataPack("small").provider : "较小的数据应提升";
+        assert l2 == manager.getDataPack("large-value").provider;
+        assert l2 == manager.getDataPack("large-value").provider : "较大的数据不应提升";
+    }
+
+    @Test
+    public void 计数满足后才计算权重() {
+        AtomicInteger weighCount = new AtomicInteger();
+        StdPromotionPolicy<String> policy = new StdPromotionPolicy.Builder<String>()
+                .minHits(3, 60_000)
+                .maxWeight((key, core) -> {
+                    weighCount.incrementAndGet();
+                    return core.data.length();
+                }, 3)
+                .build();
+        DataManager<String, String> manager = newManager(policy);
+        manager.getData("large");
+        manager.removeCache("large", 0);
+        manager.getDataPack("large");
+        manager.getDataPack("large");
+        assert 0 == weighCount.get() : "命中次数不足时不应计算权重";
+        assert l2 == manager.getDataPack("large").provider;
+        assert 1 == weighCount.get();
+        assert l2 == manager.getDataPack("large").provider : "权重超出上限时不应提升";
+        assert 2 == weighCount.get() : "命中次数已满足，之后每次都需计算权重";
+        assert 0 == policy.promotedCount() && 4 == policy.rejectedCount();
+    }
+
+    @Test
+    public void 只访问一次的数据不挤出热点() {
+        StdPromotionPolicy<String> policy = new StdPromotionPolicy.Builder<String>().minHits(2, 60_000).build();
+        DataManager<String, String> manager = newManager(policy);
+        for (int i = 0; i < 100; i++) {
+            manager.getData("cold" + i);
+        }
+        manager.getData("hot");
+        // 上级存储器重启，下级存储器中已有数据
+        manager.clearCache(0);
+        manager.getData("hot");
+        manager.getData("hot");
+        assert l1 == manager.getDataPack("hot").provider;
+        for (int i = 0; i < 100; i++) {
+            assert l2 == manager.getDataPack("cold" + i).provider;
+        }
+        assert l1 == manager.getDataPack("hot").provider : "热点数据应保留在上级存储器";
+        assert 1 == l1.cachedDataCount() : "上级存储器:" + l1.cachedDataCount();
+    }
+
+    @Test
+    public void 自定义策略() {
+        IPromotionPolicy<String> policy = (paramKey, hitIndex, dataPack) -> paramKey.startsWith("p");
+        DataManager<String, String> manager = newManager(policy);
+        manager.getData("promote");
+        manager.getData("keep");
+        manager.clearCache(0);
+        manager.getDataPack("promote");
+        manager.getDataPack("keep");
+        DataPack<String> pack = manager.getDataPack("keep");
+        assert l2 == pack.provider && "keep".equals(pack.getData());
+        assert l1 == manager.getDataPack("promote").provider;
+    }
+
+    // ***********************内部方法****************************
+
+    private DataManager<String, String> newManager(IPromotionPolicy<String> policy) {
+        DataManager.Builder<String, String> builder = DataManager.Builder.get("提升策略", (String s) -> s)
+                .withCache(l1)
+                .withCache(l2);
+        if (null != policy) {
+            builder.promotionPolicy(policy);
+        }
+        return builder.build();
+    }
+}
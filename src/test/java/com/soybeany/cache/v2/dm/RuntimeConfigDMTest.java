@@ -0,0 +1,144 @@
+package com.soybeany.cache.v2.dm;
+
+import com.soybeany.cache.v2.contract.user.IDatasource;
+import com.soybeany.cache.v2.core.DataManager;
+import com.soybeany.cache.v2.exception.CacheWaitException;
+import com.soybeany.cache.v2.model.DataPack;
+import com.soybeany.cache.v2.storage.LruMemCacheStorage;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+public class RuntimeConfigDMTest {
+
+    @Test
+    public void 缩小容量时按最久未使用淘汰() {
+        LruMemCacheStorage<String, String> storage = new LruMemCacheStorage.Builder<String, String>().capacity(1000).build();
+        DataManager<String, String> manager = newManager(s -> s, storage);
+        for (int i = 0; i < 1000; i++) {
+            manager.getData("key" + i);
+        }
+        // 访问后变为最近使用
+        manager.getData("key0");
+        storage.setCapacity(10);
+        assert 10 == storage.capacity();
+        assert 10 == storage.cachedDataCount() : "剩余:" + storage.cachedDataCount();
+        assert 990 == storage.evictedCount() : "淘汰:" + storage.evictedCount();
+        assert manager.containCache("key0") : "最近使用的数据应保留";
+        assert manager.containCache("key999");
+        assert !manager.containCache("key1");
+        // 扩大容量后可缓存更多数据
+        storage.setCapacity(20);
+        for (int i = 0; i < 30; i++) {
+            manager.getData("new" + i);
+        }
+        assert 20 == storage.cachedDataCount();
+    }
+
+    @Test
+    public void 并发读写时调整容量() throws Exception {
+        LruMemCacheStorage<String, String> storage = new LruMemCacheStorage.Builder<String, String>().capacity(5000).build();
+        DataManager<String, String> manager = newManager(s -> s, storage);
+        AtomicBoolean running = new AtomicBoolean(true);
+        AtomicReference<Throwable> error = new AtomicReference<>();
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            int seed = t;
+            Thread thread = new Thread(() -> {
+                Random random = new Random(seed);
+                try {
+                    while (running.get()) {
+                        String key = "key" + random.nextInt(10000);
+                        assert key.equals(manager.getData(key));
+                    }
+                } catch (Throwable e) {
+                    error.set(e);
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (int i = 0; i < 20; i++) {
+            storage.setCapacity(i % 2 == 0 ? 100 : 5000);
+            Thread.sleep(10);
+        }
+        storage.setCapacity(100);
+        running.set(false);
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assert null == error.get() : "并发访问异常:" + error.get();
+        assert storage.cachedDataCount() <= 100 : "超出容量:" + storage.cachedDataCount();
+    }
+
+    @Test
+    public void 缩短生存时间后截短已缓存的数据() throws Exception {
+        LruMemCacheStorage<String, String> storage = (LruMemCacheStorage<String, String>) new LruMemCacheStorage.Builder<String, String>().capacity(10).pTtl(60_000).build();
+        AtomicInteger loadCount = new AtomicInteger();
+        DataManager<String, String> manager = newManager(s -> {
+            loadCount.incrementAndGet();
+            return s;
+        }, storage);
+        manager.getData("key");
+        assert 60_000 - manager.getDataPack("key").pTtl < 1000;
+        storage.setPTtl(100);
+        assert 100 == storage.pTtl();
+        DataPack<String> pack = manager.getDataPack("key");
+        assert pack.pTtl <= 100 : "剩余生存时间:" + pack.pTtl;
+        assert 1 == loadCount.get();
+        Thread.sleep(150);
+        manager.getData("key");
+        assert 2 == loadCount.get() : "过期后应重新加载";
+        // 之后写入的数据使用新的上限
+        assert manager.getDataPack("key").pTtl <= 100;
+        // 延长上限不影响已缓存的数据
+        storage.setPTtl(60_000);
+        assert manager.getDataPack("key").pTtl <= 100;
+    }
+
+    @Test
+    public void 异常的生存时间不超过正常数据的生存时间() {
+        LruMemCacheStorage<String, String> storage = (LruMemCacheStorage<String, String>) new LruMemCacheStorage.Builder<String, String>().capacity(10).pTtl(60_000).pTtlErr(30_000).build();
+        storage.setPTtl(1000);
+        assert 1000 == storage.pTtl();
+        assert 1000 == storage.pTtlErr() : "异常的生存时间:" + storage.pTtlErr();
+        storage.setPTtlErr(5000);
+        assert 1000 == storage.pTtlErr();
+        storage.setPTtlErr(-1);
+        assert 1 == storage.pTtlErr();
+    }
+
+    @Test
+    public void 运行时调整数据源超时() {
+        IDatasource<String, String> slowDatasource = s -> {
+            try {
+                Thread.sleep(300);
+            } catch (InterruptedException ignore) {
+            }
+            return "ok";
+        };
+        DataManager<String, String> manager = DataManager.Builder.get("运行时调整", slowDatasource).build();
+        assert null == manager.datasourceTimeout("key");
+        assert "ok".equals(manager.getData("key"));
+
+        manager.setDatasourceTimeout(paramKey -> 50L);
+        assert 50L == manager.datasourceTimeout("key");
+        DataPack<String> pack = manager.getDataPack("key");
+        assert pack.dataCore.exception instanceof CacheWaitException : "应超时";
+
+        manager.setDatasourceTimeout(null);
+        assert null == manager.datasourceTimeout("key");
+        assert "ok".equals(manager.getData("key"));
+    }
+
+    // ***********************内部方法****************************
+
+    private DataManager<String, String> newManager(IDatasource<String, String> datasource, LruMemCacheStorage<String, String> storage) {
+        return DataManager.Builder.get("运行时调整", datasource).withCache(storage).build();
+    }
+}
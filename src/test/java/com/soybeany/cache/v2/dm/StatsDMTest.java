@@ -0,0 +1,90 @@
+package com.soybeany.cache.v2.dm;
+
+import com.soybeany.cache.v2.component.DBSimulationStorage;
+import com.soybeany.cache.v2.contract.user.IDatasource;
+import com.soybeany.cache.v2.core.DataManager;
+import com.soybeany.cache.v2.log.ConsoleLogger;
+import com.soybeany.cache.v2.stats.CacheStats;
+import com.soybeany.cache.v2.storage.LruMemCacheStorage;
+import org.junit.Test;
+
+/**
+ * 测试缓存统计
+ */
+public class StatsDMTest {
+
+    private final IDatasource<String, String> datasource = s -> {
+        if (s.startsWith("error")) {
+            throw new RuntimeException("测试异常");
+        }
+        return "数据:" + s;
+    };
+
+    @Test
+    public void 多级缓存的命中与提升() {
+        LruMemCacheStorage<String, String> l1 = new LruMemCacheStorage.Builder<String, String>().capacity(2).build();
+        DataManager<String, String> manager = DataManager.Builder
+                .get("统计测试", datasource)
+                .withCache(l1)
+                .withCache(new DBSimulationStorage<>())
+                .logger(new ConsoleLogger())
+                .build();
+        // 3次加载，l1容量为2，淘汰1条
+        manager.getData("a");
+        manager.getData("b");
+        manager.getData("c");
+        // l1命中
+        manager.getData("c");
+        // l1未命中、l2命中，并提升到l1
+        manager.getData("a");
+        manager.getDataPack("error");
+
+        CacheStats stats = manager.stats();
+        assert 4 == stats.missCount : "未命中次数错误:" + stats;
+        assert 2 == stats.hitCount : "命中次数错误:" + stats;
+        assert 4 == stats.loadCount && 1 == stats.loadFailureCount : "加载次数错误:" + stats;
+        CacheStats.TierStats tier1 = stats.tiers.get(0);
+        CacheStats.TierStats tier2 = stats.tiers.get(1);
+        assert 1 == tier1.hitCount && 5 == tier1.missCount : "一级缓存统计错误:" + stats;
+        assert 1 == tier2.hitCount && 4 == tier2.missCount : "二级缓存统计错误:" + stats;
+        assert 5 == tier1.promotionCount : "一级缓存的写入次数错误:" + stats;
+        assert tier1.evictionCount >= 2 : "一级缓存应有淘汰:" + stats;
+        assert 0 == tier2.evictionCount;
+        assert Math.abs(stats.hitRate() - 2.0 / 6) < 1e-9;
+    }
+
+    @Test
+    public void 短超时回退计入回退次数() {
+        DataManager<String, String> manager = DataManager.Builder
+                .get("回退统计测试", (IDatasource<String, String>) s -> {
+                    try {
+                        Thread.sleep(300);
+                    } catch (InterruptedException ignore) {
+                    }
+                    return "数据";
+                })
+                .withCache(new LruMemCacheStorage.Builder<String, String>().build())
+                .build();
+        manager.getDataPackWithCacheFallback("key", 50);
+        CacheStats stats = manager.stats();
+        assert 1 == stats.fallbackCount : "应计入一次回退:" + stats;
+        assert 1 == stats.missCount;
+    }
+
+    @Test
+    public void 快照不受后续请求影响() {
+        DataManager<String, String> manager = DataManager.Builder
+                .get("快照测试", datasource)
+                .withCache(new LruMemCacheStorage.Builder<String, String>().build())
+                .build();
+        manager.getData("a");
+        CacheStats stats = manager.stats();
+        manager.getData("a");
+        assert 0 == stats.hitCount && 1 == manager.stats().hitCount;
+        try {
+            stats.tiers.clear();
+            throw new IllegalStateException("快照不应允许修改");
+        } catch (UnsupportedOperationException ignore) {
+        }
+    }
+}
@@ -0,0 +1,365 @@
+package com.soybeany.cache.v2.dm;
+
+import com.soybeany.cache.v2.contract.frame.ICacheStorage;
+import com.soybeany.cache.v2.core.CacheRegistry;
+import com.soybeany.cache.v2.core.DataManager;
+import com.soybeany.cache.v2.exception.NoCacheException;
+import com.soybeany.cache.v2.model.DataContext;
+import com.soybeany.cache.v2.model.DataPack;
+import com.soybeany.cache.v2.model.DataParam;
+import com.soybeany.cache.v2.storage.LruMemCacheStorage;
+import com.soybeany.cache.v2.storage.WriteBehindStorage;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+
+public class WriteBehindDMTest {
+
+    private final LruMemCacheStorage<String, String> l1 = new LruMemCacheStorage.Builder<String, String>().capacity(100).build();
+    private final RecordingStorage l2 = new RecordingStorage();
+
+    @Test
+    public void 写入后立刻可读() {
+        WriteBehindStorage<String, String> storage = newStorage().build();
+        DataManager<String, String> manager = newManager(storage);
+        assert "key".equals(manager.getData("key"));
+        assert 0 == l2.cachedDataCount() : "不应同步写入下级存储器";
+        assert 1 == storage.pendingCount();
+        manager.removeCache("key", 0);
+        DataPack<String> pack = manager.getDataPack("key");
+        assert storage == pack.provider && "key".equals(pack.getData()) : "应读取到待写的数据";
+        storage.flush();
+        assert 0 == storage.pendingCount();
+        assert 1 == l2.cachedDataCount();
+        assert 1 == storage.flushedCount();
+        manager.removeCache("key", 0);
+        pack = manager.getDataPack("key");
+        assert storage != pack.provider && "key".equals(pack.getData()) : "写入后应从下级存储器读取";
+        storage.close();
+    }
+
+    @Test
+    public void 同一key的写入合并() {
+        WriteBehindStorage<String, String> storage = newStorage().build();
+        DataManager<String, String> manager = newManager(storage);
+        manager.cacheData("key", "v1");
+        manager.cacheData("key", "v2");
+        manager.cacheData("key", "v3");
+        assert 1 == storage.pendingCount();
+        storage.flush();
+        assert Collections.singletonList(1).equals(l2.batchSizes) : "批次:" + l2.batchSizes;
+        manager.removeCache("key", 0);
+        assert "v3".equals(manager.getData("key"));
+        storage.close();
+    }
+
+    @Test
+    public void 积累满一批时分批写入() throws Exception {
+        WriteBehindStorage<String, String> storage = newStorage().maxBatchSize(10).build();
+        DataManager<String, String> manager = newManager(storage);
+        for (int i = 0; i < 25; i++) {
+            manager.getData("key" + i);
+        }
+        long deadline = System.currentTimeMillis() + 2000;
+        while (storage.pendingCount() >= 10 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assert storage.pendingCount() < 10 : "应在定时写入前触发写入:" + storage.pendingCount();
+        storage.flush();
+        assert 25 == l2.cachedDataCount();
+        int total = 0;
+        synchronized (l2.batchSizes) {
+            for (int size : l2.batchSizes) {
+                assert size <= 10 : "批次:" + l2.batchSizes;
+                total += size;
+            }
+        }
+        assert 25 == total;
+        storage.close();
+    }
+
+    @Test
+    public void 队列已满时同步写入() {
+        WriteBehindStorage<String, String> storage = newStorage().maxPendingKeys(2).build();
+        DataManager<String, String> manager = newManager(storage);
+        manager.getData("a");
+        manager.getData("b");
+        manager.getData("c");
+        assert 2 == storage.pendingCount();
+        assert 1 == storage.syncWriteCount();
+        assert 1 == l2.cachedDataCount();
+        // 已在队列中的key仍可合并
+        manager.cacheData("a", "new");
+        assert 1 == storage.syncWriteCount();
+        storage.close();
+    }
+
+    @Test
+    public void 批量写入期间的操作不等待写入完成() throws Exception {
+        WriteBehindStorage<String, String> storage = newStorage().maxPendingKeys(2).build();
+        DataManager<String, String> manager = newManager(storage);
+        manager.getData("a");
+        manager.getData("b");
+        Thread flusher = startBlockedFlush(storage);
+        // 批量写入完成前"a"、"b"仍在队列中，"c"需同步写入
+        manager.getData("c");
+        assert 1 == storage.syncWriteCount();
+        assert 1 == l2.cachedDataCount() : "同步写入不应等待批量写入";
+        manager.removeCache("a");
+        manager.invalidCache("b");
+        l2.batchRelease.countDown();
+        flusher.join();
+        assert null == l2.onFindCacheIgnoreExpiry(param("a")) : "写入期间移除的数据不应被重新写入";
+        assert null == l2.onFindCache(param("b")) && null != l2.onFindCacheIgnoreExpiry(param("b")) : "写入期间失效的数据应保持失效";
+        assert null != l2.onFindCache(param("c"));
+        storage.close();
+    }
+
+    @Test
+    public void 批量写入期间清除的数据不被重新写入() throws Exception {
+        WriteBehindStorage<String, String> storage = newStorage().build();
+        DataManager<String, String> manager = newManager(storage);
+        manager.getData("a");
+        manager.getData("b");
+        Thread flusher = startBlockedFlush(storage);
+        manager.clearCache();
+        l2.batchRelease.countDown();
+        flusher.join();
+        assert 0 == l2.cachedDataCount() : "写入期间清除的数据不应被重新写入:" + l2.cachedDataCount();
+        assert 2 == storage.flushedCount();
+        storage.close();
+    }
+
+    @Test
+    public void 定时写入使用独立的线程() throws Exception {
+        CacheRegistry registry = new CacheRegistry.Builder().build();
+        WriteBehindStorage<String, String> storage = new WriteBehindStorage.Builder<>((ICacheStorage<String, String>) l2)
+                .flushIntervalMs(10).registry(registry).build();
+        DataManager<String, String> manager = newManager(storage);
+        manager.getData("a");
+        long deadline = System.currentTimeMillis() + 2000;
+        while (null == l2.batchThread && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assert "bd-cache-write-behind".equals(l2.batchThread) : "写入线程:" + l2.batchThread;
+        registry.shutdown(1000);
+    }
+
+    @Test
+    public void 下次检查时间在写入后设置到下级存储器() {
+        WriteBehindStorage<String, String> storage = newStorage().build();
+        DataManager<String, String> manager = newManager(storage);
+        DataParam<String> param = new DataParam<>("异步写入", "key", "key");
+        manager.getData("key");
+        storage.setNextCheckStamp(param, 12345L);
+        assert 12345L == storage.getNextCheckStamp(param);
+        assert 0 == l2.cachedDataCount() : "不应因设置检查时间而写入";
+        storage.flush();
+        assert 12345L == l2.getNextCheckStamp(param) : "写入后应设置到下级存储器";
+        assert 12345L == storage.getNextCheckStamp(param);
+        // 已写入的数据直接设置
+        storage.setNextCheckStamp(param, 23456L);
+        assert 23456L == l2.getNextCheckStamp(param);
+        // 重新写入时检查时间随数据重置
+        manager.cacheData("key", "new");
+        assert 0 == storage.getNextCheckStamp(param);
+        storage.close();
+    }
+
+    @Test
+    public void 写入期间移除的数据不设置检查时间() throws Exception {
+        WriteBehindStorage<String, String> storage = newStorage().build();
+        DataManager<String, String> manager = newManager(storage);
+        manager.getData("key");
+        storage.setNextCheckStamp(param("key"), 12345L);
+        Thread flusher = startBlockedFlush(storage);
+        manager.removeCache("key");
+        l2.batchRelease.countDown();
+        flusher.join();
+        assert 0 == l2.getNextCheckStamp(param("key"));
+        storage.close();
+    }
+
+    @Test
+    public void 移除时丢弃待写的数据() {
+        WriteBehindStorage<String, String> storage = newStorage().build();
+        DataManager<String, String> manager = newManager(storage);
+        manager.getData("a");
+        manager.getData("b");
+        manager.removeCache("a");
+        storage.flush();
+        assert 1 == l2.cachedDataCount();
+        assert !manager.containCache("a");
+        manager.getData("c");
+        manager.clearCache();
+        storage.flush();
+        assert 0 == l2.cachedDataCount();
+        storage.close();
+    }
+
+    @Test
+    public void 批量写入失败时丢弃() {
+        WriteBehindStorage<String, String> storage = newStorage().build();
+        DataManager<String, String> manager = newManager(storage);
+        l2.fail = true;
+        manager.getData("a");
+        manager.getData("b");
+        storage.flush();
+        assert 2 == storage.failedCount();
+        assert 0 == storage.pendingCount();
+        assert 0 == storage.flushedCount();
+        storage.close();
+    }
+
+    @Test
+    public void 关闭时写入全部数据() {
+        WriteBehindStorage<String, String> storage = newStorage().build();
+        DataManager<String, String> manager = newManager(storage);
+        for (int i = 0; i < 5; i++) {
+            manager.getData("key" + i);
+        }
+        storage.close();
+        assert 5 == l2.cachedDataCount();
+        // 关闭后同步写入
+        manager.getData("late");
+        assert 6 == l2.cachedDataCount();
+        assert 0 == storage.pendingCount();
+    }
+
+    @Test
+    public void 随注册中心关闭() {
+        CacheRegistry registry = new CacheRegistry.Builder().build();
+        WriteBehindStorage<String, String> storage = newStorage().registry(registry).build();
+        DataManager<String, String> manager = newManager(storage);
+        manager.getData("a");
+        manager.getData("b");
+        registry.shutdown(1000);
+        assert 2 == l2.cachedDataCount() : "注册中心关闭时应写入待写的数据";
+    }
+
+    // ***********************内部方法****************************
+
+    private WriteBehindStorage.Builder<String, String> newStorage() {
+        // 定时写入的间隔较长，由测试控制写入时机
+        return new WriteBehindStorage.Builder<>((ICacheStorage<String, String>) l2).flushIntervalMs(60_000);
+    }
+
+    /**
+     * 在另一线程中开始写入，返回时批量写入已进入下级存储器并等待{@link RecordingStorage#batchRelease}
+     */
+    private Thread startBlockedFlush(WriteBehindStorage<String, String> storage) throws InterruptedException {
+        l2.batchEntered = new CountDownLatch(1);
+        l2.batchRelease = new CountDownLatch(1);
+        Thread flusher = new Thread(storage::flush);
+        flusher.start();
+        l2.batchEntered.await();
+        return flusher;
+    }
+
+    private static DataParam<String> param(String key) {
+        return new DataParam<>("异步写入", key, key);
+    }
+
+    private DataManager<String, String> newManager(WriteBehindStorage<String, String> storage) {
+        return DataManager.Builder.get("异步写入", (String s) -> s)
+                .withCache(l1)
+                .withCache(storage)
+                .build();
+    }
+
+    // ***********************内部类****************************
+
+    /**
+     * 记录批量写入的存储器
+     */
+    private static class RecordingStorage implements ICacheStorage<String, String> {
+        private final LruMemCacheStorage<String, String> target = new LruMemCacheStorage.Builder<String, String>().capacity(1000).build();
+        final List<Integer> batchSizes = Collections.synchronizedList(new ArrayList<>());
+        volatile boolean fail;
+        volatile CountDownLatch batchEntered;
+        volatile CountDownLatch batchRelease;
+        volatile String batchThread;
+
+        @Override
+        public String desc() {
+            return "记录";
+        }
+
+        @Override
+        public void onInit(DataContext context) {
+            target.onInit(context);
+        }
+
+        @Override
+        public DataPack<String> onGetCache(DataParam<String> param) throws NoCacheException {
+            return target.onGetCache(param);
+        }
+
+        @Override
+        public DataPack<String> onGetCacheIgnoreExpiry(DataParam<String> param) throws NoCacheException {
+            return target.onGetCacheIgnoreExpiry(param);
+        }
+
+        @Override
+        public DataPack<String> onCacheData(DataParam<String> param, DataPack<String> dataPack) {
+            return target.onCacheData(param, dataPack);
+        }
+
+        @Override
+        public Map<DataParam<String>, DataPack<String>> onBatchCacheData(Map<DataParam<String>, DataPack<String>> dataPacks) {
+            if (fail) {
+                throw new RuntimeException("写入失败");
+            }
+            if (null != batchRelease) {
+                batchEntered.countDown();
+                try {
+                    batchRelease.await();
+                } catch (InterruptedException e) {
+                    throw new RuntimeException(e);
+                }
+            }
+            batchSizes.add(dataPacks.size());
+            batchThread = Thread.currentThread().getName();
+            return target.onBatchCacheData(dataPacks);
+        }
+
+        @Override
+        public void onInvalidCache(DataParam<String> param) {
+            target.onInvalidCache(param);
+        }
+
+        @Override
+        public void onRemoveCache(DataParam<String> param) {
+            target.onRemoveCache(param);
+        }
+
+        @Override
+        public void onClearCache() {
+            target.onClearCache();
+        }
+
+        @Override
+        public long getNextCheckStamp(DataParam<String> param) {
+            return target.getNextCheckStamp(param);
+        }
+
+        @Override
+        public void setNextCheckStamp(DataParam<String> param, long stamp) {
+            target.setNextCheckStamp(param, stamp);
+        }
+
+        @Override
+        public void enableRenewExpiredCache(boolean enable) {
+            target.enableRenewExpiredCache(enable);
+        }
+
+        @Override
+        public int cachedDataCount() {
+            return target.cachedDataCount();
+        }
+    }
+}
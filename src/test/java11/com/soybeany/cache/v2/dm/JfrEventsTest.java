@@ -0,0 +1,73 @@
+package com.soybeany.cache.v2.dm;
+
+import com.soybeany.cache.v2.core.DataManager;
+import com.soybeany.cache.v2.jfr.CacheEvents;
+import com.soybeany.cache.v2.storage.LruMemCacheStorage;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * 测试缓存操作的JFR事件
+ */
+public class JfrEventsTest {
+
+    private static final String[] EVENT_NAMES = {
+            "bd.cache.DatasourceLoad", "bd.cache.FetchLockWait", "bd.cache.TierMiss",
+            "bd.cache.Promotion", "bd.cache.Fallback", "bd.cache.Eviction"
+    };
+
+    @Test
+    public void 未录制时不创建事件() {
+        assert null == CacheEvents.beginLoad();
+        assert null == CacheEvents.beginLookup();
+        assert null == CacheEvents.beginLockWait();
+        assert null == CacheEvents.beginPromotion();
+    }
+
+    @Test
+    public void 录制时记录缓存事件() throws Exception {
+        DataManager<String, String> manager = DataManager.Builder
+                .get("JFR测试", s -> "数据:" + s)
+                .withCache(new LruMemCacheStorage.Builder<String, String>().capacity(1).build())
+                .withCache(new LruMemCacheStorage.Builder<String, String>().capacity(10).build())
+                .build();
+        List<RecordedEvent> events;
+        Path file = Files.createTempFile("bd-cache", ".jfr");
+        try (Recording recording = new Recording()) {
+            for (String name : EVENT_NAMES) {
+                recording.enable(name).withThreshold(java.time.Duration.ZERO);
+            }
+            recording.start();
+            // a、b各加载一次，l1容量为1，a被淘汰；再次获取a时l1未命中、l2命中并提升
+            manager.getData("a");
+            manager.getData("b");
+            manager.getData("a");
+            recording.stop();
+            recording.dump(file);
+            events = RecordingFile.readAllEvents(file);
+        } finally {
+            Files.delete(file);
+        }
+        Map<String, List<RecordedEvent>> byName = events.stream()
+                .filter(e -> e.getEventType().getName().startsWith("bd.cache."))
+                .collect(Collectors.groupingBy(e -> e.getEventType().getName()));
+        assert 2 == byName.get("bd.cache.DatasourceLoad").size() : "应有两次加载:" + byName.keySet();
+        assert 2 == byName.get("bd.cache.FetchLockWait").size();
+        assert 3 == byName.get("bd.cache.TierMiss").size();
+        assert byName.get("bd.cache.Eviction").size() >= 1;
+        // 两次加载各写入两级，一次提升到l1
+        assert 5 == byName.get("bd.cache.Promotion").size();
+        RecordedEvent miss = byName.get("bd.cache.TierMiss").get(2);
+        assert "a".equals(miss.getString("key")) && 1 == miss.getInt("hitTier") && 1 == miss.getInt("missedTiers");
+        RecordedEvent load = byName.get("bd.cache.DatasourceLoad").get(0);
+        assert load.getBoolean("success") && "JFR测试".equals(load.getString("dataDesc"));
+    }
+}